@@ -0,0 +1,131 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web;
+
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import io.opentracing.contrib.spring.web.client.RestTemplateSpanDecorator;
+import io.opentracing.contrib.spring.web.client.WebClientSpanDecorator;
+import io.opentracing.contrib.spring.web.webfilter.WebFluxSpanDecorator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code StandardTags} decorators of the server and client instrumentations applied on request and response.
+ * {@link #baseline()} measures starting and finishing the span without decorators.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StandardTagsBenchmark {
+
+    private static final URI URL = URI.create("http://localhost:8080/api/orders");
+
+    @Param({BenchmarkTracers.NOOP, BenchmarkTracers.MOCK})
+    public String tracer;
+
+    @Param({"false", "true"})
+    public boolean lazyUrl;
+
+    private Tracer tracerInstance;
+
+    private WebFluxSpanDecorator webFluxStandardTags;
+    private ServerWebExchange exchange;
+
+    private RestTemplateSpanDecorator restTemplateStandardTags;
+    private MockClientHttpRequest clientHttpRequest;
+    private ClientHttpResponse clientHttpResponse;
+
+    private WebClientSpanDecorator webClientStandardTags;
+    private ClientRequest clientRequest;
+    private ClientResponse clientResponse;
+
+    @Setup
+    public void setup() {
+        tracerInstance = BenchmarkTracers.create(tracer);
+        webFluxStandardTags = new WebFluxSpanDecorator.StandardTags(lazyUrl);
+        restTemplateStandardTags = new RestTemplateSpanDecorator.StandardTags(lazyUrl);
+        webClientStandardTags = new WebClientSpanDecorator.StandardTags(lazyUrl);
+
+        exchange = MockServerWebExchange.from(MockServerHttpRequest.get(URL.toString())
+                .remoteAddress(new InetSocketAddress("127.0.0.1", 51000)));
+        exchange.getResponse().setStatusCode(HttpStatus.OK);
+
+        clientHttpRequest = new MockClientHttpRequest(HttpMethod.GET, URL);
+        clientHttpResponse = new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+
+        clientRequest = ClientRequest.create(HttpMethod.GET, URL).build();
+        clientResponse = ClientResponse.create(HttpStatus.OK).build();
+    }
+
+    @Benchmark
+    public Span baseline() {
+        Span span = tracerInstance.buildSpan("GET").start();
+        span.finish();
+        return span;
+    }
+
+    @Benchmark
+    public Span webFlux() {
+        Span span = tracerInstance.buildSpan("GET").start();
+        webFluxStandardTags.onRequest(exchange, span);
+        webFluxStandardTags.onResponse(exchange, span);
+        span.finish();
+        return span;
+    }
+
+    @Benchmark
+    public Span restTemplate() {
+        Span span = tracerInstance.buildSpan("GET").start();
+        restTemplateStandardTags.onRequest(clientHttpRequest, span);
+        restTemplateStandardTags.onResponse(clientHttpRequest, clientHttpResponse, span);
+        span.finish();
+        return span;
+    }
+
+    @Benchmark
+    public Span webClient() {
+        Span span = tracerInstance.buildSpan("GET").start();
+        webClientStandardTags.onRequest(clientRequest, span);
+        webClientStandardTags.onResponse(clientRequest, clientResponse, span);
+        span.finish();
+        return span;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.client;
+
+import io.opentracing.contrib.spring.web.BenchmarkTracers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumption of a streamed WebClient response body of {@code chunks} data buffers through
+ * {@link TracingExchangeFilterFunction}, comparing {@link ResponseContextMode}s. Dividing by {@code chunks} gives the
+ * per-buffer overhead, {@link #releaseBody()} covers responses whose body is discarded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientResponseBodyBenchmark {
+
+    private static final URI URL = URI.create("http://localhost:8080/api/orders");
+
+    @Param({BenchmarkTracers.NOOP, BenchmarkTracers.MOCK})
+    public String tracer;
+
+    @Param({"REBUILD", "LAZY", "TIMED_BODY"})
+    public ResponseContextMode responseContextMode;
+
+    @Param({"1", "100"})
+    public int chunks;
+
+    private TracingExchangeFilterFunction filterFunction;
+    private ExchangeFunction exchangeFunction;
+    private ClientRequest request;
+
+    @Setup
+    public void setup() {
+        filterFunction = new TracingExchangeFilterFunction(BenchmarkTracers.create(tracer),
+                Collections.singletonList(new WebClientSpanDecorator.StandardTags()), HeaderInjectMode.OVERLAY,
+                responseContextMode);
+        final DataBuffer[] buffers = new DataBuffer[chunks];
+        for (int i = 0; i < chunks; i++) {
+            buffers[i] = new DefaultDataBufferFactory().wrap(new byte[1024]);
+        }
+        exchangeFunction = clientRequest -> Mono.fromSupplier(() ->
+                ClientResponse.create(HttpStatus.OK).body(Flux.fromArray(buffers)).build());
+        request = ClientRequest.create(HttpMethod.GET, URL).build();
+    }
+
+    @Benchmark
+    public Long baseline() {
+        return exchangeFunction.exchange(request)
+                .flatMap(response -> response.bodyToFlux(DataBuffer.class).count())
+                .block();
+    }
+
+    @Benchmark
+    public Long bodyToFlux() {
+        return filterFunction.filter(request, exchangeFunction)
+                .flatMap(response -> response.bodyToFlux(DataBuffer.class).count())
+                .block();
+    }
+
+    @Benchmark
+    public Void releaseBody() {
+        return filterFunction.filter(request, exchangeFunction)
+                .flatMap(ClientResponse::releaseBody)
+                .block();
+    }
+}
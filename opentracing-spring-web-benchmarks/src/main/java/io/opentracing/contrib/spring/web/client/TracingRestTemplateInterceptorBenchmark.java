@@ -0,0 +1,77 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.client;
+
+import io.opentracing.contrib.spring.web.BenchmarkTracers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TracingRestTemplateInterceptor#intercept} of a request answered immediately. {@link #baseline()}
+ * measures the request and execution without the interceptor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TracingRestTemplateInterceptorBenchmark {
+
+    private static final URI URL = URI.create("http://localhost:8080/api/orders");
+    private static final byte[] BODY = new byte[0];
+
+    @Param({BenchmarkTracers.NOOP, BenchmarkTracers.MOCK})
+    public String tracer;
+
+    private TracingRestTemplateInterceptor interceptor;
+    private ClientHttpResponse response;
+    private ClientHttpRequestExecution execution;
+
+    @Setup
+    public void setup() {
+        interceptor = new TracingRestTemplateInterceptor(BenchmarkTracers.create(tracer));
+        response = new MockClientHttpResponse(BODY, HttpStatus.OK);
+        execution = (request, body) -> response;
+    }
+
+    @Benchmark
+    public ClientHttpResponse baseline() throws IOException {
+        return execution.execute(new MockClientHttpRequest(HttpMethod.GET, URL), BODY);
+    }
+
+    @Benchmark
+    public ClientHttpResponse intercept() throws IOException {
+        return interceptor.intercept(new MockClientHttpRequest(HttpMethod.GET, URL), BODY, execution);
+    }
+}
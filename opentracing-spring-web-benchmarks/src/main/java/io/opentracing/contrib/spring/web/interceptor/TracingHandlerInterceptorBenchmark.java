@@ -0,0 +1,96 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.interceptor;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import io.opentracing.contrib.spring.web.BenchmarkTracers;
+import io.opentracing.contrib.web.servlet.filter.TracingFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TracingHandlerInterceptor#preHandle} and {@link TracingHandlerInterceptor#afterCompletion} of a request
+ * whose server span has been started by the servlet filter. {@link #baseline()} measures the request and server
+ * span without the interceptor.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TracingHandlerInterceptorBenchmark {
+
+    @Param({BenchmarkTracers.NOOP, BenchmarkTracers.MOCK})
+    public String tracer;
+
+    private Tracer tracerInstance;
+    private TracingHandlerInterceptor interceptor;
+    private HandlerMethod handler;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        tracerInstance = BenchmarkTracers.create(tracer);
+        interceptor = new TracingHandlerInterceptor(tracerInstance);
+        handler = new HandlerMethod(new OrderController(), OrderController.class.getMethod("orders"));
+    }
+
+    @Benchmark
+    public Object baseline() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        Span serverSpan = tracerInstance.buildSpan("GET").start();
+        request.setAttribute(TracingFilter.SERVER_SPAN_CONTEXT, serverSpan.context());
+        try (Scope scope = tracerInstance.activateSpan(serverSpan)) {
+            serverSpan.finish();
+        }
+        return request;
+    }
+
+    @Benchmark
+    public Object preHandleAfterCompletion() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Span serverSpan = tracerInstance.buildSpan("GET").start();
+        request.setAttribute(TracingFilter.SERVER_SPAN_CONTEXT, serverSpan.context());
+        try (Scope scope = tracerInstance.activateSpan(serverSpan)) {
+            interceptor.preHandle(request, response, handler);
+            interceptor.afterCompletion(request, response, handler, null);
+            serverSpan.finish();
+        }
+        return request;
+    }
+
+    public static class OrderController {
+        @RequestMapping("/api/orders")
+        public String orders() {
+            return "orders";
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AdaptiveRouteTraceDecision#shouldTrace} of an application with {@code routes} templated routes, for requests
+ * spread over 1024 paths. {@code maxPaths=0} disables the path cache, every request is then matched against the
+ * templates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdaptiveRouteTraceDecisionBenchmark {
+
+    private static final int PATHS = 1024;
+
+    @Param({"10", "1000"})
+    public int routes;
+
+    @Param({"0", "10000"})
+    public int maxPaths;
+
+    private AdaptiveRouteTraceDecision decision;
+    private String[] paths;
+    private int next;
+
+    @Setup
+    public void setup() {
+        decision = new AdaptiveRouteTraceDecision(1_000_000, routes, maxPaths);
+        for (int i = 0; i < routes; i++) {
+            String prefix = "/api/resource" + i;
+            decision.onRouteResolved("GET", prefix + "/0/items/0", prefix + "/{id}/items/{item}");
+        }
+        Random random = new Random(42);
+        paths = new String[PATHS];
+        for (int i = 0; i < PATHS; i++) {
+            paths[i] = "/api/resource" + random.nextInt(routes) + "/" + i + "/items/" + random.nextInt(100);
+        }
+    }
+
+    @Benchmark
+    public boolean shouldTrace() {
+        next = (next + 1) & (PATHS - 1);
+        return decision.shouldTrace("GET", paths[next]);
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.webfilter;
+
+import io.opentracing.SpanContext;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.propagation.Format;
+import io.opentracing.propagation.TextMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.HttpHeaders;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link HttpHeadersExtractAdapter} with {@link HttpHeadersEntryView}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpHeadersExtractBenchmark {
+
+    private static final String[] PROPAGATION_HEADER_NAMES = {"traceid", "spanid"};
+
+    @Param({"4", "16", "32"})
+    public int headerCount;
+
+    private HttpHeaders headers;
+    private MockTracer tracer;
+
+    @Setup
+    public void setup() {
+        headers = new HttpHeaders();
+        headers.add("traceid", "1");
+        headers.add("spanid", "2");
+        for (int i = 2; i < headerCount; i++) {
+            headers.add("X-Header-" + i, "value-" + i);
+        }
+        tracer = new MockTracer();
+    }
+
+    @Benchmark
+    public void iterateCopy(final Blackhole blackhole) {
+        iterate(new HttpHeadersExtractAdapter(headers), blackhole);
+    }
+
+    @Benchmark
+    public void iterateEntryView(final Blackhole blackhole) {
+        iterate(new HttpHeadersEntryView(headers, null), blackhole);
+    }
+
+    @Benchmark
+    public void iterateKeyed(final Blackhole blackhole) {
+        iterate(new HttpHeadersEntryView(headers, PROPAGATION_HEADER_NAMES), blackhole);
+    }
+
+    @Benchmark
+    public SpanContext extractCopy() {
+        return tracer.extract(Format.Builtin.HTTP_HEADERS, new HttpHeadersExtractAdapter(headers));
+    }
+
+    @Benchmark
+    public SpanContext extractEntryView() {
+        return tracer.extract(Format.Builtin.HTTP_HEADERS, new HttpHeadersEntryView(headers, null));
+    }
+
+    @Benchmark
+    public SpanContext extractKeyed() {
+        return tracer.extract(Format.Builtin.HTTP_HEADERS, new HttpHeadersEntryView(headers, PROPAGATION_HEADER_NAMES));
+    }
+
+    private static void iterate(final TextMap textMap, final Blackhole blackhole) {
+        for (final Map.Entry<String, String> entry : textMap) {
+            blackhole.consume(entry.getKey());
+            blackhole.consume(entry.getValue());
+        }
+    }
+}
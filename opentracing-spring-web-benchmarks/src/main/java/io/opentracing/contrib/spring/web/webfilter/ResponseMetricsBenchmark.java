@@ -0,0 +1,143 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.webfilter;
+
+import io.opentracing.contrib.spring.web.BenchmarkTracers;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TracingWebFilter#filter} of a request streaming {@code chunks} data buffers, with and without
+ * {@link TracingWebFilter#setResponseMetrics(boolean) response metrics}. Dividing by {@code chunks} gives the
+ * per-buffer overhead of counting. With {@code flush} every buffer is written as its own flushed publisher of
+ * {@code writeAndFlushWith}, e.g. an event of a server-sent events stream.
+ *
+ * {@link #main} is the allocation check of response metrics: it runs the benchmark with the GC profiler and fails
+ * if the normalized allocation ({@value #ALLOC_NORM}, bytes/op) added by counting grows with the number of chunks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseMetricsBenchmark {
+    static final String ALLOC_NORM = "gc.alloc.rate.norm";
+    private static final double MAX_ALLOC_PER_CHUNK = 8;
+
+    @Param({BenchmarkTracers.NOOP, BenchmarkTracers.MOCK})
+    public String tracer;
+
+    @Param({"false", "true"})
+    public boolean responseMetrics;
+
+    @Param({"1", "100"})
+    public int chunks;
+
+    @Param({"false", "true"})
+    public boolean flush;
+
+    private TracingWebFilter filter;
+    private WebFilterChain chain;
+
+    @Setup
+    public void setup() {
+        filter = new TracingWebFilter(BenchmarkTracers.create(tracer), Integer.MIN_VALUE, null,
+                Collections.emptyList(), Collections.singletonList(new WebFluxSpanDecorator.StandardTags()));
+        filter.setResponseMetrics(responseMetrics);
+        final DataBuffer[] buffers = new DataBuffer[chunks];
+        final Publisher<?>[] flushed = new Publisher<?>[chunks];
+        for (int i = 0; i < chunks; i++) {
+            buffers[i] = new DefaultDataBufferFactory().wrap(new byte[1024]);
+            flushed[i] = Mono.just(buffers[i]);
+        }
+        if (flush) {
+            @SuppressWarnings("unchecked")
+            final Publisher<DataBuffer>[] publishers = (Publisher<DataBuffer>[]) flushed;
+            chain = exchange -> exchange.getResponse().writeAndFlushWith(Flux.fromArray(publishers));
+        } else {
+            chain = exchange -> exchange.getResponse().writeWith(Flux.fromArray(buffers));
+        }
+    }
+
+    @Benchmark
+    public Void filter() {
+        return filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("http://localhost:8080/api/feed")),
+                chain).block();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(ResponseMetricsBenchmark.class.getName())
+                .param("tracer", BenchmarkTracers.NOOP)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+
+        // bytes/op keyed by flush, chunks and response metrics
+        Map<String, Double> allocations = new HashMap<>();
+        for (RunResult result : results) {
+            allocations.put(result.getParams().getParam("flush") + "/" + result.getParams().getParam("chunks")
+                    + "/" + result.getParams().getParam("responseMetrics"), allocNorm(result));
+        }
+        for (String flush : new String[]{"false", "true"}) {
+            double counting1 = allocations.get(flush + "/1/true") - allocations.get(flush + "/1/false");
+            double counting100 = allocations.get(flush + "/100/true") - allocations.get(flush + "/100/false");
+            double perChunk = (counting100 - counting1) / 99;
+            System.out.printf("flush=%s: counting allocates %.1f B/op, %.1f B/chunk%n", flush, counting1, perChunk);
+            if (perChunk > MAX_ALLOC_PER_CHUNK) {
+                throw new IllegalStateException("Response metrics allocate " + perChunk + " bytes per chunk with flush="
+                        + flush);
+            }
+        }
+    }
+
+    private static double allocNorm(RunResult result) {
+        for (Map.Entry<String, Result> secondary : result.getSecondaryResults().entrySet()) {
+            // JMH prefixes the profiler results with a separator
+            if (secondary.getKey().endsWith(ALLOC_NORM)) {
+                return secondary.getValue().getScore();
+            }
+        }
+        throw new IllegalStateException("No " + ALLOC_NORM + " result, run with the GC profiler");
+    }
+}
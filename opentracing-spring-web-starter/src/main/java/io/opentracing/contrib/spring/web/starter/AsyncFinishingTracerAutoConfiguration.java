@@ -0,0 +1,66 @@
+/**
+ * Copyright 2016-2019 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.starter;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import io.opentracing.Tracer;
+import io.opentracing.contrib.spring.web.support.AsyncFinishingTracer;
+
+/**
+ * Wraps the {@link Tracer} bean in an {@link AsyncFinishingTracer} when
+ * {@code opentracing.spring.web.async-finish} is enabled.
+ *
+ * <p>The runtime type of the tracer bean changes, so injection points and casts of the concrete tracer type fail.
+ * Spans are activated as wrappers of the delegate spans, so scope managers casting spans to their own
+ * implementation fail as well.
+ */
+@Configuration
+@ConditionalOnProperty(name = WebTracingProperties.CONFIGURATION_PREFIX + ".async-finish", havingValue = "true")
+public class AsyncFinishingTracerAutoConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = WebTracingProperties.CONFIGURATION_PREFIX + ".enabled", havingValue = "true",
+            matchIfMissing = true)
+    public static BeanPostProcessor asyncFinishingTracerPostProcessor(Environment environment) {
+        // bound here, a post processor is created before configuration properties beans
+        int capacity = Binder.get(environment)
+                .bind(WebTracingProperties.CONFIGURATION_PREFIX + ".async-finish-capacity", Integer.class)
+                .orElse(AsyncFinishingTracer.DEFAULT_CAPACITY);
+        return new AsyncFinishingTracerPostProcessor(capacity);
+    }
+
+    static class AsyncFinishingTracerPostProcessor implements BeanPostProcessor {
+
+        private final int capacity;
+
+        AsyncFinishingTracerPostProcessor(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+            if (bean instanceof Tracer && !(bean instanceof AsyncFinishingTracer)) {
+                return new AsyncFinishingTracer((Tracer) bean, capacity);
+            }
+            return bean;
+        }
+    }
+}
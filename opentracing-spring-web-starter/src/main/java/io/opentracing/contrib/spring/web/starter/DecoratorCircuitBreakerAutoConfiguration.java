@@ -0,0 +1,39 @@
+/**
+ * Copyright 2016-2019 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.starter;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreakers;
+
+/**
+ * Provides the circuit breakers of the span decorators of all instrumentations, with the configured failure threshold
+ * and cooldown.
+ */
+@Configuration
+@EnableConfigurationProperties(WebTracingProperties.class)
+@ConditionalOnProperty(name = WebTracingProperties.CONFIGURATION_PREFIX + ".enabled", havingValue = "true", matchIfMissing = true)
+public class DecoratorCircuitBreakerAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public DecoratorCircuitBreakers decoratorCircuitBreakers(WebTracingProperties webTracingProperties) {
+        return new DecoratorCircuitBreakers(webTracingProperties.getDecoratorFailureThreshold(),
+                webTracingProperties.getDecoratorCooldown().toMillis());
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright 2016-2019 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.starter;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.opentracing.contrib.spring.web.support.OverloadProtection;
+
+/**
+ * Creates the {@link OverloadProtection} shared by the servlet and WebFlux tracing filters when
+ * {@code opentracing.spring.web.overload-protection} is enabled, and binds its state to Micrometer.
+ */
+@Configuration
+@ConditionalOnProperty(name = WebTracingProperties.CONFIGURATION_PREFIX + ".overload-protection", havingValue = "true")
+@EnableConfigurationProperties(WebTracingProperties.class)
+public class OverloadProtectionAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public OverloadProtection overloadProtection(WebTracingProperties webTracingProperties) {
+        OverloadProtection overloadProtection = new OverloadProtection(
+                webTracingProperties.getOverloadReducedTagsThreshold(),
+                webTracingProperties.getOverloadNoLogsThreshold(),
+                webTracingProperties.getOverloadPropagationOnlyThreshold());
+        overloadProtection.setKeepContinuedTraces(webTracingProperties.isOverloadKeepContinuedTraces());
+        return overloadProtection;
+    }
+
+    @Configuration
+    @ConditionalOnClass(MeterBinder.class)
+    static class OverloadProtectionMetrics {
+
+        /**
+         * Exposes {@code opentracing.overload.level} (ordinal of the level a request would enter at),
+         * {@code opentracing.overload.in_flight} and {@code opentracing.overload.requests} by level.
+         */
+        @Bean
+        public MeterBinder overloadProtectionMeterBinder(OverloadProtection overloadProtection) {
+            return registry -> {
+                Gauge.builder("opentracing.overload.level", overloadProtection,
+                        protection -> protection.getLevel().ordinal())
+                        .description("Degradation level of the tracing of requests entering now")
+                        .register(registry);
+                Gauge.builder("opentracing.overload.in_flight", overloadProtection,
+                        OverloadProtection::getInFlight)
+                        .description("Requests in flight through the tracing filters")
+                        .register(registry);
+                for (OverloadProtection.Level level : OverloadProtection.Level.values()) {
+                    FunctionCounter.builder("opentracing.overload.requests", overloadProtection,
+                            protection -> protection.getRequests(level))
+                            .tag("level", level.name())
+                            .description("Requests by degradation level of their tracing")
+                            .register(registry);
+                }
+            };
+        }
+    }
+}
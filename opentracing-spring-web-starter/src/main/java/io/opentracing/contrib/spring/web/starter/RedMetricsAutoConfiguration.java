@@ -0,0 +1,44 @@
+/**
+ * Copyright 2016-2019 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.starter;
+
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentracing.contrib.spring.web.support.RedMetricsRecorder;
+
+/**
+ * Records request metrics with a {@link RedMetricsRecorder}. Server requests are recorded by the tracing servlet
+ * filter and web filter, including the requests they do not trace (skip pattern, URL patterns, trace decision or
+ * overload protection). Client requests are recorded by the {@code RestTemplate} and {@code WebClient}
+ * instrumentation. The instrumentation looks up the recorder bean.
+ */
+@Configuration
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnBean(MeterRegistry.class)
+@ConditionalOnProperty(name = WebTracingProperties.CONFIGURATION_PREFIX + ".red-metrics", havingValue = "true")
+@AutoConfigureAfter(
+        name = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
+public class RedMetricsAutoConfiguration {
+
+    @Bean
+    public RedMetricsRecorder redMetricsRecorder(MeterRegistry meterRegistry) {
+        return new RedMetricsRecorder(meterRegistry);
+    }
+}
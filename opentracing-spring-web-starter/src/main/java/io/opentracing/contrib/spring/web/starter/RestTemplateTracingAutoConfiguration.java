@@ -19,8 +19,12 @@ import io.opentracing.contrib.spring.web.client.RestTemplateSpanDecorator;
 import io.opentracing.contrib.spring.web.client.TracingAsyncRestTemplateInterceptor;
 import io.opentracing.contrib.spring.web.starter.client.TracingRestTemplateCustomizer;
 import io.opentracing.contrib.spring.web.client.TracingRestTemplateInterceptor;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreakers;
+import io.opentracing.contrib.spring.web.support.RedMetricsRecorder;
+import io.opentracing.contrib.spring.web.support.TracingStats;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -54,7 +58,7 @@ import java.util.Set;
 @ConditionalOnBean(Tracer.class)
 @ConditionalOnClass(RestTemplate.class)
 @ConditionalOnProperty(prefix = WebClientTracingProperties.CONFIGURATION_PREFIX, name = "enabled", matchIfMissing = true)
-@AutoConfigureAfter(TracerAutoConfiguration.class)
+@AutoConfigureAfter({TracerAutoConfiguration.class, DecoratorCircuitBreakerAutoConfiguration.class})
 @EnableConfigurationProperties(WebClientTracingProperties.class)
 public class RestTemplateTracingAutoConfiguration {
 
@@ -68,8 +72,9 @@ public class RestTemplateTracingAutoConfiguration {
     public static class StandardTagsConfiguration {
 
         @Bean
-        public RestTemplateSpanDecorator.StandardTags standardTagsRestTemplateSpanDecorator() {
-            return new RestTemplateSpanDecorator.StandardTags();
+        public RestTemplateSpanDecorator.StandardTags standardTagsRestTemplateSpanDecorator(
+                WebClientTracingProperties webClientTracingProperties) {
+            return new RestTemplateSpanDecorator.StandardTags(webClientTracingProperties.isLazyUrlTag());
         }
     }
 
@@ -83,13 +88,22 @@ public class RestTemplateTracingAutoConfiguration {
         private final Tracer tracer;
         private final List<RestTemplateSpanDecorator> spanDecorators;
         private final Set<InterceptingHttpAccessor> restTemplates;
+        private final ObjectProvider<DecoratorCircuitBreakers> decoratorCircuitBreakers;
+        private final ObjectProvider<RedMetricsRecorder> redMetricsRecorder;
+        private final ObjectProvider<TracingStats> tracingStats;
 
         public RestTemplatePostProcessingConfiguration(Tracer tracer,
                                                        List<RestTemplateSpanDecorator> spanDecorators,
-                                                       Set<InterceptingHttpAccessor> restTemplates) {
+                                                       Set<InterceptingHttpAccessor> restTemplates,
+                                                       ObjectProvider<DecoratorCircuitBreakers> decoratorCircuitBreakers,
+                                                       ObjectProvider<RedMetricsRecorder> redMetricsRecorder,
+                                                       ObjectProvider<TracingStats> tracingStats) {
             this.tracer = tracer;
             this.spanDecorators = spanDecorators;
             this.restTemplates = restTemplates;
+            this.decoratorCircuitBreakers = decoratorCircuitBreakers;
+            this.redMetricsRecorder = redMetricsRecorder;
+            this.tracingStats = tracingStats;
         }
 
         @PostConstruct
@@ -110,7 +124,12 @@ public class RestTemplateTracingAutoConfiguration {
 
             log.debug("Adding " + TracingRestTemplateInterceptor.class.getSimpleName() + " to " + restTemplate);
             interceptors = new ArrayList<>(interceptors);
-            interceptors.add(new TracingRestTemplateInterceptor(tracer, spanDecorators));
+            TracingRestTemplateInterceptor tracingInterceptor = new TracingRestTemplateInterceptor(tracer,
+                    spanDecorators);
+            decoratorCircuitBreakers.ifAvailable(tracingInterceptor::setDecoratorCircuitBreakers);
+            redMetricsRecorder.ifAvailable(tracingInterceptor::setRedMetricsRecorder);
+            tracingStats.ifAvailable(tracingInterceptor::setTracingStats);
+            interceptors.add(tracingInterceptor);
             restTemplate.setInterceptors(interceptors);
         }
     }
@@ -128,13 +147,22 @@ public class RestTemplateTracingAutoConfiguration {
         private final Tracer tracer;
         private final List<RestTemplateSpanDecorator> spanDecorators;
         private final Set<InterceptingAsyncHttpAccessor> restTemplates;
+        private final ObjectProvider<DecoratorCircuitBreakers> decoratorCircuitBreakers;
+        private final ObjectProvider<RedMetricsRecorder> redMetricsRecorder;
+        private final ObjectProvider<TracingStats> tracingStats;
 
         public AsyncRestTemplatePostProcessingConfiguration(Tracer tracer,
                                                             List<RestTemplateSpanDecorator> spanDecorators,
-                                                            Set<InterceptingAsyncHttpAccessor> restTemplates) {
+                                                            Set<InterceptingAsyncHttpAccessor> restTemplates,
+                                                            ObjectProvider<DecoratorCircuitBreakers> decoratorCircuitBreakers,
+                                                       ObjectProvider<RedMetricsRecorder> redMetricsRecorder,
+                                                       ObjectProvider<TracingStats> tracingStats) {
             this.tracer = tracer;
             this.spanDecorators = spanDecorators;
             this.restTemplates = restTemplates;
+            this.decoratorCircuitBreakers = decoratorCircuitBreakers;
+            this.redMetricsRecorder = redMetricsRecorder;
+            this.tracingStats = tracingStats;
         }
 
         @PostConstruct
@@ -155,7 +183,12 @@ public class RestTemplateTracingAutoConfiguration {
 
             log.debug("Adding " + TracingAsyncRestTemplateInterceptor.class.getSimpleName() + " to " + restTemplate);
             interceptors = new ArrayList<>(interceptors);
-            interceptors.add(new TracingAsyncRestTemplateInterceptor(tracer, spanDecorators));
+            TracingAsyncRestTemplateInterceptor tracingInterceptor = new TracingAsyncRestTemplateInterceptor(tracer,
+                    spanDecorators);
+            decoratorCircuitBreakers.ifAvailable(tracingInterceptor::setDecoratorCircuitBreakers);
+            redMetricsRecorder.ifAvailable(tracingInterceptor::setRedMetricsRecorder);
+            tracingStats.ifAvailable(tracingInterceptor::setTracingStats);
+            interceptors.add(tracingInterceptor);
             restTemplate.setInterceptors(interceptors);
         }
     }
@@ -181,8 +214,15 @@ public class RestTemplateTracingAutoConfiguration {
 
         @Bean
         @ConditionalOnMissingBean(TracingRestTemplateCustomizer.class)
-        public TracingRestTemplateCustomizer tracingRestTemplateCustomizer() {
-            return new TracingRestTemplateCustomizer(tracer, spanDecorators);
+        public TracingRestTemplateCustomizer tracingRestTemplateCustomizer(
+                ObjectProvider<DecoratorCircuitBreakers> decoratorCircuitBreakers,
+                ObjectProvider<RedMetricsRecorder> redMetricsRecorder,
+                ObjectProvider<TracingStats> tracingStats) {
+            TracingRestTemplateCustomizer customizer = new TracingRestTemplateCustomizer(tracer, spanDecorators);
+            decoratorCircuitBreakers.ifAvailable(customizer::setDecoratorCircuitBreakers);
+            redMetricsRecorder.ifAvailable(customizer::setRedMetricsRecorder);
+            tracingStats.ifAvailable(customizer::setTracingStats);
+            return customizer;
         }
     }
 }
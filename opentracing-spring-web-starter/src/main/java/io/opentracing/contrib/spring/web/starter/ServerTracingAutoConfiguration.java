@@ -39,6 +39,12 @@ import io.opentracing.Tracer;
 import io.opentracing.contrib.spring.tracer.configuration.TracerAutoConfiguration;
 import io.opentracing.contrib.spring.web.interceptor.HandlerInterceptorSpanDecorator;
 import io.opentracing.contrib.spring.web.interceptor.TracingHandlerInterceptor;
+import io.opentracing.contrib.spring.web.servlet.TracingServletFilter;
+import io.opentracing.contrib.spring.web.support.OverloadProtection;
+import io.opentracing.contrib.spring.web.support.RedMetricsRecorder;
+import io.opentracing.contrib.spring.web.support.RefreshableSkipPattern;
+import io.opentracing.contrib.spring.web.support.TraceDecision;
+import io.opentracing.contrib.spring.web.support.TracingStats;
 import io.opentracing.contrib.web.servlet.filter.ServletFilterSpanDecorator;
 import io.opentracing.contrib.web.servlet.filter.TracingFilter;
 import org.apache.commons.logging.Log;
@@ -55,7 +61,8 @@ import static java.lang.String.format;
 @Configuration
 @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @ConditionalOnBean(Tracer.class)
-@AutoConfigureAfter({TracerAutoConfiguration.class, SkipPatternAutoConfiguration.class})
+@AutoConfigureAfter({TracerAutoConfiguration.class, SkipPatternAutoConfiguration.class,
+        OverloadProtectionAutoConfiguration.class})
 @EnableConfigurationProperties(WebTracingProperties.class)
 @ConditionalOnClass(WebMvcConfigurer.class)
 @ConditionalOnProperty(name = "opentracing.spring.web.enabled", havingValue = "true", matchIfMissing = true)
@@ -77,9 +84,14 @@ public class ServerTracingAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean(TracingFilter.class)
-    public FilterRegistrationBean tracingFilter(Tracer tracer, WebTracingProperties tracingConfiguration) {
+    public FilterRegistrationBean tracingFilter(Tracer tracer, WebTracingProperties tracingConfiguration,
+                                                ObjectProvider<TraceDecision> traceDecision,
+                                                ObjectProvider<RefreshableSkipPattern> refreshableSkipPattern,
+                                                ObjectProvider<OverloadProtection> overloadProtection,
+                                                ObjectProvider<TracingStats> tracingStats,
+                                                ObjectProvider<RedMetricsRecorder> redMetricsRecorder) {
         log.info(format("Creating %s bean with %s mapped to %s, skip pattern is \"%s\"",
-                FilterRegistrationBean.class.getSimpleName(), TracingFilter.class.getSimpleName(),
+                FilterRegistrationBean.class.getSimpleName(), TracingServletFilter.class.getSimpleName(),
                 tracingConfiguration.getUrlPatterns().toString(), skipPattern));
 
         List<ServletFilterSpanDecorator> decorators = servletFilterSpanDecorator.getIfAvailable();
@@ -87,7 +99,13 @@ public class ServerTracingAutoConfiguration {
             decorators = Collections.singletonList(ServletFilterSpanDecorator.STANDARD_TAGS);
         }
 
-        TracingFilter tracingFilter = new TracingFilter(tracer, decorators, skipPattern);
+        TracingServletFilter tracingFilter = new TracingServletFilter(tracer, decorators, skipPattern);
+        refreshableSkipPattern.ifAvailable(tracingFilter::setSkipPattern);
+        tracingFilter.setTraceDecision(traceDecision.getIfAvailable(() -> TraceDecision.ALWAYS));
+        tracingFilter.setBodyMetrics(tracingConfiguration.isBodyMetrics());
+        overloadProtection.ifAvailable(tracingFilter::setOverloadProtection);
+        tracingStats.ifAvailable(tracingFilter::setTracingStats);
+        redMetricsRecorder.ifAvailable(tracingFilter::setRedMetricsRecorder);
 
         FilterRegistrationBean filterRegistrationBean = new FilterRegistrationBean<>(tracingFilter);
         filterRegistrationBean.setUrlPatterns(tracingConfiguration.getUrlPatterns());
@@ -99,7 +117,9 @@ public class ServerTracingAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean(TracingFilter.class)
-    public WebMvcConfigurer tracingHandlerInterceptor(final Tracer tracer) {
+    public WebMvcConfigurer tracingHandlerInterceptor(final Tracer tracer,
+                                                      final WebTracingProperties tracingConfiguration,
+                                                      final ObjectProvider<TracingStats> tracingStats) {
         log.info("Creating " + WebMvcConfigurer.class.getSimpleName() + " bean with " +
                 TracingHandlerInterceptor.class);
 
@@ -109,10 +129,14 @@ public class ServerTracingAutoConfiguration {
                 List<HandlerInterceptorSpanDecorator> decorators = interceptorSpanDecorator.getIfAvailable();
                 if (CollectionUtils.isEmpty(decorators)) {
                     decorators = Arrays.asList(HandlerInterceptorSpanDecorator.STANDARD_LOGS,
-                            HandlerInterceptorSpanDecorator.HANDLER_METHOD_OPERATION_NAME);
+                            tracingConfiguration.isRouteOperationName()
+                                    ? HandlerInterceptorSpanDecorator.ROUTE_OPERATION_NAME
+                                    : HandlerInterceptorSpanDecorator.HANDLER_METHOD_OPERATION_NAME);
                 }
 
-                registry.addInterceptor(new TracingHandlerInterceptor(tracer, decorators));
+                TracingHandlerInterceptor tracingInterceptor = new TracingHandlerInterceptor(tracer, decorators);
+                tracingStats.ifAvailable(tracingInterceptor::setTracingStats);
+                registry.addInterceptor(tracingInterceptor);
             }
         };
     }
@@ -19,8 +19,11 @@ import java.util.List;
 import java.util.Optional;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.actuate.autoconfigure.endpoint.web.WebEndpointProperties;
 import org.springframework.boot.actuate.autoconfigure.web.server.ConditionalOnManagementPort;
 import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
@@ -30,12 +33,15 @@ import org.springframework.boot.actuate.endpoint.web.ExposableWebEndpoint;
 import org.springframework.boot.actuate.endpoint.web.PathMappedEndpoint;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.web.ServerProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.util.StringUtils;
 
+import io.opentracing.contrib.spring.web.support.RefreshableSkipPattern;
 import io.opentracing.contrib.spring.web.webfilter.SkipPattern;
 
 /**
@@ -45,19 +51,45 @@ import io.opentracing.contrib.spring.web.webfilter.SkipPattern;
 @ConditionalOnProperty(name = "opentracing.spring.web.enabled", havingValue = "true", matchIfMissing = true)
 public class SkipPatternAutoConfiguration {
 
-  @Autowired(required = false)
-  private List<SkipPattern> patterns = new ArrayList<>();
-
-  @Bean(name = "skipPattern")
-  public Pattern skipPattern() {
-    return Pattern.compile(this.patterns
-        .stream()
+  static Pattern combine(Stream<SkipPattern> patterns) {
+    return Pattern.compile(patterns
         .map(SkipPattern::pattern)
         .filter(Optional::isPresent).map(Optional::get)
         .map(Pattern::pattern)
         .collect(Collectors.joining("|")));
   }
 
+  @Bean
+  @ConditionalOnMissingBean
+  public RefreshableSkipPattern refreshableSkipPattern(@Qualifier("skipPattern") Pattern skipPattern) {
+    return new RefreshableSkipPattern(skipPattern);
+  }
+
+  /**
+   * Combines the {@link SkipPattern} beans, unless a custom {@code skipPattern} bean is defined, which is then never
+   * replaced by the {@link SkipPatternRefresher}.
+   */
+  @Configuration
+  @ConditionalOnMissingBean(name = "skipPattern")
+  protected static class CombinedSkipPatternConfig {
+
+    @Autowired(required = false)
+    private List<SkipPattern> patterns = new ArrayList<>();
+
+    @Bean(name = "skipPattern")
+    public Pattern skipPattern() {
+      return combine(this.patterns.stream());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SkipPatternRefresher skipPatternRefresher(RefreshableSkipPattern refreshableSkipPattern,
+        ObjectProvider<SkipPattern> patterns, ObjectProvider<WebTracingProperties> webTracingProperties,
+        Environment environment) {
+      return new SkipPatternRefresher(refreshableSkipPattern, patterns, webTracingProperties, environment);
+    }
+  }
+
   @Configuration
   @ConditionalOnClass(ManagementServerProperties.class)
   @ConditionalOnProperty(value = "opentracing.spring.web.ignoreAutoConfiguredSkipPatterns", havingValue = "false", matchIfMissing = true)
@@ -0,0 +1,146 @@
+/**
+ * Copyright 2016-2019 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.starter;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.util.ReflectionUtils;
+
+import io.opentracing.contrib.spring.web.support.RefreshableSkipPattern;
+import io.opentracing.contrib.spring.web.webfilter.SkipPattern;
+
+/**
+ * Recombines the {@link SkipPattern} beans into the {@link RefreshableSkipPattern} used by the tracing filters,
+ * either when {@code opentracing.spring.web.skip-pattern} is changed through the {@code tracing} actuator endpoint
+ * or when a Spring Cloud {@code EnvironmentChangeEvent} ({@code /actuator/refresh}) lists the property as changed.
+ *
+ * <p>A skip pattern set through the endpoint is kept when the properties are rebound, until the property itself
+ * changes in the environment. Only registered when the {@code skipPattern} bean is the one of
+ * {@link SkipPatternAutoConfiguration}, so a custom {@code skipPattern} bean is never replaced.
+ */
+public class SkipPatternRefresher implements ApplicationListener<ApplicationEvent> {
+
+    private static final Log log = LogFactory.getLog(SkipPatternRefresher.class);
+
+    static final String ENVIRONMENT_CHANGE_EVENT = "org.springframework.cloud.context.environment.EnvironmentChangeEvent";
+    private static final String SKIP_PATTERN_PROPERTY = WebTracingProperties.CONFIGURATION_PREFIX + ".skip-pattern";
+    private static final ConfigurationPropertyName SKIP_PATTERN_NAME =
+            ConfigurationPropertyName.of(SKIP_PATTERN_PROPERTY);
+
+    private final RefreshableSkipPattern skipPattern;
+    private final ObjectProvider<SkipPattern> patterns;
+    private final ObjectProvider<WebTracingProperties> webTracingProperties;
+    private final Environment environment;
+    /**
+     * Skip pattern set through {@link #setSkipPattern(String)}, applied again when the properties have been rebound.
+     */
+    private String skipPatternOverride;
+
+    public SkipPatternRefresher(RefreshableSkipPattern skipPattern, ObjectProvider<SkipPattern> patterns,
+                                ObjectProvider<WebTracingProperties> webTracingProperties, Environment environment) {
+        this.skipPattern = skipPattern;
+        this.patterns = patterns;
+        this.webTracingProperties = webTracingProperties;
+        this.environment = environment;
+    }
+
+    /**
+     * @return combined skip pattern currently used by the tracing filters
+     */
+    public String getSkipPattern() {
+        return skipPattern.toString();
+    }
+
+    /**
+     * Replaces {@code opentracing.spring.web.skip-pattern} and refreshes the combined skip pattern.
+     *
+     * @param skipPattern new skip pattern, empty restores the default
+     * @throws java.util.regex.PatternSyntaxException if the pattern is not valid, the skip pattern is not changed
+     */
+    public synchronized void setSkipPattern(String skipPattern) {
+        Pattern.compile(skipPattern);
+        WebTracingProperties properties = webTracingProperties.getIfAvailable();
+        if (properties == null) {
+            throw new IllegalStateException(WebTracingProperties.class.getSimpleName() + " bean is not available");
+        }
+        skipPatternOverride = skipPattern;
+        refresh();
+    }
+
+    /**
+     * Combines the {@link SkipPattern} beans again and publishes the result to the tracing filters.
+     */
+    public synchronized void refresh() {
+        WebTracingProperties properties = webTracingProperties.getIfAvailable();
+        if (skipPatternOverride != null && properties != null) {
+            properties.setSkipPattern(skipPatternOverride);
+        }
+        update(SkipPatternAutoConfiguration.combine(patterns.orderedStream()));
+    }
+
+    private void update(Pattern combined) {
+        skipPattern.update(combined);
+        log.info("Tracing skip pattern is \"" + combined + "\"");
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (!ENVIRONMENT_CHANGE_EVENT.equals(event.getClass().getName())) {
+            return;
+        }
+        Method getKeys = ReflectionUtils.findMethod(event.getClass(), "getKeys");
+        if (getKeys != null) {
+            onEnvironmentChange((Collection<?>) ReflectionUtils.invokeMethod(getKeys, event));
+        }
+    }
+
+    /**
+     * @param keys names of the changed properties
+     */
+    void onEnvironmentChange(Collection<?> keys) {
+        if (keys.stream().noneMatch(key -> isSkipPatternProperty(String.valueOf(key)))) {
+            return;
+        }
+        WebTracingProperties properties = webTracingProperties.getIfAvailable();
+        if (properties == null) {
+            return;
+        }
+        synchronized (this) {
+            // the property changed after it has been set through the endpoint
+            skipPatternOverride = null;
+            // the properties bean may have been rebound already, so the combined patterns are compared instead
+            properties.setSkipPattern(Binder.get(environment).bind(SKIP_PATTERN_PROPERTY, String.class)
+                    .orElse(WebTracingProperties.DEFAULT_SKIP_PATTERN));
+            Pattern combined = SkipPatternAutoConfiguration.combine(patterns.orderedStream());
+            if (!combined.pattern().equals(skipPattern.toString())) {
+                update(combined);
+            }
+        }
+    }
+
+    private static boolean isSkipPatternProperty(String key) {
+        return SKIP_PATTERN_NAME.equals(ConfigurationPropertyName.adapt(key, '.'))
+                || SKIP_PATTERN_NAME.equals(ConfigurationPropertyName.adapt(key, '_'));
+    }
+}
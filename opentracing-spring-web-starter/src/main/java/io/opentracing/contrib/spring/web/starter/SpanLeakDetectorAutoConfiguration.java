@@ -0,0 +1,45 @@
+/**
+ * Copyright 2016-2019 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.starter;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.opentracing.contrib.spring.web.support.SpanLeakDetector;
+import io.opentracing.contrib.spring.web.support.TracingStats;
+
+/**
+ * Creates the {@link SpanLeakDetector} used by the WebFlux and WebClient instrumentation when
+ * {@code opentracing.spring.web.span-leak-timeout} is set.
+ */
+@Configuration
+@ConditionalOnProperty(name = WebTracingProperties.CONFIGURATION_PREFIX + ".enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(WebTracingProperties.class)
+public class SpanLeakDetectorAutoConfiguration {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = WebTracingProperties.CONFIGURATION_PREFIX + ".span-leak-timeout")
+    public SpanLeakDetector spanLeakDetector(WebTracingProperties webTracingProperties,
+                                             ObjectProvider<TracingStats> tracingStats) {
+        SpanLeakDetector spanLeakDetector = new SpanLeakDetector(webTracingProperties.getSpanLeakTimeout().toMillis(),
+                TimeUnit.MILLISECONDS);
+        spanLeakDetector.setTracingStats(tracingStats.getIfAvailable());
+        return spanLeakDetector;
+    }
+}
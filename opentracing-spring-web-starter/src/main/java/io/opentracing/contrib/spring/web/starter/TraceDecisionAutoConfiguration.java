@@ -0,0 +1,48 @@
+/**
+ * Copyright 2016-2019 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.starter;
+
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.opentracing.contrib.spring.web.support.TraceDecision;
+
+/**
+ * Head-based sampling of server requests, shared by the servlet and WebFlux instrumentation.
+ */
+@Configuration
+@AutoConfigureBefore({ServerTracingAutoConfiguration.class, WebFluxTracingAutoConfiguration.class})
+@EnableConfigurationProperties(WebTracingProperties.class)
+@ConditionalOnProperty(name = WebTracingProperties.CONFIGURATION_PREFIX + ".enabled", havingValue = "true", matchIfMissing = true)
+public class TraceDecisionAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(TraceDecision.class)
+    public TraceDecision traceDecision(WebTracingProperties webTracingProperties) {
+        if (webTracingProperties.getSamplingRateLimitPerRoute() > 0) {
+            return TraceDecision.rateLimitingPerRoute(webTracingProperties.getSamplingRateLimitPerRoute());
+        }
+        if (webTracingProperties.getSamplingRateLimit() > 0) {
+            return TraceDecision.rateLimiting(webTracingProperties.getSamplingRateLimit());
+        }
+        if (webTracingProperties.getSamplingProbability() < 1) {
+            return TraceDecision.probabilistic(webTracingProperties.getSamplingProbability());
+        }
+        return TraceDecision.ALWAYS;
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright 2016-2019 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.starter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreakers;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreaker;
+import io.opentracing.contrib.spring.web.support.OverloadProtection;
+import io.opentracing.contrib.spring.web.support.RotatingHistogram;
+import io.opentracing.contrib.spring.web.support.TracingStats;
+
+/**
+ * Actuator endpoint exposing the runtime state of the web instrumentation: request and span counters, the time spent
+ * inside the instrumentation (see {@link TracingStats}) and the failing span decorators.
+ */
+@Endpoint(id = "tracing")
+public class TracingEndpoint {
+
+    private final TracingStats tracingStats;
+    private final ObjectProvider<SkipPatternRefresher> skipPatternRefresher;
+    private final ObjectProvider<OverloadProtection> overloadProtection;
+    private final ObjectProvider<DecoratorCircuitBreakers> decoratorCircuitBreakers;
+
+    /**
+     * @param tracingStats stats recorded by the instrumentation
+     * @param skipPatternRefresher resolved lazily, the skip pattern depends on the actuator endpoints
+     * @param overloadProtection resolved lazily
+     * @param decoratorCircuitBreakers resolved lazily
+     */
+    public TracingEndpoint(TracingStats tracingStats,
+                           ObjectProvider<SkipPatternRefresher> skipPatternRefresher,
+                           ObjectProvider<OverloadProtection> overloadProtection,
+                           ObjectProvider<DecoratorCircuitBreakers> decoratorCircuitBreakers) {
+        this.tracingStats = tracingStats;
+        this.skipPatternRefresher = skipPatternRefresher;
+        this.overloadProtection = overloadProtection;
+        this.decoratorCircuitBreakers = decoratorCircuitBreakers;
+    }
+
+    @ReadOperation
+    public Map<String, Object> tracing() {
+        Map<String, Object> tracing = new LinkedHashMap<>();
+        SkipPatternRefresher refresher = skipPatternRefresher.getIfAvailable();
+        if (refresher != null) {
+            tracing.put("skipPattern", refresher.getSkipPattern());
+        }
+        tracing.put("requests", requests());
+        tracing.put("spans", spans());
+        List<DecoratorCircuitBreaker> failedDecorators = decoratorCircuitBreakers
+                .getIfAvailable(DecoratorCircuitBreakers::new).getFailed();
+        tracing.put("decoratorFailures",
+                failedDecorators.stream().mapToLong(DecoratorCircuitBreaker::getFailures).sum());
+        OverloadProtection protection = overloadProtection.getIfAvailable();
+        if (protection != null) {
+            tracing.put("overload", overload(protection));
+        }
+        tracing.put("instrumentation", instrumentation());
+        tracing.put("decorators", decorators(failedDecorators));
+        return tracing;
+    }
+
+    /**
+     * Replaces {@code opentracing.spring.web.skip-pattern} until the application is restarted, e.g.
+     * {@code POST /actuator/tracing} with {@code {"skipPattern": "/api-docs.*|/noisy/.*"}}.
+     *
+     * @param skipPattern new skip pattern, empty restores the default
+     */
+    @WriteOperation
+    public void skipPattern(String skipPattern) {
+        SkipPatternRefresher refresher = skipPatternRefresher.getIfAvailable();
+        if (refresher == null) {
+            throw new IllegalStateException("Skip pattern cannot be changed");
+        }
+        try {
+            refresher.setSkipPattern(skipPattern);
+        } catch (PatternSyntaxException e) {
+            throw new InvalidEndpointRequestException("Invalid skip pattern: " + e.getMessage(), e.getDescription());
+        }
+    }
+
+    private Map<String, Object> requests() {
+        Map<String, Object> requests = new LinkedHashMap<>();
+        requests.put("seen", tracingStats.getRequests());
+        requests.put("skippedBySkipPattern", tracingStats.getSkippedBySkipPattern());
+        requests.put("skippedByUrlPatterns", tracingStats.getSkippedByUrlPatterns());
+        return requests;
+    }
+
+    private Map<String, Object> spans() {
+        Map<String, Object> spans = new LinkedHashMap<>();
+        spans.put("started", tracingStats.getSpansStarted());
+        spans.put("finished", tracingStats.getSpansFinished());
+        spans.put("open", tracingStats.getOpenSpans());
+        spans.put("leaked", tracingStats.getSpansLeaked());
+        return spans;
+    }
+
+    private static Map<String, Object> overload(OverloadProtection protection) {
+        Map<String, Object> overload = new LinkedHashMap<>();
+        overload.put("level", protection.getLevel());
+        overload.put("inFlight", protection.getInFlight());
+        Map<String, Object> requests = new LinkedHashMap<>();
+        for (OverloadProtection.Level level : OverloadProtection.Level.values()) {
+            requests.put(level.name(), protection.getRequests(level));
+        }
+        overload.put("requests", requests);
+        return overload;
+    }
+
+    /**
+     * @return nanoseconds spent inside the instrumentation by component, over the last one to two histogram windows
+     */
+    private Map<String, Object> instrumentation() {
+        Map<String, Object> instrumentation = new LinkedHashMap<>();
+        for (TracingStats.Component component : TracingStats.Component.values()) {
+            RotatingHistogram histogram = tracingStats.getHistogram(component);
+            Map<String, Object> time = new LinkedHashMap<>();
+            time.put("count", histogram.getCount());
+            time.put("p50Nanos", histogram.getPercentile(0.5));
+            time.put("p99Nanos", histogram.getPercentile(0.99));
+            instrumentation.put(component.getDisplayName(), time);
+        }
+        return instrumentation;
+    }
+
+    private static List<Map<String, Object>> decorators(List<DecoratorCircuitBreaker> failedDecorators) {
+        return failedDecorators.stream()
+                .map(circuitBreaker -> {
+                    Map<String, Object> decorator = new LinkedHashMap<>();
+                    decorator.put("decorator", circuitBreaker.getDecorator());
+                    decorator.put("failures", circuitBreaker.getFailures());
+                    decorator.put("trips", circuitBreaker.getTrips());
+                    decorator.put("disabled", circuitBreaker.isOpen());
+                    return decorator;
+                })
+                .collect(Collectors.toList());
+    }
+}
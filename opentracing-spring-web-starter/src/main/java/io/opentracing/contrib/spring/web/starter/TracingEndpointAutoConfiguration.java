@@ -0,0 +1,55 @@
+/**
+ * Copyright 2016-2019 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.starter;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreakers;
+import io.opentracing.contrib.spring.web.support.OverloadProtection;
+import io.opentracing.contrib.spring.web.support.TracingStats;
+
+/**
+ * Registers the {@code tracing} actuator endpoint when actuator is on the classpath, and the {@link TracingStats}
+ * recorded by the instrumentation only when the endpoint is exposed, so the instrumentation does not count anything
+ * otherwise.
+ */
+@Configuration
+@ConditionalOnClass(Endpoint.class)
+@ConditionalOnProperty(name = WebTracingProperties.CONFIGURATION_PREFIX + ".enabled", havingValue = "true", matchIfMissing = true)
+public class TracingEndpointAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnAvailableEndpoint(endpoint = TracingEndpoint.class)
+    public TracingStats tracingStats() {
+        return new TracingStats();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnAvailableEndpoint
+    public TracingEndpoint tracingEndpoint(TracingStats tracingStats,
+                                           ObjectProvider<SkipPatternRefresher> skipPatternRefresher,
+                                           ObjectProvider<OverloadProtection> overloadProtection,
+                                           ObjectProvider<DecoratorCircuitBreakers> decoratorCircuitBreakers) {
+        return new TracingEndpoint(tracingStats, skipPatternRefresher, overloadProtection, decoratorCircuitBreakers);
+    }
+}
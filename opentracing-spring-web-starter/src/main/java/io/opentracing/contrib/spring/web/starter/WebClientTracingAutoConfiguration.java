@@ -17,6 +17,10 @@ import io.opentracing.Tracer;
 import io.opentracing.contrib.spring.tracer.configuration.TracerAutoConfiguration;
 import io.opentracing.contrib.spring.web.client.TracingWebClientBeanPostProcessor;
 import io.opentracing.contrib.spring.web.client.WebClientSpanDecorator;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreakers;
+import io.opentracing.contrib.spring.web.support.RedMetricsRecorder;
+import io.opentracing.contrib.spring.web.support.SpanLeakDetector;
+import io.opentracing.contrib.spring.web.support.TracingStats;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -39,26 +43,40 @@ import java.util.List;
 @ConditionalOnBean(Tracer.class)
 @ConditionalOnClass(WebClient.class)
 @ConditionalOnProperty(prefix = WebClientTracingProperties.CONFIGURATION_PREFIX, name = "enabled", matchIfMissing = true)
-@AutoConfigureAfter(TracerAutoConfiguration.class)
+@AutoConfigureAfter({TracerAutoConfiguration.class, SpanLeakDetectorAutoConfiguration.class,
+        DecoratorCircuitBreakerAutoConfiguration.class})
 @EnableConfigurationProperties(WebClientTracingProperties.class)
 public class WebClientTracingAutoConfiguration {
     @ConditionalOnMissingBean(WebClientSpanDecorator.class)
     @Configuration
     static class DefaultWebClientSpanDecorators {
         @Bean
-        WebClientSpanDecorator standardTagsWebClientSpanDecorator() {
-            return new WebClientSpanDecorator.StandardTags();
+        WebClientSpanDecorator standardTagsWebClientSpanDecorator(final WebClientTracingProperties webClientTracingProperties) {
+            return new WebClientSpanDecorator.StandardTags(webClientTracingProperties.isLazyUrlTag());
         }
     }
 
     @Bean
     public static TracingWebClientBeanPostProcessor tracingWebClientBeanPostProcessor(
             final Tracer tracer,
-            final ObjectProvider<List<WebClientSpanDecorator>> webClientSpanDecorators
+            final ObjectProvider<List<WebClientSpanDecorator>> webClientSpanDecorators,
+            final WebClientTracingProperties webClientTracingProperties,
+            final ObjectProvider<SpanLeakDetector> spanLeakDetector,
+            final ObjectProvider<DecoratorCircuitBreakers> decoratorCircuitBreakers,
+            final ObjectProvider<RedMetricsRecorder> redMetricsRecorder,
+            final ObjectProvider<TracingStats> tracingStats
     ) {
-        return new TracingWebClientBeanPostProcessor(
+        final TracingWebClientBeanPostProcessor postProcessor = new TracingWebClientBeanPostProcessor(
                 tracer,
-                webClientSpanDecorators.getObject()
+                webClientSpanDecorators.getObject(),
+                webClientTracingProperties.getHeaderInjectMode(),
+                webClientTracingProperties.getResponseContextMode(),
+                webClientTracingProperties.getContextPropagation()
         );
+        postProcessor.setSpanLeakDetector(spanLeakDetector.getIfAvailable());
+        postProcessor.setDecoratorCircuitBreakers(decoratorCircuitBreakers.getIfAvailable());
+        postProcessor.setRedMetricsRecorder(redMetricsRecorder::getIfAvailable);
+        postProcessor.setTracingStats(tracingStats::getIfAvailable);
+        return postProcessor;
     }
 }
@@ -13,6 +13,9 @@
  */
 package io.opentracing.contrib.spring.web.starter;
 
+import io.opentracing.contrib.spring.web.client.HeaderInjectMode;
+import io.opentracing.contrib.spring.web.client.ResponseContextMode;
+import io.opentracing.contrib.spring.web.support.ContextPropagation;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -36,6 +39,30 @@ public class WebClientTracingProperties {
      */
     private boolean enabled = true;
 
+    /**
+     * Whether the standard tags pass the request URI to the tracer as an object, so it is converted to a string only
+     * if the span is reported. Depends on the tracer storing tag values as objects.
+     */
+    private boolean lazyUrlTag = false;
+
+    /**
+     * How WebClient requests receive the propagation headers. {@link HeaderInjectMode#OVERLAY} avoids copying the
+     * request.
+     */
+    private HeaderInjectMode headerInjectMode = HeaderInjectMode.COPY;
+
+    /**
+     * How WebClient responses expose the client span to body consumers. {@link ResponseContextMode#LAZY} avoids
+     * rebuilding the response.
+     */
+    private ResponseContextMode responseContextMode = ResponseContextMode.REBUILD;
+
+    /**
+     * How the WebClient span reaches the exchange. {@link ContextPropagation#CONTEXT_ONLY} keeps it in the Reactor
+     * context only, without activating it in the scope manager.
+     */
+    private ContextPropagation contextPropagation = ContextPropagation.SCOPE;
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -43,4 +70,36 @@ public class WebClientTracingProperties {
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
     }
+
+    public boolean isLazyUrlTag() {
+        return lazyUrlTag;
+    }
+
+    public void setLazyUrlTag(boolean lazyUrlTag) {
+        this.lazyUrlTag = lazyUrlTag;
+    }
+
+    public HeaderInjectMode getHeaderInjectMode() {
+        return headerInjectMode;
+    }
+
+    public void setHeaderInjectMode(HeaderInjectMode headerInjectMode) {
+        this.headerInjectMode = headerInjectMode;
+    }
+
+    public ResponseContextMode getResponseContextMode() {
+        return responseContextMode;
+    }
+
+    public void setResponseContextMode(ResponseContextMode responseContextMode) {
+        this.responseContextMode = responseContextMode;
+    }
+
+    public ContextPropagation getContextPropagation() {
+        return contextPropagation;
+    }
+
+    public void setContextPropagation(ContextPropagation contextPropagation) {
+        this.contextPropagation = contextPropagation;
+    }
 }
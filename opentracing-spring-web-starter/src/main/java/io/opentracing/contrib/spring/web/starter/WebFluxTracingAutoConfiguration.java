@@ -29,6 +29,15 @@ import org.springframework.context.annotation.Configuration;
 
 import io.opentracing.Tracer;
 import io.opentracing.contrib.spring.tracer.configuration.TracerAutoConfiguration;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreakers;
+import io.opentracing.contrib.spring.web.support.OverloadProtection;
+import io.opentracing.contrib.spring.web.support.RedMetricsRecorder;
+import io.opentracing.contrib.spring.web.support.RefreshableSkipPattern;
+import io.opentracing.contrib.spring.web.support.RouteTemplateOperationNameStrategy;
+import io.opentracing.contrib.spring.web.support.SpanLeakDetector;
+import io.opentracing.contrib.spring.web.support.TracingStats;
+import io.opentracing.contrib.spring.web.support.TraceDecision;
+import io.opentracing.contrib.spring.web.webfilter.PathDecisionCache;
 import io.opentracing.contrib.spring.web.webfilter.TracingWebFilter;
 import io.opentracing.contrib.spring.web.webfilter.WebFluxSpanDecorator;
 
@@ -40,7 +49,9 @@ import io.opentracing.contrib.spring.web.webfilter.WebFluxSpanDecorator;
  */
 @Configuration
 @ConditionalOnBean(Tracer.class)
-@AutoConfigureAfter({TracerAutoConfiguration.class, SkipPatternAutoConfiguration.class})
+@AutoConfigureAfter({TracerAutoConfiguration.class, SkipPatternAutoConfiguration.class,
+        SpanLeakDetectorAutoConfiguration.class, OverloadProtectionAutoConfiguration.class,
+        DecoratorCircuitBreakerAutoConfiguration.class})
 @EnableConfigurationProperties(WebTracingProperties.class)
 @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
 @ConditionalOnProperty(name = WebTracingProperties.CONFIGURATION_PREFIX + ".enabled", havingValue = "true", matchIfMissing = true)
@@ -50,13 +61,14 @@ public class WebFluxTracingAutoConfiguration {
     @Configuration
     static class DefaultWebFluxSpanDecorators {
         @Bean
-        WebFluxSpanDecorator standardTagsWebFluxSpanDecorator() {
-            return new WebFluxSpanDecorator.StandardTags();
+        WebFluxSpanDecorator standardTagsWebFluxSpanDecorator(final WebTracingProperties webTracingProperties) {
+            return new WebFluxSpanDecorator.StandardTags(webTracingProperties.isLazyUrlTag());
         }
 
         @Bean
-        WebFluxSpanDecorator webFluxTagsWebFluxSpanDecorator() {
-            return new WebFluxSpanDecorator.WebFluxTags();
+        WebFluxSpanDecorator webFluxTagsWebFluxSpanDecorator(final WebTracingProperties webTracingProperties) {
+            return new WebFluxSpanDecorator.WebFluxTags(webTracingProperties.isRouteOperationName()
+                    ? new RouteTemplateOperationNameStrategy() : null);
         }
     }
 
@@ -66,14 +78,39 @@ public class WebFluxTracingAutoConfiguration {
             final Tracer tracer,
             final WebTracingProperties webTracingProperties,
             final ObjectProvider<List<WebFluxSpanDecorator>> webFilterSpanDecorators,
-            final @Qualifier("skipPattern") Pattern skipPattern
+            final @Qualifier("skipPattern") Pattern skipPattern,
+            final ObjectProvider<TraceDecision> traceDecision,
+            final ObjectProvider<RefreshableSkipPattern> refreshableSkipPattern,
+            final ObjectProvider<SpanLeakDetector> spanLeakDetector,
+            final ObjectProvider<OverloadProtection> overloadProtection,
+            final ObjectProvider<DecoratorCircuitBreakers> decoratorCircuitBreakers,
+            final ObjectProvider<TracingStats> tracingStats,
+            final ObjectProvider<RedMetricsRecorder> redMetricsRecorder
     ) {
-        return new TracingWebFilter(
+        final TracingWebFilter tracingWebFilter = new TracingWebFilter(
                 tracer,
                 webTracingProperties.getOrder(),
                 skipPattern,
                 webTracingProperties.getUrlPatterns(),
                 webFilterSpanDecorators.getObject()
         );
+        if (webTracingProperties.getDecisionCacheSize() > 0) {
+            tracingWebFilter.setPathDecisionCache(new PathDecisionCache(webTracingProperties.getDecisionCacheSize()));
+        }
+        refreshableSkipPattern.ifAvailable(tracingWebFilter::setSkipPattern);
+        tracingWebFilter.setPropagationHeaderNames(webTracingProperties.getPropagationHeaderNames());
+        tracingWebFilter.setHeaderExtractMode(webTracingProperties.getHeaderExtractMode());
+        tracingWebFilter.setTraceDecision(traceDecision.getIfAvailable(() -> TraceDecision.ALWAYS));
+        tracingWebFilter.setResponseMetrics(webTracingProperties.isResponseMetrics());
+        tracingWebFilter.setContextPropagation(webTracingProperties.getContextPropagation());
+        tracingWebFilter.setSpanLeakDetector(spanLeakDetector.getIfAvailable());
+        tracingWebFilter.setTracingStats(tracingStats.getIfAvailable());
+        tracingWebFilter.setRedMetricsRecorder(redMetricsRecorder.getIfAvailable());
+        tracingWebFilter.setOverloadProtection(overloadProtection.getIfAvailable());
+        decoratorCircuitBreakers.ifAvailable(tracingWebFilter::setDecoratorCircuitBreakers);
+        tracingWebFilter.setStreamingSpans(webTracingProperties.isStreamingSpans());
+        tracingWebFilter.setStreamingSummary(webTracingProperties.getStreamingSummaryElements(),
+                webTracingProperties.getStreamingSummaryInterval().toMillis());
+        return tracingWebFilter;
     }
 }
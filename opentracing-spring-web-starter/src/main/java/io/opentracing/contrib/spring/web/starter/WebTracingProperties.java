@@ -13,11 +13,18 @@
  */
 package io.opentracing.contrib.spring.web.starter;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import io.opentracing.contrib.spring.web.support.AsyncFinishingTracer;
+import io.opentracing.contrib.spring.web.support.ContextPropagation;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreaker;
+import io.opentracing.contrib.spring.web.webfilter.HeaderExtractMode;
+import io.opentracing.contrib.spring.web.webfilter.TracingWebFilter;
+
 /**
  * @author Pavol Loffay
  * @author Gilles Robert
@@ -45,6 +52,155 @@ public class WebTracingProperties {
      */
     private List<String> urlPatterns = Collections.emptyList();
 
+    /**
+     * Maximal number of paths for which the reactive (WebFlux) filter caches whether they should be traced.
+     * Paths containing identifier-like segments are never cached. Once full, further paths are not cached until
+     * the skip pattern changes. Zero disables the cache.
+     */
+    private int decisionCacheSize = 0;
+
+    /**
+     * How the reactive (WebFlux) filter exposes request headers to the tracer when extracting the span context.
+     */
+    private HeaderExtractMode headerExtractMode = HeaderExtractMode.COPY;
+
+    /**
+     * Names of the headers read by the tracer, used by {@link HeaderExtractMode#KEYED}.
+     */
+    private List<String> propagationHeaderNames = Collections.emptyList();
+
+    /**
+     * Probability of creating a server span for a request, between 0 and 1. Untraced requests still propagate the
+     * incoming span context to client calls.
+     */
+    private double samplingProbability = 1;
+
+    /**
+     * Maximal number of traced requests per second, zero means unlimited. Takes precedence over
+     * {@link #samplingProbability}.
+     */
+    private double samplingRateLimit = 0;
+
+    /**
+     * Maximal number of traced requests per second for every route (handler pattern), zero means unlimited. Takes
+     * precedence over {@link #samplingRateLimit} and {@link #samplingProbability}.
+     */
+    private double samplingRateLimitPerRoute = 0;
+
+    /**
+     * Whether the reactive (WebFlux) standard tags pass the request URI to the tracer as an object, so it is converted
+     * to a string only if the span is reported. Depends on the tracer storing tag values as objects.
+     */
+    private boolean lazyUrlTag = false;
+
+    /**
+     * Whether server spans are named {@code METHOD /route/{template}} (e.g. {@code GET /orders/{id}}) instead of the
+     * handler method name, keeping the number of operation names bounded by the number of routes.
+     */
+    private boolean routeOperationName = false;
+
+    /**
+     * Whether reactive (WebFlux) server spans are tagged with the response body size, the number of written chunks,
+     * the time to the first written byte and the write time.
+     */
+    private boolean responseMetrics = false;
+
+    /**
+     * Whether servlet server spans are tagged with the request and response body sizes and the read and write times.
+     * The request and response streams are wrapped to count bytes.
+     */
+    private boolean bodyMetrics = false;
+
+    /**
+     * How the reactive (WebFlux) server span reaches the filter chain. {@link ContextPropagation#CONTEXT_ONLY} keeps
+     * it in the Reactor context only, without activating it in the scope manager.
+     */
+    private ContextPropagation contextPropagation = ContextPropagation.SCOPE;
+
+    /**
+     * Whether the tracer bean is wrapped so spans are finished, and reported, by a background thread instead of the
+     * request or event loop thread. Spans finished while the buffer is full are dropped. The tracer bean then is an
+     * {@link AsyncFinishingTracer}, so injecting or casting it to the concrete tracer type fails, and spans are
+     * activated as wrappers, so the scope manager must not cast them to its own span implementation.
+     */
+    private boolean asyncFinish = false;
+
+    /**
+     * Number of finished spans buffered for the background thread when {@code asyncFinish} is enabled.
+     */
+    private int asyncFinishCapacity = AsyncFinishingTracer.DEFAULT_CAPACITY;
+
+    /**
+     * Number of exceptions thrown by a span decorator within a second after which the decorator is skipped for
+     * {@code decoratorCooldown}. Zero or less never skips decorators.
+     */
+    private int decoratorFailureThreshold = DecoratorCircuitBreaker.DEFAULT_FAILURE_THRESHOLD;
+
+    /**
+     * How long a span decorator exceeding {@code decoratorFailureThreshold} is skipped.
+     */
+    private Duration decoratorCooldown = Duration.ofMillis(DecoratorCircuitBreaker.DEFAULT_COOLDOWN_MILLIS);
+
+    /**
+     * Whether server and client requests are recorded as {@code opentracing.http.server.requests} and
+     * {@code opentracing.http.client.requests} Micrometer timers, tagged like the Spring Boot web metrics. Server
+     * requests are recorded by the tracing filters whether or not they are traced, cancelled requests are recorded
+     * with the {@code CancelledServerWebExchangeException} exception tag. Requires a {@code MeterRegistry} bean.
+     */
+    private boolean redMetrics = false;
+
+    /**
+     * Time after which reactive (WebFlux and WebClient) spans not finished by the instrumentation, e.g. of exchanges
+     * which never complete, error or cancel, are finished and tagged {@code leaked=true}. Not set by default, which
+     * does not track spans.
+     */
+    private Duration spanLeakTimeout;
+
+    /**
+     * Whether reactive (WebFlux) responses with a streaming media type, e.g. server-sent events, are reported by a
+     * setup span, finished when the body starts being written, and {@code stream} spans summarizing the written
+     * elements, instead of a span open for the whole connection.
+     */
+    private boolean streamingSpans = false;
+
+    /**
+     * Maximum number of elements summarized by a {@code stream} span when {@code streamingSpans} is enabled.
+     */
+    private int streamingSummaryElements = TracingWebFilter.DEFAULT_STREAMING_SUMMARY_ELEMENTS;
+
+    /**
+     * Maximum time summarized by a {@code stream} span when {@code streamingSpans} is enabled.
+     */
+    private Duration streamingSummaryInterval = Duration.ofMillis(TracingWebFilter.DEFAULT_STREAMING_SUMMARY_INTERVAL_MILLIS);
+
+    /**
+     * Whether tracing is degraded while the server is saturated, measured by the number of requests in flight
+     * through the servlet and WebFlux tracing filters. Exposed as {@code opentracing.overload.*} metrics when
+     * Micrometer is available.
+     */
+    private boolean overloadProtection = false;
+
+    /**
+     * Requests in flight from which the span decorators are replaced by the method, status and error tags.
+     */
+    private int overloadReducedTagsThreshold = 500;
+
+    /**
+     * Requests in flight from which error logs are dropped as well.
+     */
+    private int overloadNoLogsThreshold = 1000;
+
+    /**
+     * Requests in flight from which no span is created, the incoming span context is still propagated.
+     */
+    private int overloadPropagationOnlyThreshold = 2000;
+
+    /**
+     * Whether requests continuing a trace, i.e. carrying an incoming span context, keep their span with the error
+     * logs dropped instead of being propagated only, so overload does not break traces started upstream.
+     */
+    private boolean overloadKeepContinuedTraces = true;
+
     public boolean isEnabled() {
         return enabled;
     }
@@ -69,6 +225,206 @@ public class WebTracingProperties {
         this.urlPatterns = urlPatterns;
     }
 
+    public int getDecisionCacheSize() {
+        return decisionCacheSize;
+    }
+
+    public void setDecisionCacheSize(int decisionCacheSize) {
+        this.decisionCacheSize = decisionCacheSize;
+    }
+
+    public HeaderExtractMode getHeaderExtractMode() {
+        return headerExtractMode;
+    }
+
+    public void setHeaderExtractMode(HeaderExtractMode headerExtractMode) {
+        this.headerExtractMode = headerExtractMode;
+    }
+
+    public List<String> getPropagationHeaderNames() {
+        return propagationHeaderNames;
+    }
+
+    public void setPropagationHeaderNames(List<String> propagationHeaderNames) {
+        this.propagationHeaderNames = propagationHeaderNames;
+    }
+
+    public double getSamplingProbability() {
+        return samplingProbability;
+    }
+
+    public void setSamplingProbability(double samplingProbability) {
+        this.samplingProbability = samplingProbability;
+    }
+
+    public double getSamplingRateLimit() {
+        return samplingRateLimit;
+    }
+
+    public void setSamplingRateLimit(double samplingRateLimit) {
+        this.samplingRateLimit = samplingRateLimit;
+    }
+
+    public double getSamplingRateLimitPerRoute() {
+        return samplingRateLimitPerRoute;
+    }
+
+    public void setSamplingRateLimitPerRoute(double samplingRateLimitPerRoute) {
+        this.samplingRateLimitPerRoute = samplingRateLimitPerRoute;
+    }
+
+    public boolean isLazyUrlTag() {
+        return lazyUrlTag;
+    }
+
+    public void setLazyUrlTag(boolean lazyUrlTag) {
+        this.lazyUrlTag = lazyUrlTag;
+    }
+
+    public boolean isRouteOperationName() {
+        return routeOperationName;
+    }
+
+    public void setRouteOperationName(boolean routeOperationName) {
+        this.routeOperationName = routeOperationName;
+    }
+
+    public boolean isResponseMetrics() {
+        return responseMetrics;
+    }
+
+    public void setResponseMetrics(boolean responseMetrics) {
+        this.responseMetrics = responseMetrics;
+    }
+
+    public boolean isBodyMetrics() {
+        return bodyMetrics;
+    }
+
+    public void setBodyMetrics(boolean bodyMetrics) {
+        this.bodyMetrics = bodyMetrics;
+    }
+
+    public ContextPropagation getContextPropagation() {
+        return contextPropagation;
+    }
+
+    public void setContextPropagation(ContextPropagation contextPropagation) {
+        this.contextPropagation = contextPropagation;
+    }
+
+    public boolean isAsyncFinish() {
+        return asyncFinish;
+    }
+
+    public void setAsyncFinish(boolean asyncFinish) {
+        this.asyncFinish = asyncFinish;
+    }
+
+    public int getAsyncFinishCapacity() {
+        return asyncFinishCapacity;
+    }
+
+    public void setAsyncFinishCapacity(int asyncFinishCapacity) {
+        this.asyncFinishCapacity = asyncFinishCapacity;
+    }
+
+    public int getDecoratorFailureThreshold() {
+        return decoratorFailureThreshold;
+    }
+
+    public void setDecoratorFailureThreshold(int decoratorFailureThreshold) {
+        this.decoratorFailureThreshold = decoratorFailureThreshold;
+    }
+
+    public Duration getDecoratorCooldown() {
+        return decoratorCooldown;
+    }
+
+    public void setDecoratorCooldown(Duration decoratorCooldown) {
+        this.decoratorCooldown = decoratorCooldown;
+    }
+
+    public boolean isRedMetrics() {
+        return redMetrics;
+    }
+
+    public void setRedMetrics(boolean redMetrics) {
+        this.redMetrics = redMetrics;
+    }
+
+    public Duration getSpanLeakTimeout() {
+        return spanLeakTimeout;
+    }
+
+    public void setSpanLeakTimeout(Duration spanLeakTimeout) {
+        this.spanLeakTimeout = spanLeakTimeout;
+    }
+
+    public boolean isStreamingSpans() {
+        return streamingSpans;
+    }
+
+    public void setStreamingSpans(boolean streamingSpans) {
+        this.streamingSpans = streamingSpans;
+    }
+
+    public int getStreamingSummaryElements() {
+        return streamingSummaryElements;
+    }
+
+    public void setStreamingSummaryElements(int streamingSummaryElements) {
+        this.streamingSummaryElements = streamingSummaryElements;
+    }
+
+    public Duration getStreamingSummaryInterval() {
+        return streamingSummaryInterval;
+    }
+
+    public void setStreamingSummaryInterval(Duration streamingSummaryInterval) {
+        this.streamingSummaryInterval = streamingSummaryInterval;
+    }
+
+    public boolean isOverloadProtection() {
+        return overloadProtection;
+    }
+
+    public void setOverloadProtection(boolean overloadProtection) {
+        this.overloadProtection = overloadProtection;
+    }
+
+    public int getOverloadReducedTagsThreshold() {
+        return overloadReducedTagsThreshold;
+    }
+
+    public void setOverloadReducedTagsThreshold(int overloadReducedTagsThreshold) {
+        this.overloadReducedTagsThreshold = overloadReducedTagsThreshold;
+    }
+
+    public int getOverloadNoLogsThreshold() {
+        return overloadNoLogsThreshold;
+    }
+
+    public void setOverloadNoLogsThreshold(int overloadNoLogsThreshold) {
+        this.overloadNoLogsThreshold = overloadNoLogsThreshold;
+    }
+
+    public int getOverloadPropagationOnlyThreshold() {
+        return overloadPropagationOnlyThreshold;
+    }
+
+    public void setOverloadPropagationOnlyThreshold(int overloadPropagationOnlyThreshold) {
+        this.overloadPropagationOnlyThreshold = overloadPropagationOnlyThreshold;
+    }
+
+    public boolean isOverloadKeepContinuedTraces() {
+        return overloadKeepContinuedTraces;
+    }
+
+    public void setOverloadKeepContinuedTraces(boolean overloadKeepContinuedTraces) {
+        this.overloadKeepContinuedTraces = overloadKeepContinuedTraces;
+    }
+
     public int getOrder() {
         return order;
     }
@@ -16,9 +16,13 @@ package io.opentracing.contrib.spring.web.starter.client;
 import io.opentracing.Tracer;
 import io.opentracing.contrib.spring.web.client.RestTemplateSpanDecorator;
 import io.opentracing.contrib.spring.web.client.TracingRestTemplateInterceptor;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreakers;
+import io.opentracing.contrib.spring.web.support.RedMetricsRecorder;
+import io.opentracing.contrib.spring.web.support.TracingStats;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.boot.web.client.RestTemplateCustomizer;
 import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.lang.Nullable;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.ArrayList;
@@ -39,12 +43,41 @@ public class TracingRestTemplateCustomizer implements RestTemplateCustomizer {
 
     private final Tracer tracer;
     private final List<RestTemplateSpanDecorator> spanDecorators;
+    @Nullable
+    private DecoratorCircuitBreakers decoratorCircuitBreakers;
+    @Nullable
+    private RedMetricsRecorder redMetricsRecorder;
+    @Nullable
+    private TracingStats tracingStats;
 
     public TracingRestTemplateCustomizer(Tracer tracer, List<RestTemplateSpanDecorator> spanDecorators) {
         this.tracer = Objects.requireNonNull(tracer);
         this.spanDecorators = Objects.requireNonNull(spanDecorators);
     }
 
+    /**
+     * @param decoratorCircuitBreakers creates the circuit breakers of the span decorators of each customized
+     *                                 {@link RestTemplate}, or null for circuit breakers with the default settings
+     */
+    public void setDecoratorCircuitBreakers(@Nullable DecoratorCircuitBreakers decoratorCircuitBreakers) {
+        this.decoratorCircuitBreakers = decoratorCircuitBreakers;
+    }
+
+    /**
+     * @param redMetricsRecorder records the requests of each customized {@link RestTemplate}, or null to not record
+     *                           them
+     */
+    public void setRedMetricsRecorder(@Nullable RedMetricsRecorder redMetricsRecorder) {
+        this.redMetricsRecorder = redMetricsRecorder;
+    }
+
+    /**
+     * @param tracingStats stats of each customized {@link RestTemplate}, or null to not record them
+     */
+    public void setTracingStats(@Nullable TracingStats tracingStats) {
+        this.tracingStats = tracingStats;
+    }
+
     @Override
     public void customize(RestTemplate restTemplate) {
         List<ClientHttpRequestInterceptor> interceptors = restTemplate.getInterceptors();
@@ -56,7 +89,13 @@ public class TracingRestTemplateCustomizer implements RestTemplateCustomizer {
         }
 
         interceptors = new ArrayList<>(interceptors);
-        interceptors.add(new TracingRestTemplateInterceptor(tracer, spanDecorators));
+        TracingRestTemplateInterceptor tracingInterceptor = new TracingRestTemplateInterceptor(tracer, spanDecorators);
+        if (decoratorCircuitBreakers != null) {
+            tracingInterceptor.setDecoratorCircuitBreakers(decoratorCircuitBreakers);
+        }
+        tracingInterceptor.setRedMetricsRecorder(redMetricsRecorder);
+        tracingInterceptor.setTracingStats(tracingStats);
+        interceptors.add(tracingInterceptor);
         restTemplate.setInterceptors(interceptors);
     }
 }
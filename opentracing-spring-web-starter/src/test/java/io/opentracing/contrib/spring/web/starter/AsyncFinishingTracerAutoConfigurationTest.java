@@ -0,0 +1,57 @@
+/**
+ * Copyright 2016-2019 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.starter;
+
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import io.opentracing.Tracer;
+import io.opentracing.contrib.spring.web.support.AsyncFinishingTracer;
+import io.opentracing.mock.MockTracer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AsyncFinishingTracerAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(AsyncFinishingTracerAutoConfiguration.class))
+            .withBean(Tracer.class, MockTracer::new);
+
+    @Test
+    public void testDisabledByDefault() {
+        contextRunner.run(context -> {
+            assertThat(context.getBean(Tracer.class)).isInstanceOf(MockTracer.class);
+            assertThat(context).doesNotHaveBean(AsyncFinishingTracerAutoConfiguration.class);
+        });
+    }
+
+    @Test
+    public void testDisabledWithTracing() {
+        contextRunner.withPropertyValues("opentracing.spring.web.async-finish=true",
+                "opentracing.spring.web.enabled=false")
+                .run(context -> assertThat(context.getBean(Tracer.class)).isInstanceOf(MockTracer.class));
+    }
+
+    @Test
+    public void testWrapsTracer() {
+        contextRunner.withPropertyValues("opentracing.spring.web.async-finish=true",
+                "opentracing.spring.web.async-finish-capacity=64")
+                .run(context -> {
+                    Tracer tracer = context.getBean(Tracer.class);
+                    assertThat(tracer).isInstanceOf(AsyncFinishingTracer.class);
+                    assertThat(((AsyncFinishingTracer) tracer).getDelegate()).isInstanceOf(MockTracer.class);
+                });
+    }
+}
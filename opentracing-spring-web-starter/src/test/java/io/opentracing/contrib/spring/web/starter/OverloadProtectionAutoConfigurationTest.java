@@ -0,0 +1,61 @@
+/**
+ * Copyright 2016-2019 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.starter;
+
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentracing.contrib.spring.web.support.OverloadProtection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OverloadProtectionAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(OverloadProtectionAutoConfiguration.class));
+
+    @Test
+    public void testDisabledByDefault() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(OverloadProtection.class));
+    }
+
+    @Test
+    public void testEnabled() {
+        contextRunner.withPropertyValues("opentracing.spring.web.overload-protection=true",
+                "opentracing.spring.web.overload-reduced-tags-threshold=1")
+                .run(context -> {
+                    OverloadProtection protection = context.getBean(OverloadProtection.class);
+                    protection.enter();
+
+                    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+                    context.getBean(MeterBinder.class).bindTo(registry);
+                    assertThat(registry.get("opentracing.overload.in_flight").gauge().value()).isEqualTo(1);
+                    assertThat(registry.get("opentracing.overload.requests").tag("level", "REDUCED_TAGS")
+                            .functionCounter().count()).isEqualTo(1);
+                });
+    }
+
+    @Test
+    public void testKeepContinuedTraces() {
+        contextRunner.withPropertyValues("opentracing.spring.web.overload-protection=true")
+                .run(context -> assertThat(context.getBean(OverloadProtection.class).isKeepContinuedTraces()).isTrue());
+        contextRunner.withPropertyValues("opentracing.spring.web.overload-protection=true",
+                "opentracing.spring.web.overload-keep-continued-traces=false")
+                .run(context -> assertThat(context.getBean(OverloadProtection.class).isKeepContinuedTraces())
+                        .isFalse());
+    }
+}
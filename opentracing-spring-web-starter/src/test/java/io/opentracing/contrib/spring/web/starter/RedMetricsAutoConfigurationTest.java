@@ -0,0 +1,83 @@
+/**
+ * Copyright 2016-2019 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.starter;
+
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentracing.Tracer;
+import io.opentracing.contrib.spring.web.support.RedMetricsRecorder;
+import io.opentracing.contrib.spring.web.webfilter.TracingWebFilter;
+import io.opentracing.mock.MockTracer;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RedMetricsAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(RedMetricsAutoConfiguration.class))
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new);
+
+    @Test
+    public void testDisabledByDefault() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(RedMetricsRecorder.class));
+    }
+
+    @Test
+    public void testEnabled() {
+        contextRunner.withPropertyValues("opentracing.spring.web.red-metrics=true")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(RedMetricsRecorder.class);
+                    assertThat(context).doesNotHaveBean(WebFilter.class);
+                });
+    }
+
+    @Test
+    public void testRecordedByTracingWebFilter() {
+        new ReactiveWebApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(RedMetricsAutoConfiguration.class,
+                        SkipPatternAutoConfiguration.class, WebFluxTracingAutoConfiguration.class))
+                .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+                .withBean(Tracer.class, MockTracer::new)
+                .withPropertyValues("opentracing.spring.web.red-metrics=true",
+                        "opentracing.spring.web.skip-pattern=/health")
+                .run(context -> {
+                    assertThat(context).getBeans(WebFilter.class).hasSize(1);
+                    TracingWebFilter filter = context.getBean(TracingWebFilter.class);
+                    filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders")),
+                            exchange -> Mono.empty()).block();
+                    filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/health")),
+                            exchange -> Mono.empty()).block();
+                    assertThat(context.getBean(MeterRegistry.class).get(RedMetricsRecorder.SERVER_REQUESTS)
+                            .timer().count()).isEqualTo(2);
+                    assertThat(context.getBean(MockTracer.class).finishedSpans()).hasSize(1);
+                });
+    }
+
+    @Test
+    public void testWithoutMeterRegistry() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(RedMetricsAutoConfiguration.class))
+                .withPropertyValues("opentracing.spring.web.red-metrics=true")
+                .run(context -> assertThat(context).doesNotHaveBean(RedMetricsRecorder.class));
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2016-2019 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.starter;
+
+import java.util.Collections;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.opentracing.contrib.spring.web.support.RefreshableSkipPattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SkipPatternRefresherTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(SkipPatternAutoConfiguration.class,
+                    TracingEndpointAutoConfiguration.class))
+            .withUserConfiguration(PropertiesConfiguration.class)
+            .withPropertyValues("opentracing.spring.web.skip-pattern=/health",
+                    "management.endpoints.web.exposure.include=tracing");
+
+    @Test
+    public void testSetSkipPattern() {
+        contextRunner.run(context -> {
+            RefreshableSkipPattern skipPattern = context.getBean(RefreshableSkipPattern.class);
+            assertThat(skipPattern.get().matches("/health")).isTrue();
+
+            context.getBean(SkipPatternRefresher.class).setSkipPattern("/health|/noisy/.*");
+
+            assertThat(skipPattern.get().matches("/noisy/endpoint")).isTrue();
+            assertThat(context.getBean(WebTracingProperties.class).getSkipPattern()).isEqualTo("/health|/noisy/.*");
+        });
+    }
+
+    @Test
+    public void testInvalidSkipPatternIsRejected() {
+        contextRunner.run(context -> {
+            assertThatThrownBy(() -> context.getBean(SkipPatternRefresher.class).setSkipPattern("/noisy("))
+                    .isInstanceOf(PatternSyntaxException.class);
+            assertThat(context.getBean(RefreshableSkipPattern.class).toString()).isEqualTo("/health");
+        });
+    }
+
+    @Test
+    public void testEndpoint() {
+        contextRunner.run(context -> {
+            TracingEndpoint endpoint = context.getBean(TracingEndpoint.class);
+            endpoint.skipPattern("/noisy");
+
+            assertThat(endpoint.tracing()).containsEntry("skipPattern", "/noisy");
+            assertThat(context.getBean(RefreshableSkipPattern.class).get().matches("/noisy")).isTrue();
+        });
+    }
+
+    @Test
+    public void testEnvironmentChangeOfOtherPropertiesIgnored() {
+        contextRunner.run(context -> {
+            SkipPatternRefresher refresher = context.getBean(SkipPatternRefresher.class);
+            refresher.setSkipPattern("/noisy");
+            // e.g. rebound by Spring Cloud before the event is published
+            context.getBean(WebTracingProperties.class).setSkipPattern("/health");
+            TestPropertyValues.of("opentracing.spring.web.skip-pattern=/changed").applyTo(context);
+
+            refresher.onEnvironmentChange(Collections.singleton("logging.level.root"));
+            assertThat(refresher.getSkipPattern()).isEqualTo("/noisy");
+
+            // a refresh applies the pattern set through the endpoint again
+            refresher.refresh();
+            assertThat(refresher.getSkipPattern()).isEqualTo("/noisy");
+        });
+    }
+
+    @Test
+    public void testEnvironmentChangeOfSkipPattern() {
+        contextRunner.run(context -> {
+            SkipPatternRefresher refresher = context.getBean(SkipPatternRefresher.class);
+            refresher.setSkipPattern("/noisy");
+            TestPropertyValues.of("opentracing.spring.web.skip-pattern=/changed").applyTo(context);
+
+            refresher.onEnvironmentChange(Collections.singleton("OPENTRACING_SPRING_WEB_SKIPPATTERN"));
+            assertThat(refresher.getSkipPattern()).isEqualTo("/changed");
+
+            TestPropertyValues.of("opentracing.spring.web.skip-pattern=/other").applyTo(context);
+            refresher.onEnvironmentChange(Collections.singleton("opentracing.spring.web.skipPattern"));
+            assertThat(refresher.getSkipPattern()).isEqualTo("/other");
+        });
+    }
+
+    @Test
+    public void testCustomSkipPatternBeanNotReplaced() {
+        contextRunner.withUserConfiguration(CustomSkipPatternConfiguration.class)
+                .run(context -> {
+                    assertThat(context).doesNotHaveBean(SkipPatternRefresher.class);
+                    assertThat(context.getBean(RefreshableSkipPattern.class).toString()).isEqualTo("/custom");
+                });
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(WebTracingProperties.class)
+    static class PropertiesConfiguration {
+    }
+
+    @Configuration
+    static class CustomSkipPatternConfiguration {
+        @Bean
+        public Pattern skipPattern() {
+            return Pattern.compile("/custom");
+        }
+    }
+}
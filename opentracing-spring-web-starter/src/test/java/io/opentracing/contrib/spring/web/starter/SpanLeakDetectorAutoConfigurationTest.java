@@ -0,0 +1,42 @@
+/**
+ * Copyright 2016-2019 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.starter;
+
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import io.opentracing.contrib.spring.web.support.SpanLeakDetector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpanLeakDetectorAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(SpanLeakDetectorAutoConfiguration.class));
+
+    @Test
+    public void testDisabledByDefault() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(SpanLeakDetector.class));
+    }
+
+    @Test
+    public void testEnabled() {
+        contextRunner.withPropertyValues("opentracing.spring.web.span-leak-timeout=2m")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(SpanLeakDetector.class);
+                    assertThat(context.getBean(SpanLeakDetector.class).getTimeoutMillis()).isEqualTo(120_000);
+                });
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.client;
+
+import io.opentracing.Span;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreaker;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreakers;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+
+import java.util.List;
+
+/**
+ * Applies a list of decorators, isolating failures of each decorator and skipping decorators disabled by their
+ * {@link DecoratorCircuitBreaker}. The list is copied into an array once, next to the circuit breakers, so
+ * decorating a span does not allocate iterators or lambdas.
+ */
+class CompositeWebClientSpanDecorator implements WebClientSpanDecorator {
+    private static final Log LOG = LogFactory.getLog(CompositeWebClientSpanDecorator.class);
+
+    private final WebClientSpanDecorator[] spanDecorators;
+    private final DecoratorCircuitBreaker[] circuitBreakers;
+
+    CompositeWebClientSpanDecorator(final List<WebClientSpanDecorator> spanDecorators,
+                                    final DecoratorCircuitBreakers circuitBreakers) {
+        this.spanDecorators = spanDecorators.toArray(new WebClientSpanDecorator[0]);
+        this.circuitBreakers = circuitBreakers.create(spanDecorators);
+    }
+
+    @Override
+    public void onRequest(final ClientRequest clientRequest, final Span span) {
+        for (int i = 0; i < spanDecorators.length; i++) {
+            final DecoratorCircuitBreaker circuitBreaker = circuitBreakers[i];
+            if (circuitBreaker.isOpen()) {
+                continue;
+            }
+            try {
+                spanDecorators[i].onRequest(clientRequest, span);
+            } catch (final RuntimeException e) {
+                circuitBreaker.failed(e, LOG);
+            }
+        }
+    }
+
+    @Override
+    public void onResponse(final ClientRequest clientRequest, final ClientResponse clientResponse, final Span span) {
+        for (int i = 0; i < spanDecorators.length; i++) {
+            final DecoratorCircuitBreaker circuitBreaker = circuitBreakers[i];
+            if (circuitBreaker.isOpen()) {
+                continue;
+            }
+            try {
+                spanDecorators[i].onResponse(clientRequest, clientResponse, span);
+            } catch (final RuntimeException e) {
+                circuitBreaker.failed(e, LOG);
+            }
+        }
+    }
+
+    @Override
+    public void onError(final ClientRequest clientRequest, final Throwable throwable, final Span span) {
+        for (int i = 0; i < spanDecorators.length; i++) {
+            final DecoratorCircuitBreaker circuitBreaker = circuitBreakers[i];
+            if (circuitBreaker.isOpen()) {
+                continue;
+            }
+            try {
+                spanDecorators[i].onError(clientRequest, throwable, span);
+            } catch (final RuntimeException e) {
+                circuitBreaker.failed(e, LOG);
+            }
+        }
+    }
+
+    @Override
+    public void onCancel(final ClientRequest clientRequest, final Span span) {
+        for (int i = 0; i < spanDecorators.length; i++) {
+            final DecoratorCircuitBreaker circuitBreaker = circuitBreakers[i];
+            if (circuitBreaker.isOpen()) {
+                continue;
+            }
+            try {
+                spanDecorators[i].onCancel(clientRequest, span);
+            } catch (final RuntimeException e) {
+                circuitBreaker.failed(e, LOG);
+            }
+        }
+    }
+}
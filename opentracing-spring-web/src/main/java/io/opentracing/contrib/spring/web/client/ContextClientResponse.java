@@ -0,0 +1,99 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.client;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import org.springframework.web.reactive.function.BodyExtractor;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.reactive.function.client.support.ClientResponseWrapper;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.List;
+
+/**
+ * {@link ClientResponse} attaching a Reactor {@link Context} to body publishers when they are requested, see
+ * {@link ResponseContextMode#LAZY}.
+ */
+final class ContextClientResponse extends ClientResponseWrapper {
+    private final Context context;
+
+    ContextClientResponse(final ClientResponse response, final Context context) {
+        super(response);
+        this.context = context;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T body(final BodyExtractor<T, ? super ClientHttpResponse> extractor) {
+        final T body = super.body(extractor);
+        if (body instanceof Mono) {
+            return (T) ((Mono<?>) body).subscriberContext(context);
+        }
+        if (body instanceof Flux) {
+            return (T) ((Flux<?>) body).subscriberContext(context);
+        }
+        return body;
+    }
+
+    @Override
+    public <T> Mono<T> bodyToMono(final Class<? extends T> elementClass) {
+        final Mono<T> body = super.bodyToMono(elementClass);
+        return elementClass == Void.class ? body : body.subscriberContext(context);
+    }
+
+    @Override
+    public <T> Mono<T> bodyToMono(final ParameterizedTypeReference<T> elementTypeRef) {
+        return super.bodyToMono(elementTypeRef).subscriberContext(context);
+    }
+
+    @Override
+    public <T> Flux<T> bodyToFlux(final Class<? extends T> elementClass) {
+        return super.<T>bodyToFlux(elementClass).subscriberContext(context);
+    }
+
+    @Override
+    public <T> Flux<T> bodyToFlux(final ParameterizedTypeReference<T> elementTypeRef) {
+        return super.bodyToFlux(elementTypeRef).subscriberContext(context);
+    }
+
+    @Override
+    public <T> Mono<ResponseEntity<T>> toEntity(final Class<T> bodyType) {
+        return super.toEntity(bodyType).subscriberContext(context);
+    }
+
+    @Override
+    public <T> Mono<ResponseEntity<T>> toEntity(final ParameterizedTypeReference<T> bodyTypeReference) {
+        return super.toEntity(bodyTypeReference).subscriberContext(context);
+    }
+
+    @Override
+    public <T> Mono<ResponseEntity<List<T>>> toEntityList(final Class<T> elementClass) {
+        return super.toEntityList(elementClass).subscriberContext(context);
+    }
+
+    @Override
+    public <T> Mono<ResponseEntity<List<T>>> toEntityList(final ParameterizedTypeReference<T> elementTypeRef) {
+        return super.toEntityList(elementTypeRef).subscriberContext(context);
+    }
+
+    @Override
+    public Mono<WebClientResponseException> createException() {
+        return super.createException().subscriberContext(context);
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.client;
+
+/**
+ * How {@link TracingExchangeFilterFunction} adds the propagation headers to a {@code WebClient} request.
+ */
+public enum HeaderInjectMode {
+    /**
+     * The request is rebuilt with {@code ClientRequest.from(request)}, copying all headers, cookies and attributes.
+     */
+    COPY,
+    /**
+     * The request is wrapped and the propagation headers, rendered once per span, are written to the outgoing HTTP
+     * request next to the original headers. The headers of the wrapped request are merged only if requested.
+     * Propagation headers replace headers of the same name set on the request.
+     */
+    OVERLAY
+}
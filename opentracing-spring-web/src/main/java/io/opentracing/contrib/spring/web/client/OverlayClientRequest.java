@@ -0,0 +1,101 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * {@link ClientRequest} adding propagation headers to a request without copying it.
+ *
+ * The headers are set on the outgoing {@link ClientHttpRequest} before the wrapped request writes its own headers,
+ * which are skipped if already present. {@link #headers()} merges both lazily, only if called, e.g. by another
+ * filter or for trace logging.
+ */
+final class OverlayClientRequest implements ClientRequest {
+    private final ClientRequest request;
+    private final PropagationHeaders propagationHeaders;
+
+    @Nullable
+    private HttpHeaders headers;
+
+    OverlayClientRequest(final ClientRequest request, final PropagationHeaders propagationHeaders) {
+        this.request = request;
+        this.propagationHeaders = propagationHeaders;
+    }
+
+    @Override
+    public HttpMethod method() {
+        return request.method();
+    }
+
+    @Override
+    public URI url() {
+        return request.url();
+    }
+
+    @Override
+    public HttpHeaders headers() {
+        HttpHeaders result = headers;
+        if (result == null) {
+            final HttpHeaders merged = new HttpHeaders();
+            merged.putAll(request.headers());
+            propagationHeaders.setTo(merged);
+            result = HttpHeaders.readOnlyHttpHeaders(merged);
+            headers = result;
+        }
+        return result;
+    }
+
+    @Override
+    public MultiValueMap<String, String> cookies() {
+        return request.cookies();
+    }
+
+    @Override
+    public BodyInserter<?, ? super ClientHttpRequest> body() {
+        return request.body();
+    }
+
+    @Override
+    public Map<String, Object> attributes() {
+        return request.attributes();
+    }
+
+    @Override
+    public String logPrefix() {
+        return request.logPrefix();
+    }
+
+    @Override
+    public Mono<Void> writeTo(final ClientHttpRequest request, final ExchangeStrategies strategies) {
+        propagationHeaders.setTo(request.getHeaders());
+        return this.request.writeTo(request, strategies);
+    }
+
+    @Override
+    public String toString() {
+        return request.toString();
+    }
+}
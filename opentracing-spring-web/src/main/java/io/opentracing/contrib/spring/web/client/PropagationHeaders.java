@@ -0,0 +1,59 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.client;
+
+import io.opentracing.propagation.TextMap;
+import org.springframework.http.HttpHeaders;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Propagation headers rendered by {@link io.opentracing.Tracer#inject} into a compact array of name/value pairs.
+ */
+final class PropagationHeaders implements TextMap {
+    private String[] headers = new String[6];
+    private int length;
+
+    @Override
+    public void put(final String key, final String value) {
+        if (length == headers.length) {
+            headers = Arrays.copyOf(headers, length * 2);
+        }
+        headers[length++] = key;
+        headers[length++] = value;
+    }
+
+    @Override
+    public Iterator<Map.Entry<String, String>> iterator() {
+        throw new UnsupportedOperationException("Should be used only with tracer#inject()");
+    }
+
+    boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * Sets the headers, replacing existing values of the same name.
+     */
+    void setTo(final HttpHeaders httpHeaders) {
+        for (int i = 0; i < length; i += 2) {
+            httpHeaders.remove(headers[i]);
+        }
+        for (int i = 0; i < length; i += 2) {
+            httpHeaders.add(headers[i], headers[i + 1]);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.client;
+
+/**
+ * How {@link TracingExchangeFilterFunction} makes the client span visible in the Reactor context of the response
+ * body consumers, and when the span is finished.
+ */
+public enum ResponseContextMode {
+    /**
+     * Every response is rebuilt with a body {@code Flux} carrying the context.
+     */
+    REBUILD,
+    /**
+     * The response is wrapped and the context is attached to the result of a body method only when it is called.
+     * {@code releaseBody()}, {@code toBodilessEntity()} and {@code bodyToMono(Void.class)} are not wrapped.
+     */
+    LAZY,
+    /**
+     * Like {@link #REBUILD}, but the span stays open until the response body terminates or is cancelled. The span is
+     * tagged with {@code http.response.time_to_first_byte_us} and {@code http.response.time_to_last_byte_us}, measured
+     * from the span start to the first and last body chunk, and with {@code http.response.body_size} and
+     * {@code http.response.body_chunks}. The body must be consumed or released, otherwise the span is not finished.
+     */
+    TIMED_BODY
+}
@@ -24,6 +24,7 @@ import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.http.client.ClientHttpResponse;
 
 import io.opentracing.Span;
+import io.opentracing.contrib.spring.web.support.LazyStringTag;
 import io.opentracing.tag.Tags;
 
 /**
@@ -75,11 +76,29 @@ public interface RestTemplateSpanDecorator {
 
         public static final String COMPONENT_NAME = "java-spring-rest-template";
 
+        private final boolean lazyUrl;
+
+        public StandardTags() {
+            this(false);
+        }
+
+        /**
+         * @param lazyUrl whether {@link Tags#HTTP_URL} is set through {@link LazyStringTag#HTTP_URL}, deferring the
+         *                conversion of the URI to a string
+         */
+        public StandardTags(boolean lazyUrl) {
+            this.lazyUrl = lazyUrl;
+        }
+
         @Override
         public void onRequest(HttpRequest request, Span span) {
             Tags.COMPONENT.set(span, COMPONENT_NAME);
             // this can be sometimes only path e.g. "/foo"
-            Tags.HTTP_URL.set(span, request.getURI().toString());
+            if (lazyUrl) {
+                span.setTag(LazyStringTag.HTTP_URL, request.getURI());
+            } else {
+                Tags.HTTP_URL.set(span, request.getURI().toString());
+            }
             Tags.HTTP_METHOD.set(span, request.getMethod().toString());
 
             if (request.getURI().getPort() != -1) {
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.client;
+
+import org.reactivestreams.Subscription;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxOperator;
+import reactor.util.context.Context;
+
+/**
+ * Response body counting bytes and chunks and timing the first and last chunk, see
+ * {@link ResponseContextMode#TIMED_BODY}. Counters are primitive fields of the subscriber, nothing is allocated per
+ * {@link DataBuffer}.
+ */
+final class TimedBodyFlux extends FluxOperator<DataBuffer, DataBuffer> {
+    private final TracingClientResponseSubscriber responseSubscriber;
+
+    TimedBodyFlux(final Flux<DataBuffer> source, final TracingClientResponseSubscriber responseSubscriber) {
+        super(source);
+        this.responseSubscriber = responseSubscriber;
+    }
+
+    @Override
+    public void subscribe(final CoreSubscriber<? super DataBuffer> actual) {
+        source.subscribe(new TimedBodySubscriber(actual, responseSubscriber));
+    }
+
+    private static final class TimedBodySubscriber implements CoreSubscriber<DataBuffer>, Subscription {
+        private final CoreSubscriber<? super DataBuffer> actual;
+        private final TracingClientResponseSubscriber responseSubscriber;
+
+        private Subscription subscription;
+        private long firstChunkNanos;
+        private long bytes;
+        private long chunks;
+
+        TimedBodySubscriber(final CoreSubscriber<? super DataBuffer> actual,
+                            final TracingClientResponseSubscriber responseSubscriber) {
+            this.actual = actual;
+            this.responseSubscriber = responseSubscriber;
+        }
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            this.subscription = subscription;
+            actual.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(final DataBuffer dataBuffer) {
+            if (chunks++ == 0) {
+                firstChunkNanos = System.nanoTime();
+            }
+            bytes += dataBuffer.readableByteCount();
+            actual.onNext(dataBuffer);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            try {
+                actual.onError(throwable);
+            } finally {
+                responseSubscriber.onBodyTerminated(firstChunkNanos, bytes, chunks, throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                actual.onComplete();
+            } finally {
+                responseSubscriber.onBodyTerminated(firstChunkNanos, bytes, chunks, null);
+            }
+        }
+
+        @Override
+        public void request(final long n) {
+            subscription.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            subscription.cancel();
+            responseSubscriber.onBodyTerminated(firstChunkNanos, bytes, chunks, null);
+        }
+
+        @Override
+        public Context currentContext() {
+            return actual.currentContext();
+        }
+    }
+}
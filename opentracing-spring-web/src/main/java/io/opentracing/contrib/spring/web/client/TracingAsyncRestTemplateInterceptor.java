@@ -29,7 +29,13 @@ import org.springframework.util.concurrent.ListenableFutureCallback;
 
 import io.opentracing.Scope;
 import io.opentracing.Span;
+import io.opentracing.SpanContext;
 import io.opentracing.Tracer;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreaker;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreakers;
+import io.opentracing.contrib.spring.web.support.PropagationOnlySpan;
+import io.opentracing.contrib.spring.web.support.RedMetricsRecorder;
+import io.opentracing.contrib.spring.web.support.TracingStats;
 import io.opentracing.propagation.Format;
 import io.opentracing.tag.Tags;
 import io.opentracing.util.GlobalTracer;
@@ -44,36 +50,74 @@ public class TracingAsyncRestTemplateInterceptor implements AsyncClientHttpReque
 
     private Tracer tracer;
     private List<RestTemplateSpanDecorator> spanDecorators;
+    private DecoratorCircuitBreaker[] circuitBreakers;
+    private RedMetricsRecorder redMetricsRecorder;
+    private TracingStats tracingStats = TracingStats.DISABLED;
 
     public TracingAsyncRestTemplateInterceptor() {
         this(GlobalTracer.get());
     }
 
     public TracingAsyncRestTemplateInterceptor(Tracer tracer) {
-        this.tracer = tracer;
-        this.spanDecorators = Collections.<RestTemplateSpanDecorator>singletonList(new RestTemplateSpanDecorator.StandardTags());
+        this(tracer, Collections.<RestTemplateSpanDecorator>singletonList(
+                new RestTemplateSpanDecorator.StandardTags()));
     }
 
     public TracingAsyncRestTemplateInterceptor(Tracer tracer, List<RestTemplateSpanDecorator> spanDecorators) {
         this.tracer = tracer;
         this.spanDecorators = new ArrayList<>(spanDecorators);
+        this.circuitBreakers = new DecoratorCircuitBreakers().create(this.spanDecorators);
+    }
+
+    /**
+     * @param decoratorCircuitBreakers creates the circuit breakers skipping span decorators which keep failing,
+     *                                 defaults to circuit breakers with the default settings
+     */
+    public void setDecoratorCircuitBreakers(DecoratorCircuitBreakers decoratorCircuitBreakers) {
+        this.circuitBreakers = decoratorCircuitBreakers.create(spanDecorators);
+    }
+
+    /**
+     * @param redMetricsRecorder records the requests, or null to not record them (the default)
+     */
+    public void setRedMetricsRecorder(RedMetricsRecorder redMetricsRecorder) {
+        this.redMetricsRecorder = redMetricsRecorder;
+    }
+
+    /**
+     * @param tracingStats counts the spans of the interceptor, {@link TracingStats#DISABLED} if null (the default)
+     */
+    public void setTracingStats(TracingStats tracingStats) {
+        this.tracingStats = tracingStats != null ? tracingStats : TracingStats.DISABLED;
     }
 
     @Override
     public ListenableFuture<ClientHttpResponse> intercept(final HttpRequest httpRequest,
                                                           byte[] body,
                                                           AsyncClientHttpRequestExecution execution) throws IOException {
+        final Span activeSpan = tracer.activeSpan();
+        if (activeSpan instanceof PropagationOnlySpan) {
+            return propagateOnly(httpRequest, body, execution, activeSpan.context());
+        }
+        final RedMetricsRecorder recorder = redMetricsRecorder;
+        final long startNanos = recorder != null ? System.nanoTime() : 0;
+        final TracingStats stats = tracingStats;
 
         final Span span = tracer.buildSpan(httpRequest.getMethod().toString())
                 .withTag(Tags.SPAN_KIND.getKey(), Tags.SPAN_KIND_CLIENT)
                 .start();
+        stats.spanStarted();
         tracer.inject(span.context(), Format.Builtin.HTTP_HEADERS, new HttpHeadersCarrier(httpRequest.getHeaders()));
 
-        for (RestTemplateSpanDecorator spanDecorator : spanDecorators) {
+        for (int i = 0; i < spanDecorators.size(); i++) {
+            DecoratorCircuitBreaker circuitBreaker = circuitBreakers[i];
+            if (circuitBreaker.isOpen()) {
+                continue;
+            }
             try {
-                spanDecorator.onRequest(httpRequest, span);
+                spanDecorators.get(i).onRequest(httpRequest, span);
             } catch (RuntimeException exDecorator) {
-                log.error("Exception during decorating span", exDecorator);
+                circuitBreaker.failed(exDecorator, log);
             }
         }
 
@@ -82,29 +126,70 @@ public class TracingAsyncRestTemplateInterceptor implements AsyncClientHttpReque
             future.addCallback(new ListenableFutureCallback<ClientHttpResponse>() {
                 @Override
                 public void onSuccess(ClientHttpResponse httpResponse) {
-                    for (RestTemplateSpanDecorator spanDecorator: spanDecorators) {
+                    for (int i = 0; i < spanDecorators.size(); i++) {
+                        DecoratorCircuitBreaker circuitBreaker = circuitBreakers[i];
+                        if (circuitBreaker.isOpen()) {
+                            continue;
+                        }
                         try {
-                            spanDecorator.onResponse(httpRequest, httpResponse, span);
+                            spanDecorators.get(i).onResponse(httpRequest, httpResponse, span);
                         } catch (RuntimeException exDecorator) {
-                            log.error("Exception during decorating span", exDecorator);
+                            circuitBreaker.failed(exDecorator, log);
                         }
                     }
                     span.finish();
+                    stats.spanFinished();
+                    if (recorder != null) {
+                        TracingRestTemplateInterceptor.recordMetrics(recorder, httpRequest, httpResponse, null,
+                                startNanos);
+                    }
                 }
 
                 @Override
                 public void onFailure(Throwable ex) {
-                    for (RestTemplateSpanDecorator spanDecorator: spanDecorators) {
+                    for (int i = 0; i < spanDecorators.size(); i++) {
+                        DecoratorCircuitBreaker circuitBreaker = circuitBreakers[i];
+                        if (circuitBreaker.isOpen()) {
+                            continue;
+                        }
                         try {
-                            spanDecorator.onError(httpRequest, ex, span);
+                            spanDecorators.get(i).onError(httpRequest, ex, span);
                         } catch (RuntimeException exDecorator) {
-                            log.error("Exception during decorating span", exDecorator);
+                            circuitBreaker.failed(exDecorator, log);
                         }
                     }
                     span.finish();
+                    stats.spanFinished();
+                    if (recorder != null) {
+                        TracingRestTemplateInterceptor.recordMetrics(recorder, httpRequest, null, ex, startNanos);
+                    }
                 }
             });
             return future;
         }
     }
+
+    /**
+     * Executes a request of an unsampled server request without a span, only the span context extracted from the
+     * server request is propagated.
+     */
+    private ListenableFuture<ClientHttpResponse> propagateOnly(final HttpRequest httpRequest, byte[] body,
+                                                               AsyncClientHttpRequestExecution execution,
+                                                               SpanContext extractedContext) throws IOException {
+        if (extractedContext != null) {
+            tracer.inject(extractedContext, Format.Builtin.HTTP_HEADERS,
+                    new HttpHeadersCarrier(httpRequest.getHeaders()));
+        }
+        final RedMetricsRecorder recorder = redMetricsRecorder;
+        if (recorder == null) {
+            return execution.executeAsync(httpRequest, body);
+        }
+        final long startNanos = System.nanoTime();
+        ListenableFuture<ClientHttpResponse> future = execution.executeAsync(httpRequest, body);
+        future.addCallback(
+                httpResponse -> TracingRestTemplateInterceptor.recordMetrics(recorder, httpRequest, httpResponse,
+                        null, startNanos),
+                ex -> TracingRestTemplateInterceptor.recordMetrics(recorder, httpRequest, null, ex, startNanos));
+        return future;
+    }
 }
@@ -17,9 +17,16 @@ package io.opentracing.contrib.spring.web.client;
 
 import io.opentracing.Scope;
 import io.opentracing.Span;
+import io.opentracing.SpanContext;
 import io.opentracing.Tracer;
+import io.opentracing.contrib.spring.web.support.ContextPropagation;
+import io.opentracing.contrib.spring.web.support.PropagationOnlySpan;
+import io.opentracing.contrib.spring.web.support.RedMetricsRecorder;
+import io.opentracing.contrib.spring.web.support.SpanLeakDetector;
+import io.opentracing.contrib.spring.web.support.TracingStats;
 import io.opentracing.propagation.Format;
 import io.opentracing.tag.Tags;
+import org.springframework.lang.Nullable;
 import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.ExchangeFunction;
@@ -27,50 +34,182 @@ import reactor.core.CoreSubscriber;
 import reactor.core.publisher.Mono;
 import reactor.util.context.Context;
 
-import java.util.List;
-
 /**
  * Similar to {@code MonoWebClientTrace} from spring-cloud-sleuth-core.
  *
  * @author Csaba Kos
  */
 class TracingClientResponseMono extends Mono<ClientResponse> {
+    /**
+     * Decorator of the requests of unsampled server requests, which have no span to decorate.
+     */
+    private static final WebClientSpanDecorator NOOP_SPAN_DECORATOR = new WebClientSpanDecorator() {
+        @Override
+        public void onRequest(final ClientRequest clientRequest, final Span span) {
+        }
+
+        @Override
+        public void onResponse(final ClientRequest clientRequest, final ClientResponse clientResponse,
+                               final Span span) {
+        }
+
+        @Override
+        public void onError(final ClientRequest clientRequest, final Throwable throwable, final Span span) {
+        }
+
+        @Override
+        public void onCancel(final ClientRequest clientRequest, final Span span) {
+        }
+    };
+
     private final ClientRequest request;
     private final ExchangeFunction next;
     private final Tracer tracer;
-    private final List<WebClientSpanDecorator> spanDecorators;
+    private final WebClientSpanDecorator spanDecorator;
+    private final HeaderInjectMode headerInjectMode;
+    private final ResponseContextMode responseContextMode;
+    private final ContextPropagation contextPropagation;
+    @Nullable
+    private final SpanLeakDetector spanLeakDetector;
+    @Nullable
+    private final RedMetricsRecorder redMetricsRecorder;
+    private final TracingStats tracingStats;
+
+    TracingClientResponseMono(
+            final ClientRequest clientRequest,
+            final ExchangeFunction next,
+            final Tracer tracer,
+            final WebClientSpanDecorator spanDecorator
+    ) {
+        this(clientRequest, next, tracer, spanDecorator, HeaderInjectMode.COPY, ResponseContextMode.REBUILD);
+    }
+
+    TracingClientResponseMono(
+            final ClientRequest clientRequest,
+            final ExchangeFunction next,
+            final Tracer tracer,
+            final WebClientSpanDecorator spanDecorator,
+            final HeaderInjectMode headerInjectMode,
+            final ResponseContextMode responseContextMode
+    ) {
+        this(clientRequest, next, tracer, spanDecorator, headerInjectMode, responseContextMode,
+                ContextPropagation.SCOPE);
+    }
+
+    TracingClientResponseMono(
+            final ClientRequest clientRequest,
+            final ExchangeFunction next,
+            final Tracer tracer,
+            final WebClientSpanDecorator spanDecorator,
+            final HeaderInjectMode headerInjectMode,
+            final ResponseContextMode responseContextMode,
+            final ContextPropagation contextPropagation
+    ) {
+        this(clientRequest, next, tracer, spanDecorator, headerInjectMode, responseContextMode, contextPropagation,
+                null);
+    }
+
+    TracingClientResponseMono(
+            final ClientRequest clientRequest,
+            final ExchangeFunction next,
+            final Tracer tracer,
+            final WebClientSpanDecorator spanDecorator,
+            final HeaderInjectMode headerInjectMode,
+            final ResponseContextMode responseContextMode,
+            final ContextPropagation contextPropagation,
+            @Nullable final SpanLeakDetector spanLeakDetector
+    ) {
+        this(clientRequest, next, tracer, spanDecorator, headerInjectMode, responseContextMode, contextPropagation,
+                spanLeakDetector, null, TracingStats.DISABLED);
+    }
 
     TracingClientResponseMono(
             final ClientRequest clientRequest,
             final ExchangeFunction next,
             final Tracer tracer,
-            final List<WebClientSpanDecorator> spanDecorators
+            final WebClientSpanDecorator spanDecorator,
+            final HeaderInjectMode headerInjectMode,
+            final ResponseContextMode responseContextMode,
+            final ContextPropagation contextPropagation,
+            @Nullable final SpanLeakDetector spanLeakDetector,
+            @Nullable final RedMetricsRecorder redMetricsRecorder,
+            final TracingStats tracingStats
     ) {
         this.request = clientRequest;
         this.next = next;
         this.tracer = tracer;
-        this.spanDecorators = spanDecorators;
+        this.spanDecorator = spanDecorator;
+        this.headerInjectMode = headerInjectMode;
+        this.responseContextMode = responseContextMode;
+        this.contextPropagation = contextPropagation;
+        this.spanLeakDetector = spanLeakDetector;
+        this.redMetricsRecorder = redMetricsRecorder;
+        this.tracingStats = tracingStats;
     }
 
     @Override
     public void subscribe(final CoreSubscriber<? super ClientResponse> subscriber) {
+        final long startNanos = tracingStats.isEnabled() ? System.nanoTime() : 0;
         final Context context = subscriber.currentContext();
         final Span parentSpan = context.<Span>getOrEmpty(Span.class).orElseGet(tracer::activeSpan);
+        if (parentSpan instanceof PropagationOnlySpan) {
+            propagateOnly(subscriber, context, parentSpan);
+            return;
+        }
 
         final Span span = tracer.buildSpan(request.method().toString())
                 .asChildOf(parentSpan)
                 .withTag(Tags.SPAN_KIND.getKey(), Tags.SPAN_KIND_CLIENT)
                 .start();
+        tracingStats.spanStarted();
 
+        if (contextPropagation == ContextPropagation.CONTEXT_ONLY) {
+            exchange(subscriber, context, span, startNanos);
+            return;
+        }
         try (final Scope scope = tracer.scopeManager().activate(span)) {
-            final ClientRequest.Builder requestBuilder = ClientRequest.from(request);
-            requestBuilder.headers(httpHeaders ->
-                    tracer.inject(span.context(), Format.Builtin.HTTP_HEADERS, new HttpHeadersCarrier(httpHeaders)));
-            final ClientRequest mutatedRequest = requestBuilder.build();
-
-            next.exchange(mutatedRequest).subscribe(
-                    new TracingClientResponseSubscriber(subscriber, mutatedRequest, context, span, spanDecorators)
-            );
+            exchange(subscriber, context, span, startNanos);
+        }
+    }
+
+    private void exchange(final CoreSubscriber<? super ClientResponse> subscriber, final Context context,
+                          final Span span, final long startNanos) {
+        final ClientRequest mutatedRequest = injectHeaders(span.context());
+        final SpanLeakDetector.Handle leakHandle = spanLeakDetector == null ? null : spanLeakDetector.track(span, null);
+        final long subscribeNanos = tracingStats.isEnabled() ? System.nanoTime() - startNanos : 0;
+        final TracingClientResponseSubscriber tracingSubscriber = new TracingClientResponseSubscriber(subscriber,
+                mutatedRequest, context, span, spanDecorator, responseContextMode, subscribeNanos, leakHandle,
+                redMetricsRecorder, tracingStats);
+
+        next.exchange(mutatedRequest).subscribe(tracingSubscriber);
+    }
+
+    /**
+     * Exchanges a request of an unsampled server request without a span, only the span context extracted from the
+     * server request is propagated. The request is still recorded by the {@link RedMetricsRecorder}.
+     */
+    private void propagateOnly(final CoreSubscriber<? super ClientResponse> subscriber, final Context context,
+                               final Span propagationOnlySpan) {
+        final SpanContext extractedContext = propagationOnlySpan.context();
+        final ClientRequest mutatedRequest = extractedContext == null ? request : injectHeaders(extractedContext);
+        if (redMetricsRecorder == null) {
+            next.exchange(mutatedRequest).subscribe(subscriber);
+            return;
+        }
+        next.exchange(mutatedRequest).subscribe(new TracingClientResponseSubscriber(subscriber, mutatedRequest,
+                context, propagationOnlySpan, NOOP_SPAN_DECORATOR, ResponseContextMode.LAZY, 0, null,
+                redMetricsRecorder, TracingStats.DISABLED));
+    }
+
+    private ClientRequest injectHeaders(final SpanContext spanContext) {
+        if (headerInjectMode == HeaderInjectMode.OVERLAY) {
+            final PropagationHeaders propagationHeaders = new PropagationHeaders();
+            tracer.inject(spanContext, Format.Builtin.HTTP_HEADERS, propagationHeaders);
+            return propagationHeaders.isEmpty() ? request : new OverlayClientRequest(request, propagationHeaders);
         }
+        final ClientRequest.Builder requestBuilder = ClientRequest.from(request);
+        requestBuilder.headers(httpHeaders ->
+                tracer.inject(spanContext, Format.Builtin.HTTP_HEADERS, new HttpHeadersCarrier(httpHeaders)));
+        return requestBuilder.build();
     }
 }
@@ -16,16 +16,19 @@
 package io.opentracing.contrib.spring.web.client;
 
 import io.opentracing.Span;
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
+import io.opentracing.contrib.spring.web.support.RedMetricsRecorder;
+import io.opentracing.contrib.spring.web.support.SpanLeakDetector;
+import io.opentracing.contrib.spring.web.support.TracingStats;
 import org.reactivestreams.Subscription;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.lang.Nullable;
 import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import reactor.core.CoreSubscriber;
 import reactor.util.context.Context;
 
-import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * Similar to {@code WebClientTracerSubscriber} from spring-cloud-sleuth-core.
@@ -33,31 +36,65 @@ import java.util.List;
  * @author Csaba Kos
  */
 class TracingClientResponseSubscriber implements CoreSubscriber<ClientResponse> {
-    private static final Log LOG = LogFactory.getLog(TracingClientResponseSubscriber.class);
+    static final String TIME_TO_FIRST_BYTE = "http.response.time_to_first_byte_us";
+    static final String TIME_TO_LAST_BYTE = "http.response.time_to_last_byte_us";
+    static final String BODY_SIZE = "http.response.body_size";
+    static final String BODY_CHUNKS = "http.response.body_chunks";
+
+    private static final AtomicIntegerFieldUpdater<TracingClientResponseSubscriber> BODY_TERMINATED =
+            AtomicIntegerFieldUpdater.newUpdater(TracingClientResponseSubscriber.class, "bodyTerminated");
+    private static final AtomicIntegerFieldUpdater<TracingClientResponseSubscriber> METRICS_RECORDED =
+            AtomicIntegerFieldUpdater.newUpdater(TracingClientResponseSubscriber.class, "metricsRecorded");
 
     private final CoreSubscriber<? super ClientResponse> subscriber;
     private final ClientRequest clientRequest;
     private final Context context;
     private final Span span;
-    private final List<WebClientSpanDecorator> spanDecorators;
+    private final WebClientSpanDecorator spanDecorator;
+    private final ResponseContextMode responseContextMode;
+    private final long startNanos;
+    @Nullable
+    private final SpanLeakDetector.Handle leakHandle;
+    @Nullable
+    private final RedMetricsRecorder redMetricsRecorder;
+    private final TracingStats tracingStats;
+
+    private volatile long instrumentationNanos;
+    private volatile boolean bodyPending;
+    private volatile int bodyTerminated;
+    private volatile int metricsRecorded;
 
     TracingClientResponseSubscriber(
             final CoreSubscriber<? super ClientResponse> subscriber,
             final ClientRequest clientRequest,
             final Context context,
             final Span span,
-            final List<WebClientSpanDecorator> spanDecorators
+            final WebClientSpanDecorator spanDecorator,
+            final ResponseContextMode responseContextMode,
+            final long subscribeNanos,
+            @Nullable final SpanLeakDetector.Handle leakHandle,
+            @Nullable final RedMetricsRecorder redMetricsRecorder,
+            final TracingStats tracingStats
     ) {
         this.subscriber = subscriber;
         this.clientRequest = clientRequest;
         this.context = context.put(Span.class, span);
         this.span = span;
-        this.spanDecorators = spanDecorators;
+        this.spanDecorator = spanDecorator;
+        this.responseContextMode = responseContextMode;
+        this.startNanos = responseContextMode == ResponseContextMode.TIMED_BODY || redMetricsRecorder != null
+                ? System.nanoTime() : 0;
+        this.instrumentationNanos = subscribeNanos;
+        this.leakHandle = leakHandle;
+        this.redMetricsRecorder = redMetricsRecorder;
+        this.tracingStats = tracingStats;
     }
 
     @Override
     public void onSubscribe(final Subscription subscription) {
-        spanDecorators.forEach(spanDecorator -> safelyCall(() -> spanDecorator.onRequest(clientRequest, span)));
+        final long onSubscribeNanos = nanoTime();
+        spanDecorator.onRequest(clientRequest, span);
+        addInstrumentationNanos(onSubscribeNanos);
 
         subscriber.onSubscribe(new Subscription() {
             @Override
@@ -67,23 +104,47 @@ class TracingClientResponseSubscriber implements CoreSubscriber<ClientResponse>
 
             @Override
             public void cancel() {
-                spanDecorators.forEach(spanDecorator -> safelyCall(() -> spanDecorator.onCancel(clientRequest, span)));
+                if (bodyPending) {
+                    // the span is finished when the body terminates
+                    subscription.cancel();
+                    return;
+                }
+                if (!claimSpan()) {
+                    subscription.cancel();
+                    return;
+                }
+                final long cancelNanos = nanoTime();
+                recordMetrics(0, null);
+                spanDecorator.onCancel(clientRequest, span);
                 subscription.cancel();
-                span.finish();
+                finish(cancelNanos);
             }
         });
     }
 
     @Override
     public void onNext(final ClientResponse clientResponse) {
+        final long onNextNanos = nanoTime();
         try {
             // decorate response body
-            subscriber.onNext(ClientResponse.from(clientResponse)
-                    .body(clientResponse.bodyToFlux(DataBuffer.class).subscriberContext(context))
-                    .build());
+            if (responseContextMode == ResponseContextMode.LAZY) {
+                subscriber.onNext(new ContextClientResponse(clientResponse, context));
+            } else if (responseContextMode == ResponseContextMode.TIMED_BODY) {
+                bodyPending = true;
+                subscriber.onNext(ClientResponse.from(clientResponse)
+                        .body(new TimedBodyFlux(clientResponse.bodyToFlux(DataBuffer.class), this)
+                                .subscriberContext(context))
+                        .build());
+            } else {
+                subscriber.onNext(ClientResponse.from(clientResponse)
+                        .body(clientResponse.bodyToFlux(DataBuffer.class).subscriberContext(context))
+                        .build());
+            }
         } finally {
-            spanDecorators.forEach(spanDecorator ->
-                    safelyCall(() -> spanDecorator.onResponse(clientRequest, clientResponse, span)));
+            recordMetrics(clientResponse.rawStatusCode(), null);
+            spanDecorator.onResponse(clientRequest, clientResponse, span);
+            // includes the instrumentation of the body, not the processing of the response by the subscriber
+            addInstrumentationNanos(onNextNanos);
         }
     }
 
@@ -92,8 +153,12 @@ class TracingClientResponseSubscriber implements CoreSubscriber<ClientResponse>
         try {
             subscriber.onError(throwable);
         } finally {
-            spanDecorators.forEach(spanDecorator -> safelyCall(() -> spanDecorator.onError(clientRequest, throwable, span)));
-            span.finish();
+            if (claimSpan()) {
+                final long onErrorNanos = nanoTime();
+                recordMetrics(0, throwable);
+                spanDecorator.onError(clientRequest, throwable, span);
+                finish(onErrorNanos);
+            }
         }
     }
 
@@ -102,20 +167,74 @@ class TracingClientResponseSubscriber implements CoreSubscriber<ClientResponse>
         try {
             subscriber.onComplete();
         } finally {
-            span.finish();
+            if (!bodyPending && claimSpan()) {
+                finish(nanoTime());
+            }
         }
     }
 
-    @Override
-    public Context currentContext() {
-        return context;
+    /**
+     * Records the body metrics and finishes the span once the body of {@link ResponseContextMode#TIMED_BODY}
+     * terminates.
+     */
+    void onBodyTerminated(final long firstChunkNanos, final long bytes, final long chunks, final Throwable error) {
+        if (!BODY_TERMINATED.compareAndSet(this, 0, 1) || !claimSpan()) {
+            return;
+        }
+        final long lastChunkNanos = System.nanoTime();
+        if (chunks > 0) {
+            span.setTag(TIME_TO_FIRST_BYTE, TimeUnit.NANOSECONDS.toMicros(firstChunkNanos - startNanos));
+        }
+        span.setTag(TIME_TO_LAST_BYTE, TimeUnit.NANOSECONDS.toMicros(lastChunkNanos - startNanos));
+        span.setTag(BODY_SIZE, bytes);
+        span.setTag(BODY_CHUNKS, chunks);
+        if (error != null) {
+            spanDecorator.onError(clientRequest, error, span);
+        }
+        finish(lastChunkNanos);
     }
 
-    private void safelyCall(final Runnable runnable) {
-        try {
-            runnable.run();
-        } catch (final RuntimeException e) {
-            LOG.error("Exception during decorating span", e);
+    /**
+     * Records the request once, from the subscription to the response headers, error or cancellation.
+     */
+    private void recordMetrics(final int status, @Nullable final Throwable throwable) {
+        if (redMetricsRecorder != null && METRICS_RECORDED.compareAndSet(this, 0, 1)) {
+            redMetricsRecorder.recordClient(clientRequest.method().name(), clientRequest.url().getHost(), status,
+                    throwable, startNanos);
         }
     }
+
+    /**
+     * @return false if the span has already been finished by the leak detector
+     */
+    private boolean claimSpan() {
+        return leakHandle == null || leakHandle.complete();
+    }
+
+    private void finish(final long finishStartNanos) {
+        span.finish();
+        tracingStats.spanFinished();
+        if (tracingStats.isEnabled()) {
+            tracingStats.record(TracingStats.Component.EXCHANGE_FILTER_FUNCTION,
+                    instrumentationNanos + System.nanoTime() - finishStartNanos);
+        }
+    }
+
+    /**
+     * @return current time if the time spent in the instrumentation is recorded, otherwise 0
+     */
+    private long nanoTime() {
+        return tracingStats.isEnabled() ? System.nanoTime() : 0;
+    }
+
+    private void addInstrumentationNanos(final long startNanos) {
+        if (tracingStats.isEnabled()) {
+            instrumentationNanos += System.nanoTime() - startNanos;
+        }
+    }
+
+    @Override
+    public Context currentContext() {
+        return context;
+    }
 }
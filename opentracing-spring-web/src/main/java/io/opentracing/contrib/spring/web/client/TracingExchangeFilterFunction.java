@@ -16,12 +16,19 @@
 package io.opentracing.contrib.spring.web.client;
 
 import io.opentracing.Tracer;
+import io.opentracing.contrib.spring.web.support.ContextPropagation;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreakers;
+import io.opentracing.contrib.spring.web.support.RedMetricsRecorder;
+import io.opentracing.contrib.spring.web.support.SpanLeakDetector;
+import io.opentracing.contrib.spring.web.support.TracingStats;
+import org.springframework.lang.Nullable;
 import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.ExchangeFunction;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -32,14 +39,86 @@ import java.util.List;
 public class TracingExchangeFilterFunction implements ExchangeFilterFunction {
 	private final Tracer tracer;
 	private final List<WebClientSpanDecorator> spanDecorators;
+	private WebClientSpanDecorator spanDecorator;
+	private final HeaderInjectMode headerInjectMode;
+	private final ResponseContextMode responseContextMode;
+	private final ContextPropagation contextPropagation;
+	@Nullable
+	private SpanLeakDetector spanLeakDetector;
+	@Nullable
+	private RedMetricsRecorder redMetricsRecorder;
+	private TracingStats tracingStats = TracingStats.DISABLED;
 
 	public TracingExchangeFilterFunction(final Tracer tracer, final List<WebClientSpanDecorator> spanDecorators) {
+		this(tracer, spanDecorators, HeaderInjectMode.COPY, ResponseContextMode.REBUILD);
+	}
+
+	/**
+	 * @param tracer tracer
+	 * @param spanDecorators span decorators
+	 * @param headerInjectMode how propagation headers are added to the request
+	 * @param responseContextMode how the span is made visible to response body consumers
+	 */
+	public TracingExchangeFilterFunction(final Tracer tracer, final List<WebClientSpanDecorator> spanDecorators,
+										 final HeaderInjectMode headerInjectMode,
+										 final ResponseContextMode responseContextMode) {
+		this(tracer, spanDecorators, headerInjectMode, responseContextMode, ContextPropagation.SCOPE);
+	}
+
+	/**
+	 * @param tracer tracer
+	 * @param spanDecorators span decorators
+	 * @param headerInjectMode how propagation headers are added to the request
+	 * @param responseContextMode how the span is made visible to response body consumers
+	 * @param contextPropagation whether the client span is activated in the scope manager while the exchange is
+	 *                           subscribed
+	 */
+	public TracingExchangeFilterFunction(final Tracer tracer, final List<WebClientSpanDecorator> spanDecorators,
+										 final HeaderInjectMode headerInjectMode,
+										 final ResponseContextMode responseContextMode,
+										 final ContextPropagation contextPropagation) {
 		this.tracer = tracer;
-		this.spanDecorators = spanDecorators;
+		this.spanDecorators = new ArrayList<>(spanDecorators);
+		this.spanDecorator = new CompositeWebClientSpanDecorator(spanDecorators, new DecoratorCircuitBreakers());
+		this.headerInjectMode = headerInjectMode;
+		this.responseContextMode = responseContextMode;
+		this.contextPropagation = contextPropagation;
+	}
+
+	/**
+	 * @param decoratorCircuitBreakers creates the circuit breakers skipping span decorators which keep failing,
+	 *                                 defaults to circuit breakers with the default settings
+	 */
+	public void setDecoratorCircuitBreakers(final DecoratorCircuitBreakers decoratorCircuitBreakers) {
+		this.spanDecorator = new CompositeWebClientSpanDecorator(spanDecorators, decoratorCircuitBreakers);
+	}
+
+	/**
+	 * @param spanLeakDetector finishes client spans of exchanges which do not complete, error or cancel within its
+	 *                         timeout, or null to not track spans (the default)
+	 */
+	public void setSpanLeakDetector(@Nullable final SpanLeakDetector spanLeakDetector) {
+		this.spanLeakDetector = spanLeakDetector;
+	}
+
+	/**
+	 * @param redMetricsRecorder records the requests, or null to not record them (the default)
+	 */
+	public void setRedMetricsRecorder(@Nullable final RedMetricsRecorder redMetricsRecorder) {
+		this.redMetricsRecorder = redMetricsRecorder;
+	}
+
+	/**
+	 * @param tracingStats counts the spans and records the time spent in the filter function, or null to not record
+	 *                     anything (the default)
+	 */
+	public void setTracingStats(@Nullable final TracingStats tracingStats) {
+		this.tracingStats = tracingStats != null ? tracingStats : TracingStats.DISABLED;
 	}
 
 	@Override
 	public Mono<ClientResponse> filter(final ClientRequest clientRequest, final ExchangeFunction next) {
-		return new TracingClientResponseMono(clientRequest, next, tracer, spanDecorators);
+		return new TracingClientResponseMono(clientRequest, next, tracer, spanDecorator, headerInjectMode,
+				responseContextMode, contextPropagation, spanLeakDetector, redMetricsRecorder, tracingStats);
 	}
 }
@@ -27,7 +27,13 @@ import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.http.client.ClientHttpResponse;
 
 import io.opentracing.Scope;
+import io.opentracing.SpanContext;
 import io.opentracing.Tracer;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreaker;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreakers;
+import io.opentracing.contrib.spring.web.support.PropagationOnlySpan;
+import io.opentracing.contrib.spring.web.support.RedMetricsRecorder;
+import io.opentracing.contrib.spring.web.support.TracingStats;
 import io.opentracing.propagation.Format;
 import io.opentracing.tag.Tags;
 import io.opentracing.util.GlobalTracer;
@@ -43,6 +49,9 @@ public class TracingRestTemplateInterceptor implements ClientHttpRequestIntercep
 
     private Tracer tracer;
     private List<RestTemplateSpanDecorator> spanDecorators;
+    private DecoratorCircuitBreaker[] circuitBreakers;
+    private RedMetricsRecorder redMetricsRecorder;
+    private TracingStats tracingStats = TracingStats.DISABLED;
 
     public TracingRestTemplateInterceptor() {
         this(GlobalTracer.get(), Collections.<RestTemplateSpanDecorator>singletonList(
@@ -64,49 +73,155 @@ public class TracingRestTemplateInterceptor implements ClientHttpRequestIntercep
     public TracingRestTemplateInterceptor(Tracer tracer, List<RestTemplateSpanDecorator> spanDecorators) {
         this.tracer = tracer;
         this.spanDecorators = new ArrayList<>(spanDecorators);
+        this.circuitBreakers = new DecoratorCircuitBreakers().create(this.spanDecorators);
+    }
+
+    /**
+     * @param decoratorCircuitBreakers creates the circuit breakers skipping span decorators which keep failing,
+     *                                 defaults to circuit breakers with the default settings
+     */
+    public void setDecoratorCircuitBreakers(DecoratorCircuitBreakers decoratorCircuitBreakers) {
+        this.circuitBreakers = decoratorCircuitBreakers.create(spanDecorators);
+    }
+
+    /**
+     * @param redMetricsRecorder records the requests, or null to not record them (the default)
+     */
+    public void setRedMetricsRecorder(RedMetricsRecorder redMetricsRecorder) {
+        this.redMetricsRecorder = redMetricsRecorder;
+    }
+
+    /**
+     * @param tracingStats counts the spans and records the time spent in the interceptor, {@link TracingStats#DISABLED}
+     *                     if null (the default)
+     */
+    public void setTracingStats(TracingStats tracingStats) {
+        this.tracingStats = tracingStats != null ? tracingStats : TracingStats.DISABLED;
     }
 
     @Override
     public ClientHttpResponse intercept(HttpRequest httpRequest, byte[] body,
                                         ClientHttpRequestExecution execution) throws IOException {
-        ClientHttpResponse httpResponse;
+        Span activeSpan = tracer.activeSpan();
+        if (activeSpan instanceof PropagationOnlySpan) {
+            return propagateOnly(httpRequest, body, execution, activeSpan.context());
+        }
+        ClientHttpResponse httpResponse = null;
+        Exception exception = null;
+        TracingStats stats = tracingStats;
+        RedMetricsRecorder recorder = redMetricsRecorder;
+        long startNanos = stats.isEnabled() || recorder != null ? System.nanoTime() : 0;
+        long executionNanos = 0;
 
         Span span = tracer.buildSpan(httpRequest.getMethod().toString())
                 .withTag(Tags.SPAN_KIND.getKey(), Tags.SPAN_KIND_CLIENT)
                 .start();
+        stats.spanStarted();
         tracer.inject(span.context(), Format.Builtin.HTTP_HEADERS,
                 new HttpHeadersCarrier(httpRequest.getHeaders()));
 
-        for (RestTemplateSpanDecorator spanDecorator : spanDecorators) {
+        for (int i = 0; i < spanDecorators.size(); i++) {
+            DecoratorCircuitBreaker circuitBreaker = circuitBreakers[i];
+            if (circuitBreaker.isOpen()) {
+                continue;
+            }
             try {
-                spanDecorator.onRequest(httpRequest, span);
+                spanDecorators.get(i).onRequest(httpRequest, span);
             } catch (RuntimeException exDecorator) {
-                log.error("Exception during decorating span", exDecorator);
+                circuitBreaker.failed(exDecorator, log);
             }
         }
 
         try (Scope scope = tracer.activateSpan(span)) {
-            httpResponse = execution.execute(httpRequest, body);
-            for (RestTemplateSpanDecorator spanDecorator : spanDecorators) {
+            if (stats.isEnabled()) {
+                long executionStartNanos = System.nanoTime();
+                try {
+                    httpResponse = execution.execute(httpRequest, body);
+                } finally {
+                    executionNanos = System.nanoTime() - executionStartNanos;
+                }
+            } else {
+                httpResponse = execution.execute(httpRequest, body);
+            }
+            for (int i = 0; i < spanDecorators.size(); i++) {
+                DecoratorCircuitBreaker circuitBreaker = circuitBreakers[i];
+                if (circuitBreaker.isOpen()) {
+                    continue;
+                }
                 try {
-                    spanDecorator.onResponse(httpRequest, httpResponse, span);
+                    spanDecorators.get(i).onResponse(httpRequest, httpResponse, span);
                 } catch (RuntimeException exDecorator) {
-                    log.error("Exception during decorating span", exDecorator);
+                    circuitBreaker.failed(exDecorator, log);
                 }
             }
         } catch (Exception ex) {
-            for (RestTemplateSpanDecorator spanDecorator : spanDecorators) {
+            exception = ex;
+            for (int i = 0; i < spanDecorators.size(); i++) {
+                DecoratorCircuitBreaker circuitBreaker = circuitBreakers[i];
+                if (circuitBreaker.isOpen()) {
+                    continue;
+                }
                 try {
-                    spanDecorator.onError(httpRequest, ex, span);
+                    spanDecorators.get(i).onError(httpRequest, ex, span);
                 } catch (RuntimeException exDecorator) {
-                    log.error("Exception during decorating span", exDecorator);
+                    circuitBreaker.failed(exDecorator, log);
                 }
             }
             throw ex;
         } finally {
             span.finish();
+            stats.spanFinished();
+            if (stats.isEnabled()) {
+                stats.record(TracingStats.Component.REST_TEMPLATE_INTERCEPTOR,
+                        System.nanoTime() - startNanos - executionNanos);
+            }
+            if (recorder != null) {
+                recordMetrics(recorder, httpRequest, httpResponse, exception, startNanos);
+            }
         }
 
         return httpResponse;
     }
+
+    /**
+     * Executes a request of an unsampled server request without a span, only the span context extracted from the
+     * server request is propagated.
+     */
+    private ClientHttpResponse propagateOnly(HttpRequest httpRequest, byte[] body, ClientHttpRequestExecution execution,
+                                             SpanContext extractedContext) throws IOException {
+        if (extractedContext != null) {
+            tracer.inject(extractedContext, Format.Builtin.HTTP_HEADERS,
+                    new HttpHeadersCarrier(httpRequest.getHeaders()));
+        }
+        RedMetricsRecorder recorder = redMetricsRecorder;
+        if (recorder == null) {
+            return execution.execute(httpRequest, body);
+        }
+        long startNanos = System.nanoTime();
+        ClientHttpResponse httpResponse = null;
+        Exception exception = null;
+        try {
+            httpResponse = execution.execute(httpRequest, body);
+            return httpResponse;
+        } catch (IOException | RuntimeException ex) {
+            exception = ex;
+            throw ex;
+        } finally {
+            recordMetrics(recorder, httpRequest, httpResponse, exception, startNanos);
+        }
+    }
+
+    static void recordMetrics(RedMetricsRecorder recorder, HttpRequest httpRequest, ClientHttpResponse httpResponse,
+                              Throwable exception, long startNanos) {
+        int status = 0;
+        if (httpResponse != null) {
+            try {
+                status = httpResponse.getRawStatusCode();
+            } catch (IOException e) {
+                // recorded with unknown status
+            }
+        }
+        recorder.recordClient(httpRequest.getMethodValue(), httpRequest.getURI().getHost(), status, exception,
+                startNanos);
+    }
 }
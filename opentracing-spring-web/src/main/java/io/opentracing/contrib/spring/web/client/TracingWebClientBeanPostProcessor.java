@@ -16,13 +16,20 @@
 package io.opentracing.contrib.spring.web.client;
 
 import io.opentracing.Tracer;
+import io.opentracing.contrib.spring.web.support.ContextPropagation;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreakers;
+import io.opentracing.contrib.spring.web.support.RedMetricsRecorder;
+import io.opentracing.contrib.spring.web.support.SpanLeakDetector;
+import io.opentracing.contrib.spring.web.support.TracingStats;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.lang.Nullable;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * {@link BeanPostProcessor} for instrumenting {@link WebClient} with tracing.
@@ -34,10 +41,82 @@ import java.util.function.Consumer;
 public class TracingWebClientBeanPostProcessor implements BeanPostProcessor {
 	private final Tracer tracer;
 	private final List<WebClientSpanDecorator> spanDecorators;
+	private final HeaderInjectMode headerInjectMode;
+	private final ResponseContextMode responseContextMode;
+	private final ContextPropagation contextPropagation;
+	@Nullable
+	private SpanLeakDetector spanLeakDetector;
+	@Nullable
+	private DecoratorCircuitBreakers decoratorCircuitBreakers;
+	private Supplier<RedMetricsRecorder> redMetricsRecorder = () -> null;
+	private Supplier<TracingStats> tracingStats = () -> null;
 
 	public TracingWebClientBeanPostProcessor(final Tracer tracer, final List<WebClientSpanDecorator> spanDecorators) {
+		this(tracer, spanDecorators, HeaderInjectMode.COPY, ResponseContextMode.REBUILD);
+	}
+
+	/**
+	 * @param tracer tracer
+	 * @param spanDecorators span decorators
+	 * @param headerInjectMode how propagation headers are added to the request
+	 * @param responseContextMode how the span is made visible to response body consumers
+	 */
+	public TracingWebClientBeanPostProcessor(final Tracer tracer, final List<WebClientSpanDecorator> spanDecorators,
+											 final HeaderInjectMode headerInjectMode,
+											 final ResponseContextMode responseContextMode) {
+		this(tracer, spanDecorators, headerInjectMode, responseContextMode, ContextPropagation.SCOPE);
+	}
+
+	/**
+	 * @param tracer tracer
+	 * @param spanDecorators span decorators
+	 * @param headerInjectMode how propagation headers are added to the request
+	 * @param responseContextMode how the span is made visible to response body consumers
+	 * @param contextPropagation whether the client span is activated in the scope manager while the exchange is
+	 *                           subscribed
+	 */
+	public TracingWebClientBeanPostProcessor(final Tracer tracer, final List<WebClientSpanDecorator> spanDecorators,
+											 final HeaderInjectMode headerInjectMode,
+											 final ResponseContextMode responseContextMode,
+											 final ContextPropagation contextPropagation) {
 		this.tracer = tracer;
 		this.spanDecorators = spanDecorators;
+		this.headerInjectMode = headerInjectMode;
+		this.responseContextMode = responseContextMode;
+		this.contextPropagation = contextPropagation;
+	}
+
+	/**
+	 * @param spanLeakDetector finishes client spans of exchanges which do not complete, error or cancel within its
+	 *                         timeout, or null to not track spans (the default)
+	 */
+	public void setSpanLeakDetector(@Nullable final SpanLeakDetector spanLeakDetector) {
+		this.spanLeakDetector = spanLeakDetector;
+	}
+
+	/**
+	 * @param decoratorCircuitBreakers creates the circuit breakers of the span decorators of each instrumented
+	 *                                 {@link WebClient}, or null for circuit breakers with the default settings
+	 */
+	public void setDecoratorCircuitBreakers(@Nullable final DecoratorCircuitBreakers decoratorCircuitBreakers) {
+		this.decoratorCircuitBreakers = decoratorCircuitBreakers;
+	}
+
+	/**
+	 * @param redMetricsRecorder supplies the recorder of the requests of each instrumented {@link WebClient}, which
+	 *                           returns null to not record them (the default). Called when a {@link WebClient} is
+	 *                           instrumented, so the recorder is not created together with this post processor.
+	 */
+	public void setRedMetricsRecorder(final Supplier<RedMetricsRecorder> redMetricsRecorder) {
+		this.redMetricsRecorder = redMetricsRecorder;
+	}
+
+	/**
+	 * @param tracingStats supplies the stats of each instrumented {@link WebClient}, which returns null to not record
+	 *                     anything (the default). Called when a {@link WebClient} is instrumented.
+	 */
+	public void setTracingStats(final Supplier<TracingStats> tracingStats) {
+		this.tracingStats = tracingStats;
 	}
 
 	@Override
@@ -62,7 +141,15 @@ public class TracingWebClientBeanPostProcessor implements BeanPostProcessor {
 		return functions -> {
 			if (functions.stream()
 					.noneMatch(function -> function instanceof TracingExchangeFilterFunction)) {
-				functions.add(new TracingExchangeFilterFunction(tracer, spanDecorators));
+				final TracingExchangeFilterFunction function = new TracingExchangeFilterFunction(tracer,
+						spanDecorators, headerInjectMode, responseContextMode, contextPropagation);
+				function.setSpanLeakDetector(spanLeakDetector);
+				function.setRedMetricsRecorder(redMetricsRecorder.get());
+				function.setTracingStats(tracingStats.get());
+				if (decoratorCircuitBreakers != null) {
+					function.setDecoratorCircuitBreakers(decoratorCircuitBreakers);
+				}
+				functions.add(function);
 			}
 		};
 	}
@@ -14,6 +14,7 @@
 package io.opentracing.contrib.spring.web.client;
 
 import io.opentracing.Span;
+import io.opentracing.contrib.spring.web.support.LazyStringTag;
 import io.opentracing.tag.Tags;
 import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ClientResponse;
@@ -70,10 +71,28 @@ public interface WebClientSpanDecorator {
     class StandardTags implements WebClientSpanDecorator {
         static final String COMPONENT_NAME = "java-spring-webclient";
 
+        private final boolean lazyUrl;
+
+        public StandardTags() {
+            this(false);
+        }
+
+        /**
+         * @param lazyUrl whether {@link Tags#HTTP_URL} is set through {@link LazyStringTag#HTTP_URL}, deferring the
+         *                conversion of the URI to a string
+         */
+        public StandardTags(final boolean lazyUrl) {
+            this.lazyUrl = lazyUrl;
+        }
+
         @Override
         public void onRequest(final ClientRequest clientRequest, final Span span) {
             Tags.COMPONENT.set(span, COMPONENT_NAME);
-            Tags.HTTP_URL.set(span, clientRequest.url().toString());
+            if (lazyUrl) {
+                span.setTag(LazyStringTag.HTTP_URL, clientRequest.url());
+            } else {
+                Tags.HTTP_URL.set(span, clientRequest.url().toString());
+            }
             Tags.HTTP_METHOD.set(span, clientRequest.method().toString());
 
             if (clientRequest.url().getPort() != -1) {
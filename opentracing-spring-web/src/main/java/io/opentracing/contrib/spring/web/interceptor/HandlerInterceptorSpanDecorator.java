@@ -14,14 +14,15 @@
 package io.opentracing.contrib.spring.web.interceptor;
 
 import io.opentracing.Span;
+import io.opentracing.contrib.spring.web.support.OperationNameStrategy;
+import io.opentracing.contrib.spring.web.support.RouteTemplateOperationNameStrategy;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * SpanDecorator to decorate span at different stages in filter processing.
@@ -66,45 +67,26 @@ public interface HandlerInterceptorSpanDecorator {
                            Span span);
 
     /**
-     * Decorator to record details about the handler as log events recorded on the span.
+     * Decorator to record details about the handler as log events recorded on the span. Handler metadata and log
+     * fields are computed once per handler method or handler class.
      */
     HandlerInterceptorSpanDecorator STANDARD_LOGS = new HandlerInterceptorSpanDecorator() {
 
         @Override
         public void onPreHandle(HttpServletRequest httpServletRequest, Object handler, Span span) {
-            Map<String, Object> logs = new HashMap<>(3);
-            logs.put("event", "preHandle");
-            logs.put(HandlerUtils.HANDLER, handler);
-
-            String metaData = HandlerUtils.className(handler);
-            if (metaData != null) {
-                logs.put(HandlerUtils.HANDLER_CLASS_NAME, metaData);
-            }
-
-            metaData = HandlerUtils.methodName(handler);
-            if (metaData != null) {
-                logs.put(HandlerUtils.HANDLER_METHOD_NAME, metaData);
-            }
-
-            span.log(logs);
+            span.log(HandlerMetadata.of(handler).preHandleLogs(handler));
         }
 
         @Override
         public void onAfterCompletion(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
                                       Object handler, Exception ex, Span span) {
-            Map<String, Object> logs = new HashMap<>(2);
-            logs.put("event", "afterCompletion");
-            logs.put(HandlerUtils.HANDLER, handler);
-            span.log(logs);
+            span.log(HandlerMetadata.afterCompletionLogs(handler));
         }
 
         @Override
         public void onAfterConcurrentHandlingStarted(HttpServletRequest httpServletRequest,
                 HttpServletResponse httpServletResponse, Object handler, Span span) {
-            Map<String, Object> logs = new HashMap<>(2);
-            logs.put("event", "afterConcurrentHandlingStarted");
-            logs.put(HandlerUtils.HANDLER, handler);
-            span.log(logs);
+            span.log(HandlerMetadata.afterConcurrentHandlingStartedLogs(handler));
         }
     };
 
@@ -115,7 +97,7 @@ public interface HandlerInterceptorSpanDecorator {
 
         @Override
         public void onPreHandle(HttpServletRequest httpServletRequest, Object handler, Span span) {
-            String metaData = HandlerUtils.methodName(handler);
+            String metaData = HandlerMetadata.of(handler).getMethodName();
             if (metaData != null) {
                 span.setOperationName(metaData);
             }
@@ -132,6 +114,44 @@ public interface HandlerInterceptorSpanDecorator {
         }
     };
 
+    /**
+     * Use {@code METHOD /route/{template}} of the matched request mapping as the span's operation name, e.g.
+     * {@code GET /orders/{id}}.
+     */
+    HandlerInterceptorSpanDecorator ROUTE_OPERATION_NAME = new OperationNameDecorator(
+            new RouteTemplateOperationNameStrategy());
+
+    /**
+     * Decorator setting the span's operation name computed by an {@link OperationNameStrategy}.
+     */
+    class OperationNameDecorator implements HandlerInterceptorSpanDecorator {
+        private final OperationNameStrategy operationNameStrategy;
+
+        public OperationNameDecorator(OperationNameStrategy operationNameStrategy) {
+            this.operationNameStrategy = operationNameStrategy;
+        }
+
+        @Override
+        public void onPreHandle(HttpServletRequest httpServletRequest, Object handler, Span span) {
+            Object pattern = httpServletRequest.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String operationName = operationNameStrategy.operationName(httpServletRequest.getMethod(), handler,
+                    pattern == null ? null : pattern.toString());
+            if (operationName != null) {
+                span.setOperationName(operationName);
+            }
+        }
+
+        @Override
+        public void onAfterCompletion(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
+                                      Object handler, Exception ex, Span span) {
+        }
+
+        @Override
+        public void onAfterConcurrentHandlingStarted(HttpServletRequest httpServletRequest,
+                HttpServletResponse httpServletResponse, Object handler, Span span) {
+        }
+    }
+
     /**
      * Helper class for deriving tags/logs from handler object.
      */
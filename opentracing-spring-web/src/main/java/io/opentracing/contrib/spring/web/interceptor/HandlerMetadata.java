@@ -0,0 +1,238 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.interceptor;
+
+import java.lang.reflect.Method;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.web.method.HandlerMethod;
+
+import io.opentracing.contrib.spring.web.interceptor.HandlerInterceptorSpanDecorator.HandlerUtils;
+
+/**
+ * Immutable metadata of a handler with prebuilt log fields, computed the first time the handler is seen.
+ *
+ * <p>Handler methods are cached by their method and bean type, other handlers by their class, so the cache neither
+ * keeps a handler instance alive nor grows with prototype or request scoped controllers. The live handler is only
+ * added to the log fields of each request. Entries are softly referenced, so the cache does not keep classes of
+ * closed application contexts alive.
+ */
+final class HandlerMetadata {
+
+    /**
+     * Metadata by handler method, or by handler class for other handlers.
+     */
+    private static final Map<Object, HandlerMetadata> CACHE = new ConcurrentReferenceHashMap<>(64);
+    /**
+     * Metadata of handler methods inherited by several bean types, except the bean type cached first.
+     */
+    private static final Map<MethodKey, HandlerMetadata> INHERITED_CACHE = new ConcurrentReferenceHashMap<>(16);
+
+    private final Class<?> type;
+    private final String className;
+    @Nullable
+    private final String methodName;
+    private final String[] preHandleKeys;
+    private final Object[] preHandleValues;
+
+    private HandlerMetadata(Object handler) {
+        this.type = handler instanceof HandlerMethod ? ((HandlerMethod) handler).getBeanType() : handler.getClass();
+        this.className = HandlerUtils.className(handler);
+        this.methodName = HandlerUtils.methodName(handler);
+        if (methodName == null) {
+            this.preHandleKeys = new String[] {"event", HandlerUtils.HANDLER_CLASS_NAME, HandlerUtils.HANDLER};
+            this.preHandleValues = new Object[] {"preHandle", className};
+        } else {
+            this.preHandleKeys = new String[] {"event", HandlerUtils.HANDLER_CLASS_NAME,
+                    HandlerUtils.HANDLER_METHOD_NAME, HandlerUtils.HANDLER};
+            this.preHandleValues = new Object[] {"preHandle", className, methodName};
+        }
+    }
+
+    /**
+     * @param handler handler serving the request
+     * @return cached metadata of the handler
+     */
+    static HandlerMetadata of(Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return of(CACHE, handler.getClass(), handler);
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        HandlerMetadata metadata = of(CACHE, handlerMethod.getMethod(), handler);
+        if (metadata.type == handlerMethod.getBeanType()) {
+            return metadata;
+        }
+        return of(INHERITED_CACHE, new MethodKey(handlerMethod), handler);
+    }
+
+    private static <K> HandlerMetadata of(Map<K, HandlerMetadata> cache, K key, Object handler) {
+        HandlerMetadata metadata = cache.get(key);
+        if (metadata == null) {
+            metadata = new HandlerMetadata(handler);
+            cache.put(key, metadata);
+        }
+        return metadata;
+    }
+
+    String getClassName() {
+        return className;
+    }
+
+    @Nullable
+    String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * @param handler handler serving the request
+     * @return log fields of the preHandle event
+     */
+    Map<String, Object> preHandleLogs(Object handler) {
+        return new Logs(preHandleKeys, preHandleValues, handler);
+    }
+
+    /**
+     * @param handler handler serving the request
+     * @return log fields of the afterCompletion event
+     */
+    static Map<String, Object> afterCompletionLogs(Object handler) {
+        return new Logs(Logs.EVENT_KEYS, Logs.AFTER_COMPLETION, handler);
+    }
+
+    /**
+     * @param handler handler serving the request
+     * @return log fields of the afterConcurrentHandlingStarted event
+     */
+    static Map<String, Object> afterConcurrentHandlingStartedLogs(Object handler) {
+        return new Logs(Logs.EVENT_KEYS, Logs.AFTER_CONCURRENT_HANDLING_STARTED, handler);
+    }
+
+    /**
+     * Cache key of a handler method inherited by several bean types.
+     */
+    private static final class MethodKey {
+        private final Method method;
+        private final Class<?> beanType;
+
+        MethodKey(HandlerMethod handlerMethod) {
+            this.method = handlerMethod.getMethod();
+            this.beanType = handlerMethod.getBeanType();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof MethodKey)) {
+                return false;
+            }
+            MethodKey key = (MethodKey) other;
+            return method.equals(key.method) && beanType == key.beanType;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * method.hashCode() + beanType.hashCode();
+        }
+    }
+
+    /**
+     * Unmodifiable log fields sharing the prebuilt keys and values of a handler, followed by the handler itself as
+     * the last field.
+     */
+    private static final class Logs extends AbstractMap<String, Object> {
+        private static final String[] EVENT_KEYS = {"event", HandlerUtils.HANDLER};
+        private static final Object[] AFTER_COMPLETION = {"afterCompletion"};
+        private static final Object[] AFTER_CONCURRENT_HANDLING_STARTED = {"afterConcurrentHandlingStarted"};
+
+        private final String[] keys;
+        private final Object[] values;
+        private final Object handler;
+
+        Logs(String[] keys, Object[] values, Object handler) {
+            this.keys = keys;
+            this.values = values;
+            this.handler = handler;
+        }
+
+        private Object value(int index) {
+            return index < values.length ? values[index] : handler;
+        }
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
+
+        @Override
+        public Object get(Object key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equals(key)) {
+                    return value(i);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            for (String k : keys) {
+                if (k.equals(key)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<Entry<String, Object>>() {
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < keys.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (index >= keys.length) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<String, Object> entry = new SimpleImmutableEntry<>(keys[index], value(index));
+                            index++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+    }
+}
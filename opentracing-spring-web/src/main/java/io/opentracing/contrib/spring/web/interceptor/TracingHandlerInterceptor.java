@@ -29,6 +29,7 @@ import io.opentracing.Scope;
 import io.opentracing.Span;
 import io.opentracing.SpanContext;
 import io.opentracing.Tracer;
+import io.opentracing.contrib.spring.web.support.TracingStats;
 import io.opentracing.contrib.web.servlet.filter.TracingFilter;
 
 /**
@@ -46,9 +47,15 @@ public class TracingHandlerInterceptor extends HandlerInterceptorAdapter {
     private static final String SCOPE_STACK = TracingHandlerInterceptor.class.getName() + ".scopeStack";
     private static final String CONTINUATION_FROM_ASYNC_STARTED = TracingHandlerInterceptor.class.getName() + ".continuation";
     private static final String IS_ERROR_HANDLING_SPAN = TracingHandlerInterceptor.class.getName() + ".error_handling_span";
+    /**
+     * Request attribute accumulating the nanoseconds spent in the callbacks of a request until its
+     * {@code afterCompletion}, only set when stats are enabled.
+     */
+    private static final String INSTRUMENTATION_NANOS = TracingHandlerInterceptor.class.getName() + ".nanos";
 
     private Tracer tracer;
     private List<HandlerInterceptorSpanDecorator> decorators;
+    private TracingStats tracingStats = TracingStats.DISABLED;
 
     /**
      * @param tracer
@@ -67,6 +74,14 @@ public class TracingHandlerInterceptor extends HandlerInterceptorAdapter {
         this.decorators = new ArrayList<>(decorators);
     }
 
+    /**
+     * @param tracingStats records the time spent in the interceptor per request, {@link TracingStats#DISABLED} if
+     *                     null (the default)
+     */
+    public void setTracingStats(TracingStats tracingStats) {
+        this.tracingStats = tracingStats != null ? tracingStats : TracingStats.DISABLED;
+    }
+
     /**
      * This method determines whether the HTTP request is being traced.
      *
@@ -80,11 +95,11 @@ public class TracingHandlerInterceptor extends HandlerInterceptorAdapter {
 
     @Override
     public boolean preHandle(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, Object handler) {
-        Deque<Scope> activeSpanStack = getScopeStack(httpServletRequest);
-
         if (!isTraced(httpServletRequest)) {
             return true;
         }
+        TracingStats stats = tracingStats;
+        long startNanos = stats.isEnabled() ? System.nanoTime() : 0;
 
         /*
          * 1. check if there is an active span, it has been activated in servlet filter or in this interceptor (forward)
@@ -95,14 +110,15 @@ public class TracingHandlerInterceptor extends HandlerInterceptorAdapter {
             if (httpServletRequest.getAttribute(CONTINUATION_FROM_ASYNC_STARTED) != null) {
                 serverSpan = (Span) httpServletRequest.getAttribute(CONTINUATION_FROM_ASYNC_STARTED);
                 httpServletRequest.removeAttribute(CONTINUATION_FROM_ASYNC_STARTED);
-                activeSpanStack.push(tracer.activateSpan(serverSpan));
+                pushScope(httpServletRequest, tracer.activateSpan(serverSpan));
             } else {
                 // spring boot default error handling, executes interceptor after processing in the filter (ugly huh?)
                 serverSpan = tracer.buildSpan(httpServletRequest.getMethod())
                         .addReference(References.FOLLOWS_FROM, TracingFilter.serverSpanContext(httpServletRequest))
                         .start();
+                stats.spanStarted();
                 httpServletRequest.setAttribute(IS_ERROR_HANDLING_SPAN, true);
-                activeSpanStack.push(tracer.activateSpan(serverSpan));
+                pushScope(httpServletRequest, tracer.activateSpan(serverSpan));
             }
         }
 
@@ -110,6 +126,7 @@ public class TracingHandlerInterceptor extends HandlerInterceptorAdapter {
             decorator.onPreHandle(httpServletRequest, handler, serverSpan);
         }
 
+        addNanos(stats, httpServletRequest, startNanos);
         return true;
     }
 
@@ -120,12 +137,18 @@ public class TracingHandlerInterceptor extends HandlerInterceptorAdapter {
         if (!isTraced(httpServletRequest)) {
             return;
         }
+        TracingStats stats = tracingStats;
+        long startNanos = stats.isEnabled() ? System.nanoTime() : 0;
 
         Span span = tracer.activeSpan();
         for (HandlerInterceptorSpanDecorator decorator : decorators) {
             decorator.onAfterConcurrentHandlingStarted(httpServletRequest, httpServletResponse, handler, span);
         }
         httpServletRequest.setAttribute(CONTINUATION_FROM_ASYNC_STARTED, span);
+        // afterCompletion is not called for this dispatch, close the scope activated by preHandle of an async
+        // dispatch on the thread which opened it, the next dispatch activates the span again
+        popScope(httpServletRequest);
+        addNanos(stats, httpServletRequest, startNanos);
     }
 
 
@@ -136,28 +159,59 @@ public class TracingHandlerInterceptor extends HandlerInterceptorAdapter {
         if (!isTraced(httpServletRequest)) {
             return;
         }
+        TracingStats stats = tracingStats;
+        long startNanos = stats.isEnabled() ? System.nanoTime() : 0;
 
         Span span = tracer.activeSpan();
         for (HandlerInterceptorSpanDecorator decorator : decorators) {
             decorator.onAfterCompletion(httpServletRequest, httpServletResponse, handler, ex, span);
         }
-        Deque<Scope> scopeStack = getScopeStack(httpServletRequest);
-        if(scopeStack.size() > 0) {
-            Scope scope = scopeStack.pop();
-            scope.close();
-        }
+        popScope(httpServletRequest);
         if (httpServletRequest.getAttribute(IS_ERROR_HANDLING_SPAN) != null) {
             httpServletRequest.removeAttribute(IS_ERROR_HANDLING_SPAN);
             span.finish();
+            stats.spanFinished();
+        }
+        if (stats.isEnabled()) {
+            long[] nanos = (long[]) httpServletRequest.getAttribute(INSTRUMENTATION_NANOS);
+            httpServletRequest.removeAttribute(INSTRUMENTATION_NANOS);
+            stats.record(TracingStats.Component.HANDLER_INTERCEPTOR,
+                    (nanos == null ? 0 : nanos[0]) + System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Adds the time of a callback preceding {@code afterCompletion} to the time of the request.
+     */
+    private static void addNanos(TracingStats stats, HttpServletRequest request, long startNanos) {
+        if (!stats.isEnabled()) {
+            return;
+        }
+        long[] nanos = (long[]) request.getAttribute(INSTRUMENTATION_NANOS);
+        if (nanos == null) {
+            nanos = new long[1];
+            request.setAttribute(INSTRUMENTATION_NANOS, nanos);
         }
+        nanos[0] += System.nanoTime() - startNanos;
     }
 
-    private Deque<Scope> getScopeStack(HttpServletRequest request) {
+    /**
+     * The stack is allocated only for dispatches which activate a span, requests whose span is activated by the
+     * filter do not store anything.
+     */
+    private static void pushScope(HttpServletRequest request, Scope scope) {
         Deque<Scope> stack = (Deque<Scope>) request.getAttribute(SCOPE_STACK);
         if (stack == null) {
-            stack = new ArrayDeque<>();
+            stack = new ArrayDeque<>(2);
             request.setAttribute(SCOPE_STACK, stack);
         }
-        return stack;
+        stack.push(scope);
+    }
+
+    private static void popScope(HttpServletRequest request) {
+        Deque<Scope> stack = (Deque<Scope>) request.getAttribute(SCOPE_STACK);
+        if (stack != null && !stack.isEmpty()) {
+            stack.pop().close();
+        }
     }
 }
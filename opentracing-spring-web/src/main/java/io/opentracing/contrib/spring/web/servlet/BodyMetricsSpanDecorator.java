@@ -0,0 +1,84 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.servlet;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.util.WebUtils;
+
+import io.opentracing.Span;
+import io.opentracing.contrib.web.servlet.filter.ServletFilterSpanDecorator;
+
+/**
+ * Tags the span with the counters of {@link CountingHttpServletRequest} and {@link CountingHttpServletResponse}.
+ * Requests which are not wrapped are not tagged.
+ */
+class BodyMetricsSpanDecorator implements ServletFilterSpanDecorator {
+
+    static final String REQUEST_BODY_SIZE = "http.request.body_size";
+    static final String REQUEST_READ_TIME = "http.request.read_time_us";
+    static final String RESPONSE_BODY_SIZE = "http.response.body_size";
+    static final String RESPONSE_WRITE_TIME = "http.response.write_time_us";
+
+    static final BodyMetricsSpanDecorator INSTANCE = new BodyMetricsSpanDecorator();
+
+    private BodyMetricsSpanDecorator() {
+    }
+
+    @Override
+    public void onRequest(HttpServletRequest httpServletRequest, Span span) {
+    }
+
+    @Override
+    public void onResponse(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, Span span) {
+        tag(httpServletRequest, httpServletResponse, span);
+    }
+
+    @Override
+    public void onError(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
+                        Throwable exception, Span span) {
+        tag(httpServletRequest, httpServletResponse, span);
+    }
+
+    @Override
+    public void onTimeout(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
+                          long timeout, Span span) {
+        tag(httpServletRequest, httpServletResponse, span);
+    }
+
+    private static void tag(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, Span span) {
+        // async listeners get the request and response passed to startAsync, possibly wrapped again
+        CountingHttpServletRequest request = httpServletRequest == null ? null :
+                WebUtils.getNativeRequest(httpServletRequest, CountingHttpServletRequest.class);
+        if (request != null) {
+            span.setTag(REQUEST_BODY_SIZE, request.getBytes());
+            long readNanos = request.getReadNanos();
+            if (readNanos >= 0) {
+                span.setTag(REQUEST_READ_TIME, TimeUnit.NANOSECONDS.toMicros(readNanos));
+            }
+        }
+        CountingHttpServletResponse response = httpServletResponse == null ? null :
+                WebUtils.getNativeResponse(httpServletResponse, CountingHttpServletResponse.class);
+        if (response != null) {
+            span.setTag(RESPONSE_BODY_SIZE, response.getBytes());
+            long writeNanos = response.getWriteNanos();
+            if (writeNanos >= 0) {
+                span.setTag(RESPONSE_WRITE_TIME, TimeUnit.NANOSECONDS.toMicros(writeNanos));
+            }
+        }
+    }
+}
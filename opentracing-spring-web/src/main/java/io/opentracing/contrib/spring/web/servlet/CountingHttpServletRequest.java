@@ -0,0 +1,142 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.servlet;
+
+import java.io.IOException;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * Request counting the bytes read from {@link #getInputStream()} and timing the read from the first read call to the
+ * end of the stream. The body is passed through, not buffered. Reading a single byte only increments a counter, the
+ * clock is read once per array read.
+ */
+class CountingHttpServletRequest extends HttpServletRequestWrapper {
+
+    private CountingInputStream inputStream;
+    private long bytes;
+    private long readStartNanos;
+    private long readEndNanos;
+
+    CountingHttpServletRequest(HttpServletRequest request) {
+        super(request);
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (inputStream == null) {
+            inputStream = new CountingInputStream(super.getInputStream());
+        }
+        return inputStream;
+    }
+
+    long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return read time in nanoseconds or -1 if the body was not read
+     */
+    long getReadNanos() {
+        return readStartNanos == 0 ? -1 : readEndNanos - readStartNanos;
+    }
+
+    private void startRead() {
+        if (readStartNanos == 0) {
+            readStartNanos = System.nanoTime();
+            readEndNanos = readStartNanos;
+        }
+    }
+
+    private class CountingInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+
+        CountingInputStream(ServletInputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            startRead();
+            int b = delegate.read();
+            if (b < 0) {
+                readEndNanos = System.nanoTime();
+            } else {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b) throws IOException {
+            return read(b, 0, b.length);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            startRead();
+            int count = delegate.read(b, off, len);
+            readEndNanos = System.nanoTime();
+            if (count > 0) {
+                bytes += count;
+            }
+            return count;
+        }
+
+        @Override
+        public int readLine(byte[] b, int off, int len) throws IOException {
+            startRead();
+            int count = delegate.readLine(b, off, len);
+            readEndNanos = System.nanoTime();
+            if (count > 0) {
+                bytes += count;
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            return delegate.skip(n);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return delegate.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.servlet;
+
+import java.io.IOException;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Response counting the bytes written to {@link #getOutputStream()} and timing the write from the first write call to
+ * the last write, flush or close. The body is passed through, not buffered. Writing a single byte only increments a
+ * counter, the clock is read once per array write, flush and close.
+ */
+class CountingHttpServletResponse extends HttpServletResponseWrapper {
+
+    private CountingOutputStream outputStream;
+    private long bytes;
+    private long writeStartNanos;
+    private long writeEndNanos;
+
+    CountingHttpServletResponse(HttpServletResponse response) {
+        super(response);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new CountingOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return write time in nanoseconds or -1 if nothing was written
+     */
+    long getWriteNanos() {
+        return writeStartNanos == 0 ? -1 : writeEndNanos - writeStartNanos;
+    }
+
+    private void startWrite() {
+        if (writeStartNanos == 0) {
+            writeStartNanos = System.nanoTime();
+            writeEndNanos = writeStartNanos;
+        }
+    }
+
+    private void endWrite() {
+        if (writeStartNanos != 0) {
+            writeEndNanos = System.nanoTime();
+        }
+    }
+
+    private class CountingOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+
+        CountingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            startWrite();
+            delegate.write(b);
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b) throws IOException {
+            write(b, 0, b.length);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            startWrite();
+            delegate.write(b, off, len);
+            bytes += len;
+            endWrite();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+            endWrite();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+            endWrite();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
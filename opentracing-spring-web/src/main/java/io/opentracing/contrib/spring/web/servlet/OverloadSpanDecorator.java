@@ -0,0 +1,96 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.servlet;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import io.opentracing.Span;
+import io.opentracing.contrib.spring.web.support.OverloadProtection;
+import io.opentracing.contrib.web.servlet.filter.ServletFilterSpanDecorator;
+import io.opentracing.tag.Tags;
+
+/**
+ * Applies the configured decorators, or a few standard tags instead if {@link TracingServletFilter} has degraded the
+ * request, see {@link OverloadProtection.Level}.
+ */
+class OverloadSpanDecorator implements ServletFilterSpanDecorator {
+
+    private final ServletFilterSpanDecorator[] spanDecorators;
+
+    OverloadSpanDecorator(List<ServletFilterSpanDecorator> spanDecorators) {
+        this.spanDecorators = spanDecorators.toArray(new ServletFilterSpanDecorator[0]);
+    }
+
+    @Override
+    public void onRequest(HttpServletRequest httpServletRequest, Span span) {
+        if (level(httpServletRequest) != null) {
+            Tags.HTTP_METHOD.set(span, httpServletRequest.getMethod());
+            return;
+        }
+        for (ServletFilterSpanDecorator spanDecorator : spanDecorators) {
+            spanDecorator.onRequest(httpServletRequest, span);
+        }
+    }
+
+    @Override
+    public void onResponse(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, Span span) {
+        if (level(httpServletRequest) != null) {
+            Tags.HTTP_STATUS.set(span, httpServletResponse.getStatus());
+            return;
+        }
+        for (ServletFilterSpanDecorator spanDecorator : spanDecorators) {
+            spanDecorator.onResponse(httpServletRequest, httpServletResponse, span);
+        }
+    }
+
+    @Override
+    public void onError(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
+                        Throwable exception, Span span) {
+        OverloadProtection.Level level = level(httpServletRequest);
+        if (level != null) {
+            Tags.ERROR.set(span, Boolean.TRUE);
+            if (level == OverloadProtection.Level.REDUCED_TAGS) {
+                Map<String, Object> logs = new HashMap<>(2);
+                logs.put("event", Tags.ERROR.getKey());
+                logs.put("error.object", exception);
+                span.log(logs);
+            }
+            return;
+        }
+        for (ServletFilterSpanDecorator spanDecorator : spanDecorators) {
+            spanDecorator.onError(httpServletRequest, httpServletResponse, exception, span);
+        }
+    }
+
+    @Override
+    public void onTimeout(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
+                          long timeout, Span span) {
+        if (level(httpServletRequest) != null) {
+            Tags.ERROR.set(span, Boolean.TRUE);
+            return;
+        }
+        for (ServletFilterSpanDecorator spanDecorator : spanDecorators) {
+            spanDecorator.onTimeout(httpServletRequest, httpServletResponse, timeout, span);
+        }
+    }
+
+    private static OverloadProtection.Level level(HttpServletRequest httpServletRequest) {
+        return (OverloadProtection.Level) httpServletRequest.getAttribute(TracingServletFilter.OVERLOAD_LEVEL);
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.servlet;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import io.opentracing.Span;
+import io.opentracing.contrib.spring.web.support.TracingStats;
+import io.opentracing.contrib.web.servlet.filter.ServletFilterSpanDecorator;
+
+/**
+ * Counts the spans of a {@link TracingServletFilter} in its {@link TracingStats}. The filter finishes the span after
+ * {@code onResponse}, or after {@code onError} if the chain has thrown an exception and the request is not
+ * asynchronous, async requests are finished by {@code onComplete} of the async listener which calls
+ * {@code onResponse}.
+ */
+class StatsSpanDecorator implements ServletFilterSpanDecorator {
+
+    private TracingStats tracingStats = TracingStats.DISABLED;
+
+    void setTracingStats(TracingStats tracingStats) {
+        this.tracingStats = tracingStats;
+    }
+
+    @Override
+    public void onRequest(HttpServletRequest httpServletRequest, Span span) {
+        tracingStats.spanStarted();
+    }
+
+    @Override
+    public void onResponse(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, Span span) {
+        tracingStats.spanFinished();
+    }
+
+    @Override
+    public void onError(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
+                        Throwable exception, Span span) {
+        if (!httpServletRequest.isAsyncStarted()) {
+            tracingStats.spanFinished();
+        }
+    }
+
+    @Override
+    public void onTimeout(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse,
+                          long timeout, Span span) {
+    }
+}
@@ -0,0 +1,439 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.servlet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.NestedServletException;
+
+import io.opentracing.Scope;
+import io.opentracing.SpanContext;
+import io.opentracing.Tracer;
+import io.opentracing.contrib.spring.web.support.OverloadProtection;
+import io.opentracing.contrib.spring.web.support.PropagationOnlySpan;
+import io.opentracing.contrib.spring.web.support.RedMetricsRecorder;
+import io.opentracing.contrib.spring.web.support.RefreshableSkipPattern;
+import io.opentracing.contrib.spring.web.support.SkipPatternMatcher;
+import io.opentracing.contrib.spring.web.support.TraceDecision;
+import io.opentracing.contrib.spring.web.support.TracingStats;
+import io.opentracing.contrib.web.servlet.filter.HttpServletRequestExtractAdapter;
+import io.opentracing.contrib.web.servlet.filter.ServletFilterSpanDecorator;
+import io.opentracing.contrib.web.servlet.filter.TracingFilter;
+import io.opentracing.propagation.Format;
+
+/**
+ * {@link TracingFilter} which evaluates the skip pattern through a compiled {@link SkipPatternMatcher}
+ * instead of running the regex for every request, and consults a {@link TraceDecision} before creating the span.
+ */
+public class TracingServletFilter extends TracingFilter {
+
+    /**
+     * Request attribute holding the {@link PropagationOnlySpan} of a request which is not traced, so async and error
+     * dispatches of the request are not traced either.
+     */
+    private static final String PROPAGATION_ONLY_SPAN = TracingServletFilter.class.getName() + ".propagationOnlySpan";
+    /**
+     * Request attribute holding the {@link OverloadProtection.Level} of a degraded request.
+     */
+    static final String OVERLOAD_LEVEL = TracingServletFilter.class.getName() + ".overloadLevel";
+    /**
+     * Request attribute marking a request whose skip pattern has already been evaluated, so {@link #isTraced} does
+     * not match it again when {@link TracingFilter#doFilter} creates the span.
+     */
+    private static final String SKIP_PATTERN_EVALUATED = TracingServletFilter.class.getName() + ".skipPatternEvaluated";
+
+    private RefreshableSkipPattern skipPattern;
+    private OverloadProtection overloadProtection;
+    private TraceDecision traceDecision = TraceDecision.ALWAYS;
+    private boolean bodyMetrics;
+    private TracingStats tracingStats = TracingStats.DISABLED;
+    private RedMetricsRecorder redMetricsRecorder;
+    private final StatsSpanDecorator statsSpanDecorator;
+
+    /**
+     * @param tracer tracer
+     * @param spanDecorators decorators
+     * @param skipPattern null or empty means do not skip any URL
+     */
+    public TracingServletFilter(Tracer tracer, List<ServletFilterSpanDecorator> spanDecorators, Pattern skipPattern) {
+        this(tracer, skipPattern, new OverloadSpanDecorator(spanDecorators), new StatsSpanDecorator());
+    }
+
+    private TracingServletFilter(Tracer tracer, Pattern skipPattern, OverloadSpanDecorator overloadSpanDecorator,
+                                 StatsSpanDecorator statsSpanDecorator) {
+        super(tracer, withInternalDecorators(overloadSpanDecorator, statsSpanDecorator), null);
+        this.skipPattern = new RefreshableSkipPattern(skipPattern);
+        this.statsSpanDecorator = statsSpanDecorator;
+    }
+
+    private static List<ServletFilterSpanDecorator> withInternalDecorators(
+            OverloadSpanDecorator overloadSpanDecorator, StatsSpanDecorator statsSpanDecorator) {
+        // tags only requests wrapped when body metrics are enabled
+        List<ServletFilterSpanDecorator> decorators = new ArrayList<>();
+        decorators.add(overloadSpanDecorator);
+        decorators.add(BodyMetricsSpanDecorator.INSTANCE);
+        decorators.add(statsSpanDecorator);
+        return decorators;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        super.init(filterConfig);
+        Object contextSkipPattern = filterConfig.getServletContext().getAttribute(SKIP_PATTERN);
+        if (contextSkipPattern instanceof Pattern) {
+            skipPattern = new RefreshableSkipPattern((Pattern) contextSkipPattern);
+        }
+    }
+
+    /**
+     * Replaces the skip pattern passed to the constructor by one which can be updated at runtime. A skip pattern set
+     * as servlet context attribute still takes precedence.
+     *
+     * @param skipPattern skip pattern holder
+     */
+    public void setSkipPattern(RefreshableSkipPattern skipPattern) {
+        this.skipPattern = skipPattern;
+    }
+
+    /**
+     * @param traceDecision decides whether a request, not excluded by the skip pattern, is traced
+     */
+    public void setTraceDecision(TraceDecision traceDecision) {
+        this.traceDecision = traceDecision;
+    }
+
+    /**
+     * Degrades tracing while the number of requests in flight through the filter exceeds the thresholds of
+     * {@code overloadProtection}: first the configured span decorators are replaced by a few standard tags, then
+     * error logs are dropped, then no span is created and only the incoming span context is propagated, except for
+     * requests continuing a trace if {@link OverloadProtection#isKeepContinuedTraces()}. RED metrics are recorded at
+     * every level, see {@link #setRedMetricsRecorder}.
+     *
+     * @param overloadProtection overload protection, possibly shared with other filters, or null to always trace
+     *                           fully (the default)
+     */
+    public void setOverloadProtection(OverloadProtection overloadProtection) {
+        this.overloadProtection = overloadProtection;
+    }
+
+    /**
+     * Counts bytes read from the request and written to the response streams of traced requests and tags the span
+     * with {@code http.request.body_size}, {@code http.request.read_time_us}, {@code http.response.body_size} and
+     * {@code http.response.write_time_us}. Bodies are not buffered. Only {@code getInputStream()} and
+     * {@code getOutputStream()} are counted, not readers, writers and parameters parsed by the container.
+     *
+     * @param bodyMetrics whether body metrics are recorded, disabled by default
+     */
+    public void setBodyMetrics(boolean bodyMetrics) {
+        this.bodyMetrics = bodyMetrics;
+    }
+
+    /**
+     * @param tracingStats counts requests and spans of the filter, {@link TracingStats#DISABLED} if null (the
+     *                     default)
+     */
+    public void setTracingStats(TracingStats tracingStats) {
+        this.tracingStats = tracingStats != null ? tracingStats : TracingStats.DISABLED;
+        this.statsSpanDecorator.setTracingStats(this.tracingStats);
+    }
+
+    /**
+     * Records rate, errors and duration of every request passing through the filter, including the requests which
+     * are not traced because of the skip pattern, trace decision or overload protection. The request is measured
+     * from a single timestamp taken when its first dispatch enters the filter to the end of its last dispatch, or
+     * to the completion of an asynchronous request.
+     *
+     * @param redMetricsRecorder records the requests, or null to not record them (the default)
+     */
+    public void setRedMetricsRecorder(RedMetricsRecorder redMetricsRecorder) {
+        this.redMetricsRecorder = redMetricsRecorder;
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        if (servletRequest.getDispatcherType() != DispatcherType.REQUEST) {
+            doFilterDispatch(servletRequest, servletResponse, chain);
+            return;
+        }
+        tracingStats.requestSeen();
+        RedMetricsRecorder recorder = redMetricsRecorder;
+        if (recorder == null) {
+            doFilterDispatch(servletRequest, servletResponse, chain);
+            return;
+        }
+
+        HttpServletRequest httpRequest = (HttpServletRequest) servletRequest;
+        HttpServletResponse httpResponse = (HttpServletResponse) servletResponse;
+        long startNanos = System.nanoTime();
+        Throwable exception = null;
+        try {
+            doFilterDispatch(servletRequest, servletResponse, chain);
+        } catch (NestedServletException ex) {
+            exception = ex.getCause() != null ? ex.getCause() : ex;
+            throw ex;
+        } catch (IOException | ServletException | RuntimeException | Error ex) {
+            exception = ex;
+            throw ex;
+        } finally {
+            if (httpRequest.isAsyncStarted()) {
+                httpRequest.getAsyncContext().addListener(
+                        new RedMetricsAsyncListener(recorder, httpRequest, httpResponse, startNanos));
+            } else {
+                recordMetrics(recorder, httpRequest, httpResponse, exception, startNanos);
+            }
+        }
+    }
+
+    private void doFilterDispatch(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        OverloadProtection protection = overloadProtection;
+        if (protection != null) {
+            doFilterWithOverloadProtection(protection, (HttpServletRequest) servletRequest,
+                    (HttpServletResponse) servletResponse, chain);
+            return;
+        }
+        filter(servletRequest, servletResponse, chain, bodyMetrics);
+    }
+
+    /**
+     * Requests are counted in flight while they occupy a container thread, asynchronous requests exit when the
+     * request dispatch returns. Later dispatches of a request keep its level.
+     */
+    private void doFilterWithOverloadProtection(OverloadProtection protection, HttpServletRequest httpRequest,
+                                                HttpServletResponse httpResponse, FilterChain chain)
+            throws IOException, ServletException {
+        if (httpRequest.getDispatcherType() != DispatcherType.REQUEST) {
+            PropagationOnlySpan propagationOnlySpan =
+                    (PropagationOnlySpan) httpRequest.getAttribute(PROPAGATION_ONLY_SPAN);
+            if (propagationOnlySpan != null) {
+                propagateOnly(httpRequest, httpResponse, chain, propagationOnlySpan, traceDecision);
+            } else {
+                filter(httpRequest, httpResponse, chain,
+                        bodyMetrics && httpRequest.getAttribute(OVERLOAD_LEVEL) == null);
+            }
+            return;
+        }
+        OverloadProtection.Level level = protection.enter();
+        try {
+            if (level == OverloadProtection.Level.PROPAGATION_ONLY) {
+                SpanContext extractedContext = tracer.extract(Format.Builtin.HTTP_HEADERS,
+                        new HttpServletRequestExtractAdapter(httpRequest));
+                if (extractedContext != null && protection.keepContinuedTrace()) {
+                    level = OverloadProtection.Level.NO_LOGS;
+                } else {
+                    propagateOnly(httpRequest, httpResponse, chain,
+                            propagationOnlySpan(httpRequest, extractedContext), traceDecision);
+                    return;
+                }
+            }
+            if (level != OverloadProtection.Level.NONE) {
+                httpRequest.setAttribute(OVERLOAD_LEVEL, level);
+                filter(httpRequest, httpResponse, chain, false);
+            } else {
+                filter(httpRequest, httpResponse, chain, bodyMetrics);
+            }
+        } finally {
+            protection.exit();
+        }
+    }
+
+    private void filter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain,
+                        boolean withBodyMetrics) throws IOException, ServletException {
+        TraceDecision decision = traceDecision;
+        if (decision == TraceDecision.ALWAYS) {
+            if (withBodyMetrics) {
+                traceWithBodyMetrics((HttpServletRequest) servletRequest, (HttpServletResponse) servletResponse,
+                        chain);
+            } else {
+                super.doFilter(servletRequest, servletResponse, chain);
+            }
+            return;
+        }
+
+        HttpServletRequest httpRequest = (HttpServletRequest) servletRequest;
+        HttpServletResponse httpResponse = (HttpServletResponse) servletResponse;
+        PropagationOnlySpan propagationOnlySpan = (PropagationOnlySpan) httpRequest.getAttribute(PROPAGATION_ONLY_SPAN);
+        if (propagationOnlySpan == null) {
+            if (httpRequest.getAttribute(SERVER_SPAN_CONTEXT) != null || !isTraced(httpRequest, httpResponse)) {
+                // same as super.doFilter, without evaluating the skip pattern again
+                chain.doFilter(servletRequest, servletResponse);
+                return;
+            }
+            String path = pathWithinApplication(httpRequest);
+            if (decision.shouldTrace(httpRequest.getMethod(), path)) {
+                try {
+                    trace(httpRequest, httpResponse, chain, withBodyMetrics);
+                } finally {
+                    resolveRoute(decision, httpRequest, path);
+                }
+                return;
+            }
+            propagationOnlySpan = extractPropagationOnlySpan(httpRequest);
+        }
+        propagateOnly(httpRequest, httpResponse, chain, propagationOnlySpan, decision);
+    }
+
+    private PropagationOnlySpan extractPropagationOnlySpan(HttpServletRequest httpRequest) {
+        return propagationOnlySpan(httpRequest, tracer.extract(Format.Builtin.HTTP_HEADERS,
+                new HttpServletRequestExtractAdapter(httpRequest)));
+    }
+
+    private static PropagationOnlySpan propagationOnlySpan(HttpServletRequest httpRequest,
+                                                           SpanContext extractedContext) {
+        PropagationOnlySpan propagationOnlySpan = extractedContext == null
+                ? PropagationOnlySpan.NO_CONTEXT
+                : new PropagationOnlySpan(extractedContext);
+        httpRequest.setAttribute(PROPAGATION_ONLY_SPAN, propagationOnlySpan);
+        return propagationOnlySpan;
+    }
+
+    /**
+     * Activates the {@link PropagationOnlySpan}, so the client instrumentation neither starts a new trace nor reports
+     * spans of the unsampled request.
+     */
+    private void propagateOnly(HttpServletRequest httpRequest, HttpServletResponse httpResponse, FilterChain chain,
+                               PropagationOnlySpan propagationOnlySpan, TraceDecision decision)
+            throws IOException, ServletException {
+        try {
+            if (tracer.activeSpan() == null) {
+                try (Scope scope = tracer.activateSpan(propagationOnlySpan)) {
+                    chain.doFilter(httpRequest, httpResponse);
+                }
+            } else {
+                chain.doFilter(httpRequest, httpResponse);
+            }
+        } finally {
+            if (!httpRequest.isAsyncStarted()) {
+                resolveRoute(decision, httpRequest, pathWithinApplication(httpRequest));
+            }
+        }
+    }
+
+    private void traceWithBodyMetrics(HttpServletRequest httpRequest, HttpServletResponse httpResponse,
+                                      FilterChain chain) throws IOException, ServletException {
+        if (httpRequest.getAttribute(SERVER_SPAN_CONTEXT) != null || !isTraced(httpRequest, httpResponse)) {
+            chain.doFilter(httpRequest, httpResponse);
+            return;
+        }
+        trace(httpRequest, httpResponse, chain, true);
+    }
+
+    /**
+     * Creates the span of a request which already passed the skip pattern.
+     */
+    private void trace(HttpServletRequest httpRequest, HttpServletResponse httpResponse, FilterChain chain,
+                       boolean withBodyMetrics) throws IOException, ServletException {
+        httpRequest.setAttribute(SKIP_PATTERN_EVALUATED, Boolean.TRUE);
+        if (withBodyMetrics) {
+            super.doFilter(new CountingHttpServletRequest(httpRequest), new CountingHttpServletResponse(httpResponse),
+                    chain);
+        } else {
+            super.doFilter(httpRequest, httpResponse, chain);
+        }
+    }
+
+    private static void recordMetrics(RedMetricsRecorder recorder, HttpServletRequest httpRequest,
+                                      HttpServletResponse httpResponse, Throwable exception, long startNanos) {
+        Object pattern = httpRequest.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        recorder.recordServer(httpRequest.getMethod(), pattern == null ? null : pattern.toString(),
+                httpResponse.getStatus(), exception, startNanos);
+    }
+
+    private static void resolveRoute(TraceDecision decision, HttpServletRequest httpRequest, String path) {
+        Object pattern = httpRequest.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+            decision.onRouteResolved(httpRequest.getMethod(), path, pattern.toString());
+        }
+    }
+
+    private static String pathWithinApplication(HttpServletRequest httpServletRequest) {
+        String contextPath = httpServletRequest.getContextPath();
+        return httpServletRequest.getRequestURI().substring(contextPath == null ? 0 : contextPath.length());
+    }
+
+    @Override
+    protected boolean isTraced(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse) {
+        if (httpServletRequest.getAttribute(SKIP_PATTERN_EVALUATED) != null) {
+            httpServletRequest.removeAttribute(SKIP_PATTERN_EVALUATED);
+            return true;
+        }
+        // skip URLs matching skip pattern
+        // e.g. pattern is defined as '/health|/status' then URL 'http://localhost:5000/context/health' won't be traced
+        SkipPatternMatcher matcher = skipPattern.get();
+        if (matcher.isEmpty()) {
+            return true;
+        }
+        if (matcher.matches(pathWithinApplication(httpServletRequest))) {
+            if (httpServletRequest.getDispatcherType() == DispatcherType.REQUEST) {
+                tracingStats.skippedBySkipPattern();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records an asynchronous request when it completes, with the error of the async context, if any.
+     */
+    private static final class RedMetricsAsyncListener implements AsyncListener {
+        private final RedMetricsRecorder recorder;
+        private final HttpServletRequest httpRequest;
+        private final HttpServletResponse httpResponse;
+        private final long startNanos;
+        private Throwable exception;
+
+        RedMetricsAsyncListener(RedMetricsRecorder recorder, HttpServletRequest httpRequest,
+                                HttpServletResponse httpResponse, long startNanos) {
+            this.recorder = recorder;
+            this.httpRequest = httpRequest;
+            this.httpResponse = httpResponse;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            recordMetrics(recorder, httpRequest, httpResponse, exception, startNanos);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            exception = event.getThrowable();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import org.springframework.web.util.pattern.PatternParseException;
+
+/**
+ * Traces at most a given number of requests per second for every method and route template (best matching handler
+ * pattern), so hot endpoints are sampled down while rarely called ones are traced in full.
+ *
+ * <p>The route of a request is only known after it has been handled, so the decision learns the route templates of
+ * every method from {@link #onRouteResolved} and matches the path of later requests against them, most specific
+ * template first. Requests matching no learned template share a fallback bucket with the same rate, as do routes
+ * which are not valid {@link PathPattern}s. Every bucket is a lock-free token bucket, templates without variables
+ * are looked up in a {@link ConcurrentHashMap} and the number of routes is bounded.
+ *
+ * <p>The bucket a path is matched to, including the fallback bucket, is cached so templates are scanned once per
+ * path. The cache holds at most {@code maxPaths} paths, when it is full new paths are matched without being cached
+ * and cached paths are not evicted. Learning a new template of a method clears the paths of that method.
+ */
+public class AdaptiveRouteTraceDecision implements TraceDecision {
+
+    public static final int DEFAULT_MAX_ROUTES = 1_000;
+    public static final int DEFAULT_MAX_PATHS = 10_000;
+
+    private static final PathPatternParser PARSER = new PathPatternParser();
+
+    private final double tracesPerSecond;
+    private final int maxRoutes;
+    private final int maxPaths;
+    private final ConcurrentHashMap<String, MethodRoutes> methods = new ConcurrentHashMap<>();
+    private final AtomicInteger routeCount = new AtomicInteger();
+    private final AtomicInteger pathCount = new AtomicInteger();
+    private final RateLimiter fallback;
+
+    /**
+     * @param tracesPerSecond maximal number of traced requests per second and route
+     */
+    public AdaptiveRouteTraceDecision(double tracesPerSecond) {
+        this(tracesPerSecond, DEFAULT_MAX_ROUTES);
+    }
+
+    /**
+     * @param tracesPerSecond maximal number of traced requests per second and route
+     * @param maxRoutes maximal number of routes with their own bucket, further routes share the fallback bucket
+     */
+    public AdaptiveRouteTraceDecision(double tracesPerSecond, int maxRoutes) {
+        this(tracesPerSecond, maxRoutes, DEFAULT_MAX_PATHS);
+    }
+
+    /**
+     * @param tracesPerSecond maximal number of traced requests per second and route
+     * @param maxRoutes maximal number of routes with their own bucket, further routes share the fallback bucket
+     * @param maxPaths maximal number of paths whose bucket is cached, 0 to match every request against the templates
+     */
+    public AdaptiveRouteTraceDecision(double tracesPerSecond, int maxRoutes, int maxPaths) {
+        if (maxRoutes <= 0) {
+            throw new IllegalArgumentException("maxRoutes must be positive");
+        }
+        if (maxPaths < 0) {
+            throw new IllegalArgumentException("maxPaths must not be negative");
+        }
+        this.tracesPerSecond = tracesPerSecond;
+        this.maxRoutes = maxRoutes;
+        this.maxPaths = maxPaths;
+        this.fallback = newRateLimiter();
+    }
+
+    @Override
+    public boolean shouldTrace(String method, String path) {
+        MethodRoutes routes = methods.get(method);
+        return (routes == null ? fallback : routes.match(path, this)).tryAcquire();
+    }
+
+    @Override
+    public void onRouteResolved(String method, String path, String route) {
+        MethodRoutes routes = methods.get(method);
+        if (routes != null && routes.templates.containsKey(route)) {
+            return;
+        }
+        if (routeCount.get() >= maxRoutes) {
+            return;
+        }
+        if (routes == null) {
+            routes = methods.computeIfAbsent(method, key -> new MethodRoutes());
+        }
+        routes.add(route, this);
+    }
+
+    private RateLimiter newRateLimiter() {
+        return new RateLimiter(tracesPerSecond, tracesPerSecond);
+    }
+
+    /**
+     * @return number of routes with their own bucket
+     */
+    public int getRouteCount() {
+        return routeCount.get();
+    }
+
+    /**
+     * @return number of paths whose bucket is cached
+     */
+    public int getPathCount() {
+        return pathCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveRouteTraceDecision{tracesPerSecond=" + tracesPerSecond + ", routes=" + routeCount.get()
+                + ", paths=" + pathCount.get() + "}";
+    }
+
+    /**
+     * Learned routes of one HTTP method.
+     */
+    private static final class MethodRoutes {
+        private static final Route[] NO_ROUTES = new Route[0];
+
+        /** all learned templates, including those which are not valid path patterns */
+        final ConcurrentHashMap<String, RateLimiter> templates = new ConcurrentHashMap<>();
+        /** templates without variables or wildcards, matched by the path itself */
+        final ConcurrentHashMap<String, RateLimiter> literals = new ConcurrentHashMap<>();
+        /** other templates, most specific first */
+        volatile Route[] patterns = NO_ROUTES;
+        /** buckets of paths matched against the patterns, bounded by {@code maxPaths} across all methods */
+        final ConcurrentHashMap<String, RateLimiter> paths = new ConcurrentHashMap<>();
+
+        RateLimiter match(String path, AdaptiveRouteTraceDecision decision) {
+            RateLimiter rateLimiter = literals.get(path);
+            if (rateLimiter != null) {
+                return rateLimiter;
+            }
+            rateLimiter = paths.get(path);
+            if (rateLimiter != null) {
+                return rateLimiter;
+            }
+            Route[] routes = patterns;
+            if (routes.length == 0) {
+                return decision.fallback;
+            }
+            rateLimiter = decision.fallback;
+            PathContainer pathContainer = PathContainer.parsePath(path);
+            for (Route route : routes) {
+                if (route.pattern.matches(pathContainer)) {
+                    rateLimiter = route.rateLimiter;
+                    break;
+                }
+            }
+            cache(path, rateLimiter, routes, decision);
+            return rateLimiter;
+        }
+
+        private void cache(String path, RateLimiter rateLimiter, Route[] routes, AdaptiveRouteTraceDecision decision) {
+            AtomicInteger pathCount = decision.pathCount;
+            if (pathCount.get() >= decision.maxPaths) {
+                return;
+            }
+            if (pathCount.incrementAndGet() > decision.maxPaths) {
+                pathCount.decrementAndGet();
+                return;
+            }
+            if (paths.putIfAbsent(path, rateLimiter) != null) {
+                pathCount.decrementAndGet();
+                return;
+            }
+            // a template learned during the scan may have cleared the paths before this one was cached
+            if (patterns != routes && paths.remove(path, rateLimiter)) {
+                pathCount.decrementAndGet();
+            }
+        }
+
+        synchronized void add(String template, AdaptiveRouteTraceDecision decision) {
+            if (templates.containsKey(template)) {
+                return;
+            }
+            if (decision.routeCount.incrementAndGet() > decision.maxRoutes) {
+                decision.routeCount.decrementAndGet();
+                return;
+            }
+            RateLimiter rateLimiter = decision.newRateLimiter();
+            templates.put(template, rateLimiter);
+
+            PathPattern pattern;
+            try {
+                pattern = PARSER.parse(template);
+            } catch (PatternParseException e) {
+                // e.g. ant-style patterns with ** in the middle, requests of the route use the fallback bucket
+                return;
+            }
+            if (template.indexOf('{') < 0 && template.indexOf('*') < 0 && template.indexOf('?') < 0) {
+                literals.put(template, rateLimiter);
+                return;
+            }
+            Route[] routes = Arrays.copyOf(patterns, patterns.length + 1);
+            routes[routes.length - 1] = new Route(pattern, rateLimiter);
+            Arrays.sort(routes, (first, second) -> PathPattern.SPECIFICITY_COMPARATOR.compare(first.pattern,
+                    second.pattern));
+            patterns = routes;
+            // cached paths may match the new template, including those cached with the fallback bucket
+            for (String path : paths.keySet()) {
+                if (paths.remove(path) != null) {
+                    decision.pathCount.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    private static final class Route {
+        final PathPattern pattern;
+        final RateLimiter rateLimiter;
+
+        Route(PathPattern pattern, RateLimiter rateLimiter) {
+            this.pattern = pattern;
+            this.rateLimiter = rateLimiter;
+        }
+    }
+}
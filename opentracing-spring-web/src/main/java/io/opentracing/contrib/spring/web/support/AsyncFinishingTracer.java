@@ -0,0 +1,388 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import io.opentracing.Scope;
+import io.opentracing.ScopeManager;
+import io.opentracing.Span;
+import io.opentracing.SpanContext;
+import io.opentracing.Tracer;
+import io.opentracing.propagation.Format;
+import io.opentracing.tag.Tag;
+
+/**
+ * {@link Tracer} which moves {@link Span#finish()} off the calling (request or event loop) thread. Finished spans are
+ * handed to a bounded, lock-free ring buffer and finished on the delegate tracer in batches by a background thread,
+ * with the finish timestamp taken when the span was finished by the instrumentation. Start and finish timestamps
+ * are measured with {@link System#nanoTime()} relative to the creation of the tracer.
+ *
+ * <p>Callers never block: when the buffer is full the span is dropped, i.e. never finished on the delegate tracer,
+ * and counted by {@link #getDroppedSpans()}. {@link #close()} finishes the pending spans before closing the delegate,
+ * spans finished later are dropped as well. A span is handed over on its first {@link Span#finish()} only.
+ *
+ * <p>Spans created by this tracer wrap the spans of the delegate tracer and are activated as such, so the delegate
+ * {@link ScopeManager} must accept spans of other implementations, as the opentracing-util one does.
+ */
+public class AsyncFinishingTracer implements Tracer {
+
+    private static final Log LOG = LogFactory.getLog(AsyncFinishingTracer.class);
+
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final int DRAIN_BATCH_SIZE = 256;
+    /**
+     * The background thread is unparked when a span is finished while it waits, the timeout is only a safety net.
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final Tracer delegate;
+    private final MpscRingBuffer<AsyncFinishingSpan> finishedSpans;
+    private final LongAdder droppedSpans = new LongAdder();
+    private final AtomicLong reportedSpans = new AtomicLong();
+    private final long epochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+    private final long epochNanos = System.nanoTime();
+    private final Thread finisher;
+    private volatile boolean parked;
+
+    public AsyncFinishingTracer(Tracer delegate) {
+        this(delegate, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param delegate tracer creating and reporting spans
+     * @param capacity maximal number of finished spans waiting for the background thread, rounded up to a power of two
+     */
+    public AsyncFinishingTracer(Tracer delegate, int capacity) {
+        this.delegate = delegate;
+        this.finishedSpans = new MpscRingBuffer<>(capacity);
+        this.finisher = new Thread(this::drain, "opentracing-span-finisher");
+        this.finisher.setDaemon(true);
+        this.finisher.start();
+    }
+
+    /**
+     * @return spans dropped because the buffer was full
+     */
+    public long getDroppedSpans() {
+        return droppedSpans.sum();
+    }
+
+    /**
+     * @return spans finished on the delegate tracer by the background thread
+     */
+    public long getReportedSpans() {
+        return reportedSpans.get();
+    }
+
+    /**
+     * @return finished spans waiting for the background thread
+     */
+    public int getPendingSpans() {
+        return finishedSpans.size();
+    }
+
+    public Tracer getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public ScopeManager scopeManager() {
+        return delegate.scopeManager();
+    }
+
+    @Override
+    public Span activeSpan() {
+        return delegate.activeSpan();
+    }
+
+    @Override
+    public Scope activateSpan(Span span) {
+        return delegate.activateSpan(span);
+    }
+
+    @Override
+    public SpanBuilder buildSpan(String operationName) {
+        return new AsyncFinishingSpanBuilder(delegate.buildSpan(operationName));
+    }
+
+    @Override
+    public <C> void inject(SpanContext spanContext, Format<C> format, C carrier) {
+        delegate.inject(spanContext, format, carrier);
+    }
+
+    @Override
+    public <C> SpanContext extract(Format<C> format, C carrier) {
+        return delegate.extract(format, carrier);
+    }
+
+    @Override
+    public void close() {
+        finishedSpans.close();
+        LockSupport.unpark(finisher);
+        try {
+            finisher.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (finisher.isAlive()) {
+            LOG.warn("Closing tracer with " + finishedSpans.size() + " spans pending to be finished");
+        }
+        delegate.close();
+    }
+
+    private long nowMicros() {
+        return epochMicros + TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - epochNanos);
+    }
+
+    private void finished(AsyncFinishingSpan span) {
+        if (!finishedSpans.offer(span)) {
+            droppedSpans.increment();
+        } else if (parked) {
+            // the finisher found the buffer empty, it either sees the claimed slot or is woken up here
+            LockSupport.unpark(finisher);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            if (drainBatch() != 0) {
+                continue;
+            }
+            if (finishedSpans.size() != 0) {
+                // a claimed slot is not published yet
+                Thread.yield();
+            } else if (finishedSpans.isClosed()) {
+                return;
+            } else {
+                parked = true;
+                if (finishedSpans.size() == 0 && !finishedSpans.isClosed()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                parked = false;
+            }
+        }
+    }
+
+    private int drainBatch() {
+        int drained = 0;
+        AsyncFinishingSpan span;
+        while (drained < DRAIN_BATCH_SIZE && (span = finishedSpans.poll()) != null) {
+            try {
+                span.delegate.finish(span.finishMicros);
+            } catch (RuntimeException e) {
+                LOG.error("Exception during finishing span", e);
+            }
+            drained++;
+        }
+        if (drained != 0) {
+            reportedSpans.lazySet(reportedSpans.get() + drained);
+        }
+        return drained;
+    }
+
+    private static Span unwrap(Span span) {
+        return span instanceof AsyncFinishingSpan ? ((AsyncFinishingSpan) span).delegate : span;
+    }
+
+    private final class AsyncFinishingSpanBuilder implements SpanBuilder {
+
+        private final SpanBuilder delegate;
+        private boolean startTimestamp;
+
+        AsyncFinishingSpanBuilder(SpanBuilder delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public SpanBuilder asChildOf(SpanContext parent) {
+            delegate.asChildOf(parent);
+            return this;
+        }
+
+        @Override
+        public SpanBuilder asChildOf(Span parent) {
+            delegate.asChildOf(unwrap(parent));
+            return this;
+        }
+
+        @Override
+        public SpanBuilder addReference(String referenceType, SpanContext referencedContext) {
+            delegate.addReference(referenceType, referencedContext);
+            return this;
+        }
+
+        @Override
+        public SpanBuilder ignoreActiveSpan() {
+            delegate.ignoreActiveSpan();
+            return this;
+        }
+
+        @Override
+        public SpanBuilder withTag(String key, String value) {
+            delegate.withTag(key, value);
+            return this;
+        }
+
+        @Override
+        public SpanBuilder withTag(String key, boolean value) {
+            delegate.withTag(key, value);
+            return this;
+        }
+
+        @Override
+        public SpanBuilder withTag(String key, Number value) {
+            delegate.withTag(key, value);
+            return this;
+        }
+
+        @Override
+        public <T> SpanBuilder withTag(Tag<T> tag, T value) {
+            delegate.withTag(tag, value);
+            return this;
+        }
+
+        @Override
+        public SpanBuilder withStartTimestamp(long microseconds) {
+            delegate.withStartTimestamp(microseconds);
+            startTimestamp = true;
+            return this;
+        }
+
+        @Override
+        public Span start() {
+            if (!startTimestamp) {
+                // the duration is measured with the same clock as the finish timestamp
+                delegate.withStartTimestamp(nowMicros());
+            }
+            return new AsyncFinishingSpan(AsyncFinishingTracer.this, delegate.start());
+        }
+    }
+
+    private static final class AsyncFinishingSpan implements Span {
+
+        private static final AtomicIntegerFieldUpdater<AsyncFinishingSpan> FINISHED =
+                AtomicIntegerFieldUpdater.newUpdater(AsyncFinishingSpan.class, "finished");
+
+        private final AsyncFinishingTracer tracer;
+        private final Span delegate;
+        private long finishMicros;
+        private volatile int finished;
+
+        AsyncFinishingSpan(AsyncFinishingTracer tracer, Span delegate) {
+            this.tracer = tracer;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public SpanContext context() {
+            return delegate.context();
+        }
+
+        @Override
+        public Span setTag(String key, String value) {
+            delegate.setTag(key, value);
+            return this;
+        }
+
+        @Override
+        public Span setTag(String key, boolean value) {
+            delegate.setTag(key, value);
+            return this;
+        }
+
+        @Override
+        public Span setTag(String key, Number value) {
+            delegate.setTag(key, value);
+            return this;
+        }
+
+        @Override
+        public <T> Span setTag(Tag<T> tag, T value) {
+            delegate.setTag(tag, value);
+            return this;
+        }
+
+        @Override
+        public Span log(Map<String, ?> fields) {
+            delegate.log(fields);
+            return this;
+        }
+
+        @Override
+        public Span log(long timestampMicroseconds, Map<String, ?> fields) {
+            delegate.log(timestampMicroseconds, fields);
+            return this;
+        }
+
+        @Override
+        public Span log(String event) {
+            delegate.log(event);
+            return this;
+        }
+
+        @Override
+        public Span log(long timestampMicroseconds, String event) {
+            delegate.log(timestampMicroseconds, event);
+            return this;
+        }
+
+        @Override
+        public Span setBaggageItem(String key, String value) {
+            delegate.setBaggageItem(key, value);
+            return this;
+        }
+
+        @Override
+        public String getBaggageItem(String key) {
+            return delegate.getBaggageItem(key);
+        }
+
+        @Override
+        public Span setOperationName(String operationName) {
+            delegate.setOperationName(operationName);
+            return this;
+        }
+
+        @Override
+        public void finish() {
+            finish(tracer.nowMicros());
+        }
+
+        @Override
+        public void finish(long finishMicros) {
+            if (!FINISHED.compareAndSet(this, 0, 1)) {
+                return;
+            }
+            // published to the background thread by the ring buffer
+            this.finishMicros = finishMicros;
+            tracer.finished(this);
+        }
+
+        @Override
+        public String toString() {
+            return delegate.toString();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+/**
+ * How the reactive (WebFlux and WebClient) instrumentation propagates its span.
+ */
+public enum ContextPropagation {
+    /**
+     * The span is put into the Reactor {@code Context} under {@code Span.class} and is activated in the
+     * {@link io.opentracing.ScopeManager} while the instrumented publisher is subscribed.
+     */
+    SCOPE,
+    /**
+     * The span is put into the Reactor {@code Context} only. Code relying on {@link io.opentracing.Tracer#activeSpan()}
+     * can restore the scope where needed with {@link ReactorScopes#activateSpan(io.opentracing.Tracer)}.
+     */
+    CONTEXT_ONLY
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Failure accounting of a span decorator. Exceptions thrown by the decorator are logged at most once per
+ * {@link #LOG_INTERVAL_MILLIS}, with the number of failures not logged since. A decorator failing
+ * {@code failureThreshold} times within a second is skipped for {@code cooldownMillis}, after which it is called
+ * again.
+ *
+ * <p>Instrumentations hold a circuit breaker next to each of their decorators, created by
+ * {@link DecoratorCircuitBreakers}. Checking a closed circuit breaker is a single volatile read.
+ */
+public final class DecoratorCircuitBreaker {
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 50;
+    public static final long DEFAULT_COOLDOWN_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    static final long LOG_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    private static final long WINDOW_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+    private final String decorator;
+    private final int failureThreshold;
+    private final long cooldownMillis;
+    private final LongAdder failures = new LongAdder();
+    private final AtomicLong windowStart = new AtomicLong();
+    private final AtomicInteger windowFailures = new AtomicInteger();
+    private final AtomicLong openUntil = new AtomicLong();
+    private final AtomicInteger trips = new AtomicInteger();
+    private final AtomicLong lastLogged = new AtomicLong();
+    private final AtomicInteger notLogged = new AtomicInteger();
+
+    /**
+     * @param decorator span decorator
+     * @param failureThreshold failures within a second disabling the decorator, zero or less never disables it
+     * @param cooldownMillis how long the decorator is skipped once it exceeded the failure threshold
+     */
+    DecoratorCircuitBreaker(Object decorator, int failureThreshold, long cooldownMillis) {
+        this.decorator = decorator.getClass().getName();
+        this.failureThreshold = failureThreshold;
+        this.cooldownMillis = cooldownMillis;
+    }
+
+    /**
+     * @return class name of the decorator
+     */
+    public String getDecorator() {
+        return decorator;
+    }
+
+    /**
+     * @return all exceptions thrown by the decorator
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * @return how many times the decorator has been disabled
+     */
+    public int getTrips() {
+        return trips.get();
+    }
+
+    /**
+     * @return whether the decorator is disabled and should not be called
+     */
+    public boolean isOpen() {
+        long until = openUntil.get();
+        if (until == 0) {
+            return false;
+        }
+        if (System.currentTimeMillis() < until) {
+            return true;
+        }
+        openUntil.compareAndSet(until, 0);
+        return false;
+    }
+
+    /**
+     * Records an exception thrown by the decorator.
+     *
+     * @param exception exception thrown by the decorator
+     * @param log log of the instrumentation calling the decorator
+     */
+    public void failed(RuntimeException exception, Log log) {
+        failures.increment();
+
+        long now = System.currentTimeMillis();
+        long start = windowStart.get();
+        if (now - start >= WINDOW_MILLIS && windowStart.compareAndSet(start, now)) {
+            windowFailures.set(0);
+        }
+        if (windowFailures.incrementAndGet() >= failureThreshold && failureThreshold > 0 && open(now)) {
+            log.warn("Disabling span decorator " + decorator + " for " + cooldownMillis + " ms after "
+                    + failureThreshold + " failures within " + WINDOW_MILLIS + " ms", exception);
+            return;
+        }
+
+        long logged = lastLogged.get();
+        if (now - logged >= LOG_INTERVAL_MILLIS && lastLogged.compareAndSet(logged, now)) {
+            int skipped = notLogged.getAndSet(0);
+            log.error("Exception during decorating span" + (skipped == 0 ? "" : ", " + skipped
+                    + " exceptions of " + decorator + " not logged since the last one"), exception);
+        } else {
+            notLogged.incrementAndGet();
+        }
+    }
+
+    private boolean open(long now) {
+        long until = openUntil.get();
+        if (until > now) {
+            return false;
+        }
+        if (!openUntil.compareAndSet(until, now + cooldownMillis)) {
+            return false;
+        }
+        windowFailures.set(0);
+        trips.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "DecoratorCircuitBreaker{decorator=" + decorator + ", failures=" + failures.sum() + ", trips="
+                + trips.get() + ", open=" + isOpen() + '}';
+    }
+}
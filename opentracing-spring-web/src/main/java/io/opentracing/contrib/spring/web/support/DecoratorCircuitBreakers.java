@@ -0,0 +1,88 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Creates the {@link DecoratorCircuitBreaker circuit breakers} of the span decorators of instrumentations with
+ * common settings, and keeps them to list their failures, e.g. on the tracing endpoint. An instrumentation creates
+ * the circuit breakers of its decorators once, when it is configured.
+ */
+public class DecoratorCircuitBreakers {
+
+    private final int failureThreshold;
+    private final long cooldownMillis;
+    private final List<DecoratorCircuitBreaker> circuitBreakers = new CopyOnWriteArrayList<>();
+
+    public DecoratorCircuitBreakers() {
+        this(DecoratorCircuitBreaker.DEFAULT_FAILURE_THRESHOLD, DecoratorCircuitBreaker.DEFAULT_COOLDOWN_MILLIS);
+    }
+
+    /**
+     * @param failureThreshold failures within a second disabling a decorator, zero or less never disables decorators
+     * @param cooldownMillis how long a decorator exceeding the failure threshold is skipped
+     */
+    public DecoratorCircuitBreakers(int failureThreshold, long cooldownMillis) {
+        this.failureThreshold = failureThreshold;
+        this.cooldownMillis = cooldownMillis;
+    }
+
+    /**
+     * @param decorator span decorator
+     * @return new circuit breaker of the decorator
+     */
+    public DecoratorCircuitBreaker create(Object decorator) {
+        DecoratorCircuitBreaker circuitBreaker = new DecoratorCircuitBreaker(decorator, failureThreshold,
+                cooldownMillis);
+        circuitBreakers.add(circuitBreaker);
+        return circuitBreaker;
+    }
+
+    /**
+     * @param decorators span decorators
+     * @return new circuit breakers, in the order of the decorators
+     */
+    public DecoratorCircuitBreaker[] create(List<?> decorators) {
+        DecoratorCircuitBreaker[] created = new DecoratorCircuitBreaker[decorators.size()];
+        for (int i = 0; i < created.length; i++) {
+            created[i] = create(decorators.get(i));
+        }
+        return created;
+    }
+
+    /**
+     * @return circuit breakers of the decorators which have failed
+     */
+    public List<DecoratorCircuitBreaker> getFailed() {
+        List<DecoratorCircuitBreaker> failed = new ArrayList<>();
+        for (DecoratorCircuitBreaker circuitBreaker : circuitBreakers) {
+            if (circuitBreaker.getFailures() != 0) {
+                failed.add(circuitBreaker);
+            }
+        }
+        return Collections.unmodifiableList(failed);
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public long getCooldownMillis() {
+        return cooldownMillis;
+    }
+}
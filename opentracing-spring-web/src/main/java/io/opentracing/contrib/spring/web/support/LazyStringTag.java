@@ -0,0 +1,41 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import io.opentracing.Span;
+import io.opentracing.tag.AbstractTag;
+import io.opentracing.tag.Tags;
+
+/**
+ * Tag whose value is converted to a string only when the span needs it. It is passed to
+ * {@link Span#setTag(io.opentracing.tag.Tag, Object)}, so tracers storing the tag value as an object defer the
+ * conversion until the span is reported, and no-op or unsampled spans never convert it. Other tracers convert it
+ * right away through {@link #set(Span, Object)}.
+ */
+public final class LazyStringTag extends AbstractTag<Object> {
+
+    /**
+     * Lazy variant of {@link Tags#HTTP_URL}, typically set to a {@link java.net.URI}.
+     */
+    public static final LazyStringTag HTTP_URL = new LazyStringTag(Tags.HTTP_URL.getKey());
+
+    public LazyStringTag(String key) {
+        super(key);
+    }
+
+    @Override
+    public void set(Span span, Object value) {
+        span.setTag(key, value.toString());
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free queue for many producers and a single consumer. Producers claim a slot by advancing the
+ * producer index and never wait, {@link #offer(Object)} fails when the buffer is full or closed.
+ */
+final class MpscRingBuffer<E> {
+
+    /**
+     * Set in the producer index by {@link #close()}, so no slot can be claimed afterwards.
+     */
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final AtomicReferenceArray<E> buffer;
+    private final int mask;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    /**
+     * @param capacity minimal capacity, rounded up to a power of two
+     */
+    MpscRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return false if the buffer is full or closed
+     */
+    boolean offer(E element) {
+        long index;
+        do {
+            index = producerIndex.get();
+            if ((index & CLOSED) != 0 || index - consumerIndex.get() > mask) {
+                return false;
+            }
+        } while (!producerIndex.compareAndSet(index, index + 1));
+        buffer.lazySet((int) index & mask, element);
+        return true;
+    }
+
+    /**
+     * Called only by the consumer.
+     *
+     * @return next element or null if the buffer is empty or the next element is not published yet
+     */
+    E poll() {
+        long index = consumerIndex.get();
+        int offset = (int) index & mask;
+        E element = buffer.get(offset);
+        if (element == null) {
+            return null;
+        }
+        buffer.lazySet(offset, null);
+        consumerIndex.lazySet(index + 1);
+        return element;
+    }
+
+    /**
+     * Rejects all later offers. Elements offered before remain to be polled.
+     */
+    void close() {
+        long index;
+        do {
+            index = producerIndex.get();
+        } while ((index & CLOSED) == 0 && !producerIndex.compareAndSet(index, index | CLOSED));
+    }
+
+    boolean isClosed() {
+        return (producerIndex.get() & CLOSED) != 0;
+    }
+
+    /**
+     * @return elements offered and not polled yet, including the ones not published yet
+     */
+    int size() {
+        return (int) Math.max(0, (producerIndex.get() & ~CLOSED) - consumerIndex.get());
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Computes the operation name of a server span once the handler of the request is known. Shared by the MVC
+ * ({@code HandlerInterceptorSpanDecorator}) and WebFlux ({@code WebFluxSpanDecorator.WebFluxTags}) instrumentation.
+ */
+@FunctionalInterface
+public interface OperationNameStrategy {
+
+    /**
+     * @param method HTTP method
+     * @param handler handler serving the request, e.g. {@link org.springframework.web.method.HandlerMethod}
+     * @param pattern best matching pattern of the request or null if not known
+     * @return operation name or null to keep the current one
+     */
+    @Nullable
+    String operationName(String method, Object handler, @Nullable String pattern);
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sheds the cost of tracing while the server is saturated. The saturation signal is the number of requests in flight
+ * through the tracing filters, which costs one atomic increment and decrement per request. Each request is assigned a
+ * {@link Level} from the number of requests in flight when it enters the filter, the level is kept until the request
+ * completes.
+ *
+ * <p>Requests continuing a trace, i.e. carrying a span context, are degraded to {@link Level#NO_LOGS} at most by
+ * default, so the traces of the callers are not broken while spans of new traces are shed, see
+ * {@link #setKeepContinuedTraces(boolean)}.
+ *
+ * <p>Requests are counted per level, so the time spent degraded can be exposed as metrics.
+ */
+public class OverloadProtection {
+
+    /**
+     * How much of the tracing of a request is kept, from the most to the least.
+     */
+    public enum Level {
+        /**
+         * All span decorators.
+         */
+        NONE,
+        /**
+         * Only {@code http.method}, {@code http.status_code} and, on errors, the {@code error} tag and error log
+         * instead of the configured span decorators.
+         */
+        REDUCED_TAGS,
+        /**
+         * As {@link #REDUCED_TAGS} without the error log.
+         */
+        NO_LOGS,
+        /**
+         * No span, the incoming span context is still propagated to the handler and downstream requests.
+         */
+        PROPAGATION_ONLY
+    }
+
+    private static final Level[] LEVELS = Level.values();
+
+    private final int[] thresholds;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder[] requests = new LongAdder[LEVELS.length];
+    private volatile boolean keepContinuedTraces = true;
+
+    /**
+     * @param reducedTagsThreshold requests in flight from which {@link Level#REDUCED_TAGS} applies
+     * @param noLogsThreshold requests in flight from which {@link Level#NO_LOGS} applies
+     * @param propagationOnlyThreshold requests in flight from which {@link Level#PROPAGATION_ONLY} applies
+     */
+    public OverloadProtection(int reducedTagsThreshold, int noLogsThreshold, int propagationOnlyThreshold) {
+        if (reducedTagsThreshold <= 0 || noLogsThreshold < reducedTagsThreshold
+                || propagationOnlyThreshold < noLogsThreshold) {
+            throw new IllegalArgumentException("thresholds must be positive and non-decreasing: "
+                    + reducedTagsThreshold + ", " + noLogsThreshold + ", " + propagationOnlyThreshold);
+        }
+        this.thresholds = new int[]{reducedTagsThreshold, noLogsThreshold, propagationOnlyThreshold};
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Counts a request in flight, every call has to be followed by {@link #exit()}.
+     *
+     * @return level applying to the request
+     */
+    public Level enter() {
+        Level level = level(inFlight.incrementAndGet());
+        requests[level.ordinal()].increment();
+        return level;
+    }
+
+    public void exit() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Called for a request which has entered at {@link Level#PROPAGATION_ONLY} and continues a trace.
+     *
+     * @return whether the request is traced at {@link Level#NO_LOGS} instead, it is then counted at that level
+     */
+    public boolean keepContinuedTrace() {
+        if (!keepContinuedTraces) {
+            return false;
+        }
+        requests[Level.PROPAGATION_ONLY.ordinal()].decrement();
+        requests[Level.NO_LOGS.ordinal()].increment();
+        return true;
+    }
+
+    /**
+     * @param keepContinuedTraces whether requests carrying a span context keep their span, degraded to
+     *                            {@link Level#NO_LOGS}, when other requests are degraded to
+     *                            {@link Level#PROPAGATION_ONLY}, true by default
+     */
+    public void setKeepContinuedTraces(boolean keepContinuedTraces) {
+        this.keepContinuedTraces = keepContinuedTraces;
+    }
+
+    public boolean isKeepContinuedTraces() {
+        return keepContinuedTraces;
+    }
+
+    /**
+     * @return level which would apply to a request entering now
+     */
+    public Level getLevel() {
+        return level(inFlight.get() + 1);
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return requests which have entered at the level
+     */
+    public long getRequests(Level level) {
+        return requests[level.ordinal()].sum();
+    }
+
+    private Level level(int requestsInFlight) {
+        int level = 0;
+        while (level < thresholds.length && requestsInFlight >= thresholds[level]) {
+            level++;
+        }
+        return LEVELS[level];
+    }
+}
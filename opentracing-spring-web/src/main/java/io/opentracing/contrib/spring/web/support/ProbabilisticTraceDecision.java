@@ -0,0 +1,44 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Traces requests with a fixed probability.
+ */
+public class ProbabilisticTraceDecision implements TraceDecision {
+
+    private final double probability;
+
+    /**
+     * @param probability probability of tracing a request, between 0 and 1
+     */
+    public ProbabilisticTraceDecision(double probability) {
+        if (probability < 0 || probability > 1) {
+            throw new IllegalArgumentException("probability must be between 0 and 1: " + probability);
+        }
+        this.probability = probability;
+    }
+
+    @Override
+    public boolean shouldTrace(String method, String path) {
+        return probability >= 1 || ThreadLocalRandom.current().nextDouble() < probability;
+    }
+
+    @Override
+    public String toString() {
+        return "ProbabilisticTraceDecision{probability=" + probability + "}";
+    }
+}
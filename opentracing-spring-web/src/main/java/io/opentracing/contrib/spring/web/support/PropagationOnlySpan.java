@@ -0,0 +1,129 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.Map;
+
+import io.opentracing.Span;
+import io.opentracing.SpanContext;
+import io.opentracing.tag.Tag;
+import org.springframework.lang.Nullable;
+
+/**
+ * Span of a request which is not traced. It is never reported and marks the request as unsampled: the client
+ * instrumentation does not create spans while it is active, it only propagates the span context extracted from the
+ * request, if any, so the downstream services continue the incoming trace.
+ */
+public final class PropagationOnlySpan implements Span {
+
+    /**
+     * Span of an unsampled request without an incoming span context.
+     */
+    public static final PropagationOnlySpan NO_CONTEXT = new PropagationOnlySpan(null);
+
+    @Nullable
+    private final SpanContext context;
+
+    /**
+     * @param context span context extracted from the request, or null if the request has none
+     */
+    public PropagationOnlySpan(@Nullable SpanContext context) {
+        this.context = context;
+    }
+
+    /**
+     * @return span context extracted from the request, or null if the request has none
+     */
+    @Override
+    @Nullable
+    public SpanContext context() {
+        return context;
+    }
+
+    @Override
+    public Span setTag(String key, String value) {
+        return this;
+    }
+
+    @Override
+    public Span setTag(String key, boolean value) {
+        return this;
+    }
+
+    @Override
+    public Span setTag(String key, Number value) {
+        return this;
+    }
+
+    @Override
+    public <T> Span setTag(Tag<T> tag, T value) {
+        return this;
+    }
+
+    @Override
+    public Span log(Map<String, ?> fields) {
+        return this;
+    }
+
+    @Override
+    public Span log(long timestampMicroseconds, Map<String, ?> fields) {
+        return this;
+    }
+
+    @Override
+    public Span log(String event) {
+        return this;
+    }
+
+    @Override
+    public Span log(long timestampMicroseconds, String event) {
+        return this;
+    }
+
+    @Override
+    public Span setBaggageItem(String key, String value) {
+        return this;
+    }
+
+    @Override
+    public String getBaggageItem(String key) {
+        if (context == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> baggageItem : context.baggageItems()) {
+            if (baggageItem.getKey().equals(key)) {
+                return baggageItem.getValue();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Span setOperationName(String operationName) {
+        return this;
+    }
+
+    @Override
+    public void finish() {
+    }
+
+    @Override
+    public void finish(long finishMicros) {
+    }
+
+    @Override
+    public String toString() {
+        return "PropagationOnlySpan{context=" + context + "}";
+    }
+}
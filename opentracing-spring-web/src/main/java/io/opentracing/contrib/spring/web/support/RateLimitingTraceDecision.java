@@ -0,0 +1,41 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+/**
+ * Traces at most a given number of requests per second, allowing bursts of one second worth of requests.
+ */
+public class RateLimitingTraceDecision implements TraceDecision {
+
+    private final double maxTracesPerSecond;
+    private final RateLimiter rateLimiter;
+
+    /**
+     * @param maxTracesPerSecond maximal number of traced requests per second
+     */
+    public RateLimitingTraceDecision(double maxTracesPerSecond) {
+        this.maxTracesPerSecond = maxTracesPerSecond;
+        this.rateLimiter = new RateLimiter(maxTracesPerSecond, maxTracesPerSecond);
+    }
+
+    @Override
+    public boolean shouldTrace(String method, String path) {
+        return rateLimiter.tryAcquire();
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitingTraceDecision{maxTracesPerSecond=" + maxTracesPerSecond + "}";
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.function.Function;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Operators;
+import reactor.util.context.Context;
+
+/**
+ * Restores the {@link io.opentracing.ScopeManager} scope of the span propagated in the Reactor {@link Context} for
+ * individual operators, e.g. with {@link ContextPropagation#CONTEXT_ONLY}:
+ *
+ * <pre>{@code
+ * webClient.get().uri("/orders").retrieve().bodyToMono(Order.class)
+ *         .transform(ReactorScopes.activateSpan(tracer))
+ *         .map(order -> blockingLegacyCall(order)); // tracer.activeSpan() is the server span of the request here
+ * }</pre>
+ *
+ * The span is activated only while signals are delivered to the operators downstream of the transformation, and only
+ * if it is not already active.
+ */
+public final class ReactorScopes {
+
+    private ReactorScopes() {
+    }
+
+    /**
+     * @param tracer tracer
+     * @param <T> element type
+     * @return transformation activating the span of the subscriber context while emitting signals downstream
+     */
+    public static <T> Function<Publisher<T>, Publisher<T>> activateSpan(Tracer tracer) {
+        Function<? super Publisher<T>, ? extends Publisher<T>> lift = Operators.lift((scannable, subscriber) -> {
+            Span span = subscriber.currentContext().getOrDefault(Span.class, null);
+            return span == null ? subscriber : new ScopeActivatingSubscriber<T>(subscriber, tracer, span);
+        });
+        return lift::apply;
+    }
+
+    private static final class ScopeActivatingSubscriber<T> implements CoreSubscriber<T>, Subscription {
+
+        private final CoreSubscriber<? super T> actual;
+        private final Tracer tracer;
+        private final Span span;
+        private Subscription subscription;
+
+        ScopeActivatingSubscriber(CoreSubscriber<? super T> actual, Tracer tracer, Span span) {
+            this.actual = actual;
+            this.tracer = tracer;
+            this.span = span;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            actual.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (tracer.activeSpan() == span) {
+                actual.onNext(t);
+                return;
+            }
+            try (Scope scope = tracer.activateSpan(span)) {
+                actual.onNext(t);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (tracer.activeSpan() == span) {
+                actual.onError(throwable);
+                return;
+            }
+            try (Scope scope = tracer.activateSpan(span)) {
+                actual.onError(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (tracer.activeSpan() == span) {
+                actual.onComplete();
+                return;
+            }
+            try (Scope scope = tracer.activateSpan(span)) {
+                actual.onComplete();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            subscription.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            subscription.cancel();
+        }
+
+        @Override
+        public Context currentContext() {
+            return actual.currentContext();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records rate, errors and duration (RED) of HTTP requests as Micrometer timers with percentile histograms, tagged
+ * like the Spring Boot metrics. The timers are named differently from the Spring Boot metrics, so both can be
+ * enabled without the counts of the same requests being added up. Server requests are recorded by
+ * {@code TracingServletFilter} and {@code TracingWebFilter}, including the requests they do not trace, client
+ * requests by the tracing interceptors and exchange filter functions.
+ *
+ * <p>Server requests are recorded as {@value #SERVER_REQUESTS} tagged with {@code method}, {@code uri} (route
+ * template), {@code status}, {@code outcome} and {@code exception}. Client requests are recorded as
+ * {@value #CLIENT_REQUESTS} tagged with {@code method}, {@code clientName} (host), {@code status}, {@code outcome}
+ * and {@code exception}. The timers are cached per tag values. A server request cancelled before it completes,
+ * e.g. because the client disconnected, is recorded with {@code status} and {@code outcome} {@code UNKNOWN} and
+ * {@code exception} {@value #CANCELLED}, like Spring Boot records cancelled WebFlux exchanges.
+ */
+public final class RedMetricsRecorder {
+
+    public static final String SERVER_REQUESTS = "opentracing.http.server.requests";
+    public static final String CLIENT_REQUESTS = "opentracing.http.client.requests";
+    public static final String CANCELLED = "CancelledServerWebExchangeException";
+
+    private static final String UNKNOWN = "UNKNOWN";
+    private static final String NONE = "None";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public RedMetricsRecorder(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * @param method HTTP method
+     * @param route route template or null if not resolved
+     * @param status response status or 0 if unknown, a request failing with an exception and without an error
+     *               status is recorded as {@code 500}
+     * @param exception exception or null
+     * @param startNanos {@link System#nanoTime()} at the start of the request
+     */
+    public void recordServer(String method, @Nullable String route, int status, @Nullable Throwable exception,
+                             long startNanos) {
+        if (exception != null && status < HttpStatus.BAD_REQUEST.value()) {
+            status = HttpStatus.INTERNAL_SERVER_ERROR.value();
+        }
+        if (route == null) {
+            route = status == HttpStatus.NOT_FOUND.value() ? "NOT_FOUND"
+                    : HttpStatus.Series.resolve(status) == HttpStatus.Series.REDIRECTION ? "REDIRECTION" : UNKNOWN;
+        }
+        record(SERVER_REQUESTS, "uri", method, route, status, exceptionName(exception), startNanos);
+    }
+
+    /**
+     * @param method HTTP method
+     * @param route route template or null if not resolved
+     * @param startNanos {@link System#nanoTime()} at the start of the request
+     */
+    public void recordServerCancelled(String method, @Nullable String route, long startNanos) {
+        record(SERVER_REQUESTS, "uri", method, route == null ? UNKNOWN : route, 0, CANCELLED, startNanos);
+    }
+
+    /**
+     * @param method HTTP method
+     * @param host host of the request URL or null
+     * @param status response status or 0 if unknown
+     * @param exception exception or null
+     * @param startNanos {@link System#nanoTime()} at the start of the request
+     */
+    public void recordClient(String method, @Nullable String host, int status, @Nullable Throwable exception,
+                             long startNanos) {
+        record(CLIENT_REQUESTS, "clientName", method, host == null ? UNKNOWN : host, status, exceptionName(exception),
+                startNanos);
+    }
+
+    private static String exceptionName(@Nullable Throwable exception) {
+        return exception == null ? NONE : exception.getClass().getSimpleName();
+    }
+
+    private void record(String name, String targetTag, String method, String target, int status, String exception,
+                        long startNanos) {
+        long durationNanos = System.nanoTime() - startNanos;
+        TimerKey key = new TimerKey(name, method, target, status, exception);
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, k -> Timer.builder(k.name)
+                    .tags(Tags.of(
+                            "method", k.method,
+                            targetTag, k.target,
+                            "status", k.status == 0 ? UNKNOWN : Integer.toString(k.status),
+                            "outcome", outcome(k.status),
+                            "exception", k.exception))
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        timer.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String outcome(int status) {
+        HttpStatus.Series series = HttpStatus.Series.resolve(status);
+        if (series == null) {
+            return UNKNOWN;
+        }
+        return series == HttpStatus.Series.SUCCESSFUL ? "SUCCESS" : series.name();
+    }
+
+    private static final class TimerKey {
+        private final String name;
+        private final String method;
+        private final String target;
+        private final int status;
+        private final String exception;
+
+        TimerKey(String name, String method, String target, int status, String exception) {
+            this.name = name;
+            this.method = method;
+            this.target = target;
+            this.status = status;
+            this.exception = exception;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TimerKey)) {
+                return false;
+            }
+            TimerKey other = (TimerKey) o;
+            return status == other.status && name.equals(other.name) && method.equals(other.method)
+                    && target.equals(other.target) && exception.equals(other.exception);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = name.hashCode();
+            result = 31 * result + method.hashCode();
+            result = 31 * result + target.hashCode();
+            result = 31 * result + status;
+            return 31 * result + exception.hashCode();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Holder of a {@link SkipPatternMatcher} which can be replaced while the application is running, e.g. to stop
+ * tracing a noisy endpoint. Filters read the current matcher once per request with {@link #get()}, which is a
+ * single volatile read, and {@link #update(Pattern)} swaps the compiled matcher atomically.
+ */
+public final class RefreshableSkipPattern {
+
+    private final CopyOnWriteArrayList<Runnable> updateListeners = new CopyOnWriteArrayList<>();
+    private volatile SkipPatternMatcher matcher;
+
+    /**
+     * @param pattern initial skip pattern, null or empty means do not skip any URL
+     */
+    public RefreshableSkipPattern(@Nullable Pattern pattern) {
+        this.matcher = SkipPatternMatcher.compile(pattern);
+    }
+
+    /**
+     * @return current matcher
+     */
+    public SkipPatternMatcher get() {
+        return matcher;
+    }
+
+    /**
+     * Compiles and publishes a new skip pattern, then notifies the update listeners. Requests already past the skip
+     * pattern check are not affected.
+     *
+     * @param pattern new skip pattern, null or empty means do not skip any URL
+     */
+    public synchronized void update(@Nullable Pattern pattern) {
+        matcher = SkipPatternMatcher.compile(pattern);
+        for (Runnable listener : updateListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * @param listener called after every {@link #update(Pattern)}, e.g. to invalidate cached decisions, added once
+     *                 even if passed again
+     */
+    public void addUpdateListener(Runnable listener) {
+        updateListeners.addIfAbsent(listener);
+    }
+
+    /**
+     * @param listener listener no longer called after updates
+     */
+    public void removeUpdateListener(Runnable listener) {
+        updateListeners.remove(listener);
+    }
+
+    @Override
+    public String toString() {
+        return matcher.toString();
+    }
+}
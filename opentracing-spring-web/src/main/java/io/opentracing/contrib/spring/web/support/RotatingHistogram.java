@@ -0,0 +1,110 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link LogHistogram} over a sliding time window: values are recorded into the current window, which becomes the
+ * previous window when it is older than the window length, and reads merge the current and the previous window. The
+ * reported values therefore cover between one and two window lengths and a spike ages out instead of dominating the
+ * percentiles for the lifetime of the process.
+ */
+public final class RotatingHistogram {
+
+    private static final class Windows {
+        final LogHistogram current;
+        final LogHistogram previous;
+        final long startNanos;
+
+        Windows(LogHistogram current, LogHistogram previous, long startNanos) {
+            this.current = current;
+            this.previous = previous;
+            this.startNanos = startNanos;
+        }
+    }
+
+    private final long windowNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicReference<Windows> windows;
+
+    /**
+     * @param window window length
+     * @param unit unit of the window length
+     */
+    public RotatingHistogram(long window, TimeUnit unit) {
+        this(window, unit, System::nanoTime);
+    }
+
+    RotatingHistogram(long window, TimeUnit unit, LongSupplier nanoClock) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        this.windowNanos = unit.toNanos(window);
+        this.nanoClock = nanoClock;
+        this.windows = new AtomicReference<>(new Windows(new LogHistogram(), new LogHistogram(),
+                nanoClock.getAsLong()));
+    }
+
+    /**
+     * @param value value, negative values are recorded as zero
+     */
+    public void record(long value) {
+        rotate().current.record(value);
+    }
+
+    /**
+     * @return values recorded in the current and the previous window
+     */
+    public long getCount() {
+        Windows windows = rotate();
+        return windows.current.getCount() + windows.previous.getCount();
+    }
+
+    /**
+     * @param percentile percentile between 0 and 1
+     * @return upper bound of the bucket containing the percentile of the current and the previous window or 0 if
+     * nothing has been recorded in them
+     */
+    public long getPercentile(double percentile) {
+        Windows windows = rotate();
+        long[] counts = new long[LogHistogram.BUCKETS];
+        windows.current.addCounts(counts);
+        windows.previous.addCounts(counts);
+        return LogHistogram.percentile(counts, percentile);
+    }
+
+    /**
+     * Discards both windows.
+     */
+    public void reset() {
+        windows.set(new Windows(new LogHistogram(), new LogHistogram(), nanoClock.getAsLong()));
+    }
+
+    private Windows rotate() {
+        Windows windows = this.windows.get();
+        long now = nanoClock.getAsLong();
+        long elapsed = now - windows.startNanos;
+        if (elapsed < windowNanos) {
+            return windows;
+        }
+        // after an idle period longer than a window the current window is too old to be reported as previous
+        LogHistogram previous = elapsed < 2 * windowNanos ? windows.current : new LogHistogram();
+        Windows rotated = new Windows(new LogHistogram(), previous, now);
+        // the thread losing the race uses the windows rotated by the winner
+        return this.windows.compareAndSet(windows, rotated) ? rotated : this.windows.get();
+    }
+}
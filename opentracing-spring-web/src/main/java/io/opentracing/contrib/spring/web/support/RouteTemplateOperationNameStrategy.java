@@ -0,0 +1,83 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
+
+/**
+ * Names spans {@code METHOD /route/{template}}, e.g. {@code GET /orders/{id}}, so the number of distinct operation
+ * names is bounded by the number of routes.
+ *
+ * <p>Names are computed once per handler, pattern and HTTP method, and cached in a {@link ConcurrentHashMap} keyed by
+ * the handler (usually a {@link org.springframework.web.method.HandlerMethod}). Requests without a pattern keep their
+ * operation name.
+ */
+public class RouteTemplateOperationNameStrategy implements OperationNameStrategy {
+
+    public static final int DEFAULT_MAX_HANDLERS = 10_000;
+
+    private static final HttpMethod[] HTTP_METHODS = HttpMethod.values();
+
+    private final int maxHandlers;
+    private final ConcurrentHashMap<Object, ConcurrentHashMap<String, String[]>> names = new ConcurrentHashMap<>();
+
+    public RouteTemplateOperationNameStrategy() {
+        this(DEFAULT_MAX_HANDLERS);
+    }
+
+    /**
+     * @param maxHandlers maximal number of cached handlers, names of further handlers are computed on every request
+     */
+    public RouteTemplateOperationNameStrategy(int maxHandlers) {
+        this.maxHandlers = maxHandlers;
+    }
+
+    @Override
+    @Nullable
+    public String operationName(String method, Object handler, @Nullable String pattern) {
+        if (pattern == null) {
+            return null;
+        }
+        HttpMethod httpMethod = HttpMethod.resolve(method);
+        if (httpMethod == null) {
+            return name(method, pattern);
+        }
+
+        ConcurrentHashMap<String, String[]> handlerNames = names.get(handler);
+        if (handlerNames == null) {
+            if (names.size() >= maxHandlers) {
+                return name(method, pattern);
+            }
+            handlerNames = names.computeIfAbsent(handler, key -> new ConcurrentHashMap<>(2));
+        }
+        String[] methodNames = handlerNames.get(pattern);
+        if (methodNames == null) {
+            methodNames = handlerNames.computeIfAbsent(pattern, key -> new String[HTTP_METHODS.length]);
+        }
+        String name = methodNames[httpMethod.ordinal()];
+        if (name == null) {
+            // racing threads compute equal names, publishing either one is fine
+            name = name(httpMethod.name(), pattern);
+            methodNames[httpMethod.ordinal()] = name;
+        }
+        return name;
+    }
+
+    private static String name(String method, String pattern) {
+        return method + " " + pattern;
+    }
+}
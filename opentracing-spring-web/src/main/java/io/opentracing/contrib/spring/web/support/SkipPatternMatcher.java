@@ -0,0 +1,396 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * Compiled form of a skip pattern, equivalent to {@code skipPattern.matcher(path).matches()}.
+ *
+ * <p>Skip patterns are usually a {@code |}-joined list of alternatives such as {@code /api-docs.*},
+ * {@code .*\.png} or {@code /actuator/(info|health)}. Alternatives of the form {@code literal},
+ * {@code literal.*} and {@code .*literal} are answered through a prefix trie and a suffix trie, unquantified
+ * groups are expanded into their alternatives, and everything else is collected into a single fallback
+ * {@link Pattern}. Patterns with flags, inline flags or back references are not decomposed at all.
+ */
+public final class SkipPatternMatcher {
+
+    private static final SkipPatternMatcher EMPTY = new SkipPatternMatcher(null, false, null, null, null);
+
+    /**
+     * Upper bound of alternatives produced by group expansion, larger patterns are matched by the fallback.
+     */
+    private static final int MAX_EXPANDED_ALTERNATIVES = 256;
+
+    @Nullable
+    private final Pattern pattern;
+    private final boolean matchesAll;
+    @Nullable
+    private final Node prefixes;
+    @Nullable
+    private final Node suffixes;
+    @Nullable
+    private final Pattern fallback;
+
+    private SkipPatternMatcher(@Nullable Pattern pattern, boolean matchesAll, @Nullable Node prefixes,
+                               @Nullable Node suffixes, @Nullable Pattern fallback) {
+        this.pattern = pattern;
+        this.matchesAll = matchesAll;
+        this.prefixes = prefixes;
+        this.suffixes = suffixes;
+        this.fallback = fallback;
+    }
+
+    /**
+     * @param pattern skip pattern, {@code null} or an empty pattern never matches
+     * @return compiled matcher
+     */
+    public static SkipPatternMatcher compile(@Nullable Pattern pattern) {
+        if (pattern == null || !StringUtils.hasText(pattern.pattern())) {
+            return EMPTY;
+        }
+
+        List<String> alternatives = pattern.flags() == 0 ? expand(pattern.pattern()) : null;
+        if (alternatives == null) {
+            return new SkipPatternMatcher(pattern, false, null, null, pattern);
+        }
+
+        Node prefixes = new Node();
+        Node suffixes = new Node();
+        boolean hasPrefixes = false;
+        boolean hasSuffixes = false;
+        List<String> fallback = new ArrayList<>();
+        for (String alternative : alternatives) {
+            if (".*".equals(alternative)) {
+                return new SkipPatternMatcher(pattern, true, null, null, null);
+            }
+            String literal;
+            if ((literal = literal(alternative, 0, alternative.length())) != null) {
+                prefixes.insert(literal, false).exact = true;
+                hasPrefixes = true;
+            } else if (alternative.endsWith(".*")
+                    && (literal = literal(alternative, 0, alternative.length() - 2)) != null) {
+                prefixes.insert(literal, false).prefix = true;
+                hasPrefixes = true;
+            } else if (alternative.startsWith(".*")
+                    && (literal = literal(alternative, 2, alternative.length())) != null) {
+                suffixes.insert(literal, true).prefix = true;
+                hasSuffixes = true;
+            } else {
+                fallback.add(alternative);
+            }
+        }
+
+        return new SkipPatternMatcher(pattern, false,
+                hasPrefixes ? prefixes : null,
+                hasSuffixes ? suffixes : null,
+                fallback.isEmpty() ? null : Pattern.compile(StringUtils.collectionToDelimitedString(fallback, "|")));
+    }
+
+    /**
+     * @return whether the matcher never matches
+     */
+    public boolean isEmpty() {
+        return pattern == null;
+    }
+
+    /**
+     * @param path path within application
+     * @return whether the whole path matches the skip pattern
+     */
+    public boolean matches(String path) {
+        if (pattern == null) {
+            return false;
+        }
+        if (hasLineTerminator(path)) {
+            // '.' does not match line terminators, keep the exact regex semantics for such (unusual) paths
+            return pattern.matcher(path).matches();
+        }
+        if (matchesAll) {
+            return true;
+        }
+        if (prefixes != null && prefixes.matchesForward(path)) {
+            return true;
+        }
+        if (suffixes != null && suffixes.matchesBackward(path)) {
+            return true;
+        }
+        return fallback != null && fallback.matcher(path).matches();
+    }
+
+    @Override
+    public String toString() {
+        return pattern == null ? "" : pattern.pattern();
+    }
+
+    private static boolean hasLineTerminator(String path) {
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Splits the regex into top level alternatives and expands unquantified groups.
+     *
+     * @return alternatives or null if the regex cannot be safely decomposed
+     */
+    @Nullable
+    private static List<String> expand(String regex) {
+        if (regex.contains("(?") || regex.contains("\\Q") || hasBackReference(regex)) {
+            return null;
+        }
+        List<String> result = new ArrayList<>();
+        List<String> pending = split(regex);
+        if (pending == null) {
+            return null;
+        }
+        while (!pending.isEmpty()) {
+            String alternative = pending.remove(pending.size() - 1);
+            int open = openingParenthesis(alternative);
+            if (open < 0) {
+                result.add(alternative);
+                continue;
+            }
+            int close = matchingParenthesis(alternative, open);
+            if (close < 0) {
+                return null;
+            }
+            if (close + 1 < alternative.length() && "*+?{".indexOf(alternative.charAt(close + 1)) >= 0) {
+                // quantified group cannot be expanded
+                result.add(alternative);
+                continue;
+            }
+            List<String> inner = split(alternative.substring(open + 1, close));
+            if (inner == null || result.size() + pending.size() + inner.size() > MAX_EXPANDED_ALTERNATIVES) {
+                return null;
+            }
+            String head = alternative.substring(0, open);
+            String tail = alternative.substring(close + 1);
+            for (String innerAlternative : inner) {
+                pending.add(head + innerAlternative + tail);
+            }
+        }
+        return result;
+    }
+
+    private static boolean hasBackReference(String regex) {
+        for (int i = 0; i < regex.length() - 1; i++) {
+            if (regex.charAt(i) == '\\') {
+                char next = regex.charAt(i + 1);
+                if (Character.isDigit(next) || next == 'k') {
+                    return true;
+                }
+                i++;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return alternatives separated by top level {@code |} or null if the brackets are unbalanced
+     */
+    @Nullable
+    private static List<String> split(String regex) {
+        List<String> alternatives = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                i = endOfClass(regex, i);
+                if (i < 0) {
+                    return null;
+                }
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '|' && depth == 0) {
+                alternatives.add(regex.substring(start, i));
+                start = i + 1;
+            }
+        }
+        if (depth != 0) {
+            return null;
+        }
+        alternatives.add(regex.substring(start));
+        return alternatives;
+    }
+
+    /**
+     * @return index of the first top level opening parenthesis or -1
+     */
+    private static int openingParenthesis(String regex) {
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                i = endOfClass(regex, i);
+                if (i < 0) {
+                    return -1;
+                }
+            } else if (c == '(') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int matchingParenthesis(String regex, int open) {
+        int depth = 0;
+        for (int i = open; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                i = endOfClass(regex, i);
+                if (i < 0) {
+                    return -1;
+                }
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return index of the bracket closing the character class opened at {@code open} or -1
+     */
+    private static int endOfClass(String regex, int open) {
+        int depth = 0;
+        for (int i = open; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                depth++;
+                // leading '^' and ']' are part of the class
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '^') {
+                    i++;
+                }
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == ']') {
+                    i++;
+                }
+            } else if (c == ']' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return unescaped literal or null if the region contains regex constructs
+     */
+    @Nullable
+    private static String literal(String regex, int from, int to) {
+        StringBuilder literal = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 >= to || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                    return null;
+                }
+                literal.append(regex.charAt(++i));
+            } else if (".[]{}()*+?^$|".indexOf(c) >= 0) {
+                return null;
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.toString();
+    }
+
+    /**
+     * Character trie node, {@link #prefix} marks the end of a prefix (or suffix in the reversed trie) and
+     * {@link #exact} the end of an exact literal.
+     */
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private boolean prefix;
+        private boolean exact;
+
+        Node insert(String literal, boolean reversed) {
+            Node node = this;
+            for (int i = 0; i < literal.length(); i++) {
+                char c = literal.charAt(reversed ? literal.length() - 1 - i : i);
+                Node child = node.child(c);
+                if (child == null) {
+                    child = new Node();
+                    node.keys = Arrays.copyOf(node.keys, node.keys.length + 1);
+                    node.children = Arrays.copyOf(node.children, node.children.length + 1);
+                    node.keys[node.keys.length - 1] = c;
+                    node.children[node.children.length - 1] = child;
+                }
+                node = child;
+            }
+            return node;
+        }
+
+        @Nullable
+        Node child(char c) {
+            char[] keys = this.keys;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        boolean matchesForward(String path) {
+            Node node = this;
+            for (int i = 0; i < path.length(); i++) {
+                if (node.prefix) {
+                    return true;
+                }
+                node = node.child(path.charAt(i));
+                if (node == null) {
+                    return false;
+                }
+            }
+            return node.prefix || node.exact;
+        }
+
+        boolean matchesBackward(String path) {
+            Node node = this;
+            for (int i = path.length() - 1; i >= 0; i--) {
+                if (node.prefix) {
+                    return true;
+                }
+                node = node.child(path.charAt(i));
+                if (node == null) {
+                    return false;
+                }
+            }
+            return node.prefix;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.io.Closeable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.lang.Nullable;
+
+import io.opentracing.Span;
+
+/**
+ * Finishes spans which have not been finished by the instrumentation within a timeout, e.g. spans of reactive
+ * exchanges which never complete, error or cancel. Leaked spans are tagged {@value #LEAKED_TAG}{@code =true} and
+ * counted by {@link #getLeakedSpans()}.
+ *
+ * <p>Tracked spans are kept in a hashed timing wheel of {@link ConcurrentLinkedQueue} buckets advanced by a single
+ * daemon thread, so tracking a span is a lock-free enqueue. The instrumentation finishes the span only if
+ * {@link Handle#complete()} returns true, which also drops the references to the span, so the heap retained by a
+ * completed request is the handle itself until the wheel passes its bucket, and by a stuck one the span at most until
+ * the timeout.
+ */
+public class SpanLeakDetector implements Closeable {
+
+    private static final Log LOG = LogFactory.getLog(SpanLeakDetector.class);
+
+    public static final String LEAKED_TAG = "leaked";
+
+    private static final int TICKS_PER_TIMEOUT = 32;
+    private static final long MIN_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final long timeoutMillis;
+    private final Queue<Handle>[] wheel;
+    private final int ticksPerTimeout;
+    private final ScheduledExecutorService timer;
+    private final LongAdder leakedSpans = new LongAdder();
+    private volatile TracingStats tracingStats = TracingStats.DISABLED;
+    private volatile long tick;
+
+    /**
+     * @param timeout time after which a span not finished by the instrumentation is finished by the detector
+     * @param unit unit of the timeout
+     */
+    @SuppressWarnings("unchecked")
+    public SpanLeakDetector(long timeout, TimeUnit unit) {
+        long timeoutNanos = unit.toNanos(timeout);
+        if (timeoutNanos <= 0) {
+            throw new IllegalArgumentException("timeout must be positive: " + timeout);
+        }
+        long tickNanos = Math.max(timeoutNanos / TICKS_PER_TIMEOUT, MIN_TICK_NANOS);
+        this.timeoutMillis = unit.toMillis(timeout);
+        this.ticksPerTimeout = (int) Math.max(1, (timeoutNanos + tickNanos - 1) / tickNanos);
+        // a handle is added at most ticksPerTimeout + 1 buckets ahead, so it is visited once it has expired
+        this.wheel = new Queue[ticksPerTimeout + 2];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "opentracing-span-leak-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.scheduleAtFixedRate(this::advance, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param span span started by the instrumentation
+     * @param onLeak called after a leaked span has been finished, e.g. to remove references to the span, or null
+     * @return handle to be completed before the instrumentation finishes the span
+     */
+    public Handle track(Span span, @Nullable Runnable onLeak) {
+        Handle handle = new Handle(this, span, onLeak);
+        wheel[(int) ((tick + ticksPerTimeout + 1) % wheel.length)].offer(handle);
+        return handle;
+    }
+
+    /**
+     * @return spans finished by the detector
+     */
+    public long getLeakedSpans() {
+        return leakedSpans.sum();
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * @param tracingStats counts the spans finished by the detector, {@link TracingStats#DISABLED} if null
+     */
+    public void setTracingStats(@Nullable TracingStats tracingStats) {
+        this.tracingStats = tracingStats != null ? tracingStats : TracingStats.DISABLED;
+    }
+
+    private void advance() {
+        long current = tick + 1;
+        // only the timer thread writes the tick
+        tick = current;
+        Queue<Handle> bucket = wheel[(int) (current % wheel.length)];
+        Handle handle;
+        while ((handle = bucket.poll()) != null) {
+            try {
+                handle.leak();
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to finish leaked span", e);
+            }
+        }
+    }
+
+    /**
+     * Stops the detector, spans still tracked are not finished.
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Tracked span. Exactly one of {@link #complete()} and the detector wins the span.
+     */
+    public static final class Handle {
+
+        private static final AtomicReferenceFieldUpdater<Handle, Span> SPAN =
+                AtomicReferenceFieldUpdater.newUpdater(Handle.class, Span.class, "span");
+
+        private final SpanLeakDetector detector;
+        private volatile Span span;
+        @Nullable
+        private Runnable onLeak;
+
+        private Handle(SpanLeakDetector detector, Span span, @Nullable Runnable onLeak) {
+            this.detector = detector;
+            this.span = span;
+            this.onLeak = onLeak;
+        }
+
+        /**
+         * @return true if the caller has to finish the span, false if it has been finished as leaked or the handle
+         * has already been completed
+         */
+        public boolean complete() {
+            if (SPAN.getAndSet(this, null) == null) {
+                return false;
+            }
+            onLeak = null;
+            return true;
+        }
+
+        private void leak() {
+            Span leaked = SPAN.getAndSet(this, null);
+            if (leaked == null) {
+                return;
+            }
+            Runnable callback = onLeak;
+            onLeak = null;
+            detector.leakedSpans.increment();
+            detector.tracingStats.spanFinished();
+            detector.tracingStats.spanLeaked();
+            leaked.setTag(LEAKED_TAG, true);
+            leaked.finish();
+            if (callback != null) {
+                callback.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+/**
+ * Head-based sampling decision consulted by the server instrumentation before a span is created.
+ *
+ * <p>When a request is not traced, no span is built and no decorator is called. A span context extracted from the
+ * request headers is still made available to the client instrumentation, so the trace continues downstream.
+ * Requests excluded by the skip pattern or URL patterns are not passed to the decision.
+ */
+@FunctionalInterface
+public interface TraceDecision {
+
+    /**
+     * Traces every request.
+     */
+    TraceDecision ALWAYS = (method, path) -> true;
+
+    /**
+     * @param method HTTP method
+     * @param path path within application
+     * @return whether a server span should be created for the request
+     */
+    boolean shouldTrace(String method, String path);
+
+    /**
+     * Called after a request has been handled and its route (best matching handler pattern) is known, regardless
+     * of whether it has been traced.
+     *
+     * @param method HTTP method
+     * @param path path within application
+     * @param route best matching pattern, e.g. {@code /orders/{id}}
+     */
+    default void onRouteResolved(String method, String path, String route) {
+    }
+
+    /**
+     * @param probability probability of tracing a request, between 0 and 1
+     * @return decision tracing requests at random
+     */
+    static TraceDecision probabilistic(double probability) {
+        return new ProbabilisticTraceDecision(probability);
+    }
+
+    /**
+     * @param maxTracesPerSecond maximal number of traced requests per second
+     * @return decision tracing at most the given number of requests per second
+     */
+    static TraceDecision rateLimiting(double maxTracesPerSecond) {
+        return new RateLimitingTraceDecision(maxTracesPerSecond);
+    }
+
+    /**
+     * @param maxTracesPerSecond maximal number of traced requests per second and route
+     * @return decision tracing at most the given number of requests per second for every route
+     */
+    static TraceDecision rateLimitingPerRoute(double maxTracesPerSecond) {
+        return new AdaptiveRouteTraceDecision(maxTracesPerSecond);
+    }
+}
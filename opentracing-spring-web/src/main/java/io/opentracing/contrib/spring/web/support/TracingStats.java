@@ -0,0 +1,218 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the web instrumentation and histograms of the time spent inside instrumentation code, in nanoseconds,
+ * exposed by the {@code tracing} actuator endpoint of the starter. All counters are {@link LongAdder}s, so the
+ * instrumented threads do not contend on a shared cache line, the histograms cover the last one to two windows of
+ * {@link RotatingHistogram}.
+ *
+ * <p>The instrumentation records into {@link #DISABLED} unless an instance is set, the starter creates one only when
+ * the endpoint is exposed. Callers measuring time check {@link #isEnabled()} first so a disabled instance does not
+ * cost any {@link System#nanoTime()} call.
+ *
+ * <p>Requests are counted by the server filters. Requests skipped by URL patterns are counted only by the WebFlux
+ * filter, servlet URL patterns are applied by the container before the filter is invoked.
+ */
+public final class TracingStats {
+
+    /**
+     * Does not record anything.
+     */
+    public static final TracingStats DISABLED = new TracingStats(false, 1, TimeUnit.MINUTES);
+
+    /**
+     * Instrumentation whose own time is measured.
+     */
+    public enum Component {
+        /**
+         * Span start and finish of the WebFlux filter, per traced request.
+         */
+        WEB_FILTER("TracingWebFilter"),
+        /**
+         * All callbacks of the handler interceptor, per request.
+         */
+        HANDLER_INTERCEPTOR("TracingHandlerInterceptor"),
+        /**
+         * Time of the RestTemplate interceptor without the execution of the request, per request.
+         */
+        REST_TEMPLATE_INTERCEPTOR("TracingRestTemplateInterceptor"),
+        /**
+         * Span start and finish of the WebClient filter function, per request.
+         */
+        EXCHANGE_FILTER_FUNCTION("TracingExchangeFilterFunction");
+
+        private final String displayName;
+
+        Component(String displayName) {
+            this.displayName = displayName;
+        }
+
+        /**
+         * @return simple class name of the instrumentation
+         */
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    private final boolean enabled;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder skippedBySkipPattern = new LongAdder();
+    private final LongAdder skippedByUrlPatterns = new LongAdder();
+    private final LongAdder spansStarted = new LongAdder();
+    private final LongAdder spansFinished = new LongAdder();
+    private final LongAdder spansLeaked = new LongAdder();
+    private final Map<Component, RotatingHistogram> histograms = new EnumMap<>(Component.class);
+
+    /**
+     * Histograms over windows of one minute.
+     */
+    public TracingStats() {
+        this(1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * @param window window length of the histograms
+     * @param unit unit of the window length
+     */
+    public TracingStats(long window, TimeUnit unit) {
+        this(true, window, unit);
+    }
+
+    private TracingStats(boolean enabled, long window, TimeUnit unit) {
+        this.enabled = enabled;
+        for (Component component : Component.values()) {
+            histograms.put(component, new RotatingHistogram(window, unit));
+        }
+    }
+
+    /**
+     * @return false for {@link #DISABLED}
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void requestSeen() {
+        if (enabled) {
+            requests.increment();
+        }
+    }
+
+    public void skippedBySkipPattern() {
+        if (enabled) {
+            skippedBySkipPattern.increment();
+        }
+    }
+
+    public void skippedByUrlPatterns() {
+        if (enabled) {
+            skippedByUrlPatterns.increment();
+        }
+    }
+
+    public void spanStarted() {
+        if (enabled) {
+            spansStarted.increment();
+        }
+    }
+
+    public void spanFinished() {
+        if (enabled) {
+            spansFinished.increment();
+        }
+    }
+
+    void spanLeaked() {
+        if (enabled) {
+            spansLeaked.increment();
+        }
+    }
+
+    /**
+     * @param component instrumentation
+     * @param nanos time spent inside the instrumentation
+     */
+    public void record(Component component, long nanos) {
+        if (enabled) {
+            histograms.get(component).record(nanos);
+        }
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getSkippedBySkipPattern() {
+        return skippedBySkipPattern.sum();
+    }
+
+    public long getSkippedByUrlPatterns() {
+        return skippedByUrlPatterns.sum();
+    }
+
+    public long getSpansStarted() {
+        return spansStarted.sum();
+    }
+
+    public long getSpansFinished() {
+        return spansFinished.sum();
+    }
+
+    /**
+     * @return spans started and not finished yet, approximate while spans are being started and finished
+     */
+    public long getOpenSpans() {
+        // finished first, so a concurrently finished span is not counted as finished but not started
+        long finished = spansFinished.sum();
+        return Math.max(0, spansStarted.sum() - finished);
+    }
+
+    /**
+     * @return spans finished by a {@link SpanLeakDetector}, included in {@link #getSpansFinished()}
+     */
+    public long getSpansLeaked() {
+        return spansLeaked.sum();
+    }
+
+    /**
+     * @param component instrumentation
+     * @return nanoseconds spent inside the instrumentation
+     */
+    public RotatingHistogram getHistogram(Component component) {
+        return histograms.get(component);
+    }
+
+    /**
+     * Resets all counters and histograms.
+     */
+    public void reset() {
+        requests.reset();
+        skippedBySkipPattern.reset();
+        skippedByUrlPatterns.reset();
+        spansStarted.reset();
+        spansFinished.reset();
+        spansLeaked.reset();
+        for (RotatingHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.webfilter;
+
+import io.opentracing.Span;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreaker;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreakers;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.List;
+
+/**
+ * Applies a list of decorators, isolating failures of each decorator and skipping decorators disabled by their
+ * {@link DecoratorCircuitBreaker}. The list is copied into an array once, next to the circuit breakers, so
+ * decorating a span does not allocate iterators or lambdas.
+ */
+class CompositeWebFluxSpanDecorator implements WebFluxSpanDecorator {
+    private static final Log LOG = LogFactory.getLog(CompositeWebFluxSpanDecorator.class);
+
+    private final WebFluxSpanDecorator[] spanDecorators;
+    private final DecoratorCircuitBreaker[] circuitBreakers;
+
+    CompositeWebFluxSpanDecorator(final List<WebFluxSpanDecorator> spanDecorators) {
+        this(spanDecorators, new DecoratorCircuitBreakers());
+    }
+
+    CompositeWebFluxSpanDecorator(final List<WebFluxSpanDecorator> spanDecorators,
+                                  final DecoratorCircuitBreakers circuitBreakers) {
+        this(spanDecorators.toArray(new WebFluxSpanDecorator[0]), circuitBreakers.create(spanDecorators));
+    }
+
+    CompositeWebFluxSpanDecorator(final List<WebFluxSpanDecorator> spanDecorators,
+                                  final DecoratorCircuitBreaker[] circuitBreakers) {
+        this(spanDecorators.toArray(new WebFluxSpanDecorator[0]), circuitBreakers);
+    }
+
+    private CompositeWebFluxSpanDecorator(final WebFluxSpanDecorator[] spanDecorators,
+                                          final DecoratorCircuitBreaker[] circuitBreakers) {
+        this.spanDecorators = spanDecorators;
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    @Override
+    public void onRequest(final ServerWebExchange exchange, final Span span) {
+        for (int i = 0; i < spanDecorators.length; i++) {
+            final DecoratorCircuitBreaker circuitBreaker = circuitBreakers[i];
+            if (circuitBreaker.isOpen()) {
+                continue;
+            }
+            try {
+                spanDecorators[i].onRequest(exchange, span);
+            } catch (final RuntimeException e) {
+                circuitBreaker.failed(e, LOG);
+            }
+        }
+    }
+
+    @Override
+    public void onResponse(final ServerWebExchange exchange, final Span span) {
+        for (int i = 0; i < spanDecorators.length; i++) {
+            final DecoratorCircuitBreaker circuitBreaker = circuitBreakers[i];
+            if (circuitBreaker.isOpen()) {
+                continue;
+            }
+            try {
+                spanDecorators[i].onResponse(exchange, span);
+            } catch (final RuntimeException e) {
+                circuitBreaker.failed(e, LOG);
+            }
+        }
+    }
+
+    @Override
+    public void onError(final ServerWebExchange exchange, final Throwable exception, final Span span) {
+        for (int i = 0; i < spanDecorators.length; i++) {
+            final DecoratorCircuitBreaker circuitBreaker = circuitBreakers[i];
+            if (circuitBreaker.isOpen()) {
+                continue;
+            }
+            try {
+                spanDecorators[i].onError(exchange, exception, span);
+            } catch (final RuntimeException e) {
+                circuitBreaker.failed(e, LOG);
+            }
+        }
+    }
+}
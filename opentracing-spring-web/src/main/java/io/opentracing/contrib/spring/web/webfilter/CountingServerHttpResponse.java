@@ -0,0 +1,83 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.webfilter;
+
+import io.opentracing.Span;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response counting written bytes and {@link DataBuffer} chunks and timing the first chunk and the end of the write.
+ *
+ * Counters are plain fields updated by the serial signals of the body publishers. The body is observed by one
+ * {@link ObservedBody} operator per write, shared with a decorated {@link StreamingServerHttpResponse}, so nothing
+ * is allocated per chunk or per flushed publisher of {@link #writeAndFlushWith}.
+ */
+final class CountingServerHttpResponse extends ServerHttpResponseDecorator implements ObservedBody.Observer {
+    static final String TIME_TO_FIRST_BYTE = "http.response.time_to_first_byte_us";
+    static final String WRITE_TIME = "http.response.write_time_us";
+    static final String BODY_SIZE = "http.response.body_size";
+    static final String BODY_CHUNKS = "http.response.body_chunks";
+
+    private final Runnable writeTerminated = () -> writeEndNanos = System.nanoTime();
+    private final long startNanos;
+    private long firstChunkNanos;
+    private long writeEndNanos;
+    private long bytes;
+    private long chunks;
+
+    CountingServerHttpResponse(final ServerHttpResponse delegate) {
+        super(delegate);
+        this.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public Mono<Void> writeWith(final Publisher<? extends DataBuffer> body) {
+        // single buffer bodies stay a Mono, servers write them without streaming
+        return super.writeWith(ObservedBody.observe(body, this)).doOnTerminate(writeTerminated);
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(final Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        return super.writeAndFlushWith(ObservedBody.observeFlushed(body, this)).doOnTerminate(writeTerminated);
+    }
+
+    /**
+     * Tags the span with the counters. Chunks are counted when they are passed to the server, the write time spans
+     * from the first chunk to the termination of the write.
+     */
+    void tag(final Span span) {
+        span.setTag(BODY_SIZE, bytes);
+        span.setTag(BODY_CHUNKS, chunks);
+        if (chunks > 0) {
+            span.setTag(TIME_TO_FIRST_BYTE, TimeUnit.NANOSECONDS.toMicros(firstChunkNanos - startNanos));
+            if (writeEndNanos != 0) {
+                span.setTag(WRITE_TIME, TimeUnit.NANOSECONDS.toMicros(writeEndNanos - firstChunkNanos));
+            }
+        }
+    }
+
+    @Override
+    public void onBuffer(final DataBuffer dataBuffer) {
+        if (chunks++ == 0) {
+            firstChunkNanos = System.nanoTime();
+        }
+        bytes += dataBuffer.readableByteCount();
+    }
+}
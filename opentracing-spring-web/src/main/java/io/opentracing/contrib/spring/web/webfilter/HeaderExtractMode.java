@@ -0,0 +1,33 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.webfilter;
+
+/**
+ * How {@link TracingWebFilter} exposes request headers to {@link io.opentracing.Tracer#extract}.
+ */
+public enum HeaderExtractMode {
+    /**
+     * Every header value is copied into a new entry. Safe for tracers retaining the extracted entries.
+     */
+    COPY,
+    /**
+     * All headers are iterated through a single reused entry view.
+     */
+    ENTRY_VIEW,
+    /**
+     * Only the configured propagation headers are looked up, through a single reused entry view. Headers with
+     * dynamic names (e.g. baggage prefixes) are not visible to the tracer in this mode.
+     */
+    KEYED
+}
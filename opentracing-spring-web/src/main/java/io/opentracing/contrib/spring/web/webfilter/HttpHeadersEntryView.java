@@ -0,0 +1,164 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.webfilter;
+
+import io.opentracing.propagation.TextMap;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Tracer extract adapter for {@link HttpHeaders} which does not allocate an entry per header value.
+ *
+ * The adapter is its own iterator and the returned entry is a view which is updated by every {@link #next()} call,
+ * so it must not be retained by the tracer. If header names are given, only those headers are looked up instead of
+ * iterating all of them.
+ */
+final class HttpHeadersEntryView implements TextMap, Iterator<Map.Entry<String, String>>, Map.Entry<String, String> {
+    private final HttpHeaders httpHeaders;
+    @Nullable
+    private final String[] headerNames;
+
+    private boolean iterated;
+    @Nullable
+    private Iterator<Map.Entry<String, List<String>>> headers;
+    private int headerNameIndex;
+
+    @Nullable
+    private String nextKey;
+    @Nullable
+    private List<String> nextValues;
+    private int nextValueIndex;
+    private int nextValueCount;
+
+    @Nullable
+    private String key;
+    @Nullable
+    private String value;
+
+    /**
+     * @param httpHeaders headers
+     * @param headerNames names of headers to look up or null to iterate all headers
+     */
+    HttpHeadersEntryView(final HttpHeaders httpHeaders, @Nullable final String[] headerNames) {
+        this.httpHeaders = httpHeaders;
+        this.headerNames = headerNames;
+    }
+
+    @Override
+    public Iterator<Map.Entry<String, String>> iterator() {
+        if (iterated) {
+            return new HttpHeadersEntryView(httpHeaders, headerNames).iterator();
+        }
+        iterated = true;
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (nextValueIndex >= nextValueCount) {
+            if (!advanceHeader()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Map.Entry<String, String> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        key = nextKey;
+        // a header without values is reported once with null value
+        value = nextValues.isEmpty() ? null : nextValues.get(nextValueIndex);
+        nextValueIndex++;
+        return this;
+    }
+
+    private boolean advanceHeader() {
+        if (headerNames != null) {
+            while (headerNameIndex < headerNames.length) {
+                final String headerName = headerNames[headerNameIndex++];
+                final List<String> values = httpHeaders.get(headerName);
+                if (values != null) {
+                    setNextHeader(headerName, values);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        if (headers == null) {
+            headers = httpHeaders.entrySet().iterator();
+        }
+        if (!headers.hasNext()) {
+            return false;
+        }
+        final Map.Entry<String, List<String>> header = headers.next();
+        setNextHeader(header.getKey(), header.getValue());
+        return true;
+    }
+
+    private void setNextHeader(final String name, final List<String> values) {
+        nextKey = name;
+        nextValues = values;
+        nextValueIndex = 0;
+        nextValueCount = Math.max(1, values.size());
+    }
+
+    @Override
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public String setValue(final String value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void put(final String key, final String value) {
+        throw new UnsupportedOperationException("This class should be used only with Tracer.extract()!");
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (!(o instanceof Map.Entry)) {
+            return false;
+        }
+        final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+        return Objects.equals(key, entry.getKey()) && Objects.equals(value, entry.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(key) ^ Objects.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return key + "=" + value;
+    }
+}
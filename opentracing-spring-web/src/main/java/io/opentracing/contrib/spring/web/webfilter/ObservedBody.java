@@ -0,0 +1,438 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.webfilter;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.lang.Nullable;
+import reactor.core.CoreSubscriber;
+import reactor.core.Fuseable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.Context;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Response body operators reporting the written {@link DataBuffer}s to {@link Observer}s.
+ *
+ * A body is wrapped once per response, response decorators observing the same body, e.g.
+ * {@link CountingServerHttpResponse} and {@link StreamingServerHttpResponse}, add their observer to the existing
+ * operator instead of stacking another one. The flushed publishers of
+ * {@link org.springframework.http.server.reactive.ServerHttpResponse#writeAndFlushWith} are observed by a single
+ * inner operator per response: the flushed publishers are requested one at a time and each one is passed to the
+ * server as the same inner publisher once the previous one has terminated. Nothing is allocated per buffer or per
+ * flush.
+ */
+final class ObservedBody {
+
+    private ObservedBody() {
+    }
+
+    /**
+     * Observer of a body, signals are serial.
+     */
+    interface Observer {
+
+        void onBuffer(DataBuffer dataBuffer);
+
+        /**
+         * Called when a flushed publisher of {@code writeAndFlushWith} completes.
+         */
+        default void onFlush() {
+        }
+
+        /**
+         * Called once when the body completes, errors or is cancelled.
+         */
+        default void onEnd(SignalType signalType) {
+        }
+    }
+
+    /**
+     * @return body notifying {@code observer}, a {@link Mono} if {@code body} is a {@link Mono}
+     */
+    static Publisher<? extends DataBuffer> observe(final Publisher<? extends DataBuffer> body,
+                                                   final Observer observer) {
+        if (body instanceof ObservedMono) {
+            final ObservedMono observed = (ObservedMono) body;
+            observed.observer = both(observed.observer, observer);
+            return observed;
+        }
+        if (body instanceof ObservedFlux) {
+            final ObservedFlux observed = (ObservedFlux) body;
+            observed.observer = both(observed.observer, observer);
+            return observed;
+        }
+        if (body instanceof Mono) {
+            return new ObservedMono(body, observer);
+        }
+        return new ObservedFlux(body, observer);
+    }
+
+    /**
+     * @return body of {@code writeAndFlushWith} notifying {@code observer}
+     */
+    static Publisher<? extends Publisher<? extends DataBuffer>> observeFlushed(
+            final Publisher<? extends Publisher<? extends DataBuffer>> body, final Observer observer) {
+        if (body instanceof ObservedFlushedFlux) {
+            final ObservedFlushedFlux observed = (ObservedFlushedFlux) body;
+            observed.observer = both(observed.observer, observer);
+            return observed;
+        }
+        return new ObservedFlushedFlux(body, observer);
+    }
+
+    private static Observer both(final Observer first, final Observer second) {
+        return new Observer() {
+            @Override
+            public void onBuffer(final DataBuffer dataBuffer) {
+                first.onBuffer(dataBuffer);
+                second.onBuffer(dataBuffer);
+            }
+
+            @Override
+            public void onFlush() {
+                first.onFlush();
+                second.onFlush();
+            }
+
+            @Override
+            public void onEnd(final SignalType signalType) {
+                first.onEnd(signalType);
+                second.onEnd(signalType);
+            }
+        };
+    }
+
+    private static final class ObservedMono extends Mono<DataBuffer> {
+        private final Publisher<? extends DataBuffer> source;
+        private volatile Observer observer;
+
+        ObservedMono(final Publisher<? extends DataBuffer> source, final Observer observer) {
+            this.source = source;
+            this.observer = observer;
+        }
+
+        @Override
+        public void subscribe(final CoreSubscriber<? super DataBuffer> actual) {
+            source.subscribe(new BufferSubscriber(actual, observer));
+        }
+    }
+
+    private static final class ObservedFlux extends Flux<DataBuffer> {
+        private final Publisher<? extends DataBuffer> source;
+        private volatile Observer observer;
+
+        ObservedFlux(final Publisher<? extends DataBuffer> source, final Observer observer) {
+            this.source = source;
+            this.observer = observer;
+        }
+
+        @Override
+        public void subscribe(final CoreSubscriber<? super DataBuffer> actual) {
+            source.subscribe(new BufferSubscriber(actual, observer));
+        }
+    }
+
+    private static final class BufferSubscriber implements CoreSubscriber<DataBuffer>, Subscription {
+        private static final AtomicIntegerFieldUpdater<BufferSubscriber> ENDED =
+                AtomicIntegerFieldUpdater.newUpdater(BufferSubscriber.class, "ended");
+
+        private final CoreSubscriber<? super DataBuffer> actual;
+        private final Observer observer;
+        private Subscription subscription;
+        private volatile int ended;
+
+        BufferSubscriber(final CoreSubscriber<? super DataBuffer> actual, final Observer observer) {
+            this.actual = actual;
+            this.observer = observer;
+        }
+
+        @Override
+        public Context currentContext() {
+            return actual.currentContext();
+        }
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            if (Operators.validate(this.subscription, subscription)) {
+                this.subscription = subscription;
+                actual.onSubscribe(this);
+            }
+        }
+
+        @Override
+        public void onNext(final DataBuffer dataBuffer) {
+            observer.onBuffer(dataBuffer);
+            actual.onNext(dataBuffer);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            actual.onError(throwable);
+            end(SignalType.ON_ERROR);
+        }
+
+        @Override
+        public void onComplete() {
+            actual.onComplete();
+            end(SignalType.ON_COMPLETE);
+        }
+
+        @Override
+        public void request(final long n) {
+            subscription.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            subscription.cancel();
+            end(SignalType.CANCEL);
+        }
+
+        private void end(final SignalType signalType) {
+            if (ENDED.compareAndSet(this, 0, 1)) {
+                observer.onEnd(signalType);
+            }
+        }
+    }
+
+    private static final class ObservedFlushedFlux extends Flux<Publisher<DataBuffer>> {
+        private final Publisher<? extends Publisher<? extends DataBuffer>> source;
+        private volatile Observer observer;
+
+        ObservedFlushedFlux(final Publisher<? extends Publisher<? extends DataBuffer>> source,
+                            final Observer observer) {
+            this.source = source;
+            this.observer = observer;
+        }
+
+        @Override
+        public void subscribe(final CoreSubscriber<? super Publisher<DataBuffer>> actual) {
+            source.subscribe(new FlushedSubscriber(actual, observer));
+        }
+    }
+
+    /**
+     * Requests the flushed publishers one at a time, regardless of the demand of the server, and passes each one as
+     * the same {@link Inner} publisher.
+     */
+    private static final class FlushedSubscriber
+            implements CoreSubscriber<Publisher<? extends DataBuffer>>, Subscription {
+        private static final int IDLE = 0;
+        private static final int REQUESTED = 1;
+        private static final int ACTIVE = 2;
+
+        private static final AtomicIntegerFieldUpdater<FlushedSubscriber> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(FlushedSubscriber.class, "state");
+        private static final AtomicLongFieldUpdater<FlushedSubscriber> DEMAND =
+                AtomicLongFieldUpdater.newUpdater(FlushedSubscriber.class, "demand");
+        private static final AtomicIntegerFieldUpdater<FlushedSubscriber> ENDED =
+                AtomicIntegerFieldUpdater.newUpdater(FlushedSubscriber.class, "ended");
+
+        private final CoreSubscriber<? super Publisher<DataBuffer>> actual;
+        private final Observer observer;
+        private final Inner inner = new Inner();
+        private Subscription subscription;
+        private volatile int state;
+        private volatile long demand;
+        private volatile int ended;
+        private volatile boolean sourceDone;
+
+        FlushedSubscriber(final CoreSubscriber<? super Publisher<DataBuffer>> actual, final Observer observer) {
+            this.actual = actual;
+            this.observer = observer;
+        }
+
+        @Override
+        public Context currentContext() {
+            return actual.currentContext();
+        }
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            if (Operators.validate(this.subscription, subscription)) {
+                this.subscription = subscription;
+                actual.onSubscribe(this);
+            }
+        }
+
+        @Override
+        public void onNext(final Publisher<? extends DataBuffer> publisher) {
+            inner.source = publisher;
+            state = ACTIVE;
+            actual.onNext(inner);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            if (ENDED.compareAndSet(this, 0, 1)) {
+                actual.onError(throwable);
+                observer.onEnd(SignalType.ON_ERROR);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            sourceDone = true;
+            if (state != ACTIVE) {
+                complete();
+            }
+        }
+
+        @Override
+        public void request(final long n) {
+            if (Operators.validate(n)) {
+                Operators.addCap(DEMAND, this, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            subscription.cancel();
+            if (ENDED.compareAndSet(this, 0, 1)) {
+                observer.onEnd(SignalType.CANCEL);
+            }
+        }
+
+        private void drain() {
+            final long requested = demand;
+            if (requested > 0 && STATE.compareAndSet(this, IDLE, REQUESTED)) {
+                if (requested != Long.MAX_VALUE) {
+                    DEMAND.decrementAndGet(this);
+                }
+                subscription.request(1);
+            }
+        }
+
+        private void innerTerminated() {
+            if (STATE.compareAndSet(this, ACTIVE, IDLE)) {
+                if (sourceDone) {
+                    complete();
+                } else {
+                    drain();
+                }
+            }
+        }
+
+        private void complete() {
+            if (ENDED.compareAndSet(this, 0, 1)) {
+                actual.onComplete();
+                observer.onEnd(SignalType.ON_COMPLETE);
+            }
+        }
+
+        /**
+         * Current flushed publisher, subscribed by the server after each {@link #onNext}. Scalar publishers, e.g. a
+         * {@code Mono.just} event, are emitted without subscribing to them.
+         */
+        private final class Inner extends Flux<DataBuffer> implements CoreSubscriber<DataBuffer>, Subscription {
+            private volatile Publisher<? extends DataBuffer> source;
+            private CoreSubscriber<? super DataBuffer> downstream;
+            private Subscription upstream;
+            private boolean scalarMode;
+            @Nullable
+            private DataBuffer scalar;
+
+            @Override
+            public void subscribe(final CoreSubscriber<? super DataBuffer> subscriber) {
+                final Publisher<? extends DataBuffer> current = source;
+                downstream = subscriber;
+                upstream = null;
+                scalarMode = current instanceof Fuseable.ScalarCallable;
+                if (!scalarMode) {
+                    current.subscribe(this);
+                    return;
+                }
+                final DataBuffer dataBuffer;
+                try {
+                    dataBuffer = ((Callable<? extends DataBuffer>) current).call();
+                } catch (Exception e) {
+                    Operators.error(subscriber, e);
+                    innerTerminated();
+                    return;
+                }
+                scalar = dataBuffer;
+                subscriber.onSubscribe(this);
+                // the fields belong to the next flushed publisher once the buffer has been requested
+                if (dataBuffer == null) {
+                    onComplete();
+                }
+            }
+
+            @Override
+            public Context currentContext() {
+                return downstream.currentContext();
+            }
+
+            @Override
+            public void onSubscribe(final Subscription subscription) {
+                if (Operators.validate(upstream, subscription)) {
+                    upstream = subscription;
+                    downstream.onSubscribe(this);
+                }
+            }
+
+            @Override
+            public void onNext(final DataBuffer dataBuffer) {
+                observer.onBuffer(dataBuffer);
+                downstream.onNext(dataBuffer);
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+                downstream.onError(throwable);
+                innerTerminated();
+            }
+
+            @Override
+            public void onComplete() {
+                observer.onFlush();
+                downstream.onComplete();
+                innerTerminated();
+            }
+
+            @Override
+            public void request(final long n) {
+                if (!scalarMode) {
+                    upstream.request(n);
+                    return;
+                }
+                final DataBuffer dataBuffer = scalar;
+                if (dataBuffer != null && Operators.validate(n)) {
+                    scalar = null;
+                    onNext(dataBuffer);
+                    onComplete();
+                }
+            }
+
+            @Override
+            public void cancel() {
+                final Subscription current = upstream;
+                if (current != null) {
+                    current.cancel();
+                }
+                scalar = null;
+                innerTerminated();
+            }
+        }
+    }
+}
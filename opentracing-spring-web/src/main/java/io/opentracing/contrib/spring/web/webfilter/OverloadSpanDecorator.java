@@ -0,0 +1,61 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.webfilter;
+
+import io.opentracing.Span;
+import io.opentracing.contrib.spring.web.support.OverloadProtection;
+import io.opentracing.tag.Tags;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Replaces the configured decorators while the server is overloaded, see {@link OverloadProtection.Level}.
+ */
+final class OverloadSpanDecorator implements WebFluxSpanDecorator {
+    static final OverloadSpanDecorator REDUCED_TAGS = new OverloadSpanDecorator(true);
+    static final OverloadSpanDecorator NO_LOGS = new OverloadSpanDecorator(false);
+
+    private final boolean errorLogs;
+
+    private OverloadSpanDecorator(final boolean errorLogs) {
+        this.errorLogs = errorLogs;
+    }
+
+    @Override
+    public void onRequest(final ServerWebExchange exchange, final Span span) {
+        Tags.HTTP_METHOD.set(span, exchange.getRequest().getMethodValue());
+    }
+
+    @Override
+    public void onResponse(final ServerWebExchange exchange, final Span span) {
+        final HttpStatus statusCode = exchange.getResponse().getStatusCode();
+        if (statusCode != null) {
+            Tags.HTTP_STATUS.set(span, statusCode.value());
+        }
+    }
+
+    @Override
+    public void onError(final ServerWebExchange exchange, final Throwable exception, final Span span) {
+        Tags.ERROR.set(span, Boolean.TRUE);
+        if (errorLogs) {
+            final Map<String, Object> logs = new HashMap<>(2);
+            logs.put("event", Tags.ERROR.getKey());
+            logs.put("error.object", exception);
+            span.log(logs);
+        }
+    }
+}
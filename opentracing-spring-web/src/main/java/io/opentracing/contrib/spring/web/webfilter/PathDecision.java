@@ -0,0 +1,27 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.webfilter;
+
+/**
+ * Outcome of {@link TracingWebFilter#shouldBeTraced} for a path, cached by {@link PathDecisionCache}.
+ */
+enum PathDecision {
+    TRACED,
+    SKIPPED_BY_SKIP_PATTERN,
+    SKIPPED_BY_URL_PATTERNS;
+
+    boolean isTraced() {
+        return this == TRACED;
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.webfilter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Size-bounded cache of {@link TracingWebFilter#shouldBeTraced} decisions keyed by the path within application.
+ *
+ * Paths containing identifier-like segments (numbers, UUIDs, long hex strings) are never cached, so
+ * {@code /orders/12345} does not fill the cache. When the cache is full new paths are not cached until it is
+ * {@link #clear() cleared}: entries are never evicted, so the decisions of paths that are already cached stay stable
+ * and a burst of unique paths cannot evict them. The bound is guarded by a counter reserved before inserting, so
+ * concurrent inserts never exceed it.
+ */
+public class PathDecisionCache {
+
+    /**
+     * Minimal length of a hexadecimal segment considered to be an identifier.
+     */
+    private static final int MIN_HEX_ID_LENGTH = 16;
+
+    private final ConcurrentHashMap<String, PathDecision> decisions;
+    private final int maxSize;
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxSize maximal number of cached paths
+     */
+    public PathDecisionCache(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.decisions = new ConcurrentHashMap<>(Math.min(maxSize, 1024));
+    }
+
+    /**
+     * @param path path within application
+     * @return cached decision or null if the path is not cached
+     */
+    @Nullable
+    PathDecision get(final String path) {
+        final PathDecision decision = decisions.get(path);
+        if (decision != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return decision;
+    }
+
+    /**
+     * @param path path within application
+     * @param decision whether and why the path is traced
+     */
+    void put(final String path, final PathDecision decision) {
+        if (reserved.get() >= maxSize || !isCacheable(path)) {
+            return;
+        }
+        if (reserved.incrementAndGet() > maxSize) {
+            reserved.decrementAndGet();
+            return;
+        }
+        if (decisions.putIfAbsent(path, decision) != null) {
+            reserved.decrementAndGet();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return decisions.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Removes all cached decisions, e.g. after the skip pattern has changed.
+     */
+    public void clear() {
+        decisions.clear();
+        reserved.set(0);
+    }
+
+    /**
+     * @return false if any segment of the path looks like an identifier
+     */
+    static boolean isCacheable(final String path) {
+        int start = 0;
+        final int length = path.length();
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (isIdentifier(path, start, end)) {
+                return false;
+            }
+            start = end + 1;
+        }
+        return true;
+    }
+
+    private static boolean isIdentifier(final String path, final int from, final int to) {
+        if (from == to) {
+            return false;
+        }
+        boolean digitsOnly = true;
+        boolean hex = true;
+        boolean hasDigit = false;
+        for (int i = from; i < to; i++) {
+            final char c = path.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hasDigit = true;
+                continue;
+            }
+            digitsOnly = false;
+            if (!(c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F' || c == '-')) {
+                hex = false;
+                break;
+            }
+        }
+        return digitsOnly || hex && hasDigit && to - from >= MIN_HEX_ID_LENGTH;
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.webfilter;
+
+import io.opentracing.contrib.spring.web.support.RedMetricsRecorder;
+import org.reactivestreams.Subscription;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoOperator;
+import reactor.util.context.Context;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Records the RED metrics of an exchange which is not traced, from the subscription to the completion, error or
+ * cancellation of the filter chain. Traced exchanges are recorded by {@link TracingSubscriber}.
+ */
+final class RedMetricsOperator extends MonoOperator<Void, Void> {
+    private final ServerWebExchange exchange;
+    private final RedMetricsRecorder recorder;
+
+    RedMetricsOperator(final Mono<? extends Void> source, final ServerWebExchange exchange,
+                       final RedMetricsRecorder recorder) {
+        super(source);
+        this.exchange = exchange;
+        this.recorder = recorder;
+    }
+
+    @Override
+    public void subscribe(final CoreSubscriber<? super Void> subscriber) {
+        source.subscribe(new RedMetricsSubscriber(subscriber, exchange, recorder, System.nanoTime()));
+    }
+
+    /**
+     * Records the exchange completed or failed with {@code error}. An error without a response status is recorded as
+     * {@code 500}, unless it is a {@link ResponseStatusException}.
+     */
+    static void record(final RedMetricsRecorder recorder, final ServerWebExchange exchange,
+                       @Nullable final Throwable error, final long startNanos) {
+        Integer status = exchange.getResponse().getRawStatusCode();
+        if (error instanceof ResponseStatusException) {
+            status = ((ResponseStatusException) error).getStatus().value();
+        } else if (status == null) {
+            status = error == null ? HttpStatus.OK.value() : HttpStatus.INTERNAL_SERVER_ERROR.value();
+        }
+        recorder.recordServer(exchange.getRequest().getMethodValue(), route(exchange), status, error, startNanos);
+    }
+
+    static void recordCancelled(final RedMetricsRecorder recorder, final ServerWebExchange exchange,
+                                final long startNanos) {
+        recorder.recordServerCancelled(exchange.getRequest().getMethodValue(), route(exchange), startNanos);
+    }
+
+    @Nullable
+    private static String route(final ServerWebExchange exchange) {
+        final Object pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? null : pattern.toString();
+    }
+
+    private static final class RedMetricsSubscriber implements CoreSubscriber<Void>, Subscription {
+        private static final AtomicIntegerFieldUpdater<RedMetricsSubscriber> RECORDED =
+                AtomicIntegerFieldUpdater.newUpdater(RedMetricsSubscriber.class, "recorded");
+
+        private final CoreSubscriber<? super Void> subscriber;
+        private final ServerWebExchange exchange;
+        private final RedMetricsRecorder recorder;
+        private final long startNanos;
+        private Subscription subscription;
+        private volatile int recorded;
+
+        RedMetricsSubscriber(final CoreSubscriber<? super Void> subscriber, final ServerWebExchange exchange,
+                             final RedMetricsRecorder recorder, final long startNanos) {
+            this.subscriber = subscriber;
+            this.exchange = exchange;
+            this.recorder = recorder;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            this.subscription = subscription;
+            subscriber.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(final Void aVoid) {
+            // Never called
+            subscriber.onNext(aVoid);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            if (RECORDED.compareAndSet(this, 0, 1)) {
+                record(recorder, exchange, throwable, startNanos);
+            }
+            subscriber.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (RECORDED.compareAndSet(this, 0, 1)) {
+                record(recorder, exchange, null, startNanos);
+            }
+            subscriber.onComplete();
+        }
+
+        @Override
+        public void request(final long n) {
+            subscription.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            if (RECORDED.compareAndSet(this, 0, 1)) {
+                recordCancelled(recorder, exchange, startNanos);
+            }
+            subscription.cancel();
+        }
+
+        @Override
+        public Context currentContext() {
+            return subscriber.currentContext();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.webfilter;
+
+import io.opentracing.Span;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Tags the span with the counters of a {@link CountingServerHttpResponse}.
+ */
+final class ResponseMetricsSpanDecorator implements WebFluxSpanDecorator {
+    static final ResponseMetricsSpanDecorator INSTANCE = new ResponseMetricsSpanDecorator();
+
+    private ResponseMetricsSpanDecorator() {
+    }
+
+    @Override
+    public void onRequest(final ServerWebExchange exchange, final Span span) {
+        // No-op
+    }
+
+    @Override
+    public void onResponse(final ServerWebExchange exchange, final Span span) {
+        tag(exchange, span);
+    }
+
+    @Override
+    public void onError(final ServerWebExchange exchange, final Throwable exception, final Span span) {
+        tag(exchange, span);
+    }
+
+    private static void tag(final ServerWebExchange exchange, final Span span) {
+        final ServerHttpResponse response = exchange.getResponse();
+        if (response instanceof CountingServerHttpResponse) {
+            ((CountingServerHttpResponse) response).tag(span);
+        }
+    }
+}
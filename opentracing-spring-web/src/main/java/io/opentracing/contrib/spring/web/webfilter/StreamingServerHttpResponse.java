@@ -0,0 +1,237 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.webfilter;
+
+import io.opentracing.References;
+import io.opentracing.Span;
+import io.opentracing.SpanContext;
+import io.opentracing.Tracer;
+import io.opentracing.contrib.spring.web.support.TracingStats;
+import io.opentracing.tag.Tags;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response splitting the server span of a streaming response, e.g. server-sent events, into a setup span and summary
+ * spans.
+ *
+ * When the body of a response with a streaming media type is written, the server span is finished as the setup span
+ * and tagged with {@value #STREAM_MEDIA_TYPE}. The written body is then reported by {@value #STREAM_OPERATION_NAME}
+ * spans following from the setup span, each summarizing a window of up to {@code summaryElements} elements or
+ * {@code summaryIntervalNanos}. A window is closed when one of its elements is written or when the body terminates,
+ * nothing is scheduled. Only counters are kept for a stream, so the memory held per connection does not grow with
+ * its duration.
+ *
+ * An element is a flushed publisher of {@link #writeAndFlushWith}, e.g. an event, or a {@link DataBuffer} of
+ * {@link #writeWith}. The body is observed by one {@link ObservedBody} operator, shared with a
+ * {@link CountingServerHttpResponse} decorating this response, so nothing is allocated per element.
+ */
+final class StreamingServerHttpResponse extends ServerHttpResponseDecorator {
+    static final List<MediaType> STREAMING_MEDIA_TYPES = Arrays.asList(MediaType.TEXT_EVENT_STREAM,
+            new MediaType("application", "x-ndjson"), MediaType.APPLICATION_STREAM_JSON);
+
+    static final String STREAM_OPERATION_NAME = "stream";
+    static final String STREAM_MEDIA_TYPE = "stream.media_type";
+    static final String STREAM_WINDOW = "stream.window";
+    static final String STREAM_ELEMENTS = "stream.elements";
+    static final String STREAM_BYTES = "stream.bytes";
+    static final String STREAM_ELEMENTS_PER_SECOND = "stream.elements_per_second";
+    static final String STREAM_BYTES_PER_SECOND = "stream.bytes_per_second";
+    static final String STREAM_END = "stream.end";
+
+    private final Tracer tracer;
+    private final int summaryElements;
+    private final long summaryIntervalNanos;
+    private final TracingStats tracingStats;
+    @Nullable
+    private volatile TracingSubscriber tracingSubscriber;
+    private volatile boolean streamStarted;
+
+    StreamingServerHttpResponse(final ServerHttpResponse delegate, final Tracer tracer, final int summaryElements,
+                                final long summaryIntervalNanos, final TracingStats tracingStats) {
+        super(delegate);
+        this.tracer = tracer;
+        this.summaryElements = summaryElements;
+        this.summaryIntervalNanos = summaryIntervalNanos;
+        this.tracingStats = tracingStats;
+    }
+
+    /**
+     * @return the streaming response decorated by {@code response} or null
+     */
+    @Nullable
+    static StreamingServerHttpResponse find(ServerHttpResponse response) {
+        while (response instanceof ServerHttpResponseDecorator) {
+            if (response instanceof StreamingServerHttpResponse) {
+                return (StreamingServerHttpResponse) response;
+            }
+            response = ((ServerHttpResponseDecorator) response).getDelegate();
+        }
+        return null;
+    }
+
+    /**
+     * @param tracingSubscriber subscriber owning the server span, set before the filter chain is subscribed
+     */
+    void bind(final TracingSubscriber tracingSubscriber) {
+        this.tracingSubscriber = tracingSubscriber;
+    }
+
+    @Override
+    public Mono<Void> writeWith(final Publisher<? extends DataBuffer> body) {
+        if (body instanceof Mono) {
+            return super.writeWith(body);
+        }
+        // the stream starts when the write is subscribed, the body may be assembled before the span is started
+        return Mono.defer(() -> {
+            final Stream stream = startStream(true);
+            if (stream == null) {
+                return super.writeWith(body);
+            }
+            return super.writeWith(ObservedBody.observe(body, stream));
+        });
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(final Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        return Mono.defer(() -> {
+            final Stream stream = startStream(false);
+            if (stream == null) {
+                return super.writeAndFlushWith(body);
+            }
+            return super.writeAndFlushWith(ObservedBody.observeFlushed(body, stream));
+        });
+    }
+
+    /**
+     * Finishes the server span if the response is streaming.
+     *
+     * @param bufferElements whether each written buffer is an element rather than each flushed publisher
+     * @return stream summarizing the body or null if the body is written without summary spans
+     */
+    @Nullable
+    private Stream startStream(final boolean bufferElements) {
+        final TracingSubscriber subscriber = tracingSubscriber;
+        if (subscriber == null || streamStarted) {
+            return null;
+        }
+        final MediaType mediaType = streamingMediaType();
+        if (mediaType == null) {
+            return null;
+        }
+        streamStarted = true;
+        final SpanContext setupContext = subscriber.finishStreamSetup(mediaType.toString());
+        return setupContext == null ? null : new Stream(setupContext, bufferElements);
+    }
+
+    @Nullable
+    private MediaType streamingMediaType() {
+        final MediaType contentType = getHeaders().getContentType();
+        if (contentType == null) {
+            return null;
+        }
+        for (final MediaType mediaType : STREAMING_MEDIA_TYPES) {
+            if (mediaType.isCompatibleWith(contentType)) {
+                return mediaType;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Counters of a stream, updated by the serial signals of the body publishers.
+     */
+    private final class Stream implements ObservedBody.Observer {
+        private final SpanContext setupContext;
+        private final boolean bufferElements;
+        private final long startNanos;
+        private final long startMicros;
+        private long window;
+        private long windowStartNanos;
+        private long elements;
+        private long bytes;
+
+        Stream(final SpanContext setupContext, final boolean bufferElements) {
+            this.setupContext = setupContext;
+            this.bufferElements = bufferElements;
+            this.startNanos = System.nanoTime();
+            this.startMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+            this.windowStartNanos = startNanos;
+        }
+
+        @Override
+        public void onBuffer(final DataBuffer dataBuffer) {
+            bytes += dataBuffer.readableByteCount();
+            if (bufferElements) {
+                element();
+            }
+        }
+
+        @Override
+        public void onFlush() {
+            element();
+        }
+
+        private void element() {
+            elements++;
+            final long nowNanos = System.nanoTime();
+            if (elements >= summaryElements || nowNanos - windowStartNanos >= summaryIntervalNanos) {
+                summarize(nowNanos, null);
+            }
+        }
+
+        @Override
+        public void onEnd(final SignalType signalType) {
+            summarize(System.nanoTime(), signalType);
+        }
+
+        private void summarize(final long nowNanos, @Nullable final SignalType signalType) {
+            final long windowMicros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(nowNanos - windowStartNanos));
+            final long windowStartMicros = startMicros + TimeUnit.NANOSECONDS.toMicros(windowStartNanos - startNanos);
+            final Tracer.SpanBuilder spanBuilder = tracer.buildSpan(STREAM_OPERATION_NAME)
+                    .addReference(References.FOLLOWS_FROM, setupContext)
+                    .withStartTimestamp(windowStartMicros)
+                    .withTag(STREAM_WINDOW, window)
+                    .withTag(STREAM_ELEMENTS, elements)
+                    .withTag(STREAM_BYTES, bytes)
+                    .withTag(STREAM_ELEMENTS_PER_SECOND, elements * 1_000_000 / windowMicros)
+                    .withTag(STREAM_BYTES_PER_SECOND, bytes * 1_000_000 / windowMicros);
+            if (signalType != null) {
+                spanBuilder.withTag(STREAM_END, signalType.toString());
+                if (signalType == SignalType.ON_ERROR) {
+                    spanBuilder.withTag(Tags.ERROR.getKey(), true);
+                }
+            }
+            final Span span = spanBuilder.start();
+            tracingStats.spanStarted();
+            span.finish(windowStartMicros + windowMicros);
+            tracingStats.spanFinished();
+
+            window++;
+            windowStartNanos = nowNanos;
+            elements = 0;
+            bytes = 0;
+        }
+    }
+}
@@ -19,9 +19,16 @@ import io.opentracing.Scope;
 import io.opentracing.Span;
 import io.opentracing.SpanContext;
 import io.opentracing.Tracer;
+import io.opentracing.contrib.spring.web.support.ContextPropagation;
+import io.opentracing.contrib.spring.web.support.RedMetricsRecorder;
+import io.opentracing.contrib.spring.web.support.SpanLeakDetector;
+import io.opentracing.contrib.spring.web.support.TracingStats;
 import io.opentracing.propagation.Format;
+import io.opentracing.propagation.TextMap;
 import io.opentracing.tag.Tags;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.lang.Nullable;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.CoreSubscriber;
 import reactor.core.publisher.Mono;
@@ -29,6 +36,7 @@ import reactor.core.publisher.MonoOperator;
 import reactor.util.context.Context;
 
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * Similar to {@code MonoWebFilterTrace} from spring-cloud-sleuth-core.
@@ -38,22 +46,63 @@ import java.util.List;
 class TracingOperator extends MonoOperator<Void, Void> {
     private final Tracer tracer;
     private final ServerWebExchange exchange;
-    private final List<WebFluxSpanDecorator> spanDecorators;
+    private final WebFluxSpanDecorator spanDecorator;
+    private final Function<HttpHeaders, TextMap> extractAdapter;
+    private final ContextPropagation contextPropagation;
+    @Nullable
+    private final SpanLeakDetector spanLeakDetector;
+    private final TracingStats tracingStats;
+    @Nullable
+    private final RedMetricsRecorder redMetricsRecorder;
 
     TracingOperator(
             final Mono<? extends Void> source,
             final ServerWebExchange exchange,
             final Tracer tracer,
             final List<WebFluxSpanDecorator> spanDecorators
+    ) {
+        this(source, exchange, tracer, new CompositeWebFluxSpanDecorator(spanDecorators), HttpHeadersExtractAdapter::new,
+                ContextPropagation.SCOPE);
+    }
+
+    TracingOperator(
+            final Mono<? extends Void> source,
+            final ServerWebExchange exchange,
+            final Tracer tracer,
+            final WebFluxSpanDecorator spanDecorator,
+            final Function<HttpHeaders, TextMap> extractAdapter,
+            final ContextPropagation contextPropagation
+    ) {
+        this(source, exchange, tracer, spanDecorator, extractAdapter, contextPropagation, null, TracingStats.DISABLED,
+                null);
+    }
+
+    TracingOperator(
+            final Mono<? extends Void> source,
+            final ServerWebExchange exchange,
+            final Tracer tracer,
+            final WebFluxSpanDecorator spanDecorator,
+            final Function<HttpHeaders, TextMap> extractAdapter,
+            final ContextPropagation contextPropagation,
+            @Nullable final SpanLeakDetector spanLeakDetector,
+            final TracingStats tracingStats,
+            @Nullable final RedMetricsRecorder redMetricsRecorder
     ) {
         super(source);
         this.tracer = tracer;
         this.exchange = exchange;
-        this.spanDecorators = spanDecorators;
+        this.spanDecorator = spanDecorator;
+        this.extractAdapter = extractAdapter;
+        this.contextPropagation = contextPropagation;
+        this.spanLeakDetector = spanLeakDetector;
+        this.tracingStats = tracingStats;
+        this.redMetricsRecorder = redMetricsRecorder;
     }
 
     @Override
     public void subscribe(final CoreSubscriber<? super Void> subscriber) {
+        // also the start of the request recorded by the RED metrics
+        final long startNanos = tracingStats.isEnabled() || redMetricsRecorder != null ? System.nanoTime() : 0;
         final Context context = subscriber.currentContext();
         final Span parentSpan = context.<Span>getOrEmpty(Span.class).orElseGet(tracer::activeSpan);
         final ServerHttpRequest request = exchange.getRequest();
@@ -62,17 +111,31 @@ class TracingOperator extends MonoOperator<Void, Void> {
         if (parentSpan != null) {
             extractedContext = parentSpan.context();
         } else {
-            extractedContext = tracer.extract(Format.Builtin.HTTP_HEADERS, new HttpHeadersExtractAdapter(request.getHeaders()));
+            extractedContext = tracer.extract(Format.Builtin.HTTP_HEADERS, extractAdapter.apply(request.getHeaders()));
         }
 
         final Span span = tracer.buildSpan(request.getMethodValue())
                 .asChildOf(extractedContext)
                 .withTag(Tags.SPAN_KIND.getKey(), Tags.SPAN_KIND_SERVER)
                 .start();
+        tracingStats.spanStarted();
 
+        exchange.getAttributes().put(TracingWebFilter.SERVER_SPAN_CONTEXT, span.context());
+        final SpanLeakDetector.Handle leakHandle = spanLeakDetector == null ? null : spanLeakDetector.track(span,
+                () -> exchange.getAttributes().remove(TracingWebFilter.SERVER_SPAN_CONTEXT));
+        final long subscribeNanos = tracingStats.isEnabled() ? System.nanoTime() - startNanos : 0;
+        final TracingSubscriber tracingSubscriber = new TracingSubscriber(subscriber, exchange, context, span,
+                spanDecorator, subscribeNanos, leakHandle, tracingStats, redMetricsRecorder, startNanos);
+        final StreamingServerHttpResponse streamingResponse = StreamingServerHttpResponse.find(exchange.getResponse());
+        if (streamingResponse != null) {
+            streamingResponse.bind(tracingSubscriber);
+        }
+        if (contextPropagation == ContextPropagation.CONTEXT_ONLY) {
+            source.subscribe(tracingSubscriber);
+            return;
+        }
         try (final Scope scope = tracer.scopeManager().activate(span)) {
-            exchange.getAttributes().put(TracingWebFilter.SERVER_SPAN_CONTEXT, span.context());
-            source.subscribe(new TracingSubscriber(subscriber, exchange, context, span, spanDecorators));
+            source.subscribe(tracingSubscriber);
         }
     }
 }
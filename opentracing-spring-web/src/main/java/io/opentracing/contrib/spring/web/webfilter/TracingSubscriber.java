@@ -16,14 +16,17 @@
 package io.opentracing.contrib.spring.web.webfilter;
 
 import io.opentracing.Span;
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
+import io.opentracing.SpanContext;
+import io.opentracing.contrib.spring.web.support.RedMetricsRecorder;
+import io.opentracing.contrib.spring.web.support.SpanLeakDetector;
+import io.opentracing.contrib.spring.web.support.TracingStats;
 import org.reactivestreams.Subscription;
+import org.springframework.lang.Nullable;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.CoreSubscriber;
 import reactor.util.context.Context;
 
-import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * Similar to {@code WebFilterTraceSubscriber} from spring-could-sleuth-core.
@@ -31,26 +34,67 @@ import java.util.List;
  * @author Csaba Kos
  */
 class TracingSubscriber implements CoreSubscriber<Void> {
-    private static final Log LOG = LogFactory.getLog(TracingSubscriber.class);
+    private static final AtomicIntegerFieldUpdater<TracingSubscriber> FINISHED =
+            AtomicIntegerFieldUpdater.newUpdater(TracingSubscriber.class, "finished");
+    private static final AtomicIntegerFieldUpdater<TracingSubscriber> METRICS_RECORDED =
+            AtomicIntegerFieldUpdater.newUpdater(TracingSubscriber.class, "metricsRecorded");
 
     private final CoreSubscriber<? super Void> subscriber;
     private final ServerWebExchange exchange;
     private final Context context;
     private final Span span;
-    private final List<WebFluxSpanDecorator> spanDecorators;
+    private final WebFluxSpanDecorator spanDecorator;
+    private final long subscribeNanos;
+    @Nullable
+    private final SpanLeakDetector.Handle leakHandle;
+    private final TracingStats tracingStats;
+    @Nullable
+    private final RedMetricsRecorder redMetricsRecorder;
+    private final long exchangeStartNanos;
 
+    private volatile long requestNanos;
+    private volatile int finished;
+    private volatile int metricsRecorded;
+
+    TracingSubscriber(
+            final CoreSubscriber<? super Void> subscriber,
+            final ServerWebExchange exchange,
+            final Context context,
+            final Span span,
+            final WebFluxSpanDecorator spanDecorator
+    ) {
+        this(subscriber, exchange, context, span, spanDecorator, 0, null, TracingStats.DISABLED, null, 0);
+    }
+
+    /**
+     * @param subscribeNanos time spent by {@link TracingOperator} starting the span
+     * @param leakHandle handle of the span if tracked by a {@link SpanLeakDetector} or null
+     * @param tracingStats counts the finished span and records the time spent in the instrumentation
+     * @param redMetricsRecorder records the exchange once it completes, errors or is cancelled, or null
+     * @param exchangeStartNanos start of the exchange taken by {@link TracingOperator}
+     */
     TracingSubscriber(
             final CoreSubscriber<? super Void> subscriber,
             final ServerWebExchange exchange,
             final Context context,
             final Span span,
-            final List<WebFluxSpanDecorator> spanDecorators
+            final WebFluxSpanDecorator spanDecorator,
+            final long subscribeNanos,
+            @Nullable final SpanLeakDetector.Handle leakHandle,
+            final TracingStats tracingStats,
+            @Nullable final RedMetricsRecorder redMetricsRecorder,
+            final long exchangeStartNanos
     ) {
         this.subscriber = subscriber;
         this.exchange = exchange;
         this.context = context.put(Span.class, span);
         this.span = span;
-        this.spanDecorators = spanDecorators;
+        this.spanDecorator = spanDecorator;
+        this.subscribeNanos = subscribeNanos;
+        this.leakHandle = leakHandle;
+        this.tracingStats = tracingStats;
+        this.redMetricsRecorder = redMetricsRecorder;
+        this.exchangeStartNanos = exchangeStartNanos;
     }
 
     @Override
@@ -58,14 +102,24 @@ class TracingSubscriber implements CoreSubscriber<Void> {
         subscriber.onSubscribe(new Subscription() {
             @Override
             public void request(long n) {
-                spanDecorators.forEach(spanDecorator -> safelyCall(() -> spanDecorator.onRequest(exchange, span)));
+                if (tracingStats.isEnabled()) {
+                    final long startNanos = System.nanoTime();
+                    spanDecorator.onRequest(exchange, span);
+                    requestNanos += System.nanoTime() - startNanos;
+                } else {
+                    spanDecorator.onRequest(exchange, span);
+                }
                 subscription.request(n);
             }
 
             @Override
             public void cancel() {
-                span.finish();
-                exchange.getAttributes().remove(TracingWebFilter.SERVER_SPAN_CONTEXT);
+                if (claimMetrics()) {
+                    RedMetricsOperator.recordCancelled(redMetricsRecorder, exchange, exchangeStartNanos);
+                }
+                if (claimSpan()) {
+                    finish(nanoTime());
+                }
                 subscription.cancel();
             }
         });
@@ -79,30 +133,79 @@ class TracingSubscriber implements CoreSubscriber<Void> {
 
     @Override
     public void onError(final Throwable throwable) {
-        spanDecorators.forEach(spanDecorator -> safelyCall(() -> spanDecorator.onError(exchange, throwable, span)));
-        span.finish();
-        exchange.getAttributes().remove(TracingWebFilter.SERVER_SPAN_CONTEXT);
+        if (claimMetrics()) {
+            RedMetricsOperator.record(redMetricsRecorder, exchange, throwable, exchangeStartNanos);
+        }
+        if (claimSpan()) {
+            final long startNanos = nanoTime();
+            spanDecorator.onError(exchange, throwable, span);
+            finish(startNanos);
+        }
         subscriber.onError(throwable);
     }
 
     @Override
     public void onComplete() {
-        spanDecorators.forEach(spanDecorator -> safelyCall(() -> spanDecorator.onResponse(exchange, span)));
+        if (claimMetrics()) {
+            RedMetricsOperator.record(redMetricsRecorder, exchange, null, exchangeStartNanos);
+        }
+        if (claimSpan()) {
+            final long startNanos = nanoTime();
+            spanDecorator.onResponse(exchange, span);
+            finish(startNanos);
+        }
+        subscriber.onComplete();
+    }
+
+    /**
+     * Finishes the span once the body of a streaming response starts being written, the body is reported by the
+     * summary spans of {@link StreamingServerHttpResponse}.
+     *
+     * @return context of the finished span or null if the span has already been finished
+     */
+    @Nullable
+    SpanContext finishStreamSetup(final String mediaType) {
+        if (!claimSpan()) {
+            return null;
+        }
+        final long startNanos = nanoTime();
+        span.setTag(StreamingServerHttpResponse.STREAM_MEDIA_TYPE, mediaType);
+        spanDecorator.onResponse(exchange, span);
+        finish(startNanos);
+        return span.context();
+    }
+
+    /**
+     * @return false if the span has already been finished, e.g. by the leak detector or when a stream started
+     */
+    private boolean claimSpan() {
+        return FINISHED.compareAndSet(this, 0, 1) && (leakHandle == null || leakHandle.complete());
+    }
+
+    /**
+     * @return false if the exchange is not recorded or has already been recorded, the span may be finished before
+     * the exchange completes by the leak detector or when a stream started
+     */
+    private boolean claimMetrics() {
+        return redMetricsRecorder != null && METRICS_RECORDED.compareAndSet(this, 0, 1);
+    }
+
+    private void finish(final long startNanos) {
         span.finish();
         exchange.getAttributes().remove(TracingWebFilter.SERVER_SPAN_CONTEXT);
-        subscriber.onComplete();
+        tracingStats.spanFinished();
+        if (tracingStats.isEnabled()) {
+            tracingStats.record(TracingStats.Component.WEB_FILTER,
+                    subscribeNanos + requestNanos + System.nanoTime() - startNanos);
+        }
+    }
+
+    private long nanoTime() {
+        return tracingStats.isEnabled() ? System.nanoTime() : 0;
     }
 
     @Override
     public Context currentContext() {
         return context;
     }
-
-    private void safelyCall(final Runnable runnable) {
-        try {
-            runnable.run();
-        } catch (final RuntimeException e) {
-            LOG.error("Exception during decorating span", e);
-        }
-    }
 }
@@ -15,25 +15,50 @@
  */
 package io.opentracing.contrib.spring.web.webfilter;
 
+import io.opentracing.Span;
+import io.opentracing.SpanContext;
 import io.opentracing.Tracer;
+import io.opentracing.contrib.spring.web.support.ContextPropagation;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreaker;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreakers;
+import io.opentracing.contrib.spring.web.support.OverloadProtection;
+import io.opentracing.contrib.spring.web.support.PropagationOnlySpan;
+import io.opentracing.contrib.spring.web.support.RedMetricsRecorder;
+import io.opentracing.contrib.spring.web.support.RefreshableSkipPattern;
+import io.opentracing.contrib.spring.web.support.SkipPatternMatcher;
+import io.opentracing.contrib.spring.web.support.SpanLeakDetector;
+import io.opentracing.contrib.spring.web.support.TraceDecision;
+import io.opentracing.contrib.spring.web.support.TracingStats;
+import io.opentracing.propagation.Format;
+import io.opentracing.propagation.TextMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.server.PathContainer;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.lang.Nullable;
-import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.HandlerMapping;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import org.springframework.web.util.pattern.PathPattern;
 import org.springframework.web.util.pattern.PathPatternParser;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.Context;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * Tracing {@link WebFilter} for Spring WebFlux.
@@ -53,12 +78,38 @@ public class TracingWebFilter implements WebFilter, Ordered {
      */
     static final String SERVER_SPAN_CONTEXT = TracingWebFilter.class.getName() + ".activeSpanContext";
 
+    public static final int DEFAULT_STREAMING_SUMMARY_ELEMENTS = 1000;
+    public static final long DEFAULT_STREAMING_SUMMARY_INTERVAL_MILLIS = 10_000;
+
     private final Tracer tracer;
     private final int order;
-    @Nullable
-    private final Pattern skipPattern;
-    private final Set<PathPattern> urlPatterns;
+    private RefreshableSkipPattern skipPattern;
+    private final Runnable skipPatternListener = this::clearPathDecisionCache;
+    private final PathPattern[] urlPatterns;
     private final List<WebFluxSpanDecorator> spanDecorators;
+    private DecoratorCircuitBreakers decoratorCircuitBreakers = new DecoratorCircuitBreakers();
+    /** circuit breakers of the decorators, created once by {@link #decoratorCircuitBreakers} */
+    private final Map<WebFluxSpanDecorator, DecoratorCircuitBreaker> circuitBreakers = new IdentityHashMap<>();
+    @Nullable
+    private PathDecisionCache pathDecisionCache;
+    private HeaderExtractMode headerExtractMode = HeaderExtractMode.COPY;
+    private String[] propagationHeaderNames = new String[0];
+    private Function<HttpHeaders, TextMap> extractAdapter = HttpHeadersExtractAdapter::new;
+    private TraceDecision traceDecision = TraceDecision.ALWAYS;
+    private boolean responseMetrics;
+    private ContextPropagation contextPropagation = ContextPropagation.SCOPE;
+    private WebFluxSpanDecorator tracedSpanDecorator;
+    @Nullable
+    private SpanLeakDetector spanLeakDetector;
+    private TracingStats tracingStats = TracingStats.DISABLED;
+    @Nullable
+    private RedMetricsRecorder redMetricsRecorder;
+    private boolean streamingSpans;
+    private int streamingSummaryElements = DEFAULT_STREAMING_SUMMARY_ELEMENTS;
+    private long streamingSummaryIntervalNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_STREAMING_SUMMARY_INTERVAL_MILLIS);
+    @Nullable
+    private OverloadProtection overloadProtection;
+    private Consumer<SignalType> overloadExit;
 
     public TracingWebFilter(
             final Tracer tracer,
@@ -69,18 +120,32 @@ public class TracingWebFilter implements WebFilter, Ordered {
     ) {
         this.tracer = tracer;
         this.order = order;
-        this.skipPattern = (skipPattern != null && StringUtils.hasText(skipPattern.pattern())) ? skipPattern : null;
+        this.skipPattern = new RefreshableSkipPattern(skipPattern);
         final PathPatternParser pathPatternParser = new PathPatternParser();
-        this.urlPatterns = urlPatterns.stream().map(pathPatternParser::parse).collect(Collectors.toSet());
-        this.spanDecorators = spanDecorators;
+        this.urlPatterns = urlPatterns.stream().distinct().map(pathPatternParser::parse).toArray(PathPattern[]::new);
+        this.spanDecorators = new ArrayList<>(spanDecorators);
+        updateSpanDecorators();
+    }
+
+    private void updateSpanDecorators() {
+        final List<WebFluxSpanDecorator> decorators = new ArrayList<>(spanDecorators);
+        if (responseMetrics) {
+            decorators.add(ResponseMetricsSpanDecorator.INSTANCE);
+        }
+        final DecoratorCircuitBreaker[] breakers = new DecoratorCircuitBreaker[decorators.size()];
+        for (int i = 0; i < breakers.length; i++) {
+            breakers[i] = circuitBreakers.computeIfAbsent(decorators.get(i), decoratorCircuitBreakers::create);
+        }
+        this.tracedSpanDecorator = new CompositeWebFluxSpanDecorator(decorators, breakers);
     }
 
     @Override
     public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
         final ServerHttpRequest request = exchange.getRequest();
+        tracingStats.requestSeen();
 
         if (!shouldBeTraced(request)) {
-            return chain.filter(exchange);
+            return recordUntraced(exchange, chain.filter(exchange));
         }
 
         if (exchange.getAttribute(SERVER_SPAN_CONTEXT) != null) {
@@ -90,7 +155,304 @@ public class TracingWebFilter implements WebFilter, Ordered {
             return chain.filter(exchange);
         }
 
-        return new TracingOperator(chain.filter(exchange), exchange, tracer, spanDecorators);
+        final OverloadProtection protection = overloadProtection;
+        if (protection != null) {
+            // entered on subscription and exited on completion, error or cancellation
+            return Mono.defer(() -> filter(exchange, chain, protection)).doFinally(overloadExit);
+        }
+        return filter(exchange, chain, tracedSpanDecorator);
+    }
+
+    private Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain,
+                              final OverloadProtection protection) {
+        switch (protection.enter()) {
+            case REDUCED_TAGS:
+                return filter(exchange, chain, OverloadSpanDecorator.REDUCED_TAGS);
+            case NO_LOGS:
+                return filter(exchange, chain, OverloadSpanDecorator.NO_LOGS);
+            case PROPAGATION_ONLY:
+                final SpanContext extractedContext = tracer.extract(Format.Builtin.HTTP_HEADERS,
+                        extractAdapter.apply(exchange.getRequest().getHeaders()));
+                if (extractedContext != null && protection.keepContinuedTrace()) {
+                    return filter(exchange, chain, OverloadSpanDecorator.NO_LOGS);
+                }
+                if (LOG.isTraceEnabled()) {
+                    LOG.trace("Not tracing request " + exchange.getRequest() + " because the server is overloaded");
+                }
+                return recordUntraced(exchange, chain.filter(exchange)
+                        .subscriberContext(context -> propagateOnly(context, extractedContext)));
+            default:
+                return filter(exchange, chain, tracedSpanDecorator);
+        }
+    }
+
+    private Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain,
+                              final WebFluxSpanDecorator spanDecorator) {
+        final ServerHttpRequest request = exchange.getRequest();
+        final TraceDecision decision = traceDecision;
+        if (decision == TraceDecision.ALWAYS) {
+            return trace(exchange, chain, spanDecorator);
+        }
+
+        final String path = request.getPath().pathWithinApplication().value();
+        final Mono<Void> filtered;
+        if (decision.shouldTrace(request.getMethodValue(), path)) {
+            filtered = trace(exchange, chain, spanDecorator);
+        } else {
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Not tracing request " + request + " because of trace decision " + decision);
+            }
+            filtered = recordUntraced(exchange,
+                    chain.filter(exchange).subscriberContext(context -> propagateOnly(context, request)));
+        }
+        return filtered.doFinally(signalType -> resolveRoute(decision, exchange, path));
+    }
+
+    private Mono<Void> trace(final ServerWebExchange exchange, final WebFilterChain chain,
+                             final WebFluxSpanDecorator spanDecorator) {
+        if (spanDecorator != tracedSpanDecorator) {
+            // overloaded, neither streaming nor response metrics
+            return new TracingOperator(chain.filter(exchange), exchange, tracer, spanDecorator, extractAdapter,
+                    contextPropagation, spanLeakDetector, tracingStats, redMetricsRecorder);
+        }
+        ServerHttpResponse response = exchange.getResponse();
+        if (streamingSpans) {
+            response = new StreamingServerHttpResponse(response, tracer, streamingSummaryElements,
+                    streamingSummaryIntervalNanos, tracingStats);
+        }
+        if (responseMetrics) {
+            response = new CountingServerHttpResponse(response);
+        }
+        final ServerWebExchange tracedExchange = response == exchange.getResponse()
+                ? exchange
+                : exchange.mutate().response(response).build();
+        return new TracingOperator(chain.filter(tracedExchange), tracedExchange, tracer, spanDecorator,
+                extractAdapter, contextPropagation, spanLeakDetector, tracingStats, redMetricsRecorder);
+    }
+
+    /**
+     * Records the RED metrics of a request which is not traced, traced requests are recorded by the
+     * {@link TracingSubscriber} of their span.
+     */
+    private Mono<Void> recordUntraced(final ServerWebExchange exchange, final Mono<Void> filtered) {
+        final RedMetricsRecorder recorder = redMetricsRecorder;
+        return recorder == null ? filtered : new RedMetricsOperator(filtered, exchange, recorder);
+    }
+
+    /**
+     * Marks an untraced request as unsampled for the client instrumentation, which propagates the span context
+     * extracted from the request, if any, instead of creating spans.
+     */
+    private Context propagateOnly(final Context context, final ServerHttpRequest request) {
+        if (context.hasKey(Span.class) || tracer.activeSpan() != null) {
+            return context;
+        }
+        return withPropagationOnlySpan(context, tracer.extract(Format.Builtin.HTTP_HEADERS,
+                extractAdapter.apply(request.getHeaders())));
+    }
+
+    private Context propagateOnly(final Context context, @Nullable final SpanContext extractedContext) {
+        if (context.hasKey(Span.class) || tracer.activeSpan() != null) {
+            return context;
+        }
+        return withPropagationOnlySpan(context, extractedContext);
+    }
+
+    private static Context withPropagationOnlySpan(final Context context,
+                                                   @Nullable final SpanContext extractedContext) {
+        return context.put(Span.class, extractedContext == null
+                ? PropagationOnlySpan.NO_CONTEXT
+                : new PropagationOnlySpan(extractedContext));
+    }
+
+    private static void resolveRoute(final TraceDecision decision, final ServerWebExchange exchange, final String path) {
+        final Object pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+            decision.onRouteResolved(exchange.getRequest().getMethodValue(), path, pattern.toString());
+        }
+    }
+
+    /**
+     * Replaces the skip pattern passed to the constructor by one which can be updated at runtime. Cached
+     * decisions are removed on every update.
+     *
+     * @param skipPattern skip pattern holder
+     */
+    public void setSkipPattern(final RefreshableSkipPattern skipPattern) {
+        if (skipPattern == this.skipPattern) {
+            return;
+        }
+        this.skipPattern.removeUpdateListener(skipPatternListener);
+        this.skipPattern = skipPattern;
+        skipPattern.addUpdateListener(skipPatternListener);
+        clearPathDecisionCache();
+    }
+
+    private void clearPathDecisionCache() {
+        final PathDecisionCache cache = pathDecisionCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * With {@link ContextPropagation#CONTEXT_ONLY} the server span is only available from the Reactor
+     * {@link Context}; code calling {@link Tracer#activeSpan()} uses
+     * {@link io.opentracing.contrib.spring.web.support.ReactorScopes#activateSpan(Tracer)}.
+     *
+     * @param contextPropagation how the server span is propagated to the chain, defaults to
+     *                           {@link ContextPropagation#SCOPE}
+     */
+    public void setContextPropagation(final ContextPropagation contextPropagation) {
+        this.contextPropagation = contextPropagation;
+    }
+
+    /**
+     * @param spanLeakDetector finishes server spans of exchanges which do not complete, error or cancel within its
+     *                         timeout, or null to not track spans (the default)
+     */
+    public void setSpanLeakDetector(@Nullable final SpanLeakDetector spanLeakDetector) {
+        this.spanLeakDetector = spanLeakDetector;
+    }
+
+    /**
+     * @param tracingStats counts requests and spans of the filter and records the time spent in it, or null to not
+     *                     record anything (the default)
+     */
+    public void setTracingStats(@Nullable final TracingStats tracingStats) {
+        this.tracingStats = tracingStats != null ? tracingStats : TracingStats.DISABLED;
+    }
+
+    /**
+     * Records rate, errors and duration of every request passing through the filter, including the requests which
+     * are not traced because of the skip pattern, URL patterns, trace decision or overload protection. Traced
+     * requests are measured from the timestamp taken when their span starts, untraced requests take a single
+     * timestamp. Requests cancelled
+     * before they complete are recorded as cancelled.
+     *
+     * @param redMetricsRecorder records the requests, or null to not record them (the default)
+     */
+    public void setRedMetricsRecorder(@Nullable final RedMetricsRecorder redMetricsRecorder) {
+        this.redMetricsRecorder = redMetricsRecorder;
+    }
+
+    /**
+     * Degrades tracing while the number of requests in flight through the filter exceeds the thresholds of
+     * {@code overloadProtection}: first the configured span decorators are replaced by a few standard tags, then
+     * error logs are dropped, then no span is created and only the incoming span context is propagated, except for
+     * requests continuing a trace if {@link OverloadProtection#isKeepContinuedTraces()}. RED metrics are recorded at
+     * every level, including cancelled requests, see {@link #setRedMetricsRecorder}.
+     *
+     * @param overloadProtection overload protection, possibly shared with other filters, or null to always trace
+     *                           fully (the default)
+     */
+    public void setOverloadProtection(@Nullable final OverloadProtection overloadProtection) {
+        this.overloadExit = overloadProtection == null ? null : signalType -> overloadProtection.exit();
+        this.overloadProtection = overloadProtection;
+    }
+
+    /**
+     * Splits the server span of responses with a streaming media type ({@code text/event-stream},
+     * {@code application/x-ndjson} and {@code application/stream+json}) into a setup span, finished when the body
+     * starts being written, and {@code stream} spans following from it, each summarizing the elements and bytes
+     * written within a window, see {@link #setStreamingSummary(int, long)}. Long-lived streams then neither keep a
+     * span open nor hold memory growing with their duration.
+     *
+     * @param streamingSpans whether streaming responses are reported by summary spans, disabled by default
+     */
+    public void setStreamingSpans(final boolean streamingSpans) {
+        this.streamingSpans = streamingSpans;
+    }
+
+    /**
+     * @param summaryElements maximum number of elements summarized by a {@code stream} span
+     * @param summaryIntervalMillis maximum time summarized by a {@code stream} span, a window is closed by the first
+     *                              element written after it or by the end of the stream
+     */
+    public void setStreamingSummary(final int summaryElements, final long summaryIntervalMillis) {
+        if (summaryElements <= 0 || summaryIntervalMillis <= 0) {
+            throw new IllegalArgumentException("summaryElements and summaryIntervalMillis must be positive");
+        }
+        this.streamingSummaryElements = summaryElements;
+        this.streamingSummaryIntervalNanos = TimeUnit.MILLISECONDS.toNanos(summaryIntervalMillis);
+    }
+
+    /**
+     * Counts bytes and chunks written to the response of traced requests and tags the span with
+     * {@code http.response.body_size}, {@code http.response.body_chunks}, {@code http.response.time_to_first_byte_us}
+     * (from the start of the filter to the first written chunk) and {@code http.response.write_time_us} (from the
+     * first chunk to the end of the write). Counting does not allocate per written chunk or flushed publisher.
+     *
+     * @param responseMetrics whether response metrics are recorded, disabled by default
+     */
+    public void setResponseMetrics(final boolean responseMetrics) {
+        this.responseMetrics = responseMetrics;
+        updateSpanDecorators();
+    }
+
+    /**
+     * @param decoratorCircuitBreakers creates the circuit breakers skipping span decorators which keep failing,
+     *                                 defaults to circuit breakers with the default settings
+     */
+    public void setDecoratorCircuitBreakers(final DecoratorCircuitBreakers decoratorCircuitBreakers) {
+        this.decoratorCircuitBreakers = decoratorCircuitBreakers;
+        this.circuitBreakers.clear();
+        updateSpanDecorators();
+    }
+
+    /**
+     * @param traceDecision decides whether a request, not excluded by the skip pattern or URL patterns, is traced
+     */
+    public void setTraceDecision(final TraceDecision traceDecision) {
+        this.traceDecision = traceDecision;
+    }
+
+    /**
+     * Caches {@link #shouldBeTraced(ServerHttpRequest)} decisions per path. Subclasses overriding
+     * {@link #shouldBeTraced(ServerHttpRequest)} with decisions not based solely on the path should not set a cache.
+     *
+     * @param pathDecisionCache cache or null to evaluate every request
+     */
+    public void setPathDecisionCache(@Nullable final PathDecisionCache pathDecisionCache) {
+        this.pathDecisionCache = pathDecisionCache;
+    }
+
+    @Nullable
+    public PathDecisionCache getPathDecisionCache() {
+        return pathDecisionCache;
+    }
+
+    /**
+     * @param headerExtractMode how request headers are exposed to {@link Tracer#extract}, defaults to
+     *                          {@link HeaderExtractMode#COPY}
+     */
+    public void setHeaderExtractMode(final HeaderExtractMode headerExtractMode) {
+        this.headerExtractMode = headerExtractMode;
+        this.extractAdapter = createExtractAdapter();
+    }
+
+    /**
+     * @param propagationHeaderNames names of the headers read by the tracer, used by {@link HeaderExtractMode#KEYED}
+     */
+    public void setPropagationHeaderNames(final Collection<String> propagationHeaderNames) {
+        this.propagationHeaderNames = propagationHeaderNames.stream().distinct().toArray(String[]::new);
+        this.extractAdapter = createExtractAdapter();
+    }
+
+    private Function<HttpHeaders, TextMap> createExtractAdapter() {
+        switch (headerExtractMode) {
+            case KEYED:
+                if (propagationHeaderNames.length != 0) {
+                    final String[] headerNames = propagationHeaderNames;
+                    return httpHeaders -> new HttpHeadersEntryView(httpHeaders, headerNames);
+                }
+                // without header names iterate all headers
+                return httpHeaders -> new HttpHeadersEntryView(httpHeaders, null);
+            case ENTRY_VIEW:
+                return httpHeaders -> new HttpHeadersEntryView(httpHeaders, null);
+            default:
+                return HttpHeadersExtractAdapter::new;
+        }
     }
 
     /**
@@ -100,24 +462,57 @@ public class TracingWebFilter implements WebFilter, Ordered {
      */
     protected boolean shouldBeTraced(final ServerHttpRequest request) {
         final PathContainer pathWithinApplication = request.getPath().pathWithinApplication();
+        final SkipPatternMatcher matcher = skipPattern.get();
+        final PathDecisionCache cache = pathDecisionCache;
+        PathDecision decision = cache == null ? null : cache.get(pathWithinApplication.value());
+        if (decision == null) {
+            decision = decide(request, pathWithinApplication, matcher);
+            if (cache != null) {
+                cache.put(pathWithinApplication.value(), decision);
+                if (skipPattern.get() != matcher) {
+                    // the skip pattern was updated concurrently, the decision may have been cached after the update
+                    cache.clear();
+                }
+            }
+        }
+        if (decision == PathDecision.SKIPPED_BY_SKIP_PATTERN) {
+            tracingStats.skippedBySkipPattern();
+        } else if (decision == PathDecision.SKIPPED_BY_URL_PATTERNS) {
+            tracingStats.skippedByUrlPatterns();
+        }
+        return decision.isTraced();
+    }
+
+    private PathDecision decide(final ServerHttpRequest request, final PathContainer pathWithinApplication,
+                                final SkipPatternMatcher skipPattern) {
         // skip URLs matching skip pattern
         // e.g. pattern is defined as '/health|/status' then URL 'http://localhost:5000/context/health' won't be traced
-        if (skipPattern != null) {
+        if (!skipPattern.isEmpty()) {
             final String url = pathWithinApplication.value();
-            if (skipPattern.matcher(url).matches()) {
+            if (skipPattern.matches(url)) {
                 if (LOG.isTraceEnabled()) {
                     LOG.trace("Not tracing request " + request + " because it matches skip pattern: " + skipPattern);
                 }
-                return false;
+                return PathDecision.SKIPPED_BY_SKIP_PATTERN;
             }
         }
-        if (!urlPatterns.isEmpty() && urlPatterns.stream().noneMatch(urlPattern -> urlPattern.matches(pathWithinApplication))) {
+        if (urlPatterns.length != 0 && !matchesAnyUrlPattern(pathWithinApplication)) {
             if (LOG.isTraceEnabled()) {
-                LOG.trace("Not tracing request " + request + " because it does not match any URL pattern: " + urlPatterns);
+                LOG.trace("Not tracing request " + request + " because it does not match any URL pattern: "
+                        + Arrays.toString(urlPatterns));
+            }
+            return PathDecision.SKIPPED_BY_URL_PATTERNS;
+        }
+        return PathDecision.TRACED;
+    }
+
+    private boolean matchesAnyUrlPattern(final PathContainer pathWithinApplication) {
+        for (final PathPattern urlPattern : urlPatterns) {
+            if (urlPattern.matches(pathWithinApplication)) {
+                return true;
             }
-            return false;
         }
-        return true;
+        return false;
     }
 
     @Override
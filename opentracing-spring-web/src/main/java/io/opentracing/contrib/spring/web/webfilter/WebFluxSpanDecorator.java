@@ -14,16 +14,21 @@
 package io.opentracing.contrib.spring.web.webfilter;
 
 import io.opentracing.Span;
+import io.opentracing.contrib.spring.web.support.LazyStringTag;
+import io.opentracing.contrib.spring.web.support.OperationNameStrategy;
 import io.opentracing.tag.Tags;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.lang.Nullable;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.reactive.HandlerMapping;
 import org.springframework.web.server.ServerWebExchange;
 
 import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -67,31 +72,49 @@ public interface WebFluxSpanDecorator {
     class StandardTags implements WebFluxSpanDecorator {
         static final String COMPONENT_NAME = "java-spring-webflux";
 
+        private final boolean lazyUrl;
+
+        public StandardTags() {
+            this(false);
+        }
+
+        /**
+         * @param lazyUrl whether {@link Tags#HTTP_URL} is set through {@link LazyStringTag#HTTP_URL}, deferring the
+         *                conversion of the URI to a string
+         */
+        public StandardTags(final boolean lazyUrl) {
+            this.lazyUrl = lazyUrl;
+        }
+
         @Override
         public void onRequest(final ServerWebExchange exchange, final Span span) {
             Tags.COMPONENT.set(span, COMPONENT_NAME);
             final ServerHttpRequest request = exchange.getRequest();
             Tags.HTTP_METHOD.set(span, request.getMethodValue());
-            Tags.HTTP_URL.set(span, request.getURI().toString());
-            Optional.ofNullable(request.getRemoteAddress()).ifPresent(remoteAddress -> {
+            if (lazyUrl) {
+                span.setTag(LazyStringTag.HTTP_URL, request.getURI());
+            } else {
+                Tags.HTTP_URL.set(span, request.getURI().toString());
+            }
+            final InetSocketAddress remoteAddress = request.getRemoteAddress();
+            if (remoteAddress != null) {
                 Tags.PEER_HOSTNAME.set(span, remoteAddress.getHostString());
                 Tags.PEER_PORT.set(span, remoteAddress.getPort());
-                Optional.ofNullable(remoteAddress.getAddress()).ifPresent(
-                        inetAddress -> {
-                            if (inetAddress instanceof Inet6Address) {
-                                Tags.PEER_HOST_IPV6.set(span, inetAddress.getHostAddress());
-                            } else {
-                                Tags.PEER_HOST_IPV4.set(span, inetAddress.getHostAddress());
-                            }
-                        }
-                );
-            });
+                final InetAddress inetAddress = remoteAddress.getAddress();
+                if (inetAddress instanceof Inet6Address) {
+                    Tags.PEER_HOST_IPV6.set(span, inetAddress.getHostAddress());
+                } else if (inetAddress != null) {
+                    Tags.PEER_HOST_IPV4.set(span, inetAddress.getHostAddress());
+                }
+            }
         }
 
         @Override
         public void onResponse(final ServerWebExchange exchange, final Span span) {
-            Optional.ofNullable(exchange.getResponse().getStatusCode())
-                    .ifPresent(httpStatus -> Tags.HTTP_STATUS.set(span, httpStatus.value()));
+            final HttpStatus httpStatus = exchange.getResponse().getStatusCode();
+            if (httpStatus != null) {
+                Tags.HTTP_STATUS.set(span, httpStatus.value());
+            }
         }
 
         @Override
@@ -112,6 +135,24 @@ public interface WebFluxSpanDecorator {
      * Adds tags from WebFlux handler to span.
      */
     class WebFluxTags implements WebFluxSpanDecorator {
+        @Nullable
+        private final OperationNameStrategy operationNameStrategy;
+
+        /**
+         * Uses the handler method name or the pattern as the operation name.
+         */
+        public WebFluxTags() {
+            this(null);
+        }
+
+        /**
+         * @param operationNameStrategy strategy computing the operation name, e.g.
+         *                              {@link io.opentracing.contrib.spring.web.support.RouteTemplateOperationNameStrategy}
+         */
+        public WebFluxTags(@Nullable final OperationNameStrategy operationNameStrategy) {
+            this.operationNameStrategy = operationNameStrategy;
+        }
+
         @Override
         public void onRequest(final ServerWebExchange exchange, final Span span) {
             // No-op
@@ -146,14 +187,23 @@ public interface WebFluxSpanDecorator {
                 final HandlerMethod handlerMethod = (HandlerMethod) handler;
                 final String methodName = handlerMethod.getMethod().getName();
                 logs.put("handler.method_name", handlerMethod.getMethod().getName());
-                span.setOperationName(methodName);
+                if (operationNameStrategy == null) {
+                    span.setOperationName(methodName);
+                }
                 logs.put("handler.class_simple_name", handlerMethod.getBeanType().getSimpleName());
             } else {
-                if (pattern != null) {
+                if (pattern != null && operationNameStrategy == null) {
                     span.setOperationName(patternAsString);
                 }
                 logs.put("handler.class_simple_name", handler.getClass().getSimpleName());
             }
+            if (operationNameStrategy != null) {
+                final String operationName = operationNameStrategy.operationName(
+                        exchange.getRequest().getMethodValue(), handler, patternAsString);
+                if (operationName != null) {
+                    span.setOperationName(operationName);
+                }
+            }
             span.log(logs);
         }
     }
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2016-2019 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.client;
+
+import io.opentracing.Span;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Collections;
+
+/**
+ * @see ResponseContextMode#LAZY
+ */
+public class ContextClientResponseTest {
+
+    private final MockTracer mockTracer = new MockTracer();
+
+    private ClientResponse exchange() {
+        final TracingExchangeFilterFunction filterFunction = new TracingExchangeFilterFunction(mockTracer,
+                Collections.singletonList(new WebClientSpanDecorator.StandardTags()), HeaderInjectMode.COPY,
+                ResponseContextMode.LAZY);
+        final ClientResponse response = ClientResponse.create(HttpStatus.OK).body("body").build();
+        return filterFunction.filter(ClientRequest.create(HttpMethod.GET, URI.create("http://localhost/foo")).build(),
+                request -> Mono.just(response)).block();
+    }
+
+    @Test
+    public void testContextAttachedToBody() {
+        final ClientResponse response = exchange();
+        Assert.assertTrue(response instanceof ContextClientResponse);
+
+        // the context is visible upstream, i.e. while the body is extracted
+        final Span span = response.body((inputMessage, extractorContext) ->
+                Mono.subscriberContext().map(context -> context.get(Span.class)))
+                .block();
+        Assert.assertEquals(1, mockTracer.finishedSpans().size());
+        Assert.assertEquals(((MockSpan) span).context().spanId(), mockTracer.finishedSpans().get(0).context().spanId());
+    }
+
+    @Test
+    public void testBodyAvailable() {
+        Assert.assertEquals("body", exchange().bodyToMono(String.class).block());
+        Assert.assertEquals("body", exchange().toEntity(String.class).block().getBody());
+        Assert.assertEquals(Collections.singletonList("body"), exchange().bodyToFlux(String.class).collectList().block());
+        Assert.assertNull(exchange().bodyToMono(Void.class).block());
+        Assert.assertNull(exchange().releaseBody().block());
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright 2016-2019 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.client;
+
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+/**
+ * @see ResponseContextMode#TIMED_BODY
+ */
+public class TimedBodyFluxTest {
+
+    private final MockTracer mockTracer = new MockTracer();
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    private ClientResponse exchange(final String... chunks) {
+        final TracingExchangeFilterFunction filterFunction = new TracingExchangeFilterFunction(mockTracer,
+                Collections.singletonList(new WebClientSpanDecorator.StandardTags()), HeaderInjectMode.COPY,
+                ResponseContextMode.TIMED_BODY);
+        final Flux<DataBuffer> body = Flux.fromArray(chunks)
+                .map(chunk -> bufferFactory.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+        final ClientResponse response = ClientResponse.create(HttpStatus.OK).body(body).build();
+        return filterFunction.filter(ClientRequest.create(HttpMethod.GET, URI.create("http://localhost/foo")).build(),
+                request -> Mono.just(response)).block();
+    }
+
+    @Test
+    public void testSpanFinishedWithBody() {
+        final ClientResponse response = exchange("hello", " ", "world");
+        Assert.assertEquals(0, mockTracer.finishedSpans().size());
+
+        Assert.assertEquals("hello world", response.bodyToMono(String.class).block());
+        Assert.assertEquals(1, mockTracer.finishedSpans().size());
+        final MockSpan span = mockTracer.finishedSpans().get(0);
+        Assert.assertEquals(11L, span.tags().get(TracingClientResponseSubscriber.BODY_SIZE));
+        Assert.assertEquals(3L, span.tags().get(TracingClientResponseSubscriber.BODY_CHUNKS));
+        final long timeToFirstByte = (Long) span.tags().get(TracingClientResponseSubscriber.TIME_TO_FIRST_BYTE);
+        final long timeToLastByte = (Long) span.tags().get(TracingClientResponseSubscriber.TIME_TO_LAST_BYTE);
+        Assert.assertTrue(timeToFirstByte <= timeToLastByte);
+        Assert.assertEquals(200, span.tags().get("http.status_code"));
+    }
+
+    @Test
+    public void testReleaseBody() {
+        exchange("hello").releaseBody().block();
+        Assert.assertEquals(1, mockTracer.finishedSpans().size());
+        Assert.assertEquals(5L, mockTracer.finishedSpans().get(0).tags().get(TracingClientResponseSubscriber.BODY_SIZE));
+    }
+
+    @Test
+    public void testEmptyBody() {
+        exchange().bodyToMono(Void.class).block();
+        Assert.assertEquals(1, mockTracer.finishedSpans().size());
+        final MockSpan span = mockTracer.finishedSpans().get(0);
+        Assert.assertEquals(0L, span.tags().get(TracingClientResponseSubscriber.BODY_CHUNKS));
+        Assert.assertNull(span.tags().get(TracingClientResponseSubscriber.TIME_TO_FIRST_BYTE));
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.interceptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.web.method.HandlerMethod;
+
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+
+public class HandlerMetadataTest {
+
+    public static class Controller {
+        public String hello() {
+            return "hello";
+        }
+    }
+
+    public static class OtherController extends Controller {
+    }
+
+    private static final Controller CONTROLLER = new Controller();
+
+    private static HandlerMethod handlerMethod() throws NoSuchMethodException {
+        Method method = Controller.class.getMethod("hello");
+        return new HandlerMethod(CONTROLLER, method);
+    }
+
+    @Test
+    public void testCachedPerHandlerMethod() throws Exception {
+        HandlerMetadata metadata = HandlerMetadata.of(handlerMethod());
+        assertSame(metadata, HandlerMetadata.of(handlerMethod()));
+        assertEquals("Controller", metadata.getClassName());
+        assertEquals("hello", metadata.getMethodName());
+    }
+
+    @Test
+    public void testLogsLiveHandler() throws Exception {
+        Method method = Controller.class.getMethod("hello");
+        Controller prototype = new Controller();
+        HandlerMethod handler = new HandlerMethod(prototype, method);
+        HandlerMetadata metadata = HandlerMetadata.of(handler);
+        assertSame(metadata, HandlerMetadata.of(new HandlerMethod(new Controller(), method)));
+
+        Map<String, Object> logs = metadata.preHandleLogs(handler);
+        assertSame(handler, logs.get(HandlerInterceptorSpanDecorator.HandlerUtils.HANDLER));
+        assertEquals(new HashMap<>(logs), logs);
+    }
+
+    @Test
+    public void testInheritedHandlerMethod() throws Exception {
+        Method method = Controller.class.getMethod("hello");
+        HandlerMetadata metadata = HandlerMetadata.of(new HandlerMethod(CONTROLLER, method));
+        HandlerMetadata inherited = HandlerMetadata.of(new HandlerMethod(new OtherController(), method));
+        assertEquals("Controller", metadata.getClassName());
+        assertEquals("OtherController", inherited.getClassName());
+        assertSame(inherited, HandlerMetadata.of(new HandlerMethod(new OtherController(), method)));
+    }
+
+    @Test
+    public void testNonHandlerMethod() {
+        Object handler = new Object();
+        HandlerMetadata metadata = HandlerMetadata.of(handler);
+        assertEquals("Object", metadata.getClassName());
+        assertNull(metadata.getMethodName());
+        assertEquals(3, metadata.preHandleLogs(handler).size());
+    }
+
+    @Test
+    public void testStandardLogs() throws Exception {
+        HandlerMethod handler = handlerMethod();
+        MockTracer tracer = new MockTracer();
+        MockSpan span = tracer.buildSpan("GET").start();
+        HandlerInterceptorSpanDecorator.STANDARD_LOGS.onPreHandle(null, handler, span);
+        HandlerInterceptorSpanDecorator.STANDARD_LOGS.onAfterCompletion(null, null, handler, null, span);
+
+        List<MockSpan.LogEntry> logs = span.logEntries();
+        assertEquals(2, logs.size());
+        assertEquals(4, logs.get(0).fields().size());
+        assertEquals("preHandle", logs.get(0).fields().get("event"));
+        assertEquals(handler, logs.get(0).fields().get(HandlerInterceptorSpanDecorator.HandlerUtils.HANDLER));
+        assertEquals("Controller",
+                logs.get(0).fields().get(HandlerInterceptorSpanDecorator.HandlerUtils.HANDLER_CLASS_NAME));
+        assertEquals("hello", logs.get(0).fields().get(HandlerInterceptorSpanDecorator.HandlerUtils.HANDLER_METHOD_NAME));
+        assertEquals("afterCompletion", logs.get(1).fields().get("event"));
+    }
+}
@@ -13,16 +13,26 @@
  */
 package io.opentracing.contrib.spring.web.interceptor;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Collections;
+
 import javax.servlet.http.HttpServletRequest;
 
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
 
+import io.opentracing.Scope;
+import io.opentracing.Span;
 import io.opentracing.SpanContext;
+import io.opentracing.contrib.spring.web.support.TracingStats;
 import io.opentracing.contrib.web.servlet.filter.TracingFilter;
+import io.opentracing.mock.MockTracer;
 
 public class TracingHandlerInterceptorTest {
 
@@ -51,4 +61,52 @@ public class TracingHandlerInterceptorTest {
         interceptor.afterCompletion(request, null, null, null);
     }
 
+    @Test
+    public void testNestedAsyncDispatchClosesScope() {
+        MockTracer tracer = new MockTracer();
+        TracingHandlerInterceptor interceptor = new TracingHandlerInterceptor(tracer, Collections.emptyList());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders");
+        Span serverSpan = tracer.buildSpan("GET").start();
+        request.setAttribute(TracingFilter.SERVER_SPAN_CONTEXT, serverSpan.context());
+
+        // initial dispatch, the span is activated by the filter
+        try (Scope scope = tracer.activateSpan(serverSpan)) {
+            interceptor.preHandle(request, null, null);
+            interceptor.afterConcurrentHandlingStarted(request, null, null);
+        }
+        assertNull(tracer.activeSpan());
+
+        // async dispatch starting another async processing
+        interceptor.preHandle(request, null, null);
+        assertSame(serverSpan, tracer.activeSpan());
+        interceptor.afterConcurrentHandlingStarted(request, null, null);
+        assertNull(tracer.activeSpan());
+
+        // last async dispatch
+        interceptor.preHandle(request, null, null);
+        assertSame(serverSpan, tracer.activeSpan());
+        interceptor.afterCompletion(request, null, null, null);
+        assertNull(tracer.activeSpan());
+    }
+
+    @Test
+    public void testStatsRecordedPerRequest() {
+        MockTracer tracer = new MockTracer();
+        TracingStats stats = new TracingStats();
+        TracingHandlerInterceptor interceptor = new TracingHandlerInterceptor(tracer, Collections.emptyList());
+        interceptor.setTracingStats(stats);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders");
+        Span serverSpan = tracer.buildSpan("GET").start();
+        request.setAttribute(TracingFilter.SERVER_SPAN_CONTEXT, serverSpan.context());
+
+        try (Scope scope = tracer.activateSpan(serverSpan)) {
+            interceptor.preHandle(request, null, null);
+            interceptor.afterConcurrentHandlingStarted(request, null, null);
+        }
+        interceptor.preHandle(request, null, null);
+        assertEquals(0, stats.getHistogram(TracingStats.Component.HANDLER_INTERCEPTOR).getCount());
+        interceptor.afterCompletion(request, null, null, null);
+
+        assertEquals(1, stats.getHistogram(TracingStats.Component.HANDLER_INTERCEPTOR).getCount());
+    }
 }
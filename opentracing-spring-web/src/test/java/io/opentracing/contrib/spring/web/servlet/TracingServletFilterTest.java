@@ -0,0 +1,242 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.servlet;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+import javax.servlet.FilterChain;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.opentracing.Span;
+import io.opentracing.contrib.spring.web.client.TracingRestTemplateInterceptor;
+import io.opentracing.contrib.spring.web.support.OverloadProtection;
+import io.opentracing.contrib.spring.web.support.PropagationOnlySpan;
+import io.opentracing.contrib.spring.web.support.RefreshableSkipPattern;
+import io.opentracing.contrib.spring.web.support.TraceDecision;
+import io.opentracing.contrib.web.servlet.filter.ServletFilterSpanDecorator;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.tag.Tags;
+import io.opentracing.util.ThreadLocalScopeManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TracingServletFilterTest {
+
+    private final MockTracer tracer = new MockTracer(new ThreadLocalScopeManager());
+    private TracingServletFilter filter;
+
+    @Before
+    public void setUp() {
+        filter = new TracingServletFilter(tracer, Collections.singletonList(ServletFilterSpanDecorator.STANDARD_TAGS),
+                Pattern.compile("/health"));
+    }
+
+    @Test
+    public void testSkipPattern() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/health"), new MockHttpServletResponse(),
+                new MockFilterChain());
+        filter.doFilter(new MockHttpServletRequest("GET", "/hello"), new MockHttpServletResponse(),
+                new MockFilterChain());
+        assertEquals(1, tracer.finishedSpans().size());
+    }
+
+    @Test
+    public void testUntracedRequestPropagatesContext() throws Exception {
+        AtomicReference<String> resolvedRoute = new AtomicReference<>();
+        filter.setTraceDecision(new TraceDecision() {
+            @Override
+            public boolean shouldTrace(String method, String path) {
+                return false;
+            }
+
+            @Override
+            public void onRouteResolved(String method, String path, String route) {
+                resolvedRoute.set(route);
+            }
+        });
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders/1");
+        request.addHeader("traceid", "42");
+        request.addHeader("spanid", "7");
+        AtomicReference<Span> activeSpan = new AtomicReference<>();
+        filter.doFilter(request, new MockHttpServletResponse(), (servletRequest, servletResponse) -> {
+            activeSpan.set(tracer.activeSpan());
+            servletRequest.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/orders/{id}");
+        });
+
+        assertTrue(tracer.finishedSpans().isEmpty());
+        assertTrue(activeSpan.get() instanceof PropagationOnlySpan);
+        assertEquals("42", activeSpan.get().context().toTraceId());
+        assertEquals("7", activeSpan.get().context().toSpanId());
+        assertNull(tracer.activeSpan());
+        assertEquals("/orders/{id}", resolvedRoute.get());
+
+        MockSpan child = tracer.buildSpan("client").asChildOf(activeSpan.get()).start();
+        assertEquals(42, child.context().traceId());
+        assertEquals(7, child.parentId());
+    }
+
+    @Test
+    public void testUntracedRequestRestTemplatePropagatesOnly() throws Exception {
+        filter.setTraceDecision((method, path) -> false);
+        TracingRestTemplateInterceptor interceptor = new TracingRestTemplateInterceptor(tracer);
+        AtomicReference<HttpHeaders> clientHeaders = new AtomicReference<>();
+        FilterChain clientChain = (servletRequest, servletResponse) -> interceptor.intercept(
+                new MockClientHttpRequest(HttpMethod.GET, URI.create("http://localhost/stock")), new byte[0],
+                (httpRequest, body) -> {
+                    clientHeaders.set(httpRequest.getHeaders());
+                    return new MockClientHttpResponse(new byte[0], HttpStatus.OK);
+                });
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders/1");
+        request.addHeader("traceid", "42");
+        request.addHeader("spanid", "7");
+        filter.doFilter(request, new MockHttpServletResponse(), clientChain);
+        assertTrue(tracer.finishedSpans().isEmpty());
+        assertEquals("42", clientHeaders.get().getFirst("traceid"));
+        assertEquals("7", clientHeaders.get().getFirst("spanid"));
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/orders/1"), new MockHttpServletResponse(), clientChain);
+        assertTrue(tracer.finishedSpans().isEmpty());
+        assertNull(clientHeaders.get().getFirst("traceid"));
+    }
+
+    @Test
+    public void testTracedRequest() throws Exception {
+        filter.setTraceDecision((method, path) -> true);
+        filter.doFilter(new MockHttpServletRequest("GET", "/hello"), new MockHttpServletResponse(),
+                new MockFilterChain());
+        assertEquals(1, tracer.finishedSpans().size());
+    }
+
+    @Test
+    public void testTracedRequestDoesNotEvaluateSkipPatternAgain() throws Exception {
+        RefreshableSkipPattern skipPattern = new RefreshableSkipPattern(Pattern.compile("/health"));
+        filter.setSkipPattern(skipPattern);
+        // the skip pattern changes after the request passed it, the request is still traced
+        filter.setTraceDecision((method, path) -> {
+            skipPattern.update(Pattern.compile("/hello"));
+            return true;
+        });
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hello");
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        assertEquals(1, tracer.finishedSpans().size());
+        assertFalse(Collections.list(request.getAttributeNames()).stream()
+                .anyMatch(name -> name.endsWith(".skipPatternEvaluated")));
+    }
+
+    @Test
+    public void testBodyMetrics() throws Exception {
+        filter.setBodyMetrics(true);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/orders");
+        request.setContent("{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+        filter.doFilter(request, new MockHttpServletResponse(), (servletRequest, servletResponse) -> {
+            InputStream inputStream = servletRequest.getInputStream();
+            byte[] buffer = new byte[4];
+            while (inputStream.read(buffer) >= 0) {
+            }
+            OutputStream outputStream = servletResponse.getOutputStream();
+            outputStream.write('{');
+            outputStream.write("\"status\":\"ok\"}".getBytes(StandardCharsets.UTF_8));
+            outputStream.flush();
+        });
+
+        assertEquals(1, tracer.finishedSpans().size());
+        MockSpan span = tracer.finishedSpans().get(0);
+        assertEquals(8L, span.tags().get(BodyMetricsSpanDecorator.REQUEST_BODY_SIZE));
+        assertEquals(15L, span.tags().get(BodyMetricsSpanDecorator.RESPONSE_BODY_SIZE));
+        assertTrue(span.tags().get(BodyMetricsSpanDecorator.REQUEST_READ_TIME) instanceof Long);
+        assertTrue(span.tags().get(BodyMetricsSpanDecorator.RESPONSE_WRITE_TIME) instanceof Long);
+    }
+
+    @Test
+    public void testBodyMetricsDisabled() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/hello"), new MockHttpServletResponse(),
+                new MockFilterChain());
+        assertNull(tracer.finishedSpans().get(0).tags().get(BodyMetricsSpanDecorator.REQUEST_BODY_SIZE));
+    }
+
+    @Test
+    public void testOverloadReducedTags() throws Exception {
+        OverloadProtection protection = new OverloadProtection(1, 2, 3);
+        filter.setOverloadProtection(protection);
+        filter.doFilter(new MockHttpServletRequest("GET", "/hello"), new MockHttpServletResponse(),
+                new MockFilterChain());
+
+        MockSpan span = tracer.finishedSpans().get(0);
+        assertEquals("GET", span.tags().get(Tags.HTTP_METHOD.getKey()));
+        assertEquals(200, span.tags().get(Tags.HTTP_STATUS.getKey()));
+        assertNull(span.tags().get(Tags.HTTP_URL.getKey()));
+        assertEquals(1, protection.getRequests(OverloadProtection.Level.REDUCED_TAGS));
+        assertEquals(0, protection.getInFlight());
+    }
+
+    @Test
+    public void testOverloadPropagationOnly() throws Exception {
+        OverloadProtection protection = new OverloadProtection(1, 1, 1);
+        protection.setKeepContinuedTraces(false);
+        filter.setOverloadProtection(protection);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hello");
+        request.addHeader("traceid", "42");
+        request.addHeader("spanid", "7");
+        AtomicReference<Span> activeSpan = new AtomicReference<>();
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (servletRequest, servletResponse) -> activeSpan.set(tracer.activeSpan()));
+
+        assertTrue(tracer.finishedSpans().isEmpty());
+        assertTrue(activeSpan.get() instanceof PropagationOnlySpan);
+        assertEquals("42", activeSpan.get().context().toTraceId());
+        assertEquals(1, protection.getRequests(OverloadProtection.Level.PROPAGATION_ONLY));
+        assertEquals(0, protection.getInFlight());
+    }
+
+    @Test
+    public void testOverloadKeepsContinuedTraces() throws Exception {
+        OverloadProtection protection = new OverloadProtection(1, 1, 1);
+        filter.setOverloadProtection(protection);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/hello");
+        request.addHeader("traceid", "42");
+        request.addHeader("spanid", "7");
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        filter.doFilter(new MockHttpServletRequest("GET", "/hello"), new MockHttpServletResponse(),
+                new MockFilterChain());
+
+        assertEquals(1, tracer.finishedSpans().size());
+        assertEquals("42", tracer.finishedSpans().get(0).context().toTraceId());
+        assertEquals(1, protection.getRequests(OverloadProtection.Level.NO_LOGS));
+        assertEquals(1, protection.getRequests(OverloadProtection.Level.PROPAGATION_ONLY));
+        assertEquals(0, protection.getInFlight());
+    }
+}
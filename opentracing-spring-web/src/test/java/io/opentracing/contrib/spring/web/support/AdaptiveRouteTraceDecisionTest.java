@@ -0,0 +1,115 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveRouteTraceDecisionTest {
+
+    private static int traced(TraceDecision decision, String path, int requests) {
+        return traced(decision, "GET", path, requests);
+    }
+
+    private static int traced(TraceDecision decision, String method, String path, int requests) {
+        int traced = 0;
+        for (int i = 0; i < requests; i++) {
+            if (decision.shouldTrace(method, path)) {
+                traced++;
+            }
+        }
+        return traced;
+    }
+
+    @Test
+    public void testBucketPerRoute() {
+        AdaptiveRouteTraceDecision decision = new AdaptiveRouteTraceDecision(5);
+        decision.onRouteResolved("GET", "/orders/1", "/orders/{id}");
+        decision.onRouteResolved("GET", "/orders/2", "/orders/{id}");
+        decision.onRouteResolved("GET", "/customers", "/customers");
+        assertEquals(2, decision.getRouteCount());
+
+        // paths of the same route share the bucket, including paths not resolved yet
+        assertEquals(5, traced(decision, "/orders/1", 100) + traced(decision, "/orders/3", 100));
+        // hot route does not consume the budget of other routes
+        assertEquals(5, traced(decision, "/customers", 100));
+        // unknown paths share the fallback bucket
+        assertEquals(5, traced(decision, "/unknown", 100));
+    }
+
+    @Test
+    public void testBucketPerMethodAndMostSpecificRoute() {
+        AdaptiveRouteTraceDecision decision = new AdaptiveRouteTraceDecision(5);
+        decision.onRouteResolved("GET", "/orders/1", "/orders/{id}");
+        decision.onRouteResolved("GET", "/orders/new", "/orders/new");
+        decision.onRouteResolved("GET", "/orders/1/items/2", "/orders/{id}/items/{item}");
+        decision.onRouteResolved("DELETE", "/orders/1", "/orders/{id}");
+        assertEquals(4, decision.getRouteCount());
+
+        assertEquals(5, traced(decision, "/orders/7", 100));
+        assertEquals(5, traced(decision, "/orders/new", 100));
+        assertEquals(5, traced(decision, "/orders/7/items/8", 100));
+        assertEquals(5, traced(decision, "DELETE", "/orders/7", 100));
+        // not a learned route of the method
+        assertEquals(5, traced(decision, "POST", "/orders/7", 100));
+    }
+
+    @Test
+    public void testBounded() {
+        AdaptiveRouteTraceDecision decision = new AdaptiveRouteTraceDecision(1, 2);
+        for (int i = 0; i < 10; i++) {
+            decision.onRouteResolved("GET", "/route" + i, "/route" + i);
+        }
+        assertEquals(2, decision.getRouteCount());
+        assertTrue(decision.shouldTrace("GET", "/route1"));
+        assertFalse(decision.shouldTrace("GET", "/route1"));
+        // routes over the limit share the fallback bucket
+        assertTrue(decision.shouldTrace("GET", "/route5"));
+        assertFalse(decision.shouldTrace("GET", "/route9"));
+    }
+
+    @Test
+    public void testCachesMatchedPaths() {
+        AdaptiveRouteTraceDecision decision = new AdaptiveRouteTraceDecision(5, 10, 3);
+        decision.onRouteResolved("GET", "/orders/1", "/orders/{id}");
+        decision.onRouteResolved("GET", "/customers", "/customers");
+
+        assertEquals(5, traced(decision, "/orders/1", 100) + traced(decision, "/orders/2", 100));
+        assertEquals(5, traced(decision, "/items/1", 100));
+        // literal templates are not cached
+        assertEquals(5, traced(decision, "/customers", 100));
+        assertEquals(3, decision.getPathCount());
+        // full cache, the path is still matched to its route
+        assertEquals(0, traced(decision, "/orders/3", 100));
+        assertEquals(3, decision.getPathCount());
+
+        // a new template clears the paths cached with the fallback bucket
+        decision.onRouteResolved("GET", "/items/2", "/items/{id}");
+        assertEquals(0, decision.getPathCount());
+        assertEquals(5, traced(decision, "/items/1", 100));
+        assertEquals(1, decision.getPathCount());
+    }
+
+    @Test
+    public void testUncached() {
+        AdaptiveRouteTraceDecision decision = new AdaptiveRouteTraceDecision(5, 10, 0);
+        decision.onRouteResolved("GET", "/orders/1", "/orders/{id}");
+
+        assertEquals(5, traced(decision, "/orders/1", 100) + traced(decision, "/orders/2", 100));
+        assertEquals(0, decision.getPathCount());
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.util.ThreadLocalScopeManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncFinishingTracerTest {
+
+    private final MockTracer mockTracer = new MockTracer(new ThreadLocalScopeManager()) {
+        @Override
+        public void close() {
+            // keeps the finished spans
+        }
+    };
+
+    @Test
+    public void testFinishesSpansOnClose() {
+        AsyncFinishingTracer tracer = new AsyncFinishingTracer(mockTracer, 16);
+        Span parent = tracer.buildSpan("parent").start();
+        try (Scope scope = tracer.activateSpan(parent)) {
+            assertSame(parent, tracer.activeSpan());
+            tracer.buildSpan("child").start().finish();
+        }
+        parent.finish();
+        tracer.close();
+
+        assertEquals(2, mockTracer.finishedSpans().size());
+        MockSpan child = mockTracer.finishedSpans().get(0);
+        assertEquals("child", child.operationName());
+        assertEquals(mockTracer.finishedSpans().get(1).context().spanId(), child.parentId());
+        assertTrue(child.finishMicros() >= child.startMicros());
+        assertEquals(2, tracer.getReportedSpans());
+        assertEquals(0, tracer.getDroppedSpans());
+    }
+
+    @Test
+    public void testFinishesSpanOnce() {
+        AsyncFinishingTracer tracer = new AsyncFinishingTracer(mockTracer, 16);
+        Span span = tracer.buildSpan("span").start();
+        span.finish();
+        span.finish();
+        tracer.close();
+
+        assertEquals(1, mockTracer.finishedSpans().size());
+        assertEquals(1, tracer.getReportedSpans());
+    }
+
+    @Test
+    public void testDropsSpansFinishedAfterClose() {
+        AsyncFinishingTracer tracer = new AsyncFinishingTracer(mockTracer, 16);
+        Span span = tracer.buildSpan("span").start();
+        tracer.close();
+        span.finish();
+
+        assertTrue(mockTracer.finishedSpans().isEmpty());
+        assertEquals(1, tracer.getDroppedSpans());
+        assertEquals(0, tracer.getPendingSpans());
+    }
+
+    @Test
+    public void testDropsSpansWhenFull() throws InterruptedException {
+        CountDownLatch finishing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MockTracer blockingTracer = new MockTracer() {
+            @Override
+            protected void onSpanFinished(MockSpan mockSpan) {
+                finishing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.onSpanFinished(mockSpan);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        AsyncFinishingTracer tracer = new AsyncFinishingTracer(blockingTracer, 2);
+
+        tracer.buildSpan("blocked").start().finish();
+        assertTrue(finishing.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            tracer.buildSpan("queued").start().finish();
+        }
+        assertEquals(1, tracer.getDroppedSpans());
+        assertEquals(2, tracer.getPendingSpans());
+
+        release.countDown();
+        tracer.close();
+        assertEquals(3, blockingTracer.finishedSpans().size());
+        assertEquals(3, tracer.getReportedSpans());
+    }
+
+    @Test
+    public void testBufferCapacity() {
+        MpscRingBuffer<Object> buffer = new MpscRingBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        assertEquals(4, buffer.size());
+        buffer.poll();
+        buffer.close();
+        assertTrue(buffer.isClosed());
+        assertFalse(buffer.offer(5));
+        assertEquals(3, buffer.size());
+    }
+}
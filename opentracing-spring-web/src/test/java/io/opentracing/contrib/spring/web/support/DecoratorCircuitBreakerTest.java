@@ -0,0 +1,75 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.Arrays;
+
+import org.apache.commons.logging.Log;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class DecoratorCircuitBreakerTest {
+
+    private final Object decorator = new Object();
+    private final Log log = mock(Log.class);
+
+    @Test
+    public void testRateLimitedLogging() {
+        DecoratorCircuitBreaker circuitBreaker = new DecoratorCircuitBreakers().create(decorator);
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.failed(new IllegalStateException(), log);
+        }
+        verify(log, times(1)).error(anyString(), any(IllegalStateException.class));
+        assertFalse(circuitBreaker.isOpen());
+        assertEquals(10, circuitBreaker.getFailures());
+    }
+
+    @Test
+    public void testDisablesFailingDecorator() throws InterruptedException {
+        DecoratorCircuitBreakers circuitBreakers = new DecoratorCircuitBreakers(3, 50);
+        DecoratorCircuitBreaker[] created = circuitBreakers.create(Arrays.asList(decorator, new Object()));
+
+        for (int i = 0; i < 3; i++) {
+            created[0].failed(new IllegalStateException(), log);
+        }
+        assertTrue(created[0].isOpen());
+        assertFalse(created[1].isOpen());
+        verify(log, times(1)).warn(anyString(), any(IllegalStateException.class));
+        assertEquals(1, created[0].getTrips());
+
+        Thread.sleep(100);
+        assertFalse(created[0].isOpen());
+    }
+
+    @Test
+    public void testListsFailedDecorators() {
+        DecoratorCircuitBreakers circuitBreakers = new DecoratorCircuitBreakers();
+        DecoratorCircuitBreaker[] created = circuitBreakers.create(Arrays.asList(decorator, new Object()));
+        assertTrue(circuitBreakers.getFailed().isEmpty());
+
+        created[1].failed(new IllegalStateException(), log);
+        assertEquals(1, circuitBreakers.getFailed().size());
+        assertSame(created[1], circuitBreakers.getFailed().get(0));
+        assertEquals(Object.class.getName(), created[1].getDecorator());
+    }
+}
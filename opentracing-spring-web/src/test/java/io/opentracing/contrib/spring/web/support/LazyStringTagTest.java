@@ -0,0 +1,69 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.net.URI;
+
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientRequest;
+
+import io.opentracing.Span;
+import io.opentracing.contrib.spring.web.client.RestTemplateSpanDecorator;
+import io.opentracing.contrib.spring.web.client.WebClientSpanDecorator;
+import io.opentracing.contrib.spring.web.webfilter.WebFluxSpanDecorator;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.tag.Tags;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class LazyStringTagTest {
+
+    private static final URI URL = URI.create("http://localhost:8080/orders?page=1");
+
+    private final MockTracer tracer = new MockTracer();
+
+    @Test
+    public void testSameTagValue() {
+        MockSpan restTemplateSpan = tracer.buildSpan("GET").start();
+        new RestTemplateSpanDecorator.StandardTags(true).onRequest(new MockClientHttpRequest(HttpMethod.GET, URL),
+                restTemplateSpan);
+        assertEquals(URL.toString(), restTemplateSpan.tags().get(Tags.HTTP_URL.getKey()));
+
+        MockSpan webClientSpan = tracer.buildSpan("GET").start();
+        new WebClientSpanDecorator.StandardTags(true).onRequest(ClientRequest.create(HttpMethod.GET, URL).build(),
+                webClientSpan);
+        assertEquals(URL.toString(), webClientSpan.tags().get(Tags.HTTP_URL.getKey()));
+
+        MockSpan webFluxSpan = tracer.buildSpan("GET").start();
+        new WebFluxSpanDecorator.StandardTags(true).onRequest(
+                MockServerWebExchange.from(MockServerHttpRequest.get(URL.toString())), webFluxSpan);
+        assertEquals(URL.toString(), webFluxSpan.tags().get(Tags.HTTP_URL.getKey()));
+    }
+
+    @Test
+    public void testValuePassedAsObject() {
+        Span span = mock(Span.class);
+        new RestTemplateSpanDecorator.StandardTags(true).onRequest(new MockClientHttpRequest(HttpMethod.GET, URL), span);
+        verify(span).setTag(LazyStringTag.HTTP_URL, URL);
+        verify(span, never()).setTag(Tags.HTTP_URL.getKey(), URL.toString());
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LogHistogramTest {
+
+    @Test
+    public void testBuckets() {
+        long previousUpperBound = -1;
+        for (long value = 0; value < 100_000; value++) {
+            int index = LogHistogram.index(value);
+            long upperBound = LogHistogram.upperBound(index);
+            assertTrue(value <= upperBound);
+            assertTrue(upperBound >= previousUpperBound);
+            // relative error of the upper bound
+            assertTrue(upperBound - value <= value / 4 + 1);
+            previousUpperBound = upperBound;
+        }
+        assertEquals(Long.MAX_VALUE, LogHistogram.upperBound(LogHistogram.index(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LogHistogram histogram = new LogHistogram();
+        assertEquals(0, histogram.getPercentile(0.5));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        histogram.record(-1);
+
+        assertEquals(1001, histogram.getCount());
+        long p50 = histogram.getPercentile(0.5);
+        long p99 = histogram.getPercentile(0.99);
+        assertTrue(String.valueOf(p50), p50 >= 500_000 && p50 <= 625_000);
+        assertTrue(String.valueOf(p99), p99 >= 990_000 && p99 <= 1_250_000);
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OverloadProtectionTest {
+
+    @Test
+    public void testLevels() {
+        OverloadProtection protection = new OverloadProtection(2, 3, 4);
+        assertEquals(OverloadProtection.Level.NONE, protection.enter());
+        assertEquals(OverloadProtection.Level.REDUCED_TAGS, protection.enter());
+        assertEquals(OverloadProtection.Level.NO_LOGS, protection.enter());
+        assertEquals(OverloadProtection.Level.PROPAGATION_ONLY, protection.getLevel());
+        assertEquals(OverloadProtection.Level.PROPAGATION_ONLY, protection.enter());
+        assertEquals(OverloadProtection.Level.PROPAGATION_ONLY, protection.enter());
+        assertEquals(5, protection.getInFlight());
+
+        for (int i = 0; i < 5; i++) {
+            protection.exit();
+        }
+        assertEquals(0, protection.getInFlight());
+        assertEquals(OverloadProtection.Level.NONE, protection.getLevel());
+        assertEquals(1, protection.getRequests(OverloadProtection.Level.NONE));
+        assertEquals(1, protection.getRequests(OverloadProtection.Level.REDUCED_TAGS));
+        assertEquals(1, protection.getRequests(OverloadProtection.Level.NO_LOGS));
+        assertEquals(2, protection.getRequests(OverloadProtection.Level.PROPAGATION_ONLY));
+    }
+
+    @Test
+    public void testEqualThresholdsSkipLevels() {
+        OverloadProtection protection = new OverloadProtection(1, 1, 2);
+        assertEquals(OverloadProtection.Level.NO_LOGS, protection.enter());
+        assertEquals(OverloadProtection.Level.PROPAGATION_ONLY, protection.enter());
+    }
+
+    @Test
+    public void testKeepContinuedTrace() {
+        OverloadProtection protection = new OverloadProtection(1, 1, 1);
+        assertEquals(OverloadProtection.Level.PROPAGATION_ONLY, protection.enter());
+        assertTrue(protection.keepContinuedTrace());
+        assertEquals(0, protection.getRequests(OverloadProtection.Level.PROPAGATION_ONLY));
+        assertEquals(1, protection.getRequests(OverloadProtection.Level.NO_LOGS));
+
+        protection.setKeepContinuedTraces(false);
+        assertEquals(OverloadProtection.Level.PROPAGATION_ONLY, protection.enter());
+        assertFalse(protection.keepContinuedTrace());
+        assertEquals(1, protection.getRequests(OverloadProtection.Level.PROPAGATION_ONLY));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecreasingThresholds() {
+        new OverloadProtection(10, 5, 20);
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import io.opentracing.Span;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.util.ThreadLocalScopeManager;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ReactorScopesTest {
+
+    private final MockTracer tracer = new MockTracer(new ThreadLocalScopeManager());
+
+    @Test
+    public void testActivatesContextSpan() {
+        MockSpan span = tracer.buildSpan("server").start();
+        AtomicReference<Span> upstreamSpan = new AtomicReference<>();
+        AtomicReference<Span> downstreamSpan = new AtomicReference<>();
+
+        Mono.just("order")
+                .publishOn(Schedulers.parallel())
+                .doOnNext(order -> upstreamSpan.set(tracer.activeSpan()))
+                .transform(ReactorScopes.activateSpan(tracer))
+                .doOnNext(order -> downstreamSpan.set(tracer.activeSpan()))
+                .subscriberContext(context -> context.put(Span.class, span))
+                .block();
+
+        assertNull(upstreamSpan.get());
+        assertSame(span, downstreamSpan.get());
+        assertNull(tracer.activeSpan());
+    }
+
+    @Test
+    public void testWithoutContextSpan() {
+        AtomicReference<Span> downstreamSpan = new AtomicReference<>();
+
+        Mono.just("order")
+                .transform(ReactorScopes.activateSpan(tracer))
+                .doOnNext(order -> downstreamSpan.set(tracer.activeSpan()))
+                .block();
+
+        assertNull(downstreamSpan.get());
+    }
+}
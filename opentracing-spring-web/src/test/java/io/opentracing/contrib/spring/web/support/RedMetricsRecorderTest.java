@@ -0,0 +1,307 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.util.NestedServletException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentracing.contrib.spring.web.client.RestTemplateSpanDecorator;
+import io.opentracing.contrib.spring.web.client.TracingExchangeFilterFunction;
+import io.opentracing.contrib.spring.web.client.TracingRestTemplateInterceptor;
+import io.opentracing.contrib.spring.web.servlet.TracingServletFilter;
+import io.opentracing.contrib.spring.web.webfilter.TracingWebFilter;
+import io.opentracing.contrib.web.servlet.filter.ServletFilterSpanDecorator;
+import io.opentracing.mock.MockTracer;
+import reactor.core.publisher.Mono;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RedMetricsRecorderTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final RedMetricsRecorder recorder = new RedMetricsRecorder(registry);
+
+    @Test
+    public void testRecordServer() {
+        recorder.recordServer("GET", "/users/{id}", 200, null, System.nanoTime() - 1_000_000);
+        recorder.recordServer("GET", "/users/{id}", 500, new IllegalStateException(), System.nanoTime());
+
+        Timer success = registry.find(RedMetricsRecorder.SERVER_REQUESTS)
+                .tags("method", "GET", "uri", "/users/{id}", "status", "200", "outcome", "SUCCESS",
+                        "exception", "None")
+                .timer();
+        assertNotNull(success);
+        assertEquals(1, success.count());
+        assertTrue(success.totalTime(TimeUnit.NANOSECONDS) >= 1_000_000);
+
+        Timer error = registry.find(RedMetricsRecorder.SERVER_REQUESTS)
+                .tags("status", "500", "outcome", "SERVER_ERROR", "exception", "IllegalStateException")
+                .timer();
+        assertNotNull(error);
+        assertEquals(1, error.count());
+    }
+
+    @Test
+    public void testRecordClientUnknown() {
+        recorder.recordClient("POST", null, 0, new RuntimeException(), System.nanoTime());
+
+        Timer timer = registry.find(RedMetricsRecorder.CLIENT_REQUESTS)
+                .tags("method", "POST", "clientName", "UNKNOWN", "status", "UNKNOWN", "outcome", "UNKNOWN")
+                .timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    public void testCachesTimers() {
+        recorder.recordServer("GET", "/users/{id}", 200, null, System.nanoTime());
+        Timer timer = registry.find(RedMetricsRecorder.SERVER_REQUESTS).timer();
+        recorder.recordServer("GET", "/users/{id}", 200, null, System.nanoTime());
+
+        assertSame(timer, registry.find(RedMetricsRecorder.SERVER_REQUESTS).timer());
+        assertEquals(2, timer.count());
+        assertEquals(1, registry.getMeters().size());
+    }
+
+    @Test
+    public void testServerExceptionWithoutErrorStatus() {
+        recorder.recordServer("GET", null, 200, new IllegalStateException(), System.nanoTime());
+        recorder.recordServer("GET", null, 404, null, System.nanoTime());
+
+        assertNotNull(registry.find(RedMetricsRecorder.SERVER_REQUESTS)
+                .tags("uri", "UNKNOWN", "status", "500", "outcome", "SERVER_ERROR", "exception", "IllegalStateException")
+                .timer());
+        assertNotNull(registry.find(RedMetricsRecorder.SERVER_REQUESTS)
+                .tags("uri", "NOT_FOUND", "status", "404", "outcome", "CLIENT_ERROR")
+                .timer());
+    }
+
+    @Test
+    public void testRecordServerCancelled() {
+        recorder.recordServerCancelled("GET", null, System.nanoTime());
+
+        Timer cancelled = registry.find(RedMetricsRecorder.SERVER_REQUESTS)
+                .tags("uri", "UNKNOWN", "status", "UNKNOWN", "outcome", "UNKNOWN",
+                        "exception", RedMetricsRecorder.CANCELLED)
+                .timer();
+        assertNotNull(cancelled);
+        assertEquals(1, cancelled.count());
+    }
+
+    @Test
+    public void testWebFilter() {
+        MockTracer tracer = new MockTracer();
+        TracingWebFilter filter = new TracingWebFilter(tracer, 0, Pattern.compile("/health"),
+                Collections.emptyList(), Collections.emptyList());
+        filter.setRedMetricsRecorder(recorder);
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/users/1"));
+        filter.filter(exchange, serverWebExchange -> {
+            serverWebExchange.getAttributes().put(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/users/{id}");
+            return Mono.empty();
+        }).block();
+
+        MockServerWebExchange failing = MockServerWebExchange.from(MockServerHttpRequest.get("/users/2"));
+        try {
+            filter.filter(failing, serverWebExchange -> Mono.error(new IllegalStateException())).block();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/health")),
+                serverWebExchange -> Mono.empty()).block();
+
+        Timer success = registry.find(RedMetricsRecorder.SERVER_REQUESTS)
+                .tags("uri", "/users/{id}", "status", "200", "outcome", "SUCCESS")
+                .timer();
+        assertNotNull(success);
+        assertEquals(1, success.count());
+        Timer error = registry.find(RedMetricsRecorder.SERVER_REQUESTS)
+                .tags("status", "500", "outcome", "SERVER_ERROR", "exception", "IllegalStateException")
+                .timer();
+        assertNotNull(error);
+        assertEquals(1, error.count());
+        Timer untraced = registry.find(RedMetricsRecorder.SERVER_REQUESTS)
+                .tags("uri", "UNKNOWN", "status", "200")
+                .timer();
+        assertNotNull(untraced);
+        assertEquals(1, untraced.count());
+        assertEquals(2, tracer.finishedSpans().size());
+    }
+
+    @Test
+    public void testWebFilterRecordsCancelledExchanges() {
+        TracingWebFilter filter = new TracingWebFilter(new MockTracer(), 0, Pattern.compile("/health"),
+                Collections.emptyList(), Collections.emptyList());
+        filter.setRedMetricsRecorder(recorder);
+
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/users/1")),
+                serverWebExchange -> Mono.never()).subscribe().dispose();
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/health")),
+                serverWebExchange -> Mono.never()).subscribe().dispose();
+
+        Timer cancelled = registry.find(RedMetricsRecorder.SERVER_REQUESTS)
+                .tags("status", "UNKNOWN", "outcome", "UNKNOWN", "exception", RedMetricsRecorder.CANCELLED)
+                .timer();
+        assertNotNull(cancelled);
+        assertEquals(2, cancelled.count());
+    }
+
+    @Test
+    public void testWebFilterRecordsCancelledExchangesUnderOverload() {
+        TracingWebFilter filter = new TracingWebFilter(new MockTracer(), 0, Pattern.compile("/health"),
+                Collections.emptyList(), Collections.emptyList());
+        filter.setRedMetricsRecorder(recorder);
+        OverloadProtection protection = new OverloadProtection(1, 1, 1);
+        filter.setOverloadProtection(protection);
+
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/users/1")),
+                serverWebExchange -> Mono.never()).subscribe().dispose();
+
+        Timer cancelled = registry.find(RedMetricsRecorder.SERVER_REQUESTS)
+                .tags("status", "UNKNOWN", "outcome", "UNKNOWN", "exception", RedMetricsRecorder.CANCELLED)
+                .timer();
+        assertNotNull(cancelled);
+        assertEquals(1, cancelled.count());
+        assertEquals(1, protection.getRequests(OverloadProtection.Level.PROPAGATION_ONLY));
+        assertEquals(0, protection.getInFlight());
+    }
+
+    @Test
+    public void testServletFilterRecordsAsyncRequestOnce() throws Exception {
+        TracingServletFilter filter = new TracingServletFilter(new MockTracer(),
+                Collections.<ServletFilterSpanDecorator>emptyList(), null);
+        filter.setRedMetricsRecorder(recorder);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, response, (servletRequest, servletResponse) -> servletRequest.startAsync());
+        assertNull(registry.find(RedMetricsRecorder.SERVER_REQUESTS).timer());
+
+        request.setAttribute(org.springframework.web.servlet.HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+                "/users/{id}");
+        request.getAsyncContext().complete();
+
+        Timer timer = registry.find(RedMetricsRecorder.SERVER_REQUESTS)
+                .tags("uri", "/users/{id}", "status", "200")
+                .timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    public void testServletFilterRecordsUntracedRequests() throws Exception {
+        MockTracer tracer = new MockTracer();
+        TracingServletFilter filter = new TracingServletFilter(tracer,
+                Collections.<ServletFilterSpanDecorator>emptyList(), Pattern.compile("/health"));
+        filter.setRedMetricsRecorder(recorder);
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/health"), new MockHttpServletResponse(),
+                new MockFilterChain());
+
+        assertTrue(tracer.finishedSpans().isEmpty());
+        Timer timer = registry.find(RedMetricsRecorder.SERVER_REQUESTS).tags("status", "200").timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    public void testServletFilterRecordsExceptionAsServerError() throws Exception {
+        TracingServletFilter filter = new TracingServletFilter(new MockTracer(),
+                Collections.<ServletFilterSpanDecorator>emptyList(), null);
+        filter.setRedMetricsRecorder(recorder);
+        try {
+            filter.doFilter(new MockHttpServletRequest("GET", "/users/1"), new MockHttpServletResponse(),
+                    (servletRequest, servletResponse) -> {
+                        throw new NestedServletException("failed", new IllegalStateException());
+                    });
+            fail();
+        } catch (NestedServletException expected) {
+        }
+
+        assertNotNull(registry.find(RedMetricsRecorder.SERVER_REQUESTS)
+                .tags("status", "500", "outcome", "SERVER_ERROR", "exception", "IllegalStateException")
+                .timer());
+    }
+
+    @Test
+    public void testRestTemplateInterceptor() throws Exception {
+        TracingRestTemplateInterceptor interceptor = new TracingRestTemplateInterceptor(new MockTracer(),
+                Collections.<RestTemplateSpanDecorator>emptyList());
+        interceptor.setRedMetricsRecorder(recorder);
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET, URI.create("http://example.com/a"));
+
+        interceptor.intercept(request, new byte[0],
+                (httpRequest, body) -> new MockClientHttpResponse(new byte[0], HttpStatus.OK));
+
+        Timer timer = registry.find(RedMetricsRecorder.CLIENT_REQUESTS)
+                .tags("method", "GET", "clientName", "example.com", "status", "200", "outcome", "SUCCESS")
+                .timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    public void testExchangeFilterFunction() {
+        TracingExchangeFilterFunction function = new TracingExchangeFilterFunction(new MockTracer(),
+                Collections.emptyList());
+        function.setRedMetricsRecorder(recorder);
+        ClientRequest request = ClientRequest.create(HttpMethod.POST, URI.create("http://example.com/a")).build();
+
+        function.filter(request, clientRequest -> Mono.just(ClientResponse.create(HttpStatus.CREATED).build()))
+                .block();
+        try {
+            function.filter(request, clientRequest -> Mono.error(new IllegalStateException())).block();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+
+        Timer success = registry.find(RedMetricsRecorder.CLIENT_REQUESTS)
+                .tags("method", "POST", "clientName", "example.com", "status", "201")
+                .timer();
+        assertNotNull(success);
+        assertEquals(1, success.count());
+        Timer error = registry.find(RedMetricsRecorder.CLIENT_REQUESTS)
+                .tags("status", "UNKNOWN", "exception", "IllegalStateException")
+                .timer();
+        assertNotNull(error);
+        assertEquals(1, error.count());
+        assertTrue(success.totalTime(TimeUnit.NANOSECONDS) > 0);
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class RefreshableSkipPatternTest {
+
+    @Test
+    public void testUpdate() {
+        RefreshableSkipPattern skipPattern = new RefreshableSkipPattern(Pattern.compile("/health"));
+        AtomicInteger updates = new AtomicInteger();
+        skipPattern.addUpdateListener(updates::incrementAndGet);
+        SkipPatternMatcher initial = skipPattern.get();
+        assertTrue(initial.matches("/health"));
+
+        skipPattern.update(Pattern.compile("/noisy/.*"));
+
+        assertNotSame(initial, skipPattern.get());
+        assertFalse(skipPattern.get().matches("/health"));
+        assertTrue(skipPattern.get().matches("/noisy/endpoint"));
+        assertEquals("/noisy/.*", skipPattern.toString());
+        assertEquals(1, updates.get());
+    }
+
+    @Test
+    public void testUpdateToEmpty() {
+        RefreshableSkipPattern skipPattern = new RefreshableSkipPattern(Pattern.compile("/health"));
+        skipPattern.update(null);
+        assertTrue(skipPattern.get().isEmpty());
+    }
+
+    @Test
+    public void testListenerAddedOnce() {
+        RefreshableSkipPattern skipPattern = new RefreshableSkipPattern(Pattern.compile("/health"));
+        AtomicInteger updates = new AtomicInteger();
+        Runnable listener = updates::incrementAndGet;
+        skipPattern.addUpdateListener(listener);
+        skipPattern.addUpdateListener(listener);
+
+        skipPattern.update(Pattern.compile("/noisy"));
+        assertEquals(1, updates.get());
+
+        skipPattern.removeUpdateListener(listener);
+        skipPattern.update(Pattern.compile("/health"));
+        assertEquals(1, updates.get());
+    }
+}
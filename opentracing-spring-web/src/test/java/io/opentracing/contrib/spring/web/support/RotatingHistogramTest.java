@@ -0,0 +1,57 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class RotatingHistogramTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final RotatingHistogram histogram = new RotatingHistogram(1, TimeUnit.SECONDS, nanos::get);
+
+    @Test
+    public void testOldValuesAgeOut() {
+        histogram.record(1_000_000);
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1500));
+        histogram.record(10);
+
+        // the first value is in the previous window
+        assertEquals(2, histogram.getCount());
+        assertEquals(LogHistogram.upperBound(LogHistogram.index(1_000_000)), histogram.getPercentile(0.99));
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertEquals(1, histogram.getCount());
+        assertEquals(LogHistogram.upperBound(LogHistogram.index(10)), histogram.getPercentile(0.99));
+    }
+
+    @Test
+    public void testIdleDiscardsBothWindows() {
+        histogram.record(10);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(0.5));
+    }
+
+    @Test
+    public void testReset() {
+        histogram.record(10);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+    }
+}
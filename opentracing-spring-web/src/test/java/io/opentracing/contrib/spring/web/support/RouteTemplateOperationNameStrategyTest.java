@@ -0,0 +1,69 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RouteTemplateOperationNameStrategyTest {
+
+    public static class Controller {
+        public String order(String id) {
+            return id;
+        }
+    }
+
+    private static final Controller CONTROLLER = new Controller();
+
+    /**
+     * Like MVC, creates a new handler method for the same bean on every call.
+     */
+    private static HandlerMethod handlerMethod() throws NoSuchMethodException {
+        Method method = Controller.class.getMethod("order", String.class);
+        return new HandlerMethod(CONTROLLER, method);
+    }
+
+    @Test
+    public void testRouteTemplateName() throws Exception {
+        RouteTemplateOperationNameStrategy strategy = new RouteTemplateOperationNameStrategy();
+        HandlerMethod handler = handlerMethod();
+        assertEquals("GET /orders/{id}", strategy.operationName("GET", handler, "/orders/{id}"));
+        assertEquals("DELETE /orders/{id}", strategy.operationName("DELETE", handler, "/orders/{id}"));
+        assertEquals("PURGE /orders/{id}", strategy.operationName("PURGE", handler, "/orders/{id}"));
+        assertNull(strategy.operationName("GET", handler, null));
+    }
+
+    @Test
+    public void testNamesAreCached() throws Exception {
+        RouteTemplateOperationNameStrategy strategy = new RouteTemplateOperationNameStrategy();
+        String name = strategy.operationName("GET", handlerMethod(), "/orders/{id}");
+        assertSame(name, strategy.operationName("GET", handlerMethod(), "/orders/{id}"));
+    }
+
+    @Test
+    public void testBounded() throws Exception {
+        RouteTemplateOperationNameStrategy strategy = new RouteTemplateOperationNameStrategy(1);
+        strategy.operationName("GET", handlerMethod(), "/orders/{id}");
+        Object other = new Object();
+        String name = strategy.operationName("GET", other, "/other");
+        assertEquals("GET /other", name);
+        assertEquals(name, strategy.operationName("GET", other, "/other"));
+    }
+}
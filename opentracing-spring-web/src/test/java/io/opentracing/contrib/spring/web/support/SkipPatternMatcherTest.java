@@ -0,0 +1,78 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SkipPatternMatcherTest {
+
+    private static final List<String> PATTERNS = Arrays.asList(
+            "/api-docs.*|/swagger.*|.*\\.png|.*\\.css|.*\\.js|.*\\.html|/favicon.ico|/hystrix.stream",
+            "/actuator/(info|info/.*|health|health/.*)",
+            "/(info|info/.*|health|health/.*)|/api-docs.*",
+            "/management.*",
+            "/skip",
+            ".*",
+            "/a(b|c)*d|/x[|(]y|/z\\.\\*",
+            "(?i)/upper.*|/lower.*",
+            "/(a|b)(c|d)/.*\\.txt",
+            "/\\d+/item|/[a-z]+/list",
+            "/back(ref)\\1"
+    );
+
+    private static final List<String> PATHS = Arrays.asList(
+            "", "/", "/api-docs", "/api-docs/v2", "/swagger-ui.html", "/img/logo.png", "/logo.pngx", "/style.css",
+            "/favicon.ico", "/faviconXico", "/hystrix.stream", "/actuator/info", "/actuator/info/x",
+            "/actuator/health", "/actuator/healthz", "/actuator/health/db", "/info", "/health/", "/management",
+            "/management/env", "/skip", "/skip/", "/abcd", "/ad", "/x|y", "/x(y", "/z.*", "/zz*", "/UPPER/x",
+            "/lower/x", "/LOWER", "/ac/a.txt", "/bd/b/c.txt", "/ad/a.txt", "/123/item", "/abc/list",
+            "/ABC/list", "/backrefref", "/hello", "/hello\n.png", "/api-docs\nx", "/img/ .css"
+    );
+
+    @Test
+    public void testMatchesLikeRegex() {
+        for (String regex : PATTERNS) {
+            Pattern pattern = Pattern.compile(regex);
+            SkipPatternMatcher matcher = SkipPatternMatcher.compile(pattern);
+            for (String path : PATHS) {
+                assertEquals(regex + " on " + path, pattern.matcher(path).matches(), matcher.matches(path));
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesLikeRegexWithFlags() {
+        Pattern pattern = Pattern.compile("/upper.*|/lower.*", Pattern.CASE_INSENSITIVE);
+        SkipPatternMatcher matcher = SkipPatternMatcher.compile(pattern);
+        for (String path : PATHS) {
+            assertEquals(path, pattern.matcher(path).matches(), matcher.matches(path));
+        }
+    }
+
+    @Test
+    public void testEmptyPattern() {
+        assertTrue(SkipPatternMatcher.compile(null).isEmpty());
+        assertTrue(SkipPatternMatcher.compile(Pattern.compile("")).isEmpty());
+        assertFalse(SkipPatternMatcher.compile(Pattern.compile("")).matches(""));
+        assertFalse(SkipPatternMatcher.compile(Pattern.compile("/skip")).isEmpty());
+    }
+}
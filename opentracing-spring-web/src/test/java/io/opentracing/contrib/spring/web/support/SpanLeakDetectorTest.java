@@ -0,0 +1,92 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SpanLeakDetectorTest {
+
+    private final MockTracer mockTracer = new MockTracer();
+    private final TracingStats stats = new TracingStats();
+    private SpanLeakDetector detector;
+
+    @Before
+    public void before() {
+        detector = new SpanLeakDetector(50, TimeUnit.MILLISECONDS);
+        detector.setTracingStats(stats);
+    }
+
+    @After
+    public void after() {
+        detector.close();
+    }
+
+    @Test
+    public void testFinishesLeakedSpan() {
+        AtomicBoolean onLeak = new AtomicBoolean();
+        detector.track(mockTracer.buildSpan("leaked").start(), () -> onLeak.set(true));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> mockTracer.finishedSpans().size() == 1);
+        MockSpan span = mockTracer.finishedSpans().get(0);
+        assertEquals(true, span.tags().get(SpanLeakDetector.LEAKED_TAG));
+        assertTrue(onLeak.get());
+        assertEquals(1, detector.getLeakedSpans());
+        assertEquals(1, stats.getSpansLeaked());
+        assertEquals(1, stats.getSpansFinished());
+    }
+
+    @Test
+    public void testCompletedSpanIsNotLeaked() throws InterruptedException {
+        MockSpan span = mockTracer.buildSpan("completed").start();
+        SpanLeakDetector.Handle handle = detector.track(span, () -> {
+            throw new AssertionError("span has been completed");
+        });
+        assertTrue(handle.complete());
+        assertFalse(handle.complete());
+        span.finish();
+
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(1, mockTracer.finishedSpans().size());
+        assertNull(span.tags().get(SpanLeakDetector.LEAKED_TAG));
+        assertEquals(0, detector.getLeakedSpans());
+    }
+
+    @Test
+    public void testLeakedSpanCannotBeCompleted() {
+        SpanLeakDetector.Handle handle = detector.track(mockTracer.buildSpan("leaked").start(), null);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> detector.getLeakedSpans() == 1);
+        assertFalse(handle.complete());
+        assertEquals(1, mockTracer.finishedSpans().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTimeout() {
+        new SpanLeakDetector(0, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.support;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TraceDecisionTest {
+
+    @Test
+    public void testRateLimiter() {
+        RateLimiter rateLimiter = new RateLimiter(2, 2);
+        long now = System.nanoTime();
+        assertTrue(rateLimiter.tryAcquire(now));
+        assertTrue(rateLimiter.tryAcquire(now));
+        assertFalse(rateLimiter.tryAcquire(now));
+        assertFalse(rateLimiter.tryAcquire(now + TimeUnit.MILLISECONDS.toNanos(400)));
+        assertTrue(rateLimiter.tryAcquire(now + TimeUnit.MILLISECONDS.toNanos(600)));
+        assertFalse(rateLimiter.tryAcquire(now + TimeUnit.MILLISECONDS.toNanos(600)));
+        // idle time does not accumulate more than the burst
+        long later = now + TimeUnit.SECONDS.toNanos(10);
+        assertTrue(rateLimiter.tryAcquire(later));
+        assertTrue(rateLimiter.tryAcquire(later));
+        assertFalse(rateLimiter.tryAcquire(later));
+    }
+
+    @Test
+    public void testProbabilistic() {
+        TraceDecision never = TraceDecision.probabilistic(0);
+        TraceDecision always = TraceDecision.probabilistic(1);
+        for (int i = 0; i < 100; i++) {
+            assertFalse(never.shouldTrace("GET", "/"));
+            assertTrue(always.shouldTrace("GET", "/"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidProbability() {
+        TraceDecision.probabilistic(1.5);
+    }
+}
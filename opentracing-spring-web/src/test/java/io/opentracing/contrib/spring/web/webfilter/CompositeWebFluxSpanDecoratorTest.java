@@ -0,0 +1,87 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.webfilter;
+
+import io.opentracing.Span;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreakers;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CompositeWebFluxSpanDecoratorTest {
+
+    @Mock
+    private ServerWebExchange exchange;
+
+    @Mock
+    private Span span;
+
+    @Mock
+    private WebFluxSpanDecorator first;
+
+    @Mock
+    private WebFluxSpanDecorator second;
+
+    @Test
+    public void testFailingDecoratorDoesNotStopOthers() {
+        final RuntimeException exception = new RuntimeException("decorator failure");
+        doThrow(exception).when(first).onRequest(any(), any());
+        doThrow(exception).when(first).onResponse(any(), any());
+        doThrow(exception).when(first).onError(any(), any(), any());
+
+        final CompositeWebFluxSpanDecorator composite = new CompositeWebFluxSpanDecorator(Arrays.asList(first, second));
+        composite.onRequest(exchange, span);
+        composite.onResponse(exchange, span);
+        composite.onError(exchange, exception, span);
+
+        final InOrder inOrder = inOrder(first, second);
+        inOrder.verify(first).onRequest(exchange, span);
+        inOrder.verify(second).onRequest(exchange, span);
+        inOrder.verify(first).onResponse(exchange, span);
+        inOrder.verify(second).onResponse(exchange, span);
+        inOrder.verify(first).onError(exchange, exception, span);
+        inOrder.verify(second).onError(exchange, exception, span);
+    }
+
+    @Test
+    public void testSkipsDecoratorDisabledByItsCircuitBreaker() {
+        doThrow(new RuntimeException("decorator failure")).when(first).onRequest(any(), any());
+
+        final DecoratorCircuitBreakers circuitBreakers = new DecoratorCircuitBreakers(2, 60_000);
+        final CompositeWebFluxSpanDecorator composite =
+                new CompositeWebFluxSpanDecorator(Arrays.asList(first, second), circuitBreakers);
+        for (int i = 0; i < 3; i++) {
+            composite.onRequest(exchange, span);
+        }
+
+        verify(first, times(2)).onRequest(exchange, span);
+        verify(second, times(3)).onRequest(exchange, span);
+        assertEquals(1, circuitBreakers.getFailed().size());
+        assertTrue(circuitBreakers.getFailed().get(0).isOpen());
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.webfilter;
+
+import io.opentracing.propagation.TextMap;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.util.ArrayList;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class HttpHeadersEntryViewTest {
+
+    private static HttpHeaders headers() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.add("Accept", "text/plain");
+        headers.put("Empty", Collections.emptyList());
+        headers.add("uber-trace-id", "1:2:0:1");
+        headers.add("X-Multi", "a");
+        headers.add("X-Multi", "b");
+        return headers;
+    }
+
+    private static List<Map.Entry<String, String>> copy(final TextMap textMap) {
+        final List<Map.Entry<String, String>> entries = new ArrayList<>();
+        for (final Map.Entry<String, String> entry : textMap) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+        }
+        return entries;
+    }
+
+    @Test
+    public void testEntryViewMatchesExtractAdapter() {
+        final HttpHeaders headers = headers();
+        assertEquals(copy(new HttpHeadersExtractAdapter(headers)), copy(new HttpHeadersEntryView(headers, null)));
+    }
+
+    @Test
+    public void testIterableTwice() {
+        final HttpHeadersEntryView view = new HttpHeadersEntryView(headers(), null);
+        assertEquals(copy(view), copy(view));
+    }
+
+    @Test
+    public void testKeyedLookup() {
+        final List<Map.Entry<String, String>> entries = copy(
+                new HttpHeadersEntryView(headers(), new String[]{"Uber-Trace-Id", "x-multi", "missing", "empty"}));
+        assertEquals(Arrays.asList(
+                new AbstractMap.SimpleImmutableEntry<>("Uber-Trace-Id", "1:2:0:1"),
+                new AbstractMap.SimpleImmutableEntry<>("x-multi", "a"),
+                new AbstractMap.SimpleImmutableEntry<>("x-multi", "b"),
+                new AbstractMap.SimpleImmutableEntry<>("empty", null)), entries);
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.webfilter;
+
+import io.opentracing.contrib.spring.web.support.RefreshableSkipPattern;
+import io.opentracing.mock.MockTracer;
+import org.junit.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PathDecisionCacheTest {
+
+    @Test
+    public void testHitsAndMisses() {
+        final PathDecisionCache cache = new PathDecisionCache(10);
+        assertNull(cache.get("/api/orders"));
+        cache.put("/api/orders", PathDecision.TRACED);
+        assertEquals(PathDecision.TRACED, cache.get("/api/orders"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testBounded() {
+        final PathDecisionCache cache = new PathDecisionCache(3);
+        for (int i = 0; i < 10; i++) {
+            cache.put("/path" + (char) ('a' + i), PathDecision.TRACED);
+        }
+        assertEquals(3, cache.size());
+        assertEquals(PathDecision.TRACED, cache.get("/patha"));
+        assertNull(cache.get("/pathj"));
+
+        cache.put("/patha", PathDecision.TRACED);
+        assertEquals(3, cache.size());
+
+        cache.clear();
+        cache.put("/pathj", PathDecision.TRACED);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testBoundedUnderConcurrentPuts() throws Exception {
+        final PathDecisionCache cache = new PathDecisionCache(50);
+        final int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final String prefix = "/thread" + (char) ('a' + t) + "/path";
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 1000; i++) {
+                        cache.put(prefix + Integer.toString(i, 26).replaceAll("[0-9]", "x"), PathDecision.TRACED);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(50, cache.size());
+    }
+
+    @Test
+    public void testIdentifiersAreNotCached() {
+        assertTrue(PathDecisionCache.isCacheable("/api/orders"));
+        assertTrue(PathDecisionCache.isCacheable("/api/v2/orders/"));
+        assertTrue(PathDecisionCache.isCacheable("/api/feed"));
+        assertFalse(PathDecisionCache.isCacheable("/api/orders/12345"));
+        assertFalse(PathDecisionCache.isCacheable("/api/orders/123e4567-e89b-12d3-a456-426614174000/items"));
+        assertFalse(PathDecisionCache.isCacheable("/objects/5f2b1c9e8a7d6e4f3a2b"));
+
+        final PathDecisionCache cache = new PathDecisionCache(10);
+        cache.put("/api/orders/12345", PathDecision.TRACED);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testFilterUsesCache() {
+        final TracingWebFilter filter = new TracingWebFilter(new MockTracer(), 0, Pattern.compile("/health"),
+                Collections.singletonList("/api/**"), Collections.emptyList());
+        final PathDecisionCache cache = new PathDecisionCache(10);
+        filter.setPathDecisionCache(cache);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(filter.shouldBeTraced(MockServerHttpRequest.get("/api/orders").build()));
+            assertFalse(filter.shouldBeTraced(MockServerHttpRequest.get("/health").build()));
+            assertFalse(filter.shouldBeTraced(MockServerHttpRequest.get("/other").build()));
+        }
+        assertEquals(3, cache.size());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(6, cache.getHitCount());
+    }
+
+    @Test
+    public void testSkipPatternUpdateClearsCache() {
+        final TracingWebFilter filter = new TracingWebFilter(new MockTracer(), 0, null,
+                Collections.emptyList(), Collections.emptyList());
+        final PathDecisionCache cache = new PathDecisionCache(10);
+        filter.setPathDecisionCache(cache);
+        final RefreshableSkipPattern skipPattern = new RefreshableSkipPattern(Pattern.compile("/health"));
+        filter.setSkipPattern(skipPattern);
+
+        assertTrue(filter.shouldBeTraced(MockServerHttpRequest.get("/api/noisy").build()));
+        assertFalse(filter.shouldBeTraced(MockServerHttpRequest.get("/health").build()));
+        assertEquals(2, cache.size());
+
+        skipPattern.update(Pattern.compile("/api/noisy"));
+        assertEquals(0, cache.size());
+        assertFalse(filter.shouldBeTraced(MockServerHttpRequest.get("/api/noisy").build()));
+        assertTrue(filter.shouldBeTraced(MockServerHttpRequest.get("/health").build()));
+    }
+}
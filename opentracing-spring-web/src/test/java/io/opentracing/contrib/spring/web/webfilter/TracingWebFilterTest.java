@@ -0,0 +1,446 @@
+/**
+ * Copyright 2016-2020 The OpenTracing Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.opentracing.contrib.spring.web.webfilter;
+
+import io.opentracing.References;
+import io.opentracing.Span;
+import io.opentracing.contrib.spring.web.client.TracingExchangeFilterFunction;
+import io.opentracing.contrib.spring.web.client.WebClientSpanDecorator;
+import io.opentracing.contrib.spring.web.support.ContextPropagation;
+import io.opentracing.contrib.spring.web.support.DecoratorCircuitBreakers;
+import io.opentracing.contrib.spring.web.support.OverloadProtection;
+import io.opentracing.contrib.spring.web.support.PropagationOnlySpan;
+import io.opentracing.contrib.spring.web.support.SpanLeakDetector;
+import io.opentracing.contrib.spring.web.support.TraceDecision;
+import io.opentracing.contrib.spring.web.support.TracingStats;
+import io.opentracing.mock.MockSpan;
+import io.opentracing.mock.MockTracer;
+import io.opentracing.tag.Tags;
+import io.opentracing.util.ThreadLocalScopeManager;
+import org.junit.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TracingWebFilterTest {
+
+    private final MockTracer tracer = new MockTracer(new ThreadLocalScopeManager());
+    private final AtomicReference<Span> contextSpan = new AtomicReference<>();
+    private final WebFilterChain chain = exchange -> Mono.subscriberContext()
+            .doOnNext(context -> contextSpan.set(context.getOrDefault(Span.class, null)))
+            .doOnNext(context -> exchange.getAttributes().put(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+                    new PathPatternParser().parse("/orders/{id}")))
+            .then();
+
+    private TracingWebFilter filter() {
+        return new TracingWebFilter(tracer, 0, Pattern.compile("/health"), Collections.emptyList(),
+                Collections.singletonList(new WebFluxSpanDecorator.StandardTags()));
+    }
+
+    @Test
+    public void testTracedRequest() {
+        final TracingWebFilter filter = filter();
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1")), chain).block();
+        assertEquals(1, tracer.finishedSpans().size());
+        assertEquals(tracer.finishedSpans().get(0).context().toSpanId(), contextSpan.get().context().toSpanId());
+    }
+
+    @Test
+    public void testStats() {
+        final TracingStats stats = new TracingStats();
+        final TracingWebFilter filter = new TracingWebFilter(tracer, 0, Pattern.compile("/health"),
+                Collections.singletonList("/orders/**"), Collections.emptyList());
+        filter.setPathDecisionCache(new PathDecisionCache(10));
+        filter.setTracingStats(stats);
+        for (int i = 0; i < 2; i++) {
+            filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1")), chain).block();
+            filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/health")), chain).block();
+            filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/other")), chain).block();
+        }
+        assertEquals(6, stats.getRequests());
+        assertEquals(2, stats.getSkippedBySkipPattern());
+        assertEquals(2, stats.getSkippedByUrlPatterns());
+        assertEquals(2, stats.getSpansStarted());
+        assertEquals(2, stats.getSpansFinished());
+        assertEquals(0, stats.getOpenSpans());
+        assertEquals(2, stats.getHistogram(TracingStats.Component.WEB_FILTER).getCount());
+    }
+
+    @Test
+    public void testStatsDisabledByDefault() {
+        final TracingWebFilter filter = filter();
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1")), chain).block();
+        assertEquals(1, tracer.finishedSpans().size());
+        assertEquals(0, TracingStats.DISABLED.getRequests());
+        assertEquals(0, TracingStats.DISABLED.getSpansStarted());
+        assertEquals(0, TracingStats.DISABLED.getHistogram(TracingStats.Component.WEB_FILTER).getCount());
+    }
+
+    @Test
+    public void testLeakedSpanIsFinished() {
+        final SpanLeakDetector detector = new SpanLeakDetector(50, TimeUnit.MILLISECONDS);
+        try {
+            final TracingWebFilter filter = filter();
+            filter.setSpanLeakDetector(detector);
+            final MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1"));
+            final Disposable subscription = filter.filter(exchange, e -> Mono.never()).subscribe();
+
+            await().atMost(5, TimeUnit.SECONDS).until(() -> tracer.finishedSpans().size() == 1);
+            assertEquals(true, tracer.finishedSpans().get(0).tags().get(SpanLeakDetector.LEAKED_TAG));
+            assertNull(exchange.getAttribute(TracingWebFilter.SERVER_SPAN_CONTEXT));
+
+            // cancelling the exchange later does not finish the span again
+            subscription.dispose();
+            assertEquals(1, tracer.finishedSpans().size());
+        } finally {
+            detector.close();
+        }
+    }
+
+    @Test
+    public void testContextOnlyPropagation() {
+        final AtomicReference<Span> activeSpan = new AtomicReference<>();
+        final TracingWebFilter filter = filter();
+        filter.setContextPropagation(ContextPropagation.CONTEXT_ONLY);
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1")),
+                exchange -> Mono.fromRunnable(() -> activeSpan.set(tracer.activeSpan())).then(chain.filter(exchange)))
+                .block();
+        assertEquals(1, tracer.finishedSpans().size());
+        assertNull(activeSpan.get());
+        assertEquals(tracer.finishedSpans().get(0).context().toSpanId(), contextSpan.get().context().toSpanId());
+    }
+
+    @Test
+    public void testUntracedRequestPropagatesContext() {
+        final AtomicReference<String> resolvedRoute = new AtomicReference<>();
+        final TracingWebFilter filter = filter();
+        filter.setTraceDecision(new TraceDecision() {
+            @Override
+            public boolean shouldTrace(final String method, final String path) {
+                return false;
+            }
+
+            @Override
+            public void onRouteResolved(final String method, final String path, final String route) {
+                resolvedRoute.set(route);
+            }
+        });
+
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1")
+                .header("traceid", "42")
+                .header("spanid", "7")), chain).block();
+
+        assertTrue(tracer.finishedSpans().isEmpty());
+        assertTrue(contextSpan.get() instanceof PropagationOnlySpan);
+        assertEquals("42", contextSpan.get().context().toTraceId());
+        assertEquals("/orders/{id}", resolvedRoute.get());
+    }
+
+    @Test
+    public void testUntracedRequestWithoutContext() {
+        final TracingWebFilter filter = filter();
+        filter.setTraceDecision((method, path) -> false);
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1")), chain).block();
+        assertTrue(tracer.finishedSpans().isEmpty());
+        assertEquals(PropagationOnlySpan.NO_CONTEXT, contextSpan.get());
+    }
+
+    @Test
+    public void testUntracedRequestWebClientPropagatesOnly() {
+        final AtomicReference<HttpHeaders> clientHeaders = new AtomicReference<>();
+        final WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    clientHeaders.set(request.headers());
+                    return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+                })
+                .filter(new TracingExchangeFilterFunction(tracer,
+                        Collections.singletonList(new WebClientSpanDecorator.StandardTags())))
+                .build();
+        final WebFilterChain clientChain = exchange -> webClient.get().uri("http://localhost/stock")
+                .exchange()
+                .then();
+        final TracingWebFilter filter = filter();
+        filter.setTraceDecision((method, path) -> false);
+
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1")
+                .header("traceid", "42")
+                .header("spanid", "7")), clientChain).block();
+        assertTrue(tracer.finishedSpans().isEmpty());
+        assertEquals("42", clientHeaders.get().getFirst("traceid"));
+        assertEquals("7", clientHeaders.get().getFirst("spanid"));
+
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1")), clientChain).block();
+        assertTrue(tracer.finishedSpans().isEmpty());
+        assertNull(clientHeaders.get().getFirst("traceid"));
+    }
+
+    @Test
+    public void testResponseMetrics() {
+        final TracingWebFilter filter = filter();
+        filter.setResponseMetrics(true);
+        final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+        final WebFilterChain writingChain = exchange -> exchange.getResponse().writeWith(Flux.just("hello", " world")
+                .map(chunk -> (DataBuffer) bufferFactory.wrap(chunk.getBytes(StandardCharsets.UTF_8))));
+
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1")), writingChain).block();
+
+        assertEquals(1, tracer.finishedSpans().size());
+        final MockSpan span = tracer.finishedSpans().get(0);
+        assertEquals(11L, span.tags().get(CountingServerHttpResponse.BODY_SIZE));
+        assertEquals(2L, span.tags().get(CountingServerHttpResponse.BODY_CHUNKS));
+        assertTrue(span.tags().get(CountingServerHttpResponse.TIME_TO_FIRST_BYTE) instanceof Long);
+        assertTrue(span.tags().get(CountingServerHttpResponse.WRITE_TIME) instanceof Long);
+    }
+
+    @Test
+    public void testResponseMetricsFlushedBody() {
+        final TracingWebFilter filter = filter();
+        filter.setResponseMetrics(true);
+        final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+        final WebFilterChain flushingChain = exchange -> exchange.getResponse().writeAndFlushWith(Flux.range(0, 3)
+                .map(i -> Flux.just("data:" + i, "\n\n")
+                        .map(chunk -> (DataBuffer) bufferFactory.wrap(chunk.getBytes(StandardCharsets.UTF_8)))));
+
+        final MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1"));
+        filter.filter(exchange, flushingChain).block();
+
+        final MockSpan span = tracer.finishedSpans().get(0);
+        assertEquals(24L, span.tags().get(CountingServerHttpResponse.BODY_SIZE));
+        assertEquals(6L, span.tags().get(CountingServerHttpResponse.BODY_CHUNKS));
+        assertEquals("data:0\n\ndata:1\n\ndata:2\n\n", exchange.getResponse().getBodyAsString().block());
+    }
+
+    @Test
+    public void testResponseMetricsFlushedScalarBody() {
+        final TracingWebFilter filter = filter();
+        filter.setResponseMetrics(true);
+        final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+        final WebFilterChain flushingChain = exchange -> exchange.getResponse().writeAndFlushWith(Flux.range(0, 3)
+                .map(i -> i == 1 ? Mono.<DataBuffer>empty()
+                        : Mono.just((DataBuffer) bufferFactory.wrap(("data:" + i).getBytes(StandardCharsets.UTF_8)))));
+
+        final MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1"));
+        filter.filter(exchange, flushingChain).block();
+
+        final MockSpan span = tracer.finishedSpans().get(0);
+        assertEquals(12L, span.tags().get(CountingServerHttpResponse.BODY_SIZE));
+        assertEquals(2L, span.tags().get(CountingServerHttpResponse.BODY_CHUNKS));
+        assertEquals("data:0data:2", exchange.getResponse().getBodyAsString().block());
+    }
+
+    @Test
+    public void testResponseMetricsEmptyBody() {
+        final TracingWebFilter filter = filter();
+        filter.setResponseMetrics(true);
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1")),
+                exchange -> exchange.getResponse().setComplete()).block();
+
+        final MockSpan span = tracer.finishedSpans().get(0);
+        assertEquals(0L, span.tags().get(CountingServerHttpResponse.BODY_SIZE));
+        assertNull(span.tags().get(CountingServerHttpResponse.TIME_TO_FIRST_BYTE));
+    }
+
+    @Test
+    public void testStreamingSpans() {
+        final TracingWebFilter filter = filter();
+        filter.setStreamingSpans(true);
+        filter.setStreamingSummary(2, 60_000);
+        final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+        final WebFilterChain streamingChain = exchange -> {
+            exchange.getResponse().getHeaders().setContentType(MediaType.TEXT_EVENT_STREAM);
+            return exchange.getResponse().writeAndFlushWith(Flux.range(0, 5)
+                    .map(i -> Mono.just((DataBuffer) bufferFactory.wrap(("data:" + i + "\n\n")
+                            .getBytes(StandardCharsets.UTF_8)))));
+        };
+
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1")), streamingChain).block();
+
+        assertEquals(4, tracer.finishedSpans().size());
+        final MockSpan setup = tracer.finishedSpans().get(0);
+        assertEquals(MediaType.TEXT_EVENT_STREAM.toString(),
+                setup.tags().get(StreamingServerHttpResponse.STREAM_MEDIA_TYPE));
+        for (int window = 0; window < 3; window++) {
+            final MockSpan summary = tracer.finishedSpans().get(window + 1);
+            assertEquals(StreamingServerHttpResponse.STREAM_OPERATION_NAME, summary.operationName());
+            assertEquals(References.FOLLOWS_FROM, summary.references().get(0).getReferenceType());
+            assertEquals(setup.context().spanId(), summary.references().get(0).getContext().spanId());
+            assertEquals((long) window, summary.tags().get(StreamingServerHttpResponse.STREAM_WINDOW));
+            assertEquals(window < 2 ? 2L : 1L, summary.tags().get(StreamingServerHttpResponse.STREAM_ELEMENTS));
+            assertEquals(window < 2 ? 16L : 8L, summary.tags().get(StreamingServerHttpResponse.STREAM_BYTES));
+        }
+        assertEquals("onComplete", tracer.finishedSpans().get(3).tags().get(StreamingServerHttpResponse.STREAM_END));
+    }
+
+    @Test
+    public void testStreamingSpansWithResponseMetrics() {
+        final TracingWebFilter filter = filter();
+        filter.setStreamingSpans(true);
+        filter.setStreamingSummary(2, 60_000);
+        filter.setResponseMetrics(true);
+        final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+        final WebFilterChain streamingChain = exchange -> {
+            exchange.getResponse().getHeaders().setContentType(MediaType.TEXT_EVENT_STREAM);
+            return exchange.getResponse().writeAndFlushWith(Flux.range(0, 3)
+                    .map(i -> Flux.just("data:" + i, "\n\n")
+                            .map(chunk -> (DataBuffer) bufferFactory.wrap(chunk.getBytes(StandardCharsets.UTF_8)))));
+        };
+
+        final MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1"));
+        filter.filter(exchange, streamingChain).block();
+
+        assertEquals(3, tracer.finishedSpans().size());
+        assertEquals(2L, tracer.finishedSpans().get(1).tags().get(StreamingServerHttpResponse.STREAM_ELEMENTS));
+        assertEquals(16L, tracer.finishedSpans().get(1).tags().get(StreamingServerHttpResponse.STREAM_BYTES));
+        assertEquals(1L, tracer.finishedSpans().get(2).tags().get(StreamingServerHttpResponse.STREAM_ELEMENTS));
+        assertEquals(8L, tracer.finishedSpans().get(2).tags().get(StreamingServerHttpResponse.STREAM_BYTES));
+        assertEquals("data:0\n\ndata:1\n\ndata:2\n\n", exchange.getResponse().getBodyAsString().block());
+    }
+
+    @Test
+    public void testStreamingSpansIgnoreOtherMediaTypes() {
+        final TracingWebFilter filter = filter();
+        filter.setStreamingSpans(true);
+        final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+        final WebFilterChain writingChain = exchange -> {
+            exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            return exchange.getResponse().writeWith(Flux.just("[]")
+                    .map(chunk -> (DataBuffer) bufferFactory.wrap(chunk.getBytes(StandardCharsets.UTF_8))));
+        };
+
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1")), writingChain).block();
+
+        assertEquals(1, tracer.finishedSpans().size());
+        assertNull(tracer.finishedSpans().get(0).tags().get(StreamingServerHttpResponse.STREAM_MEDIA_TYPE));
+    }
+
+    @Test
+    public void testOverloadNoLogs() {
+        final OverloadProtection protection = new OverloadProtection(1, 1, 2);
+        final TracingWebFilter filter = filter();
+        filter.setOverloadProtection(protection);
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1")),
+                exchange -> Mono.error(new IllegalStateException())).onErrorResume(e -> Mono.empty()).block();
+
+        final MockSpan span = tracer.finishedSpans().get(0);
+        assertEquals("GET", span.tags().get(Tags.HTTP_METHOD.getKey()));
+        assertEquals(true, span.tags().get(Tags.ERROR.getKey()));
+        assertNull(span.tags().get(Tags.HTTP_URL.getKey()));
+        assertTrue(span.logEntries().isEmpty());
+        assertEquals(1, protection.getRequests(OverloadProtection.Level.NO_LOGS));
+        assertEquals(0, protection.getInFlight());
+    }
+
+    @Test
+    public void testOverloadPropagationOnly() {
+        final OverloadProtection protection = new OverloadProtection(1, 1, 1);
+        protection.setKeepContinuedTraces(false);
+        final TracingWebFilter filter = filter();
+        filter.setOverloadProtection(protection);
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1")
+                .header("traceid", "42").header("spanid", "7")), chain).block();
+
+        assertTrue(tracer.finishedSpans().isEmpty());
+        assertTrue(contextSpan.get() instanceof PropagationOnlySpan);
+        assertEquals("42", contextSpan.get().context().toTraceId());
+        assertEquals(1, protection.getRequests(OverloadProtection.Level.PROPAGATION_ONLY));
+        assertEquals(0, protection.getInFlight());
+    }
+
+    @Test
+    public void testOverloadKeepsContinuedTraces() {
+        final OverloadProtection protection = new OverloadProtection(1, 1, 1);
+        final TracingWebFilter filter = filter();
+        filter.setOverloadProtection(protection);
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1")
+                .header("traceid", "42").header("spanid", "7")), chain).block();
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders/2")), chain).block();
+
+        assertEquals(1, tracer.finishedSpans().size());
+        assertEquals("42", tracer.finishedSpans().get(0).context().toTraceId());
+        assertEquals(1, protection.getRequests(OverloadProtection.Level.NO_LOGS));
+        assertEquals(1, protection.getRequests(OverloadProtection.Level.PROPAGATION_ONLY));
+        assertEquals(0, protection.getInFlight());
+    }
+
+    @Test
+    public void testOverloadExitsCancelledRequests() {
+        final OverloadProtection protection = new OverloadProtection(1, 1, 1);
+        final TracingWebFilter filter = filter();
+        filter.setOverloadProtection(protection);
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1")), exchange -> Mono.never())
+                .subscribe().dispose();
+
+        assertEquals(1, protection.getRequests(OverloadProtection.Level.PROPAGATION_ONLY));
+        assertEquals(0, protection.getInFlight());
+    }
+
+    @Test
+    public void testCircuitBreakersSurviveReconfiguration() {
+        final FailingSpanDecorator failing = new FailingSpanDecorator();
+        final TracingWebFilter filter = new TracingWebFilter(tracer, 0, Pattern.compile("/health"),
+                Collections.emptyList(), Collections.singletonList(failing));
+        filter.setDecoratorCircuitBreakers(new DecoratorCircuitBreakers(1, 60_000));
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders/1")), chain).block();
+
+        // the decorator stays disabled, instead of getting a new circuit breaker
+        filter.setResponseMetrics(true);
+        filter.setResponseMetrics(false);
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/orders/2")), chain).block();
+
+        assertEquals(1, failing.calls);
+        assertEquals(2, tracer.finishedSpans().size());
+    }
+
+    private static class FailingSpanDecorator implements WebFluxSpanDecorator {
+        int calls;
+
+        @Override
+        public void onRequest(final ServerWebExchange exchange, final Span span) {
+            calls++;
+            throw new IllegalStateException();
+        }
+
+        @Override
+        public void onResponse(final ServerWebExchange exchange, final Span span) {
+        }
+
+        @Override
+        public void onError(final ServerWebExchange exchange, final Throwable exception, final Span span) {
+        }
+    }
+}